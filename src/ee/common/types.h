@@ -188,6 +188,7 @@ enum PlanNodeType {
     //
     PLAN_NODE_TYPE_NESTLOOP         = 20,
     PLAN_NODE_TYPE_NESTLOOPINDEX    = 21,
+    PLAN_NODE_TYPE_HASHJOIN         = 22,
 
     //
     // Operator Nodes
@@ -502,6 +503,7 @@ enum TaskType {
     TASK_TYPE_INIT_DRID_TRACKER = 8,             // not supported in EE
     TASK_TYPE_RESET_DR_APPLIED_TRACKER_SINGLE = 9, // not supported in EE
     TASK_TYPE_ELASTIC_CHANGE = 10,                 // not supported in EE
+    TASK_TYPE_GET_TABLE_CHANGE_SPHANDLES = 11,
 };
 
 // ------------------------------------------------------------------
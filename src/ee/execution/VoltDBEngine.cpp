@@ -639,6 +639,17 @@ UniqueTempTableResult VoltDBEngine::executePlanFragment(ExecutorVector* executor
 }
 
 NValue VoltDBEngine::callJavaUserDefinedFunction(int32_t functionId, std::vector<NValue>& arguments) {
+    std::vector<std::vector<NValue> > argumentRows(1);
+    argumentRows[0].swap(arguments);
+    std::vector<NValue> results;
+    results.reserve(1);
+    callJavaUserDefinedFunctionBatch(functionId, argumentRows, results);
+    return results[0];
+}
+
+void VoltDBEngine::callJavaUserDefinedFunctionBatch(int32_t functionId,
+                                                    std::vector<std::vector<NValue> >& argumentRows,
+                                                    std::vector<NValue>& results) {
     UserDefinedFunctionInfo *info = findInMapOrNull(functionId, m_functionInfo);
     if (info == NULL) {
         // There must be serious inconsistency in the catalog if this could happen.
@@ -646,17 +657,21 @@ NValue VoltDBEngine::callJavaUserDefinedFunction(int32_t functionId, std::vector
     }
 
     // Estimate the size of the buffer we need. We will put:
-    //   * size of the buffer (function ID + parameters)
+    //   * size of the buffer (function ID + row count + parameters)
     //   * function ID (int32_t)
-    //   * parameters.
-    size_t bufferSizeNeeded = sizeof(int32_t); // size of the function id.
-    for (int i = 0; i < arguments.size(); i++) {
-        // It is very common that the argument we are going to pass is in
-        // a compatible data type which does not exactly match the type that
-        // is defined in the function.
-        // We need to cast it to the target data type before the serialization.
-        arguments[i] = arguments[i].castAs(info->paramTypes[i]);
-        bufferSizeNeeded += arguments[i].serializedSize();
+    //   * row count (int32_t)
+    //   * parameters, row by row.
+    size_t bufferSizeNeeded = 2 * sizeof(int32_t); // size of the function id and the row count.
+    for (int row = 0; row < argumentRows.size(); row++) {
+        std::vector<NValue>& arguments = argumentRows[row];
+        for (int i = 0; i < arguments.size(); i++) {
+            // It is very common that the argument we are going to pass is in
+            // a compatible data type which does not exactly match the type that
+            // is defined in the function.
+            // We need to cast it to the target data type before the serialization.
+            arguments[i] = arguments[i].castAs(info->paramTypes[i]);
+            bufferSizeNeeded += arguments[i].serializedSize();
+        }
     }
 
     // Check buffer size here.
@@ -668,13 +683,17 @@ NValue VoltDBEngine::callJavaUserDefinedFunction(int32_t functionId, std::vector
     }
     resetUDFOutputBuffer();
 
-    // Serialize buffer size, function ID.
+    // Serialize buffer size, function ID, row count.
     m_udfOutput.writeInt(bufferSizeNeeded);
     m_udfOutput.writeInt(functionId);
+    m_udfOutput.writeInt(static_cast<int32_t>(argumentRows.size()));
 
     // Serialize UDF parameters to the buffer.
-    for (int i = 0; i < arguments.size(); i++) {
-        arguments[i].serializeTo(m_udfOutput);
+    for (int row = 0; row < argumentRows.size(); row++) {
+        std::vector<NValue>& arguments = argumentRows[row];
+        for (int i = 0; i < arguments.size(); i++) {
+            arguments[i].serializeTo(m_udfOutput);
+        }
     }
     // Make sure we did the correct size calculation.
     assert(bufferSizeNeeded + sizeof(int32_t) == m_udfOutput.position());
@@ -686,10 +705,12 @@ NValue VoltDBEngine::callJavaUserDefinedFunction(int32_t functionId, std::vector
     // Note that the buffer may already be resized after the execution.
     ReferenceSerializeInputBE udfResultIn(m_udfBuffer, m_udfBufferCapacity);
     if (returnCode == 0) {
-        // After the the invocation, read the return value from the buffer.
-        NValue retval = ValueFactory::getNValueOfType(info->returnType);
-        retval.deserializeFromAllocateForStorage(udfResultIn, &m_stringPool);
-        return retval;
+        // After the the invocation, read the return values from the buffer.
+        for (int row = 0; row < argumentRows.size(); row++) {
+            NValue retval = ValueFactory::getNValueOfType(info->returnType);
+            retval.deserializeFromAllocateForStorage(udfResultIn, &m_stringPool);
+            results.push_back(retval);
+        }
     }
     else {
         // Error handling
@@ -2767,6 +2788,28 @@ void VoltDBEngine::collectDRTupleStreamStateInfo() {
     }
 }
 
+/*
+ * The last changed sp handle of each persistent table, by the relative index of
+ * the table in the catalog
+ */
+void VoltDBEngine::collectTableChangeSpHandles() {
+    std::vector<std::pair<int32_t, int64_t> > spHandles;
+    typedef std::pair<CatalogId, Table*> TablePair;
+    BOOST_FOREACH (TablePair entry, m_tables) {
+        PersistentTable* table = dynamic_cast<PersistentTable*>(entry.second);
+        if (table != NULL) {
+            spHandles.push_back(std::make_pair(entry.first, table->lastChangedSpHandle()));
+        }
+    }
+    std::size_t size = sizeof(int32_t) + spHandles.size() * (sizeof(int32_t) + sizeof(int64_t));
+    m_resultOutput.writeInt(static_cast<int32_t>(size));
+    m_resultOutput.writeInt(static_cast<int32_t>(spHandles.size()));
+    for (std::size_t i = 0; i < spHandles.size(); ++i) {
+        m_resultOutput.writeInt(spHandles[i].first);
+        m_resultOutput.writeLong(spHandles[i].second);
+    }
+}
+
 int64_t VoltDBEngine::applyBinaryLog(int64_t txnId,
         int64_t spHandle,
         int64_t lastCommittedSpHandle,
@@ -2799,6 +2842,9 @@ void VoltDBEngine::executeTask(TaskType taskType, ReferenceSerializeInputBE &tas
     case TASK_TYPE_GET_DR_TUPLESTREAM_STATE:
         collectDRTupleStreamStateInfo();
         break;
+    case TASK_TYPE_GET_TABLE_CHANGE_SPHANDLES:
+        collectTableChangeSpHandles();
+        break;
     case TASK_TYPE_SET_DR_SEQUENCE_NUMBERS: {
         int64_t partitionSequenceNumber = taskInfo.readLong();
         int64_t mpSequenceNumber = taskInfo.readLong();
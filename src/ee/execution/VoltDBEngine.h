@@ -78,6 +78,8 @@
 #define MAX_PARAM_COUNT 1025 // keep in sync with value in CompiledPlan.java
 // keep in sync with value MAX_BUFFER_SIZE in ExecutionEngineJNI.java
 #define MAX_UDF_BUFFER_SIZE 50*1024*1024
+// The most rows of arguments sent to a user-defined function in one call into Java
+#define MAX_UDF_BATCH_SIZE 1024
 
 namespace catalog {
 class Catalog;
@@ -230,6 +232,12 @@ class __attribute__((visibility("default"))) VoltDBEngine {
         // Call user-defined function
         NValue callJavaUserDefinedFunction(int32_t functionId, std::vector<NValue>& arguments);
 
+        // Call user-defined function once for each row of arguments, in a single call into Java.
+        // The results are appended to results in row order.
+        void callJavaUserDefinedFunctionBatch(int32_t functionId,
+                                              std::vector<std::vector<NValue> >& argumentRows,
+                                              std::vector<NValue>& results);
+
         // Created to transition existing unit tests to context abstraction.
         // If using this somewhere new, consider if you're being lazy.
         void updateExecutorContextUndoQuantumForTest();
@@ -583,6 +591,8 @@ class __attribute__((visibility("default"))) VoltDBEngine {
 
         void collectDRTupleStreamStateInfo();
 
+        void collectTableChangeSpHandles();
+
         void setCurrentUndoQuantum(voltdb::UndoQuantum* undoQuantum);
 
         // -------------------------------------------------
@@ -57,6 +57,7 @@
 #include "executors/tablecountexecutor.h"
 #include "executors/insertexecutor.h"
 #include "executors/largeorderbyexecutor.h"
+#include "executors/hashjoinexecutor.h"
 #include "executors/limitexecutor.h"
 #include "executors/materializeexecutor.h"
 #include "executors/materializedscanexecutor.h"
@@ -109,6 +110,8 @@ AbstractExecutor* getNewExecutor(
          return new NestLoopExecutor(engine, abstract_node);
       case PLAN_NODE_TYPE_NESTLOOPINDEX:
          return new NestLoopIndexExecutor(engine, abstract_node);
+      case PLAN_NODE_TYPE_HASHJOIN:
+         return new HashJoinExecutor(engine, abstract_node);
       case PLAN_NODE_TYPE_ORDERBY:
          if (isLargeQuery) {
             return new LargeOrderByExecutor(engine, abstract_node);
@@ -0,0 +1,397 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+#include "hashjoinexecutor.h"
+
+#include "common/LargeTempTableBlockCache.h"
+#include "common/ValuePeeker.hpp"
+#include "execution/ExecutorVector.h"
+#include "execution/ProgressMonitorProxy.h"
+#include "executors/aggregateexecutor.h"
+#include "executors/executorutil.h"
+#include "expressions/abstractexpression.h"
+#include "plannodes/hashjoinnode.h"
+#include "plannodes/limitnode.h"
+#include "storage/LargeTempTable.h"
+#include "storage/LargeTempTableBlock.h"
+#include "storage/tablefactory.h"
+#include "storage/tableiterator.h"
+
+#include <boost/foreach.hpp>
+
+#include <algorithm>
+#include <memory>
+
+using namespace std;
+using namespace voltdb;
+
+namespace {
+
+/**
+ * Pins the large temp table blocks that a hash table points into, so they stay
+ * in memory at a fixed address until the probe is done, however it ends.
+ */
+class PinnedBlocks {
+public:
+    PinnedBlocks(LargeTempTableBlockCache* lttBlockCache) : m_lttBlockCache(lttBlockCache) { }
+
+    ~PinnedBlocks() {
+        BOOST_FOREACH(auto blockId, m_blockIds) {
+            m_lttBlockCache->unpinBlock(blockId);
+        }
+    }
+
+    LargeTempTableBlock* pin(LargeTempTableBlockId blockId) {
+        LargeTempTableBlock* block = m_lttBlockCache->fetchBlock(blockId);
+        m_blockIds.push_back(blockId);
+        return block;
+    }
+
+private:
+    LargeTempTableBlockCache* const m_lttBlockCache;
+    std::vector<LargeTempTableBlockId> m_blockIds;
+};
+
+typedef std::vector<std::unique_ptr<LargeTempTable> > Partitions;
+
+}
+
+bool HashJoinExecutor::p_init(AbstractPlanNode* abstractNode,
+                              const ExecutorVector& executorVector)
+{
+    VOLT_TRACE("init HashJoin Executor");
+
+    HashJoinPlanNode* node = dynamic_cast<HashJoinPlanNode*>(m_abstractNode);
+    assert(node);
+    assert(node->getOuterHashExpressions().size() == node->getInnerHashExpressions().size());
+
+    // Init parent first
+    if (!AbstractJoinExecutor::p_init(abstractNode, executorVector)) {
+        return false;
+    }
+
+    // NULL tuples for left joins
+    p_init_null_tuples(node->getInputTable(), node->getInputTable(1));
+
+    return true;
+}
+
+bool HashJoinExecutor::hashKeys(const std::vector<AbstractExpression*>& keyExpressions,
+                                const TableTuple* outerTuple, const TableTuple* innerTuple,
+                                std::size_t& hash)
+{
+    hash = 0;
+    for (int i = 0, cnt = (int)keyExpressions.size(); i < cnt; i++) {
+        NValue value = keyExpressions[i]->eval(outerTuple, innerTuple);
+        if (value.isNull()) {
+            return false;
+        }
+        // The planner pairs up integers of any width, so hash them all
+        // as BIGINT to make equal values of different types collide.
+        if (isIntegralType(ValuePeeker::peekValueType(value))) {
+            boost::hash_combine(hash, ValuePeeker::peekAsBigInt(value));
+        }
+        else {
+            value.hashCombine(hash);
+        }
+    }
+    return true;
+}
+
+bool HashJoinExecutor::p_execute(const NValueArray &params) {
+    VOLT_DEBUG("executing HashJoin...");
+
+    HashJoinPlanNode* node = dynamic_cast<HashJoinPlanNode*>(m_abstractNode);
+    assert(node);
+    assert(node->getInputTableCount() == 2);
+
+    // output table must be a temp table
+    assert(m_tmpOutputTable);
+
+    Table* outer_table = node->getInputTable();
+    assert(outer_table);
+
+    Table* inner_table = node->getInputTable(1);
+    assert(inner_table);
+
+    VOLT_TRACE ("input table left:\n %s", outer_table->debug().c_str());
+    VOLT_TRACE ("input table right:\n %s", inner_table->debug().c_str());
+
+    const std::vector<AbstractExpression*>& innerHashExpressions = node->getInnerHashExpressions();
+
+    LimitPlanNode* limit_node = dynamic_cast<LimitPlanNode*>(node->getInlinePlanNode(PLAN_NODE_TYPE_LIMIT));
+    int limit = CountingPostfilter::NO_LIMIT;
+    int offset = CountingPostfilter::NO_OFFSET;
+    if (limit_node) {
+        limit_node->getLimitAndOffsetByReference(params, limit, offset);
+    }
+
+    ProgressMonitorProxy pmp(m_engine->getExecutorContext(), this);
+    CountingPostfilter postfilter(m_tmpOutputTable, node->getWherePredicate(), limit, offset);
+
+    TableTuple join_tuple;
+    if (m_aggExec != NULL) {
+        VOLT_TRACE("Init inline aggregate...");
+        const TupleSchema * aggInputSchema = node->getTupleSchemaPreAgg();
+        join_tuple = m_aggExec->p_execute_init(params, &pmp, aggInputSchema, m_tmpOutputTable, &postfilter);
+    } else {
+        join_tuple = m_tmpOutputTable->tempTuple();
+    }
+
+    LargeTempTable* large_inner_table = dynamic_cast<LargeTempTable*>(inner_table);
+    if (large_inner_table != NULL) {
+        joinLargeInnerTable(large_inner_table, outer_table, postfilter, join_tuple, pmp);
+    }
+    else {
+        //
+        // Build phase: hash every inner tuple on its key values.
+        // Tuples with a NULL key can never satisfy the equality and are left out.
+        //
+        InnerTupleMap innerTuples(inner_table->activeTupleCount());
+        TableTuple inner_tuple(inner_table->schema());
+        TableIterator iterator1 = inner_table->iterator();
+        std::size_t hash;
+        while (iterator1.next(inner_tuple)) {
+            pmp.countdownProgress();
+            if (hashKeys(innerHashExpressions, NULL, &inner_tuple, hash)) {
+                innerTuples.insert(InnerTupleMap::value_type(hash, inner_tuple.address()));
+            }
+        }
+        VOLT_TRACE("hash join built %d entries", (int)innerTuples.size());
+
+        //
+        // Probe phase
+        //
+        TableIterator iterator0 = outer_table->iteratorDeletingAsWeGo();
+        probe(iterator0, innerTuples, NULL, postfilter, join_tuple, pmp);
+    }
+
+    if (m_aggExec != NULL) {
+        m_aggExec->p_execute_finish();
+    }
+
+    return true;
+}
+
+void HashJoinExecutor::joinLargeInnerTable(LargeTempTable* innerTable, Table* outerTable,
+                                           CountingPostfilter& postfilter, TableTuple& joinTuple,
+                                           ProgressMonitorProxy& pmp)
+{
+    HashJoinPlanNode* node = static_cast<HashJoinPlanNode*>(m_abstractNode);
+    AbstractExpression* preJoinPredicate = node->getPreJoinPredicate();
+    const std::vector<AbstractExpression*>& outerHashExpressions = node->getOuterHashExpressions();
+    const std::vector<AbstractExpression*>& innerHashExpressions = node->getInnerHashExpressions();
+
+    // A hash table may pin every free cache block but two:
+    // one for the outer scan and one for the output.
+    LargeTempTableBlockCache* lttBlockCache = ExecutorContext::getExecutorContext()->lttBlockCache();
+    int freeBlocks = lttBlockCache->maxCacheSizeInBlocks() - (int)lttBlockCache->numPinnedEntries();
+    int blocksPerChunk = std::max(1, freeBlocks - 2);
+
+    // Partitioning writes to every partition of one input while scanning it,
+    // so leave a block for the scan.
+    int innerBlocks = (int)innerTable->allocatedBlockCount();
+    int partitionCount = std::min(freeBlocks - 1, (innerBlocks + blocksPerChunk - 1) / blocksPerChunk);
+    if (partitionCount < 2) {
+        joinInChunks(innerTable, outerTable, blocksPerChunk, postfilter, joinTuple, pmp);
+        return;
+    }
+    VOLT_TRACE("hash join partitioning %d inner blocks %d ways", innerBlocks, partitionCount);
+
+    Partitions innerPartitions;
+    Partitions outerPartitions;
+    for (int i = 0; i < partitionCount; ++i) {
+        innerPartitions.emplace_back(TableFactory::buildCopiedLargeTempTable("hashjoin_inner", innerTable));
+        outerPartitions.emplace_back(TableFactory::buildCopiedLargeTempTable("hashjoin_outer", outerTable));
+    }
+
+    // Rows go to the same partition of each input when their keys are equal.
+    // Inner rows with a NULL key can never match and are dropped.
+    std::size_t hash;
+    TableTuple innerTuple(innerTable->schema());
+    TableIterator innerIterator = innerTable->iteratorDeletingAsWeGo();
+    while (innerIterator.next(innerTuple)) {
+        pmp.countdownProgress();
+        if (hashKeys(innerHashExpressions, NULL, &innerTuple, hash)) {
+            innerPartitions[hash % partitionCount]->insertTempTuple(innerTuple);
+        }
+    }
+    BOOST_FOREACH(auto& partition, innerPartitions) {
+        partition->finishInserts();
+    }
+
+    // Outer rows that can match nothing only matter to a left join,
+    // which outputs them null-extended with the rest of any partition.
+    TableTuple outerTuple(outerTable->schema());
+    TableIterator outerIterator = outerTable->iteratorDeletingAsWeGo();
+    while (outerIterator.next(outerTuple)) {
+        pmp.countdownProgress();
+        if ((preJoinPredicate == NULL || preJoinPredicate->eval(&outerTuple, NULL).isTrue()) &&
+                hashKeys(outerHashExpressions, &outerTuple, NULL, hash)) {
+            outerPartitions[hash % partitionCount]->insertTempTuple(outerTuple);
+        }
+        else if (m_joinType != JOIN_TYPE_INNER) {
+            outerPartitions[0]->insertTempTuple(outerTuple);
+        }
+    }
+    BOOST_FOREACH(auto& partition, outerPartitions) {
+        partition->finishInserts();
+    }
+
+    for (int i = 0; i < partitionCount && postfilter.isUnderLimit(); ++i) {
+        joinInChunks(innerPartitions[i].get(), outerPartitions[i].get(), blocksPerChunk,
+                     postfilter, joinTuple, pmp);
+        innerPartitions[i].reset();
+        outerPartitions[i].reset();
+    }
+}
+
+void HashJoinExecutor::joinInChunks(LargeTempTable* innerTable, Table* outerTable, int blocksPerChunk,
+                                    CountingPostfilter& postfilter, TableTuple& joinTuple,
+                                    ProgressMonitorProxy& pmp)
+{
+    if (m_joinType == JOIN_TYPE_INNER && innerTable->activeTupleCount() == 0) {
+        return;
+    }
+
+    HashJoinPlanNode* node = static_cast<HashJoinPlanNode*>(m_abstractNode);
+    const std::vector<AbstractExpression*>& innerHashExpressions = node->getInnerHashExpressions();
+    LargeTempTableBlockCache* lttBlockCache = ExecutorContext::getExecutorContext()->lttBlockCache();
+    const TupleSchema* innerSchema = innerTable->schema();
+    const std::vector<LargeTempTableBlockId> blockIds = innerTable->getBlockIds();
+    std::size_t hash;
+
+    // When more than one chunk is needed, the outer rows of a left join that matched
+    // some chunk are flagged by ordinal, and the others are output after the last chunk.
+    bool oneChunk = blockIds.size() <= blocksPerChunk;
+    std::vector<bool> outerMatched;
+    if (! oneChunk && m_joinType != JOIN_TYPE_INNER) {
+        outerMatched.resize(outerTable->activeTupleCount());
+    }
+
+    std::size_t chunkStart = 0;
+    do {
+        std::size_t chunkEnd = std::min(chunkStart + blocksPerChunk, blockIds.size());
+        PinnedBlocks pinnedBlocks(lttBlockCache);
+        InnerTupleMap innerTuples;
+        for (std::size_t i = chunkStart; i < chunkEnd; ++i) {
+            LargeTempTableBlock* block = pinnedBlocks.pin(blockIds[i]);
+            BOOST_FOREACH(auto& tuple, *block) {
+                pmp.countdownProgress();
+                TableTuple innerTuple = tuple.toTableTuple(innerSchema);
+                if (hashKeys(innerHashExpressions, NULL, &innerTuple, hash)) {
+                    innerTuples.insert(InnerTupleMap::value_type(hash, innerTuple.address()));
+                }
+            }
+        }
+        VOLT_TRACE("hash join built %d entries from blocks %d to %d",
+                   (int)innerTuples.size(), (int)chunkStart, (int)chunkEnd);
+
+        if (oneChunk) {
+            TableIterator outerIterator = outerTable->iteratorDeletingAsWeGo();
+            probe(outerIterator, innerTuples, NULL, postfilter, joinTuple, pmp);
+            return;
+        }
+
+        TableIterator outerIterator = outerTable->iterator();
+        probe(outerIterator, innerTuples, outerMatched.empty() ? NULL : &outerMatched,
+              postfilter, joinTuple, pmp);
+        chunkStart = chunkEnd;
+    } while (chunkStart < blockIds.size() && postfilter.isUnderLimit());
+
+    if (! outerMatched.empty()) {
+        TableTuple outerTuple(outerTable->schema());
+        TableIterator outerIterator = outerTable->iteratorDeletingAsWeGo();
+        for (std::size_t i = 0; postfilter.isUnderLimit() && outerIterator.next(outerTuple); ++i) {
+            pmp.countdownProgress();
+            if (! outerMatched[i]) {
+                outputNullExtended(outerTuple, postfilter, joinTuple, pmp);
+            }
+        }
+    }
+}
+
+void HashJoinExecutor::probe(TableIterator& outerIterator, const InnerTupleMap& innerTuples,
+                             std::vector<bool>* outerMatched, CountingPostfilter& postfilter,
+                             TableTuple& joinTuple, ProgressMonitorProxy& pmp)
+{
+    HashJoinPlanNode* node = static_cast<HashJoinPlanNode*>(m_abstractNode);
+    AbstractExpression* preJoinPredicate = node->getPreJoinPredicate();
+    AbstractExpression* joinPredicate = node->getJoinPredicate();
+    const std::vector<AbstractExpression*>& outerHashExpressions = node->getOuterHashExpressions();
+
+    Table* outer_table = node->getInputTable();
+    Table* inner_table = node->getInputTable(1);
+    int outer_cols = outer_table->columnCount();
+    int inner_cols = inner_table->columnCount();
+    TableTuple outer_tuple(outer_table->schema());
+    TableTuple inner_tuple(inner_table->schema());
+    std::size_t hash;
+
+    for (std::size_t ordinal = 0; postfilter.isUnderLimit() && outerIterator.next(outer_tuple); ++ordinal) {
+        pmp.countdownProgress();
+
+        joinTuple.setNValues(0, outer_tuple, 0, outer_cols);
+
+        bool outerMatch = false;
+        if ((preJoinPredicate == NULL || preJoinPredicate->eval(&outer_tuple, NULL).isTrue()) &&
+                hashKeys(outerHashExpressions, &outer_tuple, NULL, hash)) {
+            std::pair<InnerTupleMap::const_iterator, InnerTupleMap::const_iterator> candidates =
+                innerTuples.equal_range(hash);
+            for (InnerTupleMap::const_iterator it = candidates.first;
+                    it != candidates.second && postfilter.isUnderLimit(); ++it) {
+                pmp.countdownProgress();
+                inner_tuple.move(it->second);
+                // The join predicate includes the key equalities, which weeds out collisions
+                if (joinPredicate == NULL || joinPredicate->eval(&outer_tuple, &inner_tuple).isTrue()) {
+                    outerMatch = true;
+                    if (postfilter.eval(&outer_tuple, &inner_tuple)) {
+                        joinTuple.setNValues(outer_cols, inner_tuple, 0, inner_cols);
+                        outputTuple(postfilter, joinTuple, pmp);
+                    }
+                }
+            }
+        }
+
+        //
+        // Left Outer Join
+        //
+        if (m_joinType != JOIN_TYPE_INNER) {
+            if (outerMatched != NULL) {
+                if (outerMatch) {
+                    (*outerMatched)[ordinal] = true;
+                }
+            }
+            else if (!outerMatch) {
+                outputNullExtended(outer_tuple, postfilter, joinTuple, pmp);
+            }
+        }
+    }
+}
+
+void HashJoinExecutor::outputNullExtended(const TableTuple& outerTuple, CountingPostfilter& postfilter,
+                                          TableTuple& joinTuple, ProgressMonitorProxy& pmp)
+{
+    HashJoinPlanNode* node = static_cast<HashJoinPlanNode*>(m_abstractNode);
+    const TableTuple& null_inner_tuple = m_null_inner_tuple.tuple();
+    if (postfilter.isUnderLimit() && postfilter.eval(&outerTuple, &null_inner_tuple)) {
+        int outer_cols = node->getInputTable()->columnCount();
+        int inner_cols = node->getInputTable(1)->columnCount();
+        joinTuple.setNValues(0, outerTuple, 0, outer_cols);
+        joinTuple.setNValues(outer_cols, null_inner_tuple, 0, inner_cols);
+        outputTuple(postfilter, joinTuple, pmp);
+    }
+}
@@ -0,0 +1,98 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+#ifndef HSTOREHASHJOINEXECUTOR_H
+#define HSTOREHASHJOINEXECUTOR_H
+
+#include "common/common.h"
+#include "executors/abstractjoinexecutor.h"
+
+#include <boost/unordered_map.hpp>
+
+#include <vector>
+
+namespace voltdb {
+
+class AbstractExpression;
+struct CountingPostfilter;
+class LargeTempTable;
+class ProgressMonitorProxy;
+class TableIterator;
+
+/**
+ * Executes an equi-join by building a hash table over the inner input table
+ * and probing it with each outer tuple. Candidates found by the probe are
+ * re-checked against the full join predicate, so colliding keys are harmless.
+ *
+ * In a large query the inputs are large temp tables, whose blocks may be stored
+ * to disk. The hash table then points into inner blocks pinned in the block cache.
+ * An inner input with more blocks than the cache can pin is first split by key hash
+ * into partitions of both inputs, and the matching partitions are joined in turn.
+ * An inner partition that is still too big is hashed a chunk of blocks at a time,
+ * with a scan of the outer partition for each chunk.
+ */
+class HashJoinExecutor : public AbstractJoinExecutor {
+    public:
+        HashJoinExecutor(VoltDBEngine *engine, AbstractPlanNode* abstract_node) :
+            AbstractJoinExecutor(engine, abstract_node) { }
+    private:
+        // Maps the hash of the inner key values to the address of an inner tuple
+        typedef boost::unordered_multimap<std::size_t, char*> InnerTupleMap;
+
+        bool p_init(AbstractPlanNode*, const ExecutorVector& executorVector);
+        bool p_execute(const NValueArray &params);
+
+        /** Join a large temp table inner input, partitioning both inputs if it is too big. */
+        void joinLargeInnerTable(LargeTempTable* innerTable, Table* outerTable,
+                                 CountingPostfilter& postfilter, TableTuple& joinTuple,
+                                 ProgressMonitorProxy& pmp);
+
+        /**
+         * Join a large temp table inner input by hashing as many of its blocks at a time
+         * as the block cache can keep pinned next to the outer scan and the output.
+         */
+        void joinInChunks(LargeTempTable* innerTable, Table* outerTable, int blocksPerChunk,
+                          CountingPostfilter& postfilter, TableTuple& joinTuple,
+                          ProgressMonitorProxy& pmp);
+
+        /**
+         * Probe the hash table with each outer tuple and output the joined rows.
+         * If outerMatched is NULL, the outer rows of a left join that match no inner row
+         * are output null-extended right away. Otherwise the ordinal of each outer row that
+         * matched is flagged in outerMatched, and the caller outputs the others once all
+         * the inner rows have been probed.
+         */
+        void probe(TableIterator& outerIterator, const InnerTupleMap& innerTuples,
+                   std::vector<bool>* outerMatched, CountingPostfilter& postfilter,
+                   TableTuple& joinTuple, ProgressMonitorProxy& pmp);
+
+        /** Output an outer row of a left join with NULLs for the inner columns. */
+        void outputNullExtended(const TableTuple& outerTuple, CountingPostfilter& postfilter,
+                                TableTuple& joinTuple, ProgressMonitorProxy& pmp);
+
+        /**
+         * Hash the key values of a tuple. The outer keys reference the first tuple
+         * and the inner keys the second, as they do in the join predicate.
+         * Returns false if any key value is NULL, in which case no row can match.
+         */
+        static bool hashKeys(const std::vector<AbstractExpression*>& keyExpressions,
+                             const TableTuple* outerTuple, const TableTuple* innerTuple,
+                             std::size_t& hash);
+};
+
+}
+
+#endif
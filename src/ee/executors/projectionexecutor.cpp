@@ -45,6 +45,7 @@
 
 #include "projectionexecutor.h"
 #include "expressions/expressionutil.h"
+#include "expressions/functionexpression.h"
 #include "plannodes/projectionnode.h"
 #include "storage/tableiterator.h"
 #include "storage/tablefactory.h"
@@ -85,6 +86,20 @@ bool ProjectionExecutor::p_init(AbstractPlanNode *abstractNode,
         m_needsSubstitutePtr[ctr] = node->getOutputColumnExpressions()[ctr]->hasParameter();
     }
 
+    m_udfColumns.clear();
+    m_udfFunctionIds.clear();
+    m_udfArguments.clear();
+    if (m_allTupleArray == NULL && m_allParamArray == NULL) {
+        for (int ctr = 0; ctr < m_columnCount; ctr++) {
+            int functionId = userDefinedFunctionId(expression_array[ctr]);
+            if (functionId != -1) {
+                m_udfColumns.push_back(ctr);
+                m_udfFunctionIds.push_back(functionId);
+                m_udfArguments.push_back(expression_array[ctr]->getArgs());
+            }
+        }
+    }
+
 
     m_outputTable = dynamic_cast<AbstractTempTable*>(node->getOutputTable()); //output table should be temptable
 
@@ -125,6 +140,10 @@ bool ProjectionExecutor::p_execute(const NValueArray &params) {
     //
     TableIterator iterator = input_table->iteratorDeletingAsWeGo();
     assert (m_tuple.columnCount() == input_table->columnCount());
+    if ( ! m_udfColumns.empty()) {
+        projectWithBatchedFunctionCalls(iterator);
+        return true;
+    }
     while (iterator.next(m_tuple)) {
         //
         // Project (or replace) values from input tuple
@@ -153,6 +172,73 @@ bool ProjectionExecutor::p_execute(const NValueArray &params) {
     return true;
 }
 
+/*
+ * Project the input rows MAX_UDF_BATCH_SIZE at a time, so that each user-defined
+ * function column costs one call into Java per batch rather than one per row.
+ * The other columns and the function arguments are evaluated as the rows are read
+ * and copied out of the input rows, which the iterator may release as it moves on.
+ *
+ * Only output columns which are themselves function calls are batched. Functions
+ * nested in other expressions, and functions in predicates (WHERE, join and HAVING
+ * clauses), are evaluated a row at a time: a predicate decides whether a row goes on
+ * at all, so batching it would mean buffering the rows of every scan and join.
+ */
+void ProjectionExecutor::projectWithBatchedFunctionCalls(TableIterator& iterator) {
+    std::vector<std::vector<NValue> > outputRows;
+    std::vector<std::vector<std::vector<NValue> > > argumentRows(m_udfColumns.size());
+    std::vector<NValue> results;
+    results.reserve(MAX_UDF_BATCH_SIZE);
+    std::vector<bool> isUDFColumn(m_columnCount, false);
+    for (int i = 0; i < m_udfColumns.size(); i++) {
+        isUDFColumn[m_udfColumns[i]] = true;
+    }
+
+    bool hasMoreRows = true;
+    while (hasMoreRows) {
+        outputRows.clear();
+        for (int i = 0; i < m_udfColumns.size(); i++) {
+            argumentRows[i].clear();
+        }
+        while (outputRows.size() < MAX_UDF_BATCH_SIZE && (hasMoreRows = iterator.next(m_tuple))) {
+            outputRows.push_back(std::vector<NValue>(m_columnCount));
+            std::vector<NValue>& outputRow = outputRows.back();
+            for (int ctr = m_columnCount - 1; ctr >= 0; --ctr) {
+                if ( ! isUDFColumn[ctr]) {
+                    outputRow[ctr] = expression_array[ctr]->eval(&m_tuple, NULL).copyNValue();
+                }
+            }
+            for (int i = 0; i < m_udfColumns.size(); i++) {
+                const std::vector<AbstractExpression*>& args = m_udfArguments[i];
+                argumentRows[i].push_back(std::vector<NValue>(args.size()));
+                std::vector<NValue>& arguments = argumentRows[i].back();
+                for (int arg = 0; arg < args.size(); arg++) {
+                    arguments[arg] = args[arg]->eval(&m_tuple, NULL).copyNValue();
+                }
+            }
+        }
+        if (outputRows.empty()) {
+            break;
+        }
+
+        for (int i = 0; i < m_udfColumns.size(); i++) {
+            results.clear();
+            m_engine->callJavaUserDefinedFunctionBatch(m_udfFunctionIds[i], argumentRows[i], results);
+            assert(results.size() == outputRows.size());
+            for (int row = 0; row < outputRows.size(); row++) {
+                outputRows[row][m_udfColumns[i]] = results[row];
+            }
+        }
+
+        for (int row = 0; row < outputRows.size(); row++) {
+            TableTuple &temp_tuple = m_outputTable->tempTuple();
+            for (int ctr = m_columnCount - 1; ctr >= 0; --ctr) {
+                temp_tuple.setNValue(ctr, outputRows[row][ctr]);
+            }
+            m_outputTable->insertTempTuple(temp_tuple);
+        }
+    }
+}
+
 ProjectionExecutor::~ProjectionExecutor() {
 }
 
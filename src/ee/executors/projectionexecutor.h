@@ -56,6 +56,7 @@
 namespace voltdb {
 
 class AbstractExpression;
+class TableIterator;
 class AbstractTempTable;
 class Table;
 
@@ -74,6 +75,8 @@ class ProjectionExecutor : public AbstractExecutor {
         bool p_execute(const NValueArray &params);
 
     private:
+        void projectWithBatchedFunctionCalls(TableIterator& iterator);
+
         AbstractTempTable* m_outputTable;
         int m_columnCount;
         boost::shared_array<int> m_allTupleArrayPtr;
@@ -86,6 +89,13 @@ class ProjectionExecutor : public AbstractExecutor {
 
         boost::shared_array<AbstractExpression*> expression_array_ptr;
         AbstractExpression** expression_array;
+
+        // Output columns which are calls to Java user-defined functions, their function IDs
+        // and argument expressions. These are evaluated for a batch of input rows per call
+        // into Java.
+        std::vector<int> m_udfColumns;
+        std::vector<int> m_udfFunctionIds;
+        std::vector<std::vector<AbstractExpression*> > m_udfArguments;
 };
 
 }
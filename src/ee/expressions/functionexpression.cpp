@@ -254,6 +254,10 @@ namespace functionexpression {
             return (buffer.str());
          }
 
+         int getFunctionId() const {
+            return m_functionId;
+         }
+
       private:
          int m_functionId;
          const std::vector<AbstractExpression*> m_args;
@@ -654,5 +658,13 @@ AbstractExpression* functionFactory(int functionId, const std::vector<AbstractEx
    return ret;
 }
 
+int userDefinedFunctionId(const AbstractExpression* expression) {
+   using namespace functionexpression;
+   const UserDefinedFunctionExpression* udf = dynamic_cast<const UserDefinedFunctionExpression*>(expression);
+   if (udf == nullptr) {
+      return -1;
+   }
+   return udf->getFunctionId();
+}
 
 }
@@ -34,6 +34,9 @@
 
 namespace voltdb {
    AbstractExpression* functionFactory(int functionId, const std::vector<AbstractExpression*>& arguments);
+   // The ID of the Java user-defined function the expression calls, or -1 if it is not such a call.
+   // The arguments of the call are the expression's getArgs().
+   int userDefinedFunctionId(const AbstractExpression* expression);
    static const int FUNC_POSITION_CHAR                    = 1;     // numeric
    static const int FUNC_POSITION_BINARY                  = 2;
    static const int FUNC_OCCURENCES_REGEX                 = 3;
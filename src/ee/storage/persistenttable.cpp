@@ -120,6 +120,7 @@ PersistentTable::PersistentTable(int partitionColumn,
     , m_tableStreamer()
     , m_failedCompactionCount(0)
     , m_invisibleTuplesPendingDeleteCount(0)
+    , m_lastChangedSpHandle(0)
     , m_surgeon(*this)
     , m_tableForStreamIndexing(NULL)
     , m_drEnabled(drEnabled && !isMaterialized)
@@ -142,6 +143,8 @@ PersistentTable::PersistentTable(int partitionColumn,
     }
 
     ::memcpy(&m_signature, signature, 20);
+    // A new table (including the empty one a truncate swaps in) is a change
+    markChanged();
 }
 
 void PersistentTable::initializeWithColumns(TupleSchema* schema,
@@ -691,6 +694,10 @@ void PersistentTable::swapTableState(PersistentTable* otherTable) {
     m_stats.updateTableName(m_name);
     otherTable->m_stats.updateTableName(otherTable->m_name);
 
+    // Each name now refers to the other table's content
+    markChanged();
+    otherTable->markChanged();
+
     if (m_tableStreamer &&
             m_tableStreamer->hasStreamType(TABLE_STREAM_ELASTIC_INDEX)) {
         // There is Elastic Index work going on and
@@ -815,6 +822,7 @@ void PersistentTable::insertPersistentTuple(TableTuple& source, bool fallible, b
 
 void PersistentTable::doInsertTupleCommon(TableTuple& source, TableTuple& target,
                                         bool fallible, bool shouldDRStream, bool delayTupleDelete) {
+    markChanged();
     if (fallible) {
         // not null checks at first
         FAIL_IF(!checkNulls(target)) {
@@ -930,6 +938,7 @@ void PersistentTable::insertTupleCommon(TableTuple& source, TableTuple& target,
  * strings or create an UndoAction or update a materialized view.
  */
 void PersistentTable::insertTupleForUndo(char* tuple) {
+    markChanged();
     TableTuple target(m_schema);
     target.move(tuple);
     target.setPendingDeleteOnUndoReleaseFalse();
@@ -973,6 +982,7 @@ void PersistentTable::updateTupleWithSpecificIndexes(TableTuple& targetTupleToUp
                                                      bool fallible,
                                                      bool updateDRTimestamp,
                                                      bool fromMigrate) {
+    markChanged();
     UndoQuantum* uq = NULL;
     char* oldTupleData = NULL;
     int tupleLength = targetTupleToUpdate.tupleLength();
@@ -1190,6 +1200,7 @@ void PersistentTable::updateTupleForUndo(char* tupleWithUnwantedValues,
                                          char* sourceTupleDataWithNewValues,
                                          bool revertIndexes,
                                          bool fromMigrate) {
+    markChanged();
     TableTuple matchable(m_schema);
     // Get the address of the tuple in the table from one of the copies on hand.
     // Any TableScan OR a primary key lookup on an already updated index will find the tuple
@@ -1258,6 +1269,7 @@ void PersistentTable::updateTupleForUndo(char* tupleWithUnwantedValues,
 }
 
 void PersistentTable::deleteTuple(TableTuple& target, bool fallible, bool removeMigratingIndex) {
+    markChanged();
     UndoQuantum* uq = ExecutorContext::currentUndoQuantum();
     bool createUndoAction = fallible && (uq != NULL);
 
@@ -1403,6 +1415,7 @@ void PersistentTable::deleteTupleForSchemaChange(TableTuple& target) {
  *     can be used directly.
  */
 void PersistentTable::deleteTupleForUndo(char* tupleData, bool skipLookup) {
+    markChanged();
     TableTuple matchable(tupleData, m_schema);
     TableTuple target(tupleData, m_schema);
     //* enable for debug */ std::cout << "DEBUG: undoing "
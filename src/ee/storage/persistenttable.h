@@ -453,6 +453,11 @@ public:
 
     int tupleLimit() const { return m_tupleLimit; }
 
+    // The sp handle of the last transaction that changed the contents of this table.
+    // Incremental snapshots compare it with the value seen by the previous snapshot
+    // to tell whether the table file of that snapshot can be reused.
+    int64_t lastChangedSpHandle() const { return m_lastChangedSpHandle; }
+
     bool isReplicatedTable() const {
         if (!m_isMaterialized && m_isReplicated != (m_partitionColumn == -1)) {
             VOLT_ERROR("CAUTION: detected inconsistent isReplicate flag. Table name:%s\n", m_name.c_str());
@@ -701,6 +706,13 @@ private:
 
     void deleteTupleFinalize(TableTuple& tuple);
 
+    void markChanged() {
+        ExecutorContext* ec = ExecutorContext::getExecutorContext();
+        if (ec != NULL) {
+            m_lastChangedSpHandle = ec->currentSpHandle();
+        }
+    }
+
     /**
      * Normally this will return the tuple storage to the free list.
      * In the memcheck build it will return the storage to the heap.
@@ -827,6 +839,8 @@ private:
     // This is a testability feature not intended for use in product logic.
     int m_invisibleTuplesPendingDeleteCount;
 
+    int64_t m_lastChangedSpHandle;
+
     // Surgeon passed to classes requiring "deep" access to avoid excessive friendship.
     PersistentTableSurgeon m_surgeon;
 
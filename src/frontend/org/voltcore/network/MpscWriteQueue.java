@@ -0,0 +1,110 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.network;
+
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.voltcore.utils.DeferredSerialization;
+
+/**
+ * Queue of writes waiting to be serialized that any number of threads offer to and
+ * only the network thread of the connection polls from.
+ *
+ * Offering never blocks or retries: the producer swaps its node in as the new tail and
+ * then links the previous tail to it. The consumer may see the tail before it is linked,
+ * in which case it waits for the producer to finish the link, which is a couple of
+ * instructions away.
+ */
+final class MpscWriteQueue {
+
+    private static final class Node {
+        DeferredSerialization m_ds;
+        volatile Node m_next;
+
+        Node(DeferredSerialization ds) {
+            m_ds = ds;
+        }
+    }
+
+    private final AtomicReference<Node> m_tail;
+    // Only used by the consumer, always a node whose write was already polled
+    private Node m_head;
+    // Counted before a write is linked, so never less than the number of linked writes
+    private final AtomicInteger m_size = new AtomicInteger();
+
+    MpscWriteQueue() {
+        m_head = new Node(null);
+        m_tail = new AtomicReference<>(m_head);
+    }
+
+    void offer(DeferredSerialization ds) {
+        final Node node = new Node(ds);
+        m_size.incrementAndGet();
+        final Node prev = m_tail.getAndSet(node);
+        prev.m_next = node;
+    }
+
+    /**
+     * Only called by the consumer
+     * @return the oldest write or null if there is none
+     */
+    DeferredSerialization poll() {
+        Node next = m_head.m_next;
+        if (next == null) {
+            if (m_tail.get() == m_head) {
+                return null;
+            }
+            // A producer swapped in a new tail and is about to link it
+            while ((next = m_head.m_next) == null) {
+                Thread.yield();
+            }
+        }
+        final DeferredSerialization ds = next.m_ds;
+        next.m_ds = null;
+        m_head = next;
+        m_size.decrementAndGet();
+        return ds;
+    }
+
+    /**
+     * Only called by the consumer, move the writes queued so far to the end of a deque.
+     * Writes offered while draining are left for the next drain so that a busy producer
+     * can't keep the consumer here.
+     * @return the number of writes moved
+     */
+    int drainTo(Deque<DeferredSerialization> out) {
+        final int queued = m_size.get();
+        int drained = 0;
+        DeferredSerialization ds;
+        while (drained < queued && (ds = poll()) != null) {
+            out.offer(ds);
+            drained++;
+        }
+        return drained;
+    }
+
+    int size() {
+        return m_size.get();
+    }
+
+    boolean isEmpty() {
+        return m_size.get() == 0;
+    }
+}
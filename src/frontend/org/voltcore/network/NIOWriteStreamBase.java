@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.GatheringByteChannel;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.concurrent.TimeUnit;
 
@@ -39,7 +40,8 @@ import org.voltcore.utils.RateLimitedLogger;
 public abstract class NIOWriteStreamBase {
     protected static final VoltLogger networkLog = new VoltLogger("NETWORK");
 
-    protected boolean m_isShutdown = false;
+    // Producers check this without holding a lock
+    protected volatile boolean m_isShutdown = false;
 
     protected BBContainer m_currentWriteBuffer = null;
 
@@ -48,6 +50,13 @@ public abstract class NIOWriteStreamBase {
      */
     protected final ArrayDeque<BBContainer> m_queuedBuffers = new ArrayDeque<BBContainer>();
 
+    /**
+     * The most buffers handed to the channel in one gathering write
+     */
+    private static final int MAX_GATHERED_BUFFERS = Integer.getInteger("NETWORK_MAX_GATHERED_BUFFERS", 32);
+
+    private final ByteBuffer[] m_gatheredBuffers = new ByteBuffer[MAX_GATHERED_BUFFERS];
+
     protected long m_bytesWritten = 0;
     protected long m_messagesWritten = 0;
 
@@ -109,7 +118,9 @@ public abstract class NIOWriteStreamBase {
             if (serializedSize == DeferredSerialization.EMPTY_MESSAGE_LENGTH) continue;
             BBContainer outCont = m_queuedBuffers.peekLast();
             ByteBuffer outbuf = null;
-            if (outCont == null || !outCont.b().hasRemaining()) {
+            if (outCont == null || outCont.b().remaining() < Math.min(serializedSize, pool.allocationSize())) {
+                // Buffers are written to the channel with gathering writes, so starting a new one
+                // rather than splitting the message across two costs nothing but the unused space
                 outCont = pool.acquire();
                 outCont.b().clear();
                 m_queuedBuffers.offer(outCont);
@@ -129,7 +140,8 @@ public abstract class NIOWriteStreamBase {
                 outbuf.position(outbuf.limit());
                 outbuf.limit(oldLimit);
             } else {
-                // Slow path serialize to heap, and then put in buffers
+                // Slow path for messages larger than a pool buffer, serialize to heap,
+                // and then put in buffers
                 ByteBuffer buf = ByteBuffer.allocate(serializedSize);
                 ds.serialize(buf);
                 checkSloppySerialization(buf, ds);
@@ -158,6 +170,67 @@ public abstract class NIOWriteStreamBase {
         return processedWrites;
     }
 
+    /**
+     * Write the current write buffer and as many queued buffers as fit in one gathering
+     * write to the channel. Buffers that were written completely go back to the pool, and
+     * one that was partially written becomes the current write buffer. Queued buffers stay
+     * open for serialization until they are written to, even if the write fails.
+     * @return the number of bytes written
+     * @throws IOException
+     */
+    protected final long gatherTo(final GatheringByteChannel channel) throws IOException {
+        int count = 0;
+        if (m_currentWriteBuffer != null) {
+            m_gatheredBuffers[count++] = m_currentWriteBuffer.b();
+        }
+        for (BBContainer c : m_queuedBuffers) {
+            if (count == m_gatheredBuffers.length) {
+                break;
+            }
+            final ByteBuffer b = c.b();
+            b.flip();
+            m_gatheredBuffers[count++] = b;
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        try {
+            return channel.write(m_gatheredBuffers, 0, count);
+        } finally {
+            // The buffer positions say how far the write got
+            int i = 0;
+            boolean stalled = false;
+            if (m_currentWriteBuffer != null) {
+                i = 1;
+                if (m_currentWriteBuffer.b().hasRemaining()) {
+                    stalled = true;
+                } else {
+                    m_currentWriteBuffer.discard();
+                    m_currentWriteBuffer = null;
+                    m_messagesWritten++;
+                }
+            }
+            if (!stalled) {
+                for (; i < count && !m_gatheredBuffers[i].hasRemaining(); i++) {
+                    m_queuedBuffers.poll().discard();
+                    m_messagesWritten++;
+                }
+                if (i < count && m_gatheredBuffers[i].position() > 0) {
+                    m_currentWriteBuffer = m_queuedBuffers.poll();
+                    i++;
+                }
+            }
+            // Buffers the write didn't get to go back to being serialized into
+            for (; i < count; i++) {
+                final ByteBuffer b = m_gatheredBuffers[i];
+                b.position(b.limit());
+                b.limit(b.capacity());
+            }
+            Arrays.fill(m_gatheredBuffers, 0, count, null);
+        }
+    }
+
     private static final boolean ASSERT_ON;
     static {
         boolean assertOn = false;
@@ -46,6 +46,10 @@ public class NetworkDBBPool {
         m_allocationSize = SIZE;
     }
 
+    int allocationSize() {
+        return m_allocationSize;
+    }
+
     BBContainer acquire() {
        final BBContainer cont = m_buffers.poll();
         if (cont == null) {
@@ -120,6 +120,11 @@ public class TLSVoltPort extends VoltPort  {
             }
             if (m_writeStream.isEmpty()) {
                 disableWriteSelection();
+                // A write queued without the lock may have just enabled write selection
+                if (!m_writeStream.isEmpty()) {
+                    enableWriteSelection();
+                    return;
+                }
                 if (m_isShuttingDown) {
                     m_channel.close();
                     unregistered();
@@ -52,16 +52,18 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
     protected static final VoltLogger networkLog = new VoltLogger("NETWORK");
 
     /**
-     * Contains messages waiting to be serialized and written to the socket
+     * Contains messages waiting to be serialized and written to the socket. Queueing a
+     * message doesn't take a lock, so the threads responding on a connection don't
+     * contend with each other or with the network thread.
      */
-    private final ArrayDeque<DeferredSerialization> m_queuedWrites1 =
-        new ArrayDeque<DeferredSerialization>();
+    protected final MpscWriteQueue m_queuedWrites = new MpscWriteQueue();
 
-    private final ArrayDeque<DeferredSerialization> m_queuedWrites2 =
+    /**
+     * The messages taken off the queue to be serialized, only used by the network thread
+     */
+    private final ArrayDeque<DeferredSerialization> m_drainedWrites =
         new ArrayDeque<DeferredSerialization>();
 
-    protected ArrayDeque<DeferredSerialization> m_queuedWrites = m_queuedWrites1;
-
     protected final int m_maxQueuedWritesBeforeBackpressure = 100;
 
     private final Runnable m_offBackPressureCallback;
@@ -73,7 +75,7 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
      * Set to -1 when there are no pending writes. If there is a pending write it is set to the time
      * of the last successful write or the time the oldest pending write was queued.
      */
-    protected long m_lastPendingWriteTime = -1;
+    protected volatile long m_lastPendingWriteTime = -1;
 
     VoltNIOWriteStream(Connection port) {
         this(port, null, null, null);
@@ -116,18 +118,9 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
     }
 
     @Override
-    protected synchronized ArrayDeque<DeferredSerialization> getQueuedWrites() {
-        ArrayDeque<DeferredSerialization> oldlist;
-        if (m_queuedWrites.isEmpty()) return m_queuedWrites;
-        if (m_queuedWrites == m_queuedWrites1) {
-            oldlist = m_queuedWrites1;
-            m_queuedWrites = m_queuedWrites2;
-        }
-        else {
-            oldlist = m_queuedWrites2;
-            m_queuedWrites = m_queuedWrites1;
-        }
-        return oldlist;
+    protected ArrayDeque<DeferredSerialization> getQueuedWrites() {
+        m_queuedWrites.drainTo(m_drainedWrites);
+        return m_drainedWrites;
     }
 
     /**
@@ -181,15 +174,18 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
      */
     @Override
     public void enqueue(final DeferredSerialization ds) {
-        synchronized (this) {
-            if (m_isShutdown) {
-                ds.cancel();
-                return;
-            }
-            updateLastPendingWriteTimeAndQueueBackpressure();
-            m_queuedWrites.offer(ds);
-            m_connection.enableWriteSelection();
+        if (m_isShutdown) {
+            ds.cancel();
+            return;
+        }
+        updateLastPendingWriteTimeAndQueueBackpressure();
+        m_queuedWrites.offer(ds);
+        if (m_isShutdown) {
+            // Shutdown may have emptied the queue before the message was added
+            cancelQueuedWrites();
+            return;
         }
+        m_connection.enableWriteSelection();
     }
 
     /**
@@ -202,11 +198,9 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
         m_connection.queueTask(new Runnable() {
             @Override
             public void run() {
-                synchronized (VoltNIOWriteStream.this) {
-                    updateLastPendingWriteTimeAndQueueBackpressure();
-                    m_queuedWrites.offer(ds);
-                    m_connection.enableWriteSelection();
-                }
+                updateLastPendingWriteTimeAndQueueBackpressure();
+                m_queuedWrites.offer(ds);
+                m_connection.enableWriteSelection();
             }
         });
     }
@@ -234,36 +228,38 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
             }
         }
 
-        synchronized (this) {
-            if (m_isShutdown) {
-                return;
-            }
+        if (m_isShutdown) {
+            return;
+        }
 
-            updateLastPendingWriteTimeAndQueueBackpressure();
+        updateLastPendingWriteTimeAndQueueBackpressure();
 
-            m_queuedWrites.offer(new DeferredSerialization() {
-                @Override
-                public void serialize(ByteBuffer outbuf) {
-                    for (ByteBuffer buf : b) {
-                        outbuf.put(buf);
-                    }
+        m_queuedWrites.offer(new DeferredSerialization() {
+            @Override
+            public void serialize(ByteBuffer outbuf) {
+                for (ByteBuffer buf : b) {
+                    outbuf.put(buf);
                 }
+            }
 
-                @Override
-                public void cancel() {}
+            @Override
+            public void cancel() {}
 
-                @Override
-                public int getSerializedSize() {
-                    int sum = 0;
-                    for (ByteBuffer buf : b) {
-                        buf.position(0);
-                        sum += buf.remaining();
-                    }
-                    return sum;
+            @Override
+            public int getSerializedSize() {
+                int sum = 0;
+                for (ByteBuffer buf : b) {
+                    buf.position(0);
+                    sum += buf.remaining();
                 }
-            });
-            m_connection.enableWriteSelection();
+                return sum;
+            }
+        });
+        if (m_isShutdown) {
+            cancelQueuedWrites();
+            return;
         }
+        m_connection.enableWriteSelection();
     }
 
     /**
@@ -273,6 +269,15 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
     @Override
     synchronized void shutdown() {
         super.shutdown();
+        cancelQueuedWrites();
+    }
+
+    /**
+     * Cancel the messages queued after shutdown. The network thread no longer polls the
+     * queue at that point, and holding the lock makes the thread that cancels the only one.
+     */
+    protected synchronized void cancelQueuedWrites() {
+        assert(m_isShutdown);
         DeferredSerialization ds = null;
         while ((ds = m_queuedWrites.poll()) != null) {
             ds.cancel();
@@ -280,7 +285,7 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
     }
 
     @Override
-    public synchronized int calculatePendingWriteDelta(final long now) {
+    public int calculatePendingWriteDelta(final long now) {
         if (m_lastPendingWriteTime == -1) {
             return 0;
         }
@@ -292,7 +297,11 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
             m_lastPendingWriteTime = EstTime.currentTimeMillis();
         }
         if (m_queuedWrites.size() > m_maxQueuedWritesBeforeBackpressure && !m_hadBackPressure) {
-            backpressureStarted();
+            // Backpressure transitions are rare, so they are still made under the lock
+            // the network thread drains the stream with
+            synchronized (this) {
+                backpressureStarted();
+            }
         }
     }
 
@@ -309,10 +318,9 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
     }
 
     /**
-     * Does the work of queueing addititional buffers that have been serialized
-     * and choosing between gathering and regular writes to the channel. Also splits up very large
-     * writes of HeapByteBuffers into many smaller writes so Java doesn't allocate a monster DirectByteBuffer
-     * that will never be freed
+     * Does the work of writing the buffers that have been serialized to the channel, several
+     * at a time with gathering writes. The buffers come from the network pool, so Java never
+     * allocates a monster DirectByteBuffer to copy a large HeapByteBuffer into
      * @param channel
      * @return
      * @throws IOException
@@ -330,26 +338,13 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
                     return bytesWritten;
                 }
 
-                ByteBuffer buffer = null;
-                if (m_currentWriteBuffer == null) {
-                    m_currentWriteBuffer = m_queuedBuffers.poll();
-                    buffer = m_currentWriteBuffer.b();
-                    buffer.flip();
-                } else {
-                    buffer = m_currentWriteBuffer.b();
-                }
-
-                rc = channel.write(buffer);
+                rc = gatherTo(channel);
 
-                //Discard the buffer back to a pool if no data remains
-                if (buffer.hasRemaining()) {
+                //The channel didn't take everything it was given
+                if (m_currentWriteBuffer != null || rc == 0) {
                     if (!m_hadBackPressure) {
                         backpressureStarted();
                     }
-                } else {
-                    m_currentWriteBuffer.discard();
-                    m_currentWriteBuffer = null;
-                    m_messagesWritten++;
                 }
                 bytesWritten += rc;
 
@@ -362,7 +357,8 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
             }
             //Same here I dont know if we do need to do this housekeeping??
             if (!isEmpty()) {
-                if (bytesWritten > 0) {
+                //A message queued while the stream looked empty may have lost its pending time
+                if (bytesWritten > 0 || m_lastPendingWriteTime == -1) {
                     m_lastPendingWriteTime = EstTime.currentTimeMillis();
                 }
             } else {
@@ -237,9 +237,7 @@ public class VoltPort implements Connection
         /*
          * All interactions with write stream must be protected
          * with a lock to ensure that interests ops are consistent with
-         * the state of writes queued to the stream. This prevent
-         * lost queued writes where the write is queued
-         * but the write interest op is not set.
+         * the state of writes queued to the stream.
          */
         synchronized (m_writeStream) {
             /*
@@ -255,6 +253,14 @@ public class VoltPort implements Connection
             if (m_writeStream.isEmpty()) {
                 disableWriteSelection();
 
+                // Writes are queued without the lock, so one may have been queued and
+                // enabled write selection just before it was disabled. Checking again
+                // after disabling prevents losing the queued write.
+                if (!m_writeStream.isEmpty()) {
+                    enableWriteSelection();
+                    return;
+                }
+
                 if (m_isShuttingDown) {
                     m_channel.close();
                     //m_handler.stopped(this);
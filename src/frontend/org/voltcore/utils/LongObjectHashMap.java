@@ -0,0 +1,265 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltcore.utils;
+
+import java.util.Arrays;
+
+import com.google_voltpatches.common.base.Preconditions;
+
+/**
+ * Open addressing hash map from primitive long keys to non-null objects.
+ * Keys are never boxed and, once the table has grown to the working set,
+ * get/put/remove do not allocate. Uses linear probing with backward shift
+ * deletion so there are no tombstones to clean up.
+ *
+ * Not thread safe. Iteration order is unspecified.
+ */
+public class LongObjectHashMap<V> {
+
+    public interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    public interface LongObjectPredicate<V> {
+        boolean test(long key, V value);
+    }
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] m_keys;
+    // A null value marks an empty slot, which is why null values are not allowed
+    private Object[] m_values;
+    private int m_mask;
+    private int m_size;
+    private int m_resizeThreshold;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of entries the map should hold without resizing
+     */
+    public LongObjectHashMap(int expectedSize) {
+        Preconditions.checkArgument(expectedSize >= 0, "expectedSize must be non-negative");
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.min((long) Math.ceil(expectedSize / LOAD_FACTOR), 1 << 30);
+        return Math.max(4, Integer.highestOneBit(Math.max(needed - 1, 1)) << 1);
+    }
+
+    private void allocate(int capacity) {
+        m_keys = new long[capacity];
+        m_values = new Object[capacity];
+        m_mask = capacity - 1;
+        m_resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Murmur3 64-bit finalizer, txnIds and handles share their low order bits
+    private static int slot(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    public boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        final long[] keys = m_keys;
+        final Object[] values = m_values;
+        final int mask = m_mask;
+        for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associate value with key.
+     * @return the previous value for key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Preconditions.checkNotNull(value, "LongObjectHashMap does not allow null values");
+        final long[] keys = m_keys;
+        final Object[] values = m_values;
+        final int mask = m_mask;
+        int i = slot(key, mask);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++m_size > m_resizeThreshold) {
+            rehash(m_keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * @return the value removed, or null if key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        final long[] keys = m_keys;
+        final Object[] values = m_values;
+        final int mask = m_mask;
+        for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                removeAt(i);
+                return previous;
+            }
+        }
+        return null;
+    }
+
+    // Shift following entries of the probe chain back into the hole at index
+    private void removeAt(int index) {
+        final long[] keys = m_keys;
+        final Object[] values = m_values;
+        final int mask = m_mask;
+        int hole = index;
+        for (int i = (hole + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = slot(keys[i], mask);
+            // move the entry if its home slot does not lie cyclically in (hole, i]
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = null;
+        m_size--;
+    }
+
+    private void rehash(int newCapacity) {
+        final long[] oldKeys = m_keys;
+        final Object[] oldValues = m_values;
+        allocate(newCapacity);
+        final int mask = m_mask;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = slot(oldKeys[j], mask);
+                while (m_values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                m_keys[i] = oldKeys[j];
+                m_values[i] = oldValues[j];
+            }
+        }
+    }
+
+    public void clear() {
+        if (m_size > 0) {
+            Arrays.fill(m_values, null);
+            m_size = 0;
+        }
+    }
+
+    /**
+     * Call consumer for every entry. The map must not be modified by the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(LongObjectConsumer<? super V> consumer) {
+        final long[] keys = m_keys;
+        final Object[] values = m_values;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Remove every entry for which predicate returns true. The predicate must
+     * not modify this map.
+     * @return the number of entries removed
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(LongObjectPredicate<? super V> predicate) {
+        final long[] keys = m_keys;
+        final Object[] values = m_values;
+        int removed = 0;
+        // Backward shift can move an entry that wrapped around past the end of the
+        // table into a slot already visited, so start right after an empty slot
+        // where no probe chain can wrap into.
+        int start = 0;
+        while (values[start] != null) {
+            start++;
+        }
+        int i = start;
+        do {
+            i = (i + 1) & m_mask;
+            while (values[i] != null && predicate.test(keys[i], (V) values[i])) {
+                // removeAt may shift a not yet visited entry into slot i
+                removeAt(i);
+                removed++;
+            }
+        } while (i != start);
+        return removed;
+    }
+
+    /**
+     * @return a newly allocated array of the keys currently in the map
+     */
+    public long[] keys() {
+        final long[] result = new long[m_size];
+        int j = 0;
+        for (int i = 0; i < m_values.length; i++) {
+            if (m_values[i] != null) {
+                result[j++] = m_keys[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+}
@@ -31,7 +31,12 @@ public class CommandLogStats extends StatsSource {
         OUTSTANDING_TXNS,
         IN_USE_SEGMENT_COUNT,
         SEGMENT_COUNT,
-        FSYNC_INTERVAL
+        FSYNC_INTERVAL,
+        // Rates and fsync latencies (microseconds) since the previous statistics call
+        TXNS_PER_SECOND,
+        BYTES_PER_SECOND,
+        AVG_FSYNC_LATENCY,
+        MAX_FSYNC_LATENCY
     };
 
     public CommandLogStats(CommandLog commandLog) {
@@ -47,6 +52,10 @@ public class CommandLogStats extends StatsSource {
         columns.add(new VoltTable.ColumnInfo(StatName.IN_USE_SEGMENT_COUNT.name(), VoltType.INTEGER));
         columns.add(new VoltTable.ColumnInfo(StatName.SEGMENT_COUNT.name(), VoltType.INTEGER));
         columns.add(new VoltTable.ColumnInfo(StatName.FSYNC_INTERVAL.name(), VoltType.INTEGER));
+        columns.add(new VoltTable.ColumnInfo(StatName.TXNS_PER_SECOND.name(), VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo(StatName.BYTES_PER_SECOND.name(), VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo(StatName.AVG_FSYNC_LATENCY.name(), VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo(StatName.MAX_FSYNC_LATENCY.name(), VoltType.BIGINT));
     }
 
     @Override
@@ -46,6 +46,7 @@ import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltdb.messaging.FastSerializer;
 import org.voltdb.sysprocs.saverestore.SnapshotUtil;
+import org.voltdb.utils.CompressionCodec;
 import org.voltdb.utils.CompressionService;
 import org.voltdb.utils.PosixAdvise;
 
@@ -86,7 +87,14 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
 
     private volatile long m_bytesWritten = 0;
 
-    private static final Semaphore m_bytesAllowedBeforeSync = new Semaphore((1024 * 1024) * 256);
+    /*
+     * Budget of written but not yet synced bytes shared by all targets. Writers block
+     * once it is exhausted until the sync service catches up.
+     */
+    public static final int SNAPSHOT_INFLIGHT_BUFFER_MEGABYTES =
+            Math.min(2047, Math.max(8, Integer.getInteger("SNAPSHOT_INFLIGHT_BUFFER_MB", 256)));
+    private static final Semaphore m_bytesAllowedBeforeSync =
+            new Semaphore((1024 * 1024) * SNAPSHOT_INFLIGHT_BUFFER_MEGABYTES);
     private final AtomicInteger m_bytesWrittenSinceLastSync = new AtomicInteger(0);
 
     private final ScheduledFuture<?> m_syncTask;
@@ -100,14 +108,36 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
     @SuppressWarnings("unused")
     private final String m_tableName;
 
+    private final CompressionCodec m_codec;
+
     private final AtomicInteger m_outstandingWriteTasks = new AtomicInteger(0);
     private final ReentrantLock m_outstandingWriteTasksLock = new ReentrantLock();
     private final Condition m_noMoreOutstandingWriteTasksCondition =
             m_outstandingWriteTasksLock.newCondition();
 
-    private static final ListeningExecutorService m_es = CoreUtils.getListeningSingleThreadExecutor("Snapshot write service ");
-    static final ListeningScheduledExecutorService m_syncService = MoreExecutors.listeningDecorator(
-            Executors.newSingleThreadScheduledExecutor(CoreUtils.getThreadFactory("Snapshot sync service")));
+    /*
+     * Writes are striped across a pool of single threaded writers. Each target is pinned
+     * to one writer (and the sync thread of the same stripe) so the writes to a file stay
+     * ordered, while different files (tables and sites) can be written concurrently.
+     */
+    public static final int SNAPSHOT_WRITER_THREADS = Math.max(1, Integer.getInteger("SNAPSHOT_WRITER_THREADS",
+            Math.min(4, Math.max(1, CoreUtils.availableProcessors() / 2))));
+    private static final ListeningExecutorService m_writeServices[];
+    private static final ListeningScheduledExecutorService m_syncServices[];
+    private static final AtomicInteger m_nextWriteService = new AtomicInteger(0);
+    static {
+        m_writeServices = new ListeningExecutorService[SNAPSHOT_WRITER_THREADS];
+        m_syncServices = new ListeningScheduledExecutorService[SNAPSHOT_WRITER_THREADS];
+        for (int ii = 0; ii < SNAPSHOT_WRITER_THREADS; ii++) {
+            m_writeServices[ii] = CoreUtils.getListeningSingleThreadExecutor("Snapshot write service " + ii);
+            m_syncServices[ii] = MoreExecutors.listeningDecorator(
+                    Executors.newSingleThreadScheduledExecutor(CoreUtils.getThreadFactory("Snapshot sync service " + ii)));
+        }
+    }
+    static final ListeningScheduledExecutorService m_syncService = m_syncServices[0];
+
+    private final ListeningExecutorService m_es;
+    private final ListeningScheduledExecutorService m_ss;
 
     public static final int SNAPSHOT_SYNC_FREQUENCY = Integer.getInteger("SNAPSHOT_SYNC_FREQUENCY", 500);
     public static final int SNAPSHOT_FADVISE_BYTES = Integer.getInteger("SNAPSHOT_FADVISE_BYTES", 1024 * 1024 * 2);
@@ -133,9 +163,14 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
     public static final UnsynchronizedRateLimiter SNAPSHOT_RATELIMITER =
             UnsynchronizedRateLimiter.create(SNAPSHOT_RATELIMIT_MEGABYTES * 1024.0 * 1024.0, 1, TimeUnit.SECONDS);
 
+    /*
+     * The limiter is shared by every writer thread, and it isn't thread safe on its own
+     */
     public static void enforceSnapshotRateLimit(int permits) {
         if (USE_SNAPSHOT_RATELIMIT) {
-            SNAPSHOT_RATELIMITER.acquire(permits);
+            synchronized (SNAPSHOT_RATELIMITER) {
+                SNAPSHOT_RATELIMITER.acquire(permits);
+            }
         }
     }
 
@@ -163,7 +198,37 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
                 schemaTable,
                 txnId,
                 timestamp,
-                new int[] { 0, 0, 0, 2 });
+                new int[] { 0, 0, 0, 2 },
+                CompressionCodec.SNAPPY);
+    }
+
+    public DefaultSnapshotDataTarget(
+            final File file,
+            final int hostId,
+            final String clusterName,
+            final String databaseName,
+            final String tableName,
+            final int numPartitions,
+            final boolean isReplicated,
+            final List<Integer> partitionIds,
+            final VoltTable schemaTable,
+            final long txnId,
+            final long timestamp,
+            final CompressionCodec codec) throws IOException {
+        this(
+                file,
+                hostId,
+                clusterName,
+                databaseName,
+                tableName,
+                numPartitions,
+                isReplicated,
+                partitionIds,
+                schemaTable,
+                txnId,
+                timestamp,
+                new int[] { 0, 0, 0, 2 },
+                codec);
     }
 
     public DefaultSnapshotDataTarget(
@@ -180,9 +245,44 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
             final long timestamp,
             int version[]
             ) throws IOException {
+        this(
+                file,
+                hostId,
+                clusterName,
+                databaseName,
+                tableName,
+                numPartitions,
+                isReplicated,
+                partitionIds,
+                schemaTable,
+                txnId,
+                timestamp,
+                version,
+                CompressionCodec.SNAPPY);
+    }
+
+    public DefaultSnapshotDataTarget(
+            final File file,
+            final int hostId,
+            final String clusterName,
+            final String databaseName,
+            final String tableName,
+            final int numPartitions,
+            final boolean isReplicated,
+            final List<Integer> partitionIds,
+            final VoltTable schemaTable,
+            final long txnId,
+            final long timestamp,
+            int version[],
+            final CompressionCodec codec
+            ) throws IOException {
         String hostname = CoreUtils.getHostnameOrAddress();
         m_file = file;
         m_tableName = tableName;
+        m_codec = codec;
+        final int service = (m_nextWriteService.getAndIncrement() & Integer.MAX_VALUE) % SNAPSHOT_WRITER_THREADS;
+        m_es = m_writeServices[service];
+        m_ss = m_syncServices[service];
         m_fos = new FileOutputStream(file);
         m_channel = m_fos.getChannel();
         m_needsFinalClose = !isReplicated;
@@ -206,6 +306,7 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
             stringer.keySymbolValuePair("isReplicated", isReplicated);
             stringer.keySymbolValuePair("isCompressed", true);
             stringer.keySymbolValuePair("checksumType", "CRC32C");
+            stringer.keySymbolValuePair("compressionCodec", codec.name());
             stringer.keySymbolValuePair("timestamp", timestamp);
             /*
              * The timestamp string is for human consumption, automated stuff should use
@@ -281,7 +382,7 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
         }
 
         ScheduledFuture<?> syncTask = null;
-        syncTask = m_syncService.scheduleAtFixedRate(new Runnable() {
+        syncTask = m_ss.scheduleAtFixedRate(new Runnable() {
             private long fadvisedBytes = 0;
             private long syncedBytes = 0;
             @Override
@@ -359,7 +460,7 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
                 m_outstandingWriteTasksLock.unlock();
             }
             m_syncTask.cancel(false);
-            ListenableFuture<?> task = m_syncService.submit(new Runnable() {
+            ListenableFuture<?> task = m_ss.submit(new Runnable() {
                 @Override
                 public void run() {
                     // Empty task to wait on 'cancel' above, since m_syncTask.get()
@@ -445,7 +546,7 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
              * that is 16 bytes, but 4 of those are done by CompressionService
              */
             cont.b().position(12);
-            compressionTask = CompressionService.compressAndCRC32cBufferAsync(tupleData, cont);
+            compressionTask = CompressionService.compressAndCRC32cBufferAsync(m_codec, tupleData, cont);
         }
         final Future<BBContainer> compressionTaskFinal = compressionTask;
 
@@ -582,13 +683,16 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
     }
 
     public static void setRate(final Integer megabytesPerSecond) {
-        m_es.execute(new Runnable() {
+        // Don't block the caller on a writer that is currently sleeping in the limiter
+        m_syncService.execute(new Runnable() {
             @Override
             public void run() {
-                if (megabytesPerSecond == null) {
-                    SNAPSHOT_RATELIMITER.setRate(SNAPSHOT_RATELIMIT_MEGABYTES * 1024.0 * 1024.0);
-                } else {
-                    SNAPSHOT_RATELIMITER.setRate(megabytesPerSecond * 1024.0 * 1024.0);
+                synchronized (SNAPSHOT_RATELIMITER) {
+                    if (megabytesPerSecond == null) {
+                        SNAPSHOT_RATELIMITER.setRate(SNAPSHOT_RATELIMIT_MEGABYTES * 1024.0 * 1024.0);
+                    } else {
+                        SNAPSHOT_RATELIMITER.setRate(megabytesPerSecond * 1024.0 * 1024.0);
+                    }
                 }
             }
         });
@@ -18,6 +18,7 @@
 package org.voltdb;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -46,6 +47,12 @@ public class ExtensibleSnapshotDigestData {
 
     public static final String DISABLED_EXTERNAL_STREAMS = "disabledExternalStreams";
 
+    public static final String INCREMENTAL_BASE = "incrementalBase";
+    public static final String INCREMENTAL_BASE_HOST_ID = "hostId";
+    public static final String INCREMENTAL_BASE_NONCE = "nonce";
+    public static final String INCREMENTAL_BASE_TXN_ID = "txnId";
+    public static final String INCREMENTAL_BASE_TABLES = "tables";
+
     /**
      * This field is the same values as m_exportSequenceNumbers once they have been extracted
      * in SnapshotSaveAPI.createSetup and then passed back in to SSS.initiateSnapshots. The only
@@ -80,6 +87,12 @@ public class ExtensibleSnapshotDigestData {
 
     private final JSONObject m_elasticOperationMetadata;
 
+    /**
+     * The earlier snapshot in the same path whose files this host linked in for the tables
+     * which had not changed since, and the names of those tables. Null if every table was written.
+     */
+    private JSONObject m_incrementalBase;
+
     public ExtensibleSnapshotDigestData(
             Map<String, Map<Integer, Pair<Long, Long>>> exportSequenceNumbers,
             Map<Integer, TupleStreamStateInfo> drTupleStreamInfo,
@@ -96,6 +109,19 @@ public class ExtensibleSnapshotDigestData {
         m_disabledExternalStreams = disabledStreams;
     }
 
+    public void setIncrementalBase(int hostId, String nonce, long txnId, Collection<String> linkedTables) {
+        try {
+            JSONObject base = new JSONObject();
+            base.put(INCREMENTAL_BASE_HOST_ID, hostId);
+            base.put(INCREMENTAL_BASE_NONCE, nonce);
+            base.put(INCREMENTAL_BASE_TXN_ID, txnId);
+            base.put(INCREMENTAL_BASE_TABLES, new JSONArray(linkedTables));
+            m_incrementalBase = base;
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private void writeExportSequencesToSnapshot(JSONStringer stringer) throws JSONException {
             stringer.key(EXPORT_SEQUENCE_NUMBER_ARR).array();
             for (Map.Entry<String, Map<Integer, Pair<Long, Long>>> entry : m_exportSequenceNumbers.entrySet()) {
@@ -354,6 +380,9 @@ public class ExtensibleSnapshotDigestData {
             writeExternalStreamStates(stringer);
             writeDRStateToSnapshot(stringer);
             stringer.key(SnapshotUtil.JSON_ELASTIC_OPERATION).value(m_elasticOperationMetadata);
+            if (m_incrementalBase != null) {
+                stringer.key(INCREMENTAL_BASE).value(m_incrementalBase);
+            }
         } catch (JSONException e) {
             throw new IOException(e);
         }
@@ -0,0 +1,797 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.zookeeper_voltpatches.CreateMode;
+import org.apache.zookeeper_voltpatches.ZooDefs.Ids;
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
+import org.json_voltpatches.JSONStringer;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.messaging.VoltMessage;
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.iv2.TransactionTask;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.messaging.VoltDbMessageFactory;
+import org.voltdb.utils.BinaryDequeReader;
+import org.voltdb.utils.PBDSegment;
+import org.voltdb.utils.PbdSegmentName;
+import org.voltdb.utils.PersistentBinaryDeque;
+
+import com.google_voltpatches.common.util.concurrent.Futures;
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+import com.google_voltpatches.common.util.concurrent.SettableFuture;
+
+/**
+ * Command log for the community edition.
+ *
+ * Every site hands its initiations to {@link #log} which appends them to a
+ * shared in-memory batch. A single writer thread group commits the batch once
+ * per fsync interval, or sooner if maxtxns transactions are waiting: the whole
+ * batch is appended to a {@link PersistentBinaryDeque} as one entry, the deque
+ * is synced, and then every site's {@link CommandLog.DurabilityListener} is told
+ * which of its transactions are durable. In synchronous mode that is what
+ * releases the transactions for execution, in asynchronous mode they run right
+ * away and the listeners only advance the durable unique ids.
+ *
+ * The log is kept in generations, each one a PBD with its own nonce. A new
+ * generation is started when a truncation snapshot is requested, and a closed
+ * generation is deleted once a completed truncation snapshot covers every
+ * partition's last logged spHandle in it. {@link GroupCommitCommandLogReinitiator}
+ * replays the retained generations on recover.
+ */
+public class GroupCommitCommandLog implements CommandLog, SnapshotCompletionInterest {
+    private static final VoltLogger LOG = new VoltLogger("LOGGING");
+
+    static final String NONCE_PREFIX = "gclog";
+    static final String START_POINT_FILE = "gclog_start.json";
+    static final String JSON_TXNID = "txnId";
+    static final String JSON_PARTITION_TXNIDS = "partitionTxnIds";
+
+    static final byte INITIATE_RECORD = 1;
+    static final byte FAULT_RECORD = 2;
+
+    // In async mode, stop handing out completed backpressure futures past this many unwritten bytes
+    static final int ASYNC_BACKPRESSURE_BYTES =
+            Integer.getInteger("COMMAND_LOG_ASYNC_BACKPRESSURE_BYTES", 16 * 1024 * 1024);
+    // Group commits are split into PBD entries of about this size, an entry must fit in a segment
+    static final int MAX_ENTRY_BYTES = Integer.getInteger("COMMAND_LOG_MAX_ENTRY_BYTES", 4 * 1024 * 1024);
+    private static final int INITIAL_BATCH_BYTES = 64 * 1024;
+
+    private static final ListenableFuture<Object> COMPLETED_FUTURE = Futures.immediateFuture(null);
+
+    /**
+     * Transactions and fault entries accumulated between two group commits.
+     */
+    private static final class Batch {
+        ByteBuffer m_buf = ByteBuffer.allocate(INITIAL_BATCH_BYTES);
+        int m_txns = 0;
+        final Map<Integer, Long> m_lastSpHandles = new HashMap<>();
+        final List<SettableFuture<?>> m_futures = new ArrayList<>();
+
+        void ensureCapacity(int bytes) {
+            if (m_buf.remaining() < bytes) {
+                int capacity = m_buf.capacity();
+                while (capacity - m_buf.position() < bytes) {
+                    capacity *= 2;
+                }
+                ByteBuffer grown = ByteBuffer.allocate(capacity);
+                m_buf.flip();
+                grown.put(m_buf);
+                m_buf = grown;
+            }
+        }
+
+        void reset() {
+            // Don't hold on to the memory of a single large batch
+            if (m_buf.capacity() > MAX_ENTRY_BYTES) {
+                m_buf = ByteBuffer.allocate(INITIAL_BATCH_BYTES);
+            } else {
+                m_buf.clear();
+            }
+            m_txns = 0;
+            m_lastSpHandles.clear();
+            m_futures.clear();
+        }
+    }
+
+    /**
+     * One closed or open generation of the log.
+     */
+    private static final class Generation {
+        final long m_id;
+        final PersistentBinaryDeque m_pbd;
+        // Highest spHandle written per partition, used to decide if a snapshot covers this generation
+        final Map<Integer, Long> m_lastSpHandles = new HashMap<>();
+
+        Generation(long id, PersistentBinaryDeque pbd) {
+            m_id = id;
+            m_pbd = pbd;
+        }
+    }
+
+    private final boolean m_synchronous;
+    private final int m_fsyncInterval;
+    private final int m_maxTxns;
+    private final File m_logDir;
+
+    // Guards the current batch and the durability listeners
+    private final Object m_lock = new Object();
+    private Batch m_batch = new Batch();
+    private Batch m_spareBatch = new Batch();
+    private final List<DurabilityListener> m_listeners = new ArrayList<>();
+    private boolean m_shutdown = false;
+    private boolean m_rollRequested = false;
+    private long m_unwrittenBytes = 0;
+
+    private volatile boolean m_initialized = false;
+    private long m_logSizeBytes;
+    private Thread m_writer;
+
+    // Owned by the writer thread once initialized
+    private final TreeMap<Long, Generation> m_generations = new TreeMap<>();
+    private long m_bytesSinceTruncation = 0;
+    private volatile boolean m_truncationPending = false;
+
+    // Statistics, written by the writer thread
+    private volatile long m_txnsLogged = 0;
+    private volatile long m_bytesLogged = 0;
+    private volatile long m_fsyncCount = 0;
+    private volatile long m_fsyncNanos = 0;
+    private volatile long m_maxFsyncNanos = 0;
+    // Window of the previous statistics call, only touched by the stats thread
+    private long m_lastStatsTime = System.nanoTime();
+    private long m_lastStatsTxns = 0;
+    private long m_lastStatsBytes = 0;
+    private long m_lastStatsFsyncCount = 0;
+    private long m_lastStatsFsyncNanos = 0;
+
+    public GroupCommitCommandLog(boolean synchronous, int fsyncInterval, int maxTxns,
+            String logPath, String snapshotPath) {
+        m_synchronous = synchronous;
+        m_fsyncInterval = Math.max(1, fsyncInterval);
+        m_maxTxns = maxTxns > 0 ? maxTxns : Integer.MAX_VALUE;
+        m_logDir = new File(logPath);
+        // The community edition does not create the command log directories on startup
+        for (File dir : new File[] { m_logDir, new File(snapshotPath) }) {
+            if (!dir.exists() && !dir.mkdirs()) {
+                VoltDB.crashLocalVoltDB("Unable to create command log directory " + dir, false, null);
+            }
+        }
+    }
+
+    @Override
+    public void init(int logSize, long txnId, String coreBinding, Map<Integer, Long> perPartitionTxnId) {
+        start(logSize, txnId, perPartitionTxnId);
+    }
+
+    @Override
+    public void initForRejoin(int logSize, long txnId, boolean isRejoin, String coreBinding,
+            Map<Integer, Long> perPartitionTxnId) {
+        start(logSize, txnId, perPartitionTxnId);
+    }
+
+    /**
+     * Start logging to a fresh generation. Anything already in the log
+     * directory has been replayed and covered by the truncation snapshot that
+     * ended recovery, or belongs to data this node is rejoining from scratch.
+     */
+    private void start(int logSize, long txnId, Map<Integer, Long> perPartitionTxnId) {
+        m_logSizeBytes = logSize * 1024L * 1024L;
+        try {
+            writeStartPoint(m_logDir, txnId, perPartitionTxnId);
+            long lastId = 0;
+            for (long id : listGenerations(m_logDir)) {
+                openGeneration(m_logDir, id).closeAndDelete();
+                lastId = id;
+            }
+            rollGeneration(lastId + 1);
+        } catch (IOException e) {
+            VoltDB.crashLocalVoltDB("Unable to initialize command log in " + m_logDir, true, e);
+        }
+
+        SnapshotCompletionMonitor monitor = VoltDB.instance().getSnapshotCompletionMonitor();
+        if (monitor != null) {
+            monitor.addInterest(this);
+        }
+        m_initialized = true;
+        m_writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writerLoop();
+            }
+        }, "Command log writer");
+        m_writer.setDaemon(true);
+        m_writer.start();
+        LOG.info("Command logging started in " + m_logDir + ", " + (m_synchronous ? "synchronous" : "asynchronous")
+                + " mode with fsync interval " + m_fsyncInterval + " ms");
+    }
+
+    @Override
+    public boolean needsInitialization() {
+        return !m_initialized;
+    }
+
+    @Override
+    public ListenableFuture<Object> log(Iv2InitiateTaskMessage message, long spHandle, int[] involvedPartitions,
+            DurabilityListener listener, TransactionTask durabilityHandle) {
+        if (!m_initialized) {
+            // Command log replay, nothing is written until the truncation snapshot
+            // after replay has been taken. Sync logging still has to release the task.
+            if (m_synchronous) {
+                final CompletionChecks checks;
+                synchronized (m_lock) {
+                    listener.addTransaction(durabilityHandle);
+                    checks = listener.startNewTaskList(listener.getNumberOfTasks());
+                }
+                listener.processDurabilityChecks(checks);
+                return null;
+            }
+            return COMPLETED_FUTURE;
+        }
+
+        // Reads are tracked so they are released in order, but not written
+        final boolean write = message != null && !message.isReadOnly();
+        final int msgSize = write ? message.getSerializedSize() : 0;
+        final int involvedCount = involvedPartitions == null ? 0 : involvedPartitions.length;
+        final int recordSize = 4 + 1 + 8 + 2 + 4 * involvedCount + msgSize;
+
+        synchronized (m_lock) {
+            final Batch batch = m_batch;
+            if (write) {
+                batch.ensureCapacity(recordSize);
+                ByteBuffer buf = batch.m_buf;
+                buf.putInt(recordSize - 4);
+                buf.put(INITIATE_RECORD);
+                buf.putLong(spHandle);
+                buf.putShort((short) (involvedPartitions == null ? -1 : involvedCount));
+                for (int i = 0; i < involvedCount; i++) {
+                    buf.putInt(involvedPartitions[i]);
+                }
+                int limit = buf.limit();
+                buf.limit(buf.position() + msgSize);
+                try {
+                    message.flattenToBuffer(buf.slice());
+                } catch (IOException e) {
+                    VoltDB.crashLocalVoltDB("Unable to serialize transaction for command log", true, e);
+                }
+                buf.limit(limit);
+                buf.position(buf.position() + msgSize);
+                batch.m_lastSpHandles.put(TxnEgo.getPartitionId(spHandle), spHandle);
+                m_unwrittenBytes += recordSize;
+            }
+            listener.addTransaction(durabilityHandle);
+            if (++batch.m_txns >= m_maxTxns) {
+                m_lock.notify();
+            }
+
+            if (m_synchronous) {
+                return null;
+            }
+            if (m_unwrittenBytes < ASYNC_BACKPRESSURE_BYTES) {
+                return COMPLETED_FUTURE;
+            }
+            SettableFuture<Object> backpressure = SettableFuture.create();
+            batch.m_futures.add(backpressure);
+            return backpressure;
+        }
+    }
+
+    @Override
+    public SettableFuture<Boolean> logIv2Fault(long writerHSId, Set<Long> survivorHSId, int partitionId,
+            long spHandle) {
+        final SettableFuture<Boolean> written = SettableFuture.create();
+        if (!m_initialized) {
+            written.set(true);
+            return written;
+        }
+        final int recordSize = 4 + 1 + 8 + 4 + 8 + 4 + 8 * survivorHSId.size();
+        synchronized (m_lock) {
+            final Batch batch = m_batch;
+            batch.ensureCapacity(recordSize);
+            ByteBuffer buf = batch.m_buf;
+            buf.putInt(recordSize - 4);
+            buf.put(FAULT_RECORD);
+            buf.putLong(writerHSId);
+            buf.putInt(partitionId);
+            buf.putLong(spHandle);
+            buf.putInt(survivorHSId.size());
+            for (long hsId : survivorHSId) {
+                buf.putLong(hsId);
+            }
+            batch.m_futures.add(written);
+            m_unwrittenBytes += recordSize;
+        }
+        return written;
+    }
+
+    @Override
+    public void initializeLastDurableUniqueId(DurabilityListener listener, long uniqueId) {
+        synchronized (m_lock) {
+            listener.initializeLastDurableUniqueId(uniqueId);
+        }
+    }
+
+    @Override
+    public void registerDurabilityListener(DurabilityListener durabilityListener) {
+        synchronized (m_lock) {
+            m_listeners.add(durabilityListener);
+        }
+    }
+
+    private void writerLoop() {
+        final List<DurabilityListener> listeners = new ArrayList<>();
+        final List<CompletionChecks> checks = new ArrayList<>();
+        long nextCommit = System.nanoTime();
+        while (true) {
+            final Batch batch;
+            final boolean roll;
+            final boolean shutdown;
+            synchronized (m_lock) {
+                nextCommit += m_fsyncInterval * 1000000L;
+                long waitNanos;
+                while (!m_shutdown && m_batch.m_txns < m_maxTxns
+                        && (waitNanos = nextCommit - System.nanoTime()) > 0) {
+                    try {
+                        m_lock.wait(waitNanos / 1000000L, (int) (waitNanos % 1000000L));
+                    } catch (InterruptedException e) {
+                        // Only shutdown interrupts, which is checked above
+                    }
+                }
+                // Don't try to catch up on intervals spent writing a large batch
+                nextCommit = Math.max(nextCommit, System.nanoTime() - m_fsyncInterval * 1000000L);
+
+                batch = m_batch;
+                m_batch = m_spareBatch;
+                m_spareBatch = batch;
+                m_unwrittenBytes = 0;
+                roll = m_rollRequested;
+                m_rollRequested = false;
+                shutdown = m_shutdown;
+
+                listeners.clear();
+                checks.clear();
+                if (batch.m_txns > 0) {
+                    for (DurabilityListener listener : m_listeners) {
+                        listeners.add(listener);
+                        checks.add(listener.startNewTaskList(listener.getNumberOfTasks()));
+                    }
+                }
+            }
+
+            try {
+                commit(batch);
+                if (roll) {
+                    synchronized (m_generations) {
+                        rollGeneration(m_generations.lastKey() + 1);
+                    }
+                }
+            } catch (IOException e) {
+                VoltDB.crashLocalVoltDB("Unable to write to command log in " + m_logDir, true, e);
+            }
+
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).processDurabilityChecks(checks.get(i));
+            }
+            for (SettableFuture<?> future : batch.m_futures) {
+                future.set(null);
+            }
+            batch.reset();
+
+            if (shutdown) {
+                return;
+            }
+            if (m_bytesSinceTruncation > m_logSizeBytes && !m_truncationPending) {
+                requestTruncationSnapshot(false);
+            }
+        }
+    }
+
+    /**
+     * Append the batch to the current generation and sync it.
+     */
+    private void commit(Batch batch) throws IOException {
+        final ByteBuffer buf = batch.m_buf;
+        buf.flip();
+        final int size = buf.remaining();
+        if (size == 0) {
+            return;
+        }
+        final Generation current;
+        synchronized (m_generations) {
+            current = m_generations.lastEntry().getValue();
+        }
+        // Split the batch at record boundaries so each PBD entry fits in a segment
+        while (buf.hasRemaining()) {
+            final int start = buf.position();
+            int end = start;
+            do {
+                end += 4 + buf.getInt(end);
+            } while (end < buf.limit() && end + 4 + buf.getInt(end) - start <= maxEntryBytes());
+            ByteBuffer entry = buf.duplicate();
+            entry.limit(end);
+            current.m_pbd.offer(DBBPool.wrapBB(entry));
+            buf.position(end);
+        }
+
+        final long start = System.nanoTime();
+        current.m_pbd.sync();
+        final long fsyncNanos = System.nanoTime() - start;
+
+        for (Map.Entry<Integer, Long> e : batch.m_lastSpHandles.entrySet()) {
+            current.m_lastSpHandles.put(e.getKey(), e.getValue());
+        }
+        m_bytesSinceTruncation += size;
+        m_txnsLogged += batch.m_txns;
+        m_bytesLogged += size;
+        m_fsyncCount++;
+        m_fsyncNanos += fsyncNanos;
+        if (fsyncNanos > m_maxFsyncNanos) {
+            m_maxFsyncNanos = fsyncNanos;
+        }
+    }
+
+    private void rollGeneration(long id) throws IOException {
+        synchronized (m_generations) {
+            Map.Entry<Long, Generation> last = m_generations.lastEntry();
+            if (last != null) {
+                last.getValue().m_pbd.close();
+            }
+            m_generations.put(id, new Generation(id, openGeneration(m_logDir, id)));
+        }
+        m_bytesSinceTruncation = 0;
+    }
+
+    /**
+     * Delete closed generations covered by a completed truncation snapshot.
+     * Runs on the snapshot completion thread, the writer only ever touches the last generation.
+     */
+    @Override
+    public CountDownLatch snapshotCompleted(SnapshotCompletionEvent event) {
+        if (!event.truncationSnapshot) {
+            return new CountDownLatch(0);
+        }
+        m_truncationPending = false;
+        if (!event.didSucceed) {
+            return new CountDownLatch(0);
+        }
+        try {
+            writeStartPoint(m_logDir, event.multipartTxnId, event.partitionTxnIds);
+            synchronized (m_generations) {
+                Iterator<Generation> it = m_generations.values().iterator();
+                while (it.hasNext()) {
+                    Generation generation = it.next();
+                    if (generation.m_id == m_generations.lastKey() || !isCovered(generation, event.partitionTxnIds)) {
+                        break;
+                    }
+                    LOG.info("Truncating command log generation " + generation.m_id + " after snapshot "
+                            + event.nonce);
+                    generation.m_pbd.closeAndDelete();
+                    it.remove();
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Unable to truncate command log after snapshot " + event.nonce, e);
+        }
+        return new CountDownLatch(0);
+    }
+
+    private static boolean isCovered(Generation generation, Map<Integer, Long> partitionTxnIds) {
+        for (Map.Entry<Integer, Long> e : generation.m_lastSpHandles.entrySet()) {
+            Long snapshotTxnId = partitionTxnIds.get(e.getKey());
+            if (snapshotTxnId == null || snapshotTxnId < e.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        if (!m_initialized) {
+            return;
+        }
+        synchronized (m_lock) {
+            m_shutdown = true;
+            m_lock.notify();
+        }
+        m_writer.join();
+        SnapshotCompletionMonitor monitor = VoltDB.instance().getSnapshotCompletionMonitor();
+        if (monitor != null) {
+            monitor.removeInterest(this);
+        }
+        synchronized (m_generations) {
+            for (Generation generation : m_generations.values()) {
+                try {
+                    generation.m_pbd.close();
+                } catch (IOException e) {
+                    LOG.warn("Unable to close command log generation " + generation.m_id, e);
+                }
+            }
+        }
+        m_initialized = false;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void requestTruncationSnapshot(final boolean queueIfPending) {
+        if (m_truncationPending && !queueIfPending) {
+            return;
+        }
+        m_truncationPending = true;
+        synchronized (m_lock) {
+            // Start a new generation so the current one can be deleted after the snapshot
+            m_rollRequested = true;
+        }
+        VoltDB.instance().getSES(false).execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    VoltDB.instance().getHostMessenger().getZK().create(VoltZK.request_truncation_snapshot_node,
+                            null, Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT_SEQUENTIAL);
+                } catch (Exception e) {
+                    m_truncationPending = false;
+                    LOG.error("Unable to request command log truncation snapshot", e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void populateCommandLogStats(Map<String, Integer> columnNameToIndex, Object[] rowValues) {
+        final long outstandingBytes;
+        final long outstandingTxns;
+        synchronized (m_lock) {
+            outstandingBytes = m_batch.m_buf.position();
+            outstandingTxns = m_batch.m_txns;
+        }
+        final int segments = countSegments(m_logDir);
+
+        final long now = System.nanoTime();
+        final long txns = m_txnsLogged;
+        final long bytes = m_bytesLogged;
+        final long fsyncCount = m_fsyncCount;
+        final long fsyncNanos = m_fsyncNanos;
+        final long elapsedNanos = Math.max(1, now - m_lastStatsTime);
+        final long fsyncs = fsyncCount - m_lastStatsFsyncCount;
+
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.OUTSTANDING_BYTES.name())] = outstandingBytes;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.OUTSTANDING_TXNS.name())] = outstandingTxns;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.IN_USE_SEGMENT_COUNT.name())] = segments;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.SEGMENT_COUNT.name())] = segments;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.FSYNC_INTERVAL.name())] = m_fsyncInterval;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.TXNS_PER_SECOND.name())] =
+                (txns - m_lastStatsTxns) * 1000000000L / elapsedNanos;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.BYTES_PER_SECOND.name())] =
+                (bytes - m_lastStatsBytes) * 1000000000L / elapsedNanos;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.AVG_FSYNC_LATENCY.name())] =
+                fsyncs == 0 ? 0L : (fsyncNanos - m_lastStatsFsyncNanos) / fsyncs / 1000L;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.MAX_FSYNC_LATENCY.name())] =
+                m_maxFsyncNanos / 1000L;
+
+        m_lastStatsTime = now;
+        m_lastStatsTxns = txns;
+        m_lastStatsBytes = bytes;
+        m_lastStatsFsyncCount = fsyncCount;
+        m_lastStatsFsyncNanos = fsyncNanos;
+        m_maxFsyncNanos = 0;
+    }
+
+    @Override
+    public boolean isSynchronous() {
+        return m_synchronous;
+    }
+
+    @Override
+    public boolean canOfferTask() {
+        return !m_synchronous;
+    }
+
+    /*
+     * Log directory layout, shared with the reinitiator.
+     */
+
+    static String generationNonce(long id) {
+        return NONCE_PREFIX + id;
+    }
+
+    static PersistentBinaryDeque openGeneration(File dir, long id) throws IOException {
+        return new PersistentBinaryDeque(generationNonce(id), null, dir, LOG);
+    }
+
+    /**
+     * @return ids of the generations in dir, oldest first
+     */
+    static List<Long> listGenerations(File dir) {
+        TreeMap<Long, Boolean> ids = new TreeMap<>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                PbdSegmentName name = PbdSegmentName.parseFile(LOG, file);
+                if (name.m_result == PbdSegmentName.Result.OK && name.m_nonce.startsWith(NONCE_PREFIX)) {
+                    try {
+                        ids.put(Long.parseLong(name.m_nonce.substring(NONCE_PREFIX.length())), true);
+                    } catch (NumberFormatException e) {
+                        // Not one of ours
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(ids.keySet());
+    }
+
+    private static int countSegments(File dir) {
+        int count = 0;
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                PbdSegmentName name = PbdSegmentName.parseFile(LOG, file);
+                if (name.m_result == PbdSegmentName.Result.OK && name.m_nonce.startsWith(NONCE_PREFIX)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Record the snapshot the retained log continues from. Replay needs a
+     * snapshot at or after this point.
+     */
+    static void writeStartPoint(File dir, long txnId, Map<Integer, Long> partitionTxnIds) throws IOException {
+        try {
+            JSONStringer stringer = new JSONStringer();
+            stringer.object();
+            stringer.keySymbolValuePair(JSON_TXNID, txnId);
+            stringer.key(JSON_PARTITION_TXNIDS).object();
+            if (partitionTxnIds != null) {
+                for (Map.Entry<Integer, Long> e : partitionTxnIds.entrySet()) {
+                    stringer.keySymbolValuePair(e.getKey().toString(), e.getValue());
+                }
+            }
+            stringer.endObject();
+            stringer.endObject();
+
+            File tmp = new File(dir, START_POINT_FILE + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                fos.write(stringer.toString().getBytes(StandardCharsets.UTF_8));
+                fos.getFD().sync();
+            }
+            Files.move(tmp.toPath(), new File(dir, START_POINT_FILE).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (JSONException e) {
+            throw new IOException("Unable to write command log start point", e);
+        }
+    }
+
+    /**
+     * @return the start point written by {@link #writeStartPoint}, or null if there is none
+     */
+    static JSONObject readStartPoint(File dir) throws IOException {
+        File file = new File(dir, START_POINT_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException("Unable to read command log start point " + file, e);
+        }
+    }
+
+    /**
+     * A transaction read back from the log.
+     */
+    static final class LoggedTxn {
+        final long m_spHandle;
+        // null for single partition transactions
+        final int[] m_involvedPartitions;
+        final Iv2InitiateTaskMessage m_message;
+
+        LoggedTxn(long spHandle, int[] involvedPartitions, Iv2InitiateTaskMessage message) {
+            m_spHandle = spHandle;
+            m_involvedPartitions = involvedPartitions;
+            m_message = message;
+        }
+
+        int getPartitionId() {
+            return TxnEgo.getPartitionId(m_spHandle);
+        }
+
+        boolean isMultiPartition() {
+            return m_involvedPartitions != null;
+        }
+    }
+
+    interface LoggedTxnVisitor {
+        void visit(LoggedTxn txn) throws InterruptedException;
+    }
+
+    /**
+     * Read every transaction of a generation in log order, without holding
+     * more than one PBD entry in memory. Fault entries are skipped.
+     */
+    static void readGeneration(File dir, long id, LoggedTxnVisitor visitor) throws IOException, InterruptedException {
+        final VoltDbMessageFactory factory = new VoltDbMessageFactory();
+        final PersistentBinaryDeque pbd = openGeneration(dir, id);
+        try {
+            BinaryDequeReader reader = pbd.openForRead("replay");
+            BBContainer cont;
+            while ((cont = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY)) != null) {
+                try {
+                    ByteBuffer buf = cont.b();
+                    while (buf.hasRemaining()) {
+                        final int length = buf.getInt();
+                        final int next = buf.position() + length;
+                        if (buf.get() == INITIATE_RECORD) {
+                            final long spHandle = buf.getLong();
+                            final short involvedCount = buf.getShort();
+                            int[] involved = null;
+                            if (involvedCount >= 0) {
+                                involved = new int[involvedCount];
+                                for (int i = 0; i < involvedCount; i++) {
+                                    involved[i] = buf.getInt();
+                                }
+                            }
+                            // The message keeps slices of its buffer (the procedure parameters are
+                            // deserialized later), so it gets a heap copy that outlives the entry
+                            final ByteBuffer msgBuf = ByteBuffer.allocate(next - buf.position());
+                            final int limit = buf.limit();
+                            buf.limit(next);
+                            msgBuf.put(buf).flip();
+                            buf.limit(limit);
+                            VoltMessage msg = factory.createMessageFromBuffer(msgBuf, 0);
+                            visitor.visit(new LoggedTxn(spHandle, involved, (Iv2InitiateTaskMessage) msg));
+                        }
+                        buf.position(next);
+                    }
+                } finally {
+                    cont.discard();
+                }
+            }
+        } finally {
+            pbd.close();
+        }
+    }
+
+    static int maxEntryBytes() {
+        return Math.min(MAX_ENTRY_BYTES, PBDSegment.CHUNK_SIZE / 2);
+    }
+}
@@ -0,0 +1,317 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.messaging.HostMessenger;
+import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.InstanceId;
+import org.voltcore.zk.ZKCountdownLatch;
+import org.voltdb.GroupCommitCommandLog.LoggedTxn;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.dtxn.TransactionCreator;
+import org.voltdb.iv2.Cartographer;
+import org.voltdb.iv2.MpInitiator;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+/**
+ * Replays the log written by {@link GroupCommitCommandLog}.
+ *
+ * Every host keeps the log of the sites it hosts, so each host replays the
+ * partitions it is the master of from its own log, in log order. Multi-partition
+ * transactions were logged by every involved site: each host places a sentinel
+ * in the stream of its own partitions, and the transaction itself is submitted
+ * only by the host that masters the lowest involved partition. Once every host
+ * has submitted its log the MPI sends the end of log.
+ */
+public class GroupCommitCommandLogReinitiator implements CommandLogReinitiator {
+    private static final VoltLogger LOG = new VoltLogger("LOGGING");
+
+    // Replayed transactions allowed to wait for a response before reading stops
+    private static final int MAX_OUTSTANDING = Integer.getInteger("COMMAND_LOG_REPLAY_MAX_OUTSTANDING", 10000);
+    // Transactions can sit behind a sentinel whose multi-partition transaction is
+    // further along in this log, so don't wait longer than this for them
+    private static final long OUTSTANDING_WAIT_MS = 1000;
+
+    private final int m_hostId;
+    private final HostMessenger m_messenger;
+    private final File m_logDir;
+    private final int m_liveHostCount;
+    private final List<Long> m_generations;
+    private final Long m_startTxnId;
+    private final Map<Integer, Long> m_startPartitionTxnIds;
+
+    private Callback m_callback;
+    private TransactionCreator m_initiator;
+    private RestoreAgent.SnapshotInfo m_snapshot;
+    private boolean m_isMpiNode = false;
+    private final Map<Integer, SimpleClientResponseAdapter> m_adapters = new HashMap<>();
+
+    private final Object m_outstandingLock = new Object();
+    private long m_outstanding = 0;
+    private volatile long m_replayedTxns = 0;
+
+    public GroupCommitCommandLogReinitiator(int hostId, StartAction action, HostMessenger messenger,
+            String clPath, Set<Integer> liveHosts) {
+        m_hostId = hostId;
+        m_messenger = messenger;
+        m_logDir = new File(clPath);
+        m_liveHostCount = liveHosts.size();
+
+        JSONObject start = null;
+        if (action.doesRecover()) {
+            try {
+                start = GroupCommitCommandLog.readStartPoint(m_logDir);
+            } catch (IOException e) {
+                VoltDB.crashLocalVoltDB("Unable to read the command log in " + m_logDir, true, e);
+            }
+        }
+        if (start == null) {
+            m_generations = Collections.emptyList();
+            m_startTxnId = null;
+            m_startPartitionTxnIds = null;
+            return;
+        }
+        m_generations = GroupCommitCommandLog.listGenerations(m_logDir);
+        try {
+            m_startTxnId = start.getLong(GroupCommitCommandLog.JSON_TXNID);
+            m_startPartitionTxnIds = new HashMap<>();
+            JSONObject partitions = start.getJSONObject(GroupCommitCommandLog.JSON_PARTITION_TXNIDS);
+            Iterator<String> it = partitions.keys();
+            while (it.hasNext()) {
+                String key = it.next();
+                if (Integer.parseInt(key) != MpInitiator.MP_INIT_PID) {
+                    m_startPartitionTxnIds.put(Integer.valueOf(key), partitions.getLong(key));
+                }
+            }
+        } catch (JSONException e) {
+            throw new RuntimeException("Invalid command log start point in " + m_logDir, e);
+        }
+        LOG.info("Found " + m_generations.size() + " command log generations to replay in " + m_logDir);
+    }
+
+    @Override
+    public void setSnapshotTxnId(RestoreAgent.SnapshotInfo info) {
+        m_snapshot = info;
+    }
+
+    @Override
+    public void setCallback(Callback callback) {
+        m_callback = callback;
+    }
+
+    @Override
+    public void setInitiator(TransactionCreator initiator) {
+        m_initiator = initiator;
+    }
+
+    @Override
+    public void initPartitionTracking() {}
+
+    @Override
+    public void generateReplayPlan(long snapshotTimeStamp, long snapshotTxnId, int newPartitionCount,
+            boolean isMPINode, JSONObject elasticOperationMetadata) {
+        m_isMpiNode = isMPINode;
+    }
+
+    @Override
+    public void replay() {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                if (m_startTxnId != null) {
+                    try {
+                        replayLog();
+                    } catch (Exception e) {
+                        VoltDB.crashGlobalVoltDB("Failed to replay the command log in " + m_logDir, true, e);
+                    }
+                }
+                if (m_callback != null) {
+                    m_callback.onReplayCompletion();
+                }
+            }
+        }, "Command log replay").start();
+    }
+
+    private void replayLog() throws Exception {
+        final Cartographer cartographer = VoltDB.instance().getCartographer();
+        final Map<Integer, Boolean> localMasters = new HashMap<>();
+        int minPartition = Integer.MAX_VALUE;
+        for (int pid : cartographer.getPartitions()) {
+            if (pid == MpInitiator.MP_INIT_PID) {
+                continue;
+            }
+            minPartition = Math.min(minPartition, pid);
+            boolean local = CoreUtils.getHostIdFromHSId(cartographer.getHSIdForMaster(pid)) == m_hostId;
+            localMasters.put(pid, local);
+            if (local) {
+                SimpleClientResponseAdapter adapter = new SimpleClientResponseAdapter(
+                        ClientInterface.CL_REPLAY_BASE_CID + pid, "Command log replay " + pid);
+                m_initiator.bindAdapter(adapter);
+                m_adapters.put(pid, adapter);
+            }
+        }
+        final int firstPartition = minPartition;
+
+        for (long id : m_generations) {
+            GroupCommitCommandLog.readGeneration(m_logDir, id, txn -> {
+                final int pid = txn.getPartitionId();
+                if (!Boolean.TRUE.equals(localMasters.get(pid)) || isInSnapshot(txn)) {
+                    return;
+                }
+                if (txn.isMultiPartition()) {
+                    final Iv2InitiateTaskMessage msg = txn.m_message;
+                    m_initiator.sendSentinel(msg.getUniqueId(), pid);
+                    final int[] nPartitions = msg.getNParitionIds();
+                    final int submitter = nPartitions == null ? firstPartition : min(nPartitions);
+                    if (pid == submitter) {
+                        submit(txn, pid, nPartitions);
+                    }
+                } else {
+                    submit(txn, pid, null);
+                }
+            });
+        }
+
+        // Only end the log once every host has submitted its multi-partition transactions
+        ZKCountdownLatch barrier =
+                new ZKCountdownLatch(m_messenger.getZK(), VoltZK.commandlog_replay_barrier, m_liveHostCount);
+        barrier.countDown();
+        barrier.await();
+        if (m_isMpiNode) {
+            m_initiator.sendEOLMessage(MpInitiator.MP_INIT_PID);
+        }
+
+        synchronized (m_outstandingLock) {
+            while (m_outstanding > 0) {
+                m_outstandingLock.wait();
+            }
+        }
+        LOG.info("Replayed " + m_replayedTxns + " transactions from the command log");
+    }
+
+    private boolean isInSnapshot(LoggedTxn txn) {
+        if (m_snapshot == null) {
+            return false;
+        }
+        Long snapshotSpHandle = m_snapshot.partitionToTxnId.get(txn.getPartitionId());
+        return snapshotSpHandle != null && txn.m_spHandle <= snapshotSpHandle;
+    }
+
+    private void submit(LoggedTxn txn, int pid, int[] nPartitions) throws InterruptedException {
+        synchronized (m_outstandingLock) {
+            final long deadline = System.currentTimeMillis() + OUTSTANDING_WAIT_MS;
+            long remaining;
+            while (m_outstanding >= MAX_OUTSTANDING && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                m_outstandingLock.wait(remaining);
+            }
+            m_outstanding++;
+        }
+
+        final Iv2InitiateTaskMessage msg = txn.m_message;
+        final StoredProcedureInvocation invocation = msg.getStoredProcedureInvocation();
+        final SimpleClientResponseAdapter adapter = m_adapters.get(pid);
+        invocation.setClientHandle(adapter.registerCallback(new SimpleClientResponseAdapter.Callback() {
+            @Override
+            public void handleResponse(ClientResponse response) {
+                responseReceived();
+            }
+        }));
+
+        final CreateTransactionResult result;
+        if (!txn.isMultiPartition()) {
+            result = m_initiator.createTransaction(adapter.connectionId(), msg.getTxnId(), msg.getUniqueId(),
+                    invocation, false, true, false, pid, invocation.getSerializedSize(), System.nanoTime());
+        } else if (nPartitions != null) {
+            result = m_initiator.createTransaction(adapter.connectionId(), msg.getTxnId(), msg.getUniqueId(),
+                    invocation, false, false, false, nPartitions, invocation.getSerializedSize(), System.nanoTime());
+        } else {
+            result = m_initiator.createTransaction(adapter.connectionId(), msg.getTxnId(), msg.getUniqueId(),
+                    invocation, false, false, false, MpInitiator.MP_INIT_PID, invocation.getSerializedSize(),
+                    System.nanoTime());
+        }
+        if (result != CreateTransactionResult.SUCCESS) {
+            LOG.warn("Unable to replay " + invocation.getProcName() + " with txnId "
+                    + TxnEgo.txnIdToString(msg.getTxnId()) + ": " + result);
+            responseReceived();
+            return;
+        }
+        m_replayedTxns++;
+    }
+
+    private void responseReceived() {
+        synchronized (m_outstandingLock) {
+            m_outstanding--;
+            m_outstandingLock.notifyAll();
+        }
+    }
+
+    private static int min(int[] values) {
+        int min = Integer.MAX_VALUE;
+        for (int v : values) {
+            min = Math.min(min, v);
+        }
+        return min;
+    }
+
+    @Override
+    public boolean hasReplayedSegments() {
+        return m_startTxnId != null;
+    }
+
+    @Override
+    public boolean hasReplayedTxns() {
+        return m_replayedTxns > 0;
+    }
+
+    @Override
+    public Long getMaxLastSeenTxn() {
+        return m_startTxnId;
+    }
+
+    @Override
+    public Map<Integer, Long> getMaxLastSeenTxnByPartition() {
+        return m_startPartitionTxnIds;
+    }
+
+    @Override
+    public InstanceId getInstanceId() {
+        // The log does not record the instance, skip the instance ID check in RestoreAgent
+        return null;
+    }
+
+    @Override
+    public void returnAllSegments() {
+        // Segments are only open while they are read
+    }
+
+    @Override
+    public void resumeElasticOperationIfNecessary() {}
+}
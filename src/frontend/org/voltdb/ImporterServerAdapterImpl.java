@@ -17,11 +17,13 @@
 
 package org.voltdb;
 
+import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcedureCallback;
 import org.voltdb.importer.AbstractImporter;
 import org.voltdb.importer.ImporterServerAdapter;
 import org.voltdb.importer.ImporterStatsCollector;
 
+import java.util.List;
 import java.util.function.Function;
 
 /**
@@ -48,6 +50,27 @@ public class ImporterServerAdapterImpl implements ImporterServerAdapter {
                 .callProcedure(importer, backPressurePredicate, m_statsCollector, procCallback, proc, fieldList);
     }
 
+    @Override
+    public int getBatchPartition(String proc, Object[] fieldList) {
+        return getInternalConnectionHandler().getBatchPartition(proc, fieldList);
+    }
+
+    @Override
+    public boolean callProcedureBatch(AbstractImporter importer, Function<Integer, Boolean> backPressurePredicate, ProcedureCallback procCallback, String proc, List<Object[]> rows) {
+        final int rowCount = rows.size();
+        // Each row was reported as queued for proc. A failed batch is replayed row by row,
+        // and those invocations report their own completions.
+        InternalConnectionStatsCollector batchStats = (importerName, loadProc, response) -> {
+            if (response.getStatus() == ClientResponse.SUCCESS || response.getStatus() == ClientResponse.RESPONSE_UNKNOWN) {
+                for (int i = 0; i < rowCount; i++) {
+                    m_statsCollector.reportCompletion(importerName, proc, response);
+                }
+            }
+        };
+        return getInternalConnectionHandler()
+                .callLoadTable(importer, backPressurePredicate, batchStats, procCallback, proc, rows);
+    }
+
     private InternalConnectionHandler getInternalConnectionHandler() {
         return VoltDB.instance().getClientInterface().getInternalConnectionHandler();
     }
@@ -485,6 +485,10 @@ public class Inits {
                             ProClass.HANDLER_LOG, logConfig.getSynchronous(), logConfig.getFsyncinterval(),
                             logConfig.getMaxtxns(), VoltDB.instance().getCommandLogPath(),
                             VoltDB.instance().getCommandLogSnapshotPath());
+                } else {
+                    m_rvdb.m_commandLog = new GroupCommitCommandLog(logConfig.getSynchronous(),
+                            logConfig.getFsyncinterval(), logConfig.getMaxtxns(),
+                            VoltDB.instance().getCommandLogPath(), VoltDB.instance().getCommandLogSnapshotPath());
                 }
             }
         }
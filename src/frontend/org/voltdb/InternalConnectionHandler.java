@@ -17,6 +17,7 @@
 
 package org.voltdb;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -24,12 +25,14 @@ import java.util.function.Function;
 import org.voltcore.logging.Level;
 import org.voltcore.logging.VoltLogger;
 import org.voltdb.AuthSystem.AuthUser;
+import org.voltdb.CatalogContext.ProcedurePartitionInfo;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Table;
 import org.voltdb.client.BatchTimeoutOverrideType;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcedureCallback;
 import org.voltdb.iv2.MpInitiator;
+import org.voltdb.utils.CatalogUtil;
 import org.voltdb.utils.MiscUtils;
 
 import com.google_voltpatches.common.collect.ImmutableMap;
@@ -42,6 +45,8 @@ public class InternalConnectionHandler {
     final static String DEFAULT_INTERNAL_ADAPTER_NAME = "+!_InternalAdapter_!+";
 
     public final static long SUPPRESS_INTERVAL = 60;
+    // Partition returned for invocations that can't be loaded as part of a batch
+    public final static int NOT_BATCHABLE = -1;
     private static final VoltLogger m_logger = new VoltLogger("InternalConnectionHandler");
 
     // Atomically allows the catalog reference to change between access
@@ -213,4 +218,92 @@ public class InternalConnectionHandler {
         m_submitSuccessCount.incrementAndGet();
         return true;
     }
+
+    /**
+     * Returns the default insert or upsert procedure of a persistent table with the given name,
+     * or null if the procedure is anything else. Only these procedures can be invoked with many
+     * rows at once, by loading the rows with @LoadSinglepartitionTable or @LoadMultipartitionTable.
+     */
+    private Procedure getLoadableProcedure(String proc) {
+        final CatalogContext catalogContext = getCatalogContext();
+        Procedure catProc = InvocationDispatcher.getProcedureFromName(proc, catalogContext);
+        if (catProc == null || !catProc.getDefaultproc()) {
+            return null;
+        }
+        String name = catProc.getClassname();
+        if (!name.endsWith(".insert") && !name.endsWith(".upsert")) {
+            return null;
+        }
+        Table table = catProc.getPartitiontable();
+        if (table == null || CatalogUtil.isTableExportOnly(catalogContext.database, table)) {
+            return null;
+        }
+        return catProc;
+    }
+
+    /**
+     * Returns the partition that an invocation of proc with the given parameters would run on,
+     * {@link MpInitiator#MP_INIT_PID} for replicated tables, or {@link #NOT_BATCHABLE} if the
+     * invocation can't be loaded together with others.
+     */
+    public int getBatchPartition(String proc, Object[] fieldList) {
+        Procedure catProc = getLoadableProcedure(proc);
+        if (catProc == null || catProc.getPartitiontable().getColumns().size() != fieldList.length) {
+            return NOT_BATCHABLE;
+        }
+        if (!catProc.getSinglepartition()) {
+            return MpInitiator.MP_INIT_PID;
+        }
+        ProcedurePartitionInfo ppi = (ProcedurePartitionInfo) catProc.getAttachment();
+        try {
+            return TheHashinator.getPartitionForParameter(ppi.type, fieldList[ppi.index]);
+        } catch (Exception e) {
+            // Let the invocation fail on its own
+            return NOT_BATCHABLE;
+        }
+    }
+
+    /**
+     * Loads rows for the default insert or upsert procedure proc into its table in one
+     * transaction, the way VoltBulkLoader does. All rows must have the same batch partition.
+     *
+     * @return true if the transaction was queued, false if the procedure can't load rows or
+     * a row can't be converted to the table schema. The rows should then be invoked one by one.
+     */
+    public boolean callLoadTable(InternalConnectionContext caller,
+                                 Function<Integer, Boolean> backPressurePredicate,
+                                 InternalConnectionStatsCollector statsCollector,
+                                 ProcedureCallback procCallback, String proc, List<Object[]> rows) {
+        Procedure catProc = getLoadableProcedure(proc);
+        if (catProc == null || rows.isEmpty()) {
+            return false;
+        }
+        Table table = catProc.getPartitiontable();
+        VoltTable data = CatalogUtil.getVoltTable(table);
+        final int columnCount = data.getColumnCount();
+        Object[] values = new Object[columnCount];
+        try {
+            for (Object[] row : rows) {
+                if (row.length != columnCount) {
+                    return false;
+                }
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = ParameterConverter.tryToMakeCompatible(data.getColumnType(i).classFromType(), row[i]);
+                }
+                data.addRow(values);
+            }
+        } catch (Exception e) {
+            return false;
+        }
+
+        byte upsertMode = (byte) (catProc.getClassname().endsWith(".upsert") ? 1 : 0);
+        if (catProc.getSinglepartition()) {
+            ProcedurePartitionInfo ppi = (ProcedurePartitionInfo) catProc.getAttachment();
+            Object partitionParam = VoltType.valueToBytes(data.fetchRow(0).get(ppi.index, ppi.type));
+            return callProcedure(caller, backPressurePredicate, statsCollector, procCallback,
+                    "@LoadSinglepartitionTable", partitionParam, table.getTypeName(), upsertMode, data);
+        }
+        return callProcedure(caller, backPressurePredicate, statsCollector, procCallback,
+                "@LoadMultipartitionTable", table.getTypeName(), upsertMode, data);
+    }
 }
@@ -70,6 +70,26 @@ public class Iv2TransactionCreator implements TransactionCreator
                 true);
     }
 
+    @Override
+    public final CreateTransactionResult createTransaction(long connectionId,
+            long txnId,
+            long uniqueId,
+            StoredProcedureInvocation invocation, boolean isReadOnly,
+            boolean isSinglePartition, boolean isEverySite, int[] partitions, int messageSize, long nowNanos)
+    {
+        return m_ci.getDispatcher().createTransaction(connectionId,
+                txnId,
+                uniqueId,
+                invocation,
+                isReadOnly,
+                isSinglePartition,
+                isEverySite,
+                partitions,
+                messageSize,
+                nowNanos,
+                true);
+    }
+
     @Override
     public ClientResponseImpl dispatch(StoredProcedureInvocation invocation,
             Connection connection, boolean isAdmin, OverrideCheck bypass) {
@@ -19,6 +19,7 @@ package org.voltdb;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
@@ -26,6 +27,11 @@ import org.voltdb.VoltTable.ColumnInfo;
 
 /**
  * Collects global cache use stats
+ *
+ * The per-site collectors are only touched by their site thread. The global
+ * ad hoc collector is shared by all planner threads of the PlannerTool pool and
+ * uses the thread-safe {@link #startSampledStatsCollection()} and
+ * {@link #endStatsCollection(Long, long, long, long, CacheUse, long)} pair.
  */
 public class PlannerStatsCollector extends StatsSource {
 
@@ -41,6 +47,11 @@ public class PlannerStatsCollector extends StatsSource {
      */
     final long m_collectionFrequency = 20;
 
+    /**
+     * Number of sampled collections started by concurrent planner threads
+     */
+    private final AtomicLong m_concurrentStarts = new AtomicLong();
+
     /**
      * Flag indicating cache disposition of a planned statement.
      */
@@ -124,11 +135,20 @@ public class PlannerStatsCollector extends StatsSource {
     long m_failures = 0;
     long m_lastFailures = 0;
 
+    /**
+     * Time spent by ad hoc requests waiting for a free planner from the pool
+     */
+    long m_queueWaits = 0;
+    long m_lastQueueWaits = 0;
+    long m_totalQueueWaitTime = 0;
+    long m_lastTotalQueueWaitTime = 0;
+    long m_maxQueueWaitTime = 0;
+    long m_lastMaxQueueWaitTime = 0;
 
     /**
      * Count of the number of invocations = m_cache1Hits + m_cache2Hits + m_cacheMisses + m_failures;
      */
-    long m_invocations = 0;
+    volatile long m_invocations = 0;
     long m_lastInvocations = 0;
 
     /**
@@ -195,8 +215,51 @@ public class PlannerStatsCollector extends StatsSource {
      * @param partitionId  partition id
      */
     public void endStatsCollection(long cache1Size, long cache2Size, CacheUse cacheUse, long partitionId) {
-        if (m_currentStartTime != null) {
-            long delta = System.nanoTime() - m_currentStartTime;
+        Long startTime = m_currentStartTime;
+        m_currentStartTime = null;
+        recordStatsCollection(startTime, cache1Size, cache2Size, cacheUse, partitionId);
+    }
+
+    /**
+     * Called by a planner thread before doing planning. Unlike {@link #startStatsCollection()}
+     * the sampled start time is handed back to the caller instead of being kept in the collector,
+     * so any number of threads may be planning at once.
+     *
+     * @return the start time to pass to endStatsCollection, or null if this invocation is not timed
+     */
+    public Long startSampledStatsCollection() {
+        if (m_concurrentStarts.getAndIncrement() % m_collectionFrequency == 0) {
+            return System.nanoTime();
+        }
+        return null;
+    }
+
+    /**
+     * Called by a planner thread after planning or failing to plan. Records timer, planner pool
+     * queue wait and cache stats.
+     *
+     * @param startTime       value returned by {@link #startSampledStatsCollection()}
+     * @param queueWaitNanos  time spent waiting for a planner, or -1 if no planner was needed
+     * @param cache1Size      number of entries in level 1 cache
+     * @param cache2Size      number of entries in level 2 cache
+     * @param cacheUse        where the planned statement came from
+     * @param partitionId     partition id
+     */
+    public synchronized void endStatsCollection(Long startTime, long queueWaitNanos,
+            long cache1Size, long cache2Size, CacheUse cacheUse, long partitionId) {
+        if (queueWaitNanos >= 0) {
+            m_queueWaits++;
+            m_totalQueueWaitTime += queueWaitNanos;
+            m_maxQueueWaitTime = Math.max(queueWaitNanos, m_maxQueueWaitTime);
+            m_lastMaxQueueWaitTime = Math.max(queueWaitNanos, m_lastMaxQueueWaitTime);
+        }
+        recordStatsCollection(startTime, cache1Size, cache2Size, cacheUse, partitionId);
+    }
+
+    private void recordStatsCollection(Long startTime, long cache1Size, long cache2Size, CacheUse cacheUse,
+            long partitionId) {
+        if (startTime != null) {
+            long delta = System.nanoTime() - startTime;
             if (delta < 0) {
                 if (Math.abs(delta) > 1000000000) {
                     log.info("Planner statistics recorded a negative planning time larger than one second: " +
@@ -210,7 +273,6 @@ public class PlannerStatsCollector extends StatsSource {
                 m_lastMinPlanningTime = Math.min(delta, m_lastMinPlanningTime);
                 m_lastMaxPlanningTime = Math.max(delta, m_lastMaxPlanningTime);
             }
-            m_currentStartTime = null;
         }
 
         m_cache1Level = cache1Size;
@@ -242,7 +304,7 @@ public class PlannerStatsCollector extends StatsSource {
      * @param values Values of each column of the row of stats. Used as output.
      */
     @Override
-    protected void updateStatsRow(Object rowKey, Object rowValues[]) {
+    protected synchronized void updateStatsRow(Object rowKey, Object rowValues[]) {
         super.updateStatsRow(rowKey, rowValues);
 
         rowValues[columnNameToIndex.get("PARTITION_ID")] = m_partitionId;
@@ -255,6 +317,9 @@ public class PlannerStatsCollector extends StatsSource {
         long cache2Hits  = m_cache2Hits;
         long cacheMisses = m_cacheMisses;
         long failureCount = m_failures;
+        long queueWaits = m_queueWaits;
+        long totalQueueWaitTime = m_totalQueueWaitTime;
+        long maxQueueWaitTime = m_maxQueueWaitTime;
 
         if (m_interval) {
             totalTimedExecutionTime = m_totalPlanningTime - m_lastTimedPlanningTime;
@@ -283,6 +348,15 @@ public class PlannerStatsCollector extends StatsSource {
             failureCount = m_failures - m_lastFailures;
             m_lastFailures = m_failures;
 
+            queueWaits = m_queueWaits - m_lastQueueWaits;
+            m_lastQueueWaits = m_queueWaits;
+
+            totalQueueWaitTime = m_totalQueueWaitTime - m_lastTotalQueueWaitTime;
+            m_lastTotalQueueWaitTime = m_totalQueueWaitTime;
+
+            maxQueueWaitTime = m_lastMaxQueueWaitTime;
+            m_lastMaxQueueWaitTime = 0;
+
             m_lastInvocations = m_invocations;
         }
 
@@ -302,6 +376,12 @@ public class PlannerStatsCollector extends StatsSource {
             rowValues[columnNameToIndex.get("PLAN_TIME_AVG")] = 0L;
         }
         rowValues[columnNameToIndex.get("FAILURES")] = failureCount;
+        if (queueWaits != 0) {
+            rowValues[columnNameToIndex.get("QUEUE_WAIT_AVG")] = totalQueueWaitTime / queueWaits;
+        } else {
+            rowValues[columnNameToIndex.get("QUEUE_WAIT_AVG")] = 0L;
+        }
+        rowValues[columnNameToIndex.get("QUEUE_WAIT_MAX")] = maxQueueWaitTime;
     }
 
     /**
@@ -322,6 +402,8 @@ public class PlannerStatsCollector extends StatsSource {
         columns.add(new ColumnInfo("PLAN_TIME_MAX", VoltType.BIGINT));
         columns.add(new ColumnInfo("PLAN_TIME_AVG", VoltType.BIGINT));
         columns.add(new ColumnInfo("FAILURES",      VoltType.BIGINT));
+        columns.add(new ColumnInfo("QUEUE_WAIT_AVG", VoltType.BIGINT));
+        columns.add(new ColumnInfo("QUEUE_WAIT_MAX", VoltType.BIGINT));
     }
 
     @Override
@@ -44,6 +44,10 @@ public class ProcedureDetailResultTable {
             new ColumnInfo("MIN_EXECUTION_TIME", VoltType.BIGINT),
             new ColumnInfo("MAX_EXECUTION_TIME", VoltType.BIGINT),
             new ColumnInfo("AVG_EXECUTION_TIME", VoltType.BIGINT),
+            new ColumnInfo("P50_EXECUTION_TIME", VoltType.BIGINT),
+            new ColumnInfo("P95_EXECUTION_TIME", VoltType.BIGINT),
+            new ColumnInfo("P99_EXECUTION_TIME", VoltType.BIGINT),
+            new ColumnInfo("P99.9_EXECUTION_TIME", VoltType.BIGINT),
             new ColumnInfo("MIN_RESULT_SIZE", VoltType.INTEGER),
             new ColumnInfo("MAX_RESULT_SIZE", VoltType.INTEGER),
             new ColumnInfo("AVG_RESULT_SIZE", VoltType.INTEGER),
@@ -71,6 +75,10 @@ public class ProcedureDetailResultTable {
                     table.getLong("MIN_EXECUTION_TIME"),
                     table.getLong("MAX_EXECUTION_TIME"),
                     table.getLong("AVG_EXECUTION_TIME"),
+                    table.getLong("P50_EXECUTION_TIME"),
+                    table.getLong("P95_EXECUTION_TIME"),
+                    table.getLong("P99_EXECUTION_TIME"),
+                    table.getLong("P99.9_EXECUTION_TIME"),
                     table.getLong("MIN_RESULT_SIZE"),
                     table.getLong("MAX_RESULT_SIZE"),
                     table.getLong("AVG_RESULT_SIZE"),
@@ -99,6 +107,10 @@ public class ProcedureDetailResultTable {
                                        row.m_minExecutionTime,
                                        row.m_maxExecutionTime,
                                        row.m_avgExecutionTime,
+                                       row.m_p50ExecutionTime,
+                                       row.m_p95ExecutionTime,
+                                       row.m_p99ExecutionTime,
+                                       row.m_p999ExecutionTime,
                                        row.m_minResultSize,
                                        row.m_maxResultSize,
                                        row.m_avgResultSize,
@@ -119,6 +131,7 @@ public class ProcedureDetailResultTable {
         String m_hostName, m_procedure, m_statement;
         long m_invocations, m_timedInvocations, m_aborts, m_failures;
         long m_minExecutionTime, m_maxExecutionTime, m_avgExecutionTime;
+        long m_p50ExecutionTime, m_p95ExecutionTime, m_p99ExecutionTime, m_p999ExecutionTime;
         long m_minResultSize, m_maxResultSize, m_avgResultSize;
         long m_minParameterSetSize, m_maxParameterSetSize, m_avgParameterSetSize;
 
@@ -126,6 +139,8 @@ public class ProcedureDetailResultTable {
                                         long siteId, long partitionId, String procedure, String statement,
                                         long invocations, long timedInvocations,
                                         long minExecutionTime, long maxExecutionTime, long avgExecutionTime,
+                                        long p50ExecutionTime, long p95ExecutionTime,
+                                        long p99ExecutionTime, long p999ExecutionTime,
                                         long minResultSize, long maxResultSize, long avgResultSize,
                                         long minParameterSetSize, long maxParameterSetSize, long avgParameterSetSize,
                                         long aborts, long failures) {
@@ -141,6 +156,10 @@ public class ProcedureDetailResultTable {
             m_minExecutionTime = minExecutionTime;
             m_maxExecutionTime = maxExecutionTime;
             m_avgExecutionTime = avgExecutionTime;
+            m_p50ExecutionTime = p50ExecutionTime;
+            m_p95ExecutionTime = p95ExecutionTime;
+            m_p99ExecutionTime = p99ExecutionTime;
+            m_p999ExecutionTime = p999ExecutionTime;
             m_minResultSize = minResultSize;
             m_maxResultSize = maxResultSize;
             m_avgResultSize = avgResultSize;
@@ -790,7 +790,7 @@ public class ProcedureRunner {
             }
             // otherwise, break it into sub-batches
             else {
-                if (! m_isReadOnly) {
+                if (m_isSinglePartition && ! m_isReadOnly) {
                     // increase 1 here to mark the next executing undo token
                     m_spBigBatchBeginToken = m_site.getLatestUndoToken() + 1;
                 }
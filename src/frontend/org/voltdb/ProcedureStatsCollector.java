@@ -32,6 +32,12 @@ import org.voltdb.sysprocs.UpdateCore;
 
 /**
  * Derivation of StatsSource to expose timing information of procedure invocations.
+ *
+ * Transactional procedures only ever record from their site thread, so they do it
+ * without taking the lock of this stats source. The stats thread may see a counter
+ * mid-update, which can only skew one interval. Execution times also go into
+ * HdrHistogram recorders that are drained when the stats are polled, for the
+ * percentile columns.
  */
 public class ProcedureStatsCollector extends SiteStatsSource {
 
@@ -86,12 +92,13 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         super(siteId, false);
         m_partitionId = partitionId;
         m_procName = procName;
+        m_isTransactional = isTransactional;
 
         m_stmtStatsMap = new HashMap<String, StatementStats>();
         // Use one StatementStats instance to hold the procedure-wide statistics.
         // The statement name for this StatementStats is "<ALL>".
         // It does not have coordinator task to track.
-        StatementStats procedureWideStats = new StatementStats("<ALL>", false);
+        StatementStats procedureWideStats = new StatementStats("<ALL>", false, isTransactional);
         m_procStatsData = procedureWideStats.m_workerTask;
         // The NULL key entry is reserved for the procedure-wide statistics.
         m_stmtStatsMap.put(null, procedureWideStats);
@@ -100,10 +107,9 @@ public class ProcedureStatsCollector extends SiteStatsSource {
             for (String stmtName : stmtNames) {
                 // If the procedure is a multi-partition one, its statements will have coordinator tasks.
                 boolean hasCoordinatorTask = ! singlePartition;
-                m_stmtStatsMap.put(stmtName, new StatementStats(stmtName, hasCoordinatorTask));
+                m_stmtStatsMap.put(stmtName, new StatementStats(stmtName, hasCoordinatorTask, isTransactional));
             }
         }
-        m_isTransactional = isTransactional;
 
         // check if this proc is UpdateCore for 100% sampling rate
         m_isUAC = (m_procName != null) && (m_procName.startsWith(UpdateCore.class.getName()));
@@ -132,10 +138,20 @@ public class ProcedureStatsCollector extends SiteStatsSource {
      * Called after a procedure is finished executing. Compares the start and end time and calculates
      * the statistics.
      *
-     * Synchronized because it modifies internal state and (for NT procs) can be called from multiple
-     * threads. For transactional procs the lock should be uncontended.,
+     * Synchronized for NT procs, which can be called from multiple threads.
      */
-    public final synchronized void endProcedure(boolean aborted, boolean failed, SingleCallStatsToken statsToken) {
+    public final void endProcedure(boolean aborted, boolean failed, SingleCallStatsToken statsToken) {
+        if (m_isTransactional) {
+            recordProcedure(aborted, failed, statsToken);
+        }
+        else {
+            synchronized (this) {
+                recordProcedure(aborted, failed, statsToken);
+            }
+        }
+    }
+
+    private void recordProcedure(boolean aborted, boolean failed, SingleCallStatsToken statsToken) {
         if (aborted) {
             m_procStatsData.m_abortCount++;
         }
@@ -168,6 +184,7 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         m_procStatsData.m_maxExecutionTime = Math.max(duration, m_procStatsData.m_maxExecutionTime);
         m_procStatsData.m_incrMinExecutionTime = Math.min(duration, m_procStatsData.m_incrMinExecutionTime);
         m_procStatsData.m_incrMaxExecutionTime = Math.max(duration, m_procStatsData.m_incrMaxExecutionTime);
+        m_procStatsData.m_executionTimes.record(duration);
 
         m_procStatsData.m_totalResultSize += statsToken.resultSize;
         m_procStatsData.m_minResultSize = Math.min(statsToken.resultSize, m_procStatsData.m_minResultSize);
@@ -196,7 +213,7 @@ public class ProcedureStatsCollector extends SiteStatsSource {
                 stmtParameterSetSize = pss.measurements.stmtParameterSetSize;
             }
 
-            endFragment(pss.stmtName,
+            recordFragment(pss.stmtName,
                         pss.isCoordinatorTask,
                         pss.stmtFailed,
                         pss.measurements != null,
@@ -210,13 +227,31 @@ public class ProcedureStatsCollector extends SiteStatsSource {
      * This function will be called after a statement finish running.
      * It updates the data structures to maintain the statistics.
      */
-    public final synchronized void endFragment(String stmtName,
-                                               boolean isCoordinatorTask,
-                                               boolean failed,
-                                               boolean sampledStmt,
-                                               long duration,
-                                               int resultSize,
-                                               int parameterSetSize)
+    public final void endFragment(String stmtName,
+                                  boolean isCoordinatorTask,
+                                  boolean failed,
+                                  boolean sampledStmt,
+                                  long duration,
+                                  int resultSize,
+                                  int parameterSetSize)
+    {
+        if (m_isTransactional) {
+            recordFragment(stmtName, isCoordinatorTask, failed, sampledStmt, duration, resultSize, parameterSetSize);
+        }
+        else {
+            synchronized (this) {
+                recordFragment(stmtName, isCoordinatorTask, failed, sampledStmt, duration, resultSize, parameterSetSize);
+            }
+        }
+    }
+
+    private void recordFragment(String stmtName,
+                                boolean isCoordinatorTask,
+                                boolean failed,
+                                boolean sampledStmt,
+                                long duration,
+                                int resultSize,
+                                int parameterSetSize)
     {
         if (stmtName == null) {
             return;
@@ -256,6 +291,7 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         dataToUpdate.m_maxExecutionTime = Math.max(duration, dataToUpdate.m_maxExecutionTime);
         dataToUpdate.m_incrMinExecutionTime = Math.min(duration, dataToUpdate.m_incrMinExecutionTime);
         dataToUpdate.m_incrMaxExecutionTime = Math.max(duration, dataToUpdate.m_incrMaxExecutionTime);
+        dataToUpdate.m_executionTimes.record(duration);
 
         // sampled size statistics
         dataToUpdate.m_totalResultSize += resultSize;
@@ -301,7 +337,15 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         int maxParameterSetSize = currRow.getMaxParameterSetSize();
         long totalParameterSetSize = currRow.getTotalParameterSetSize();
 
+        currRow.sampleExecutionTimes();
+        // Percentiles must be read before the incremental counters are reset
+        rowValues[columnNameToIndex.get("P50_EXECUTION_TIME")] = currRow.getExecutionTimePercentile(50D, m_incremental);
+        rowValues[columnNameToIndex.get("P95_EXECUTION_TIME")] = currRow.getExecutionTimePercentile(95D, m_incremental);
+        rowValues[columnNameToIndex.get("P99_EXECUTION_TIME")] = currRow.getExecutionTimePercentile(99D, m_incremental);
+        rowValues[columnNameToIndex.get("P99.9_EXECUTION_TIME")] = currRow.getExecutionTimePercentile(99.9D, m_incremental);
+
         if (m_incremental) {
+            currRow.resetIncrementalExecutionTimes();
             abortCount -= currRow.getLastAbortCountAndReset();
             failureCount -= currRow.getLastFailureCountAndReset();
             totalTimedExecutionTime -= currRow.getLastTotalTimedExecutionTimeAndReset();
@@ -359,6 +403,10 @@ public class ProcedureStatsCollector extends SiteStatsSource {
         columns.add(new VoltTable.ColumnInfo("MIN_EXECUTION_TIME", VoltType.BIGINT));
         columns.add(new VoltTable.ColumnInfo("MAX_EXECUTION_TIME", VoltType.BIGINT));
         columns.add(new VoltTable.ColumnInfo("AVG_EXECUTION_TIME", VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo("P50_EXECUTION_TIME", VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo("P95_EXECUTION_TIME", VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo("P99_EXECUTION_TIME", VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo("P99.9_EXECUTION_TIME", VoltType.BIGINT));
         columns.add(new VoltTable.ColumnInfo("MIN_RESULT_SIZE", VoltType.INTEGER));
         columns.add(new VoltTable.ColumnInfo("MAX_RESULT_SIZE", VoltType.INTEGER));
         columns.add(new VoltTable.ColumnInfo("AVG_RESULT_SIZE", VoltType.INTEGER));
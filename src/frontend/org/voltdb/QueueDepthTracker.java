@@ -18,9 +18,8 @@ package org.voltdb;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltdb.VoltTable.ColumnInfo;
@@ -30,16 +29,20 @@ import org.voltdb.iv2.SiteTasker;
  * A class to track and generate statistics regarding queue depth.
  * Generate information on instantaneous queue depth and number of tasks
  * pulled from queue, average wait time and max wait time (in microseconds)
- * within a 5-second window
+ * within a 5-second window.
+ * The owning site reports polls in batches, the depth is read from the queue itself
+ * so producers do not touch the tracker at all.
  */
 public class QueueDepthTracker extends SiteStatsSource {
 
     private static final VoltLogger s_logger = new VoltLogger("HOST");
 
-    private final AtomicInteger m_depth;
-    private long m_lastWaitTime;
+    private volatile long m_lastWaitTime;
     private final ArrayBlockingQueue<QueueStatus> m_historicalData;
-    private LinkedTransferQueue<SiteTasker> m_tasks;
+    private final Queue<SiteTasker> m_tasks;
+    // Last time the site took tasks from the queue, the head of a non-empty queue
+    // has been waiting no longer than this
+    private volatile long m_lastPollTime;
     private long m_maxWaitTimeWindowSize = 5_000_000_000L; // window size set to 5 seconds
     private long m_maxWaitLastLogTime;
     private volatile long m_recentMaxWaitTime;
@@ -61,33 +64,44 @@ public class QueueDepthTracker extends SiteStatsSource {
         }
     }
 
-    public QueueDepthTracker(long siteId, LinkedTransferQueue<SiteTasker> tasks) {
+    /**
+     * @param tasks the tracked queue, only size() is called on it
+     * and it must be safe to call from the stats thread
+     */
+    public QueueDepthTracker(long siteId, Queue<SiteTasker> tasks) {
         super(siteId, false);
         m_historicalData = new ArrayBlockingQueue<>(10);
-        m_depth = new AtomicInteger(tasks.size());
         m_lastWaitTime = 0;
         m_maxWaitLastLogTime = System.nanoTime();
+        m_lastPollTime = m_maxWaitLastLogTime;
         m_recentMaxWaitTime = 0;
         m_recentTotalWaitTime = 0;
         m_recentPollCount = 0;
         m_tasks = tasks;
     }
 
-    public void offerUpdate() {
-        m_depth.incrementAndGet();
+    public void pollUpdate(long offerTime) {
+        pollUpdate(offerTime, offerTime, 1);
     }
 
-    public void pollUpdate(long offerTime) {
-        m_depth.decrementAndGet();
+    /**
+     * Account for a batch of tasks polled together.
+     * @param oldestOfferTime offer time of the first (longest waiting) task in the batch
+     * @param offerTimeSum sum of the offer times of all tasks in the batch
+     * @param count number of tasks in the batch
+     */
+    public void pollUpdate(long oldestOfferTime, long offerTimeSum, int count) {
         long currentTime = System.nanoTime();
-        m_lastWaitTime = currentTime - offerTime;
+        m_lastPollTime = currentTime;
+        m_lastWaitTime = currentTime - oldestOfferTime;
+        long totalWaitTime = currentTime * count - offerTimeSum;
         // if max wait time was last logged less than m_recentWindowSize ago
         // keep the max wait time in m_recentMaxWaitTime
         // or log and reset the recentMaxWaitTime, update last log time
         if (currentTime - m_maxWaitLastLogTime < m_recentWindowSize) {
             if (m_recentMaxWaitTime < m_lastWaitTime) m_recentMaxWaitTime = m_lastWaitTime;
-            m_recentTotalWaitTime += m_lastWaitTime;
-            m_recentPollCount++;
+            m_recentTotalWaitTime += totalWaitTime;
+            m_recentPollCount += count;
         } else {
             // remove out of date historical data
             while (!m_historicalData.isEmpty() &&
@@ -103,12 +117,25 @@ public class QueueDepthTracker extends SiteStatsSource {
                 s_logger.warn("Could not insert queue stats data. Current data size: " + m_historicalData.size());
             }
             m_recentMaxWaitTime = m_lastWaitTime;
-            m_recentTotalWaitTime = m_lastWaitTime;
-            m_recentPollCount = 1;
+            m_recentTotalWaitTime = totalWaitTime;
+            m_recentPollCount = count;
             m_maxWaitLastLogTime = currentTime;
         }
     }
 
+    /**
+     * @return how long tasks are waiting in the queue right now in nanoseconds, the wait
+     * of the last task taken or of the head of the queue if that is longer, or 0 if the
+     * queue is empty. Safe to call from any thread.
+     */
+    public long getCurrentWait() {
+        if (m_tasks.isEmpty()) {
+            // Nothing is waiting, the wait of the last task taken is history
+            return 0;
+        }
+        return Math.max(m_lastWaitTime, System.nanoTime() - m_lastPollTime);
+    }
+
     @Override
     protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
         super.populateColumnSchema(columns);
@@ -122,12 +149,14 @@ public class QueueDepthTracker extends SiteStatsSource {
     protected void updateStatsRow(Object rowKey, Object rowValues[]) {
         long currentTime = System.nanoTime();
         // check if current wait time exceeds the maxWaitTime
+        // the queue can only be peeked by the site thread, so bound the wait of
+        // the head task by the time since the site last took work from the queue
+        int depth = m_tasks.size();
         long currentWaitTime;
-        SiteTasker nextTask = m_tasks.peek();
-        if (nextTask == null) {
+        if (depth == 0) {
             currentWaitTime = 0;
         } else {
-            currentWaitTime = currentTime - nextTask.getQueueOfferTime();
+            currentWaitTime = currentTime - m_lastPollTime;
         }
         // check historicalMaxWaitTime, report max wait time and mean wait time in window
         long maxWaitTimeInWindow = Math.max(currentWaitTime, m_recentMaxWaitTime);
@@ -144,7 +173,7 @@ public class QueueDepthTracker extends SiteStatsSource {
                 }
             }
         }
-        rowValues[columnNameToIndex.get("CURRENT_DEPTH")] = m_depth;
+        rowValues[columnNameToIndex.get("CURRENT_DEPTH")] = depth;
         rowValues[columnNameToIndex.get("POLL_COUNT")] = totalPollCountInWindow;
         // wait times are in microseconds
         rowValues[columnNameToIndex.get("AVG_WAIT")] = (totalWaitTimeInWindow / Math.max(1, totalPollCountInWindow)) / 1000;
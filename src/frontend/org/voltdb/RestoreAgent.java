@@ -489,7 +489,7 @@ SnapshotCompletionInterest, Promotable
         m_action = action;
         m_hostMessenger = hostMessenger;
         m_zk = hostMessenger.getZK();
-        m_clEnabled = VoltDB.instance().getConfig().m_isEnterprise ? clEnabled : false;
+        m_clEnabled = clEnabled;
         m_clPath = clPath;
         m_clSnapshotPath = clSnapshotPath;
         m_snapshotPath = snapshotPath;
@@ -505,6 +505,10 @@ SnapshotCompletionInterest, Promotable
         CommandLogReinitiator replayAgent = ProClass.newInstanceOf("org.voltdb.CommandLogReinitiatorImpl",
                 "Command log replay", ProClass.HANDLER_IGNORE, m_hostId, startAction, m_hostMessenger, m_clPath,
                 m_liveHosts);
+        if (replayAgent == null && m_clEnabled) {
+            replayAgent = new GroupCommitCommandLogReinitiator(m_hostId, startAction, m_hostMessenger, m_clPath,
+                    m_liveHosts);
+        }
         if (replayAgent != null) {
             m_replayAgent = replayAgent;
         }
@@ -1386,10 +1390,8 @@ SnapshotCompletionInterest, Promotable
          * they can be set individually
          */
         Map<String, SnapshotPathType> paths = new HashMap<String, SnapshotPathType>();
-        if (VoltDB.instance().getConfig().m_isEnterprise) {
-            if (m_clSnapshotPath != null) {
-                paths.put(m_clSnapshotPath, SnapshotPathType.SNAP_CL);
-            }
+        if (m_clSnapshotPath != null) {
+            paths.put(m_clSnapshotPath, SnapshotPathType.SNAP_CL);
         }
         if (m_snapshotPath != null) {
             paths.put(m_snapshotPath, SnapshotPathType.SNAP_AUTO);
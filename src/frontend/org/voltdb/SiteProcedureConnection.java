@@ -225,6 +225,12 @@ public interface SiteProcedureConnection {
 
     public TupleStreamStateInfo getDRTupleStreamStateInfo();
 
+    /**
+     * @return the sp handle of the last transaction that changed each persistent
+     * table at this site, keyed by the relative index of the table
+     */
+    public Map<Integer, Long> getTableChangeSpHandles();
+
     public void setDRSequenceNumbers(Long partitionSequenceNumber, Long mpSequenceNumber);
 
     public void toggleProfiler(int toggle);
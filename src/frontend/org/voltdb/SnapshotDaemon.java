@@ -153,6 +153,14 @@ public class SnapshotDaemon implements SnapshotCompletionInterest {
     private Future<?> m_autoSnapshotTask = null;
     private long m_nextSnapshotTime;
 
+    /**
+     * When set, auto snapshots only write the tables that changed since the previous one and
+     * link the files of the others, except every Nth auto snapshot which writes every table
+     */
+    public static final int SNAPSHOT_INCREMENTAL_FULL_INTERVAL =
+            Integer.getInteger("SNAPSHOT_INCREMENTAL_FULL_INTERVAL", 0);
+    private int m_autoSnapshotsSinceFull = 0;
+
     /**
      * Don't invoke sysprocs too close together.
      * Keep track of the last call and only do it after
@@ -1368,6 +1376,10 @@ public class SnapshotDaemon implements SnapshotCompletionInterest {
             jsObj.put(SnapshotUtil.JSON_PATH_TYPE, SnapshotPathType.SNAP_AUTO.toString());
             jsObj.put(SnapshotUtil.JSON_NONCE, nonce);
             jsObj.put("perPartitionTxnIds", retrievePerPartitionTransactionIds());
+            if (SNAPSHOT_INCREMENTAL_FULL_INTERVAL > 0) {
+                jsObj.put(SnapshotUtil.JSON_INCREMENTAL, m_autoSnapshotsSinceFull > 0);
+                m_autoSnapshotsSinceFull = (m_autoSnapshotsSinceFull + 1) % SNAPSHOT_INCREMENTAL_FULL_INTERVAL;
+            }
             m_snapshots.offer(new Snapshot(m_path, SnapshotPathType.SNAP_AUTO, nonce, now));
             long handle = m_nextCallbackHandle++;
             m_procedureCallbacks.put(handle, new ProcedureCallback() {
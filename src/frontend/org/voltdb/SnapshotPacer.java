@@ -0,0 +1,123 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how long a site waits between units of snapshot work, which includes the
+ * stream snapshots that feed rejoin and elastic join.
+ *
+ * Without a latency target the delay is fixed by the snapshot priority, as it always was.
+ * With one, the priority only sets the starting delay. The delay then doubles whenever
+ * tasks wait in the site queue longer than the target, and shrinks by a quarter while
+ * they wait less than half of it or the site is starved for work. It is adjusted at most
+ * once per {@link #ADJUST_PERIOD_MS} so one burst isn't counted by every buffer it delays,
+ * and never grows past {@link #MAX_INTERVAL_MS} so a snapshot always makes progress.
+ */
+public class SnapshotPacer {
+    public static final long MAX_INTERVAL_MS = Long.getLong("SNAPSHOT_PACE_MAX_INTERVAL_MS", 1000);
+    static final long ADJUST_PERIOD_MS = 100;
+
+    // The pacers of the local sites, for SNAPSHOTSTATUS
+    private static final Set<SnapshotPacer> s_pacers =
+            Collections.newSetFromMap(new ConcurrentHashMap<SnapshotPacer, Boolean>());
+
+    private final int m_priority;
+    private final long m_targetWaitNanos;
+    private volatile long m_interval;
+    private long m_lastAdjustTime = 0;
+
+    /**
+     * @param priority snapshot priority from the deployment, 0 is unthrottled and 10 the slowest
+     * @param latencyTargetMs site queue wait to stay under, 0 to pace by priority only
+     */
+    public SnapshotPacer(int priority, int latencyTargetMs) {
+        m_priority = priority;
+        m_targetWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, latencyTargetMs));
+        m_interval = 5 * priority;
+    }
+
+    /**
+     * @return false if snapshot work should run as soon as it can
+     */
+    public boolean isPaced() {
+        return m_priority > 0 || m_targetWaitNanos > 0;
+    }
+
+    public boolean isAdaptive() {
+        return m_targetWaitNanos > 0;
+    }
+
+    /**
+     * @return the current delay in milliseconds between units of snapshot work
+     */
+    public long getInterval() {
+        return m_interval;
+    }
+
+    /**
+     * Feed the current state of the site queue into the pacer. Called from whichever thread
+     * schedules the next unit of work, racing callers can only make one adjustment late.
+     *
+     * @param now current time in milliseconds
+     * @param queueWaitNanos how long tasks are currently waiting in the site queue
+     * @param starved true if the site is waiting for work
+     * @return the delay in milliseconds before the next unit of snapshot work
+     */
+    public long nextInterval(long now, long queueWaitNanos, boolean starved) {
+        if (!isAdaptive()) {
+            return m_interval;
+        }
+        if (now - m_lastAdjustTime >= ADJUST_PERIOD_MS) {
+            m_lastAdjustTime = now;
+            long interval = m_interval;
+            if (queueWaitNanos > m_targetWaitNanos) {
+                interval = Math.min(MAX_INTERVAL_MS, Math.max(1, interval * 2));
+            } else if (starved || queueWaitNanos < m_targetWaitNanos / 2) {
+                interval = interval * 3 / 4;
+            }
+            m_interval = interval;
+        }
+        return m_interval;
+    }
+
+    public void register() {
+        s_pacers.add(this);
+    }
+
+    public void unregister() {
+        s_pacers.remove(this);
+    }
+
+    /**
+     * @return the average delay in milliseconds between units of snapshot work over the local sites
+     */
+    public static long getHostInterval() {
+        long total = 0;
+        int count = 0;
+        for (SnapshotPacer pacer : s_pacers) {
+            total += pacer.m_interval;
+            count++;
+        }
+        return count == 0 ? 0 : total / count;
+    }
+}
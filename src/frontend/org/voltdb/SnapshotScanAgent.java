@@ -252,6 +252,8 @@ public class SnapshotScanAgent extends OpsAgent
                     "FAILURE",
                     m_errorString));
         } else {
+            // Files linked into incremental snapshots, by directory and nonce
+            Map<String, SnapshotUtil.LinkedTables> linkedTables = new HashMap<String, SnapshotUtil.LinkedTables>();
             for (final File f : relevantFiles) {
                 if (f.getName().endsWith(".digest")) {
                     continue;
@@ -274,6 +276,12 @@ public class SnapshotScanAgent extends OpsAgent
                             if (partitions.startsWith(",")) {
                                 partitions = partitions.substring(1);
                             }
+                            String nonce = SnapshotUtil.parseNonceFromSnapshotFilename(f.getName());
+                            SnapshotUtil.LinkedTables linked = linkedTables.get(f.getParent() + File.separator + nonce);
+                            if (linked == null) {
+                                linked = SnapshotUtil.retrieveLinkedTables(f.getParent(), nonce, SNAP_LOG);
+                                linkedTables.put(f.getParent() + File.separator + nonce, linked);
+                            }
                             SnapshotPathType stype = SnapshotPathType.SNAP_PATH;
                             if (f.getParent().equals(VoltDB.instance().getCommandLogSnapshotPath())) {
                                 stype = SnapshotPathType.SNAP_CL;
@@ -286,8 +294,8 @@ public class SnapshotScanAgent extends OpsAgent
                                     f.getParent(),
                                     stype.toString(),
                                     f.getName(),
-                                    savefile.getTxnId(),
-                                    savefile.getTimestamp(),
+                                    linked.getTxnId(savefile),
+                                    linked.getTimestamp(savefile),
                                     savefile.getTableName(),
                                     savefile.getCompleted() ? "TRUE" : "FALSE",
                                     f.length(),
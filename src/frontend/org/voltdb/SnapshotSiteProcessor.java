@@ -175,7 +175,7 @@ public class SnapshotSiteProcessor {
     private Map<Integer, TableStreamer> m_streamers = null;
 
     private long m_lastSnapshotTxnId;
-    private final int m_snapshotPriority;
+    private final SnapshotPacer m_pacer;
 
     private boolean m_isTruncation;
     private boolean m_perSiteLastSnapshotSucceded = true;
@@ -274,12 +274,32 @@ public class SnapshotSiteProcessor {
     }
 
     public SnapshotSiteProcessor(SiteTaskerQueue siteQueue, int snapshotPriority, IdlePredicate idlePredicate) {
+        this(siteQueue, snapshotPriority, 0, idlePredicate);
+    }
+
+    public SnapshotSiteProcessor(SiteTaskerQueue siteQueue, int snapshotPriority, int latencyTargetMs,
+            IdlePredicate idlePredicate) {
         m_siteTaskerQueue = siteQueue;
-        m_snapshotPriority = snapshotPriority;
+        m_pacer = new SnapshotPacer(snapshotPriority, latencyTargetMs);
+        m_pacer.register();
         m_idlePredicate = idlePredicate;
     }
 
+    /**
+     * The delay in milliseconds before the next unit of snapshot work. Adaptive pacing feeds
+     * the current wait of the site queue into the pacer, otherwise the priority sets the delay
+     * and some jitter keeps the sites from doing their work all at once.
+     */
+    private long nextQuietPeriod(long now) {
+        if (m_pacer.isAdaptive()) {
+            long interval = m_pacer.nextInterval(now, m_siteTaskerQueue.getCurrentWait(), m_siteTaskerQueue.isStarved());
+            return interval + (long)(m_random.nextDouble() * (interval / 4));
+        }
+        return m_pacer.getInterval() + ((long)(m_random.nextDouble() * 15));
+    }
+
     public void shutdown() throws InterruptedException {
+        m_pacer.unregister();
         if (m_snapshotCreateSetupBarrier != null) {
             m_snapshotCreateSetupBarrier.reset();
         }
@@ -334,9 +354,10 @@ public class SnapshotSiteProcessor {
          * the impact on latency
          *
          * If snapshot priority is 0 then running the jigger immediately is the specified
-         * policy anyways. 10 would be the largest delay
+         * policy anyways. 10 would be the largest delay. With a latency target the pacer
+         * moves the delay to keep the wait in the site queue under the target.
          */
-        if (m_snapshotPriority > 0) {
+        if (m_pacer.isPaced()) {
             final long now = System.currentTimeMillis();
             //Unless disabled, ask if the site is idle, and if it is queue the work immediately
             if (!DISABLE_IMMEDIATE_SNAPSHOT_RESCHEDULING && m_idlePredicate.idle(now)) {
@@ -364,9 +385,7 @@ public class SnapshotSiteProcessor {
                 //since the execution site only interacts with one snapshot data target at a time
                 //except when it is switching tables. It doesn't really matter if it is wrong
                 //it will just result in a little extra snapshot work being done close together
-                m_quietUntil =
-                        System.currentTimeMillis() +
-                                (5 * m_snapshotPriority) + ((long)(m_random.nextDouble() * 15));
+                m_quietUntil = System.currentTimeMillis() + nextQuietPeriod(now);
             } else {
                 //Schedule it to happen after the quiet period has elapsed
                 VoltDB.instance().schedulePriorityWork(
@@ -387,9 +406,7 @@ public class SnapshotSiteProcessor {
                          * and we need to move further past it since we just scheduled snapshot work
                          * at the end of the current quietUntil value
                          */
-                m_quietUntil =
-                        quietUntil +
-                                (5 * m_snapshotPriority) + ((long)(m_random.nextDouble() * 15));
+                m_quietUntil = quietUntil + nextQuietPeriod(now);
             }
         } else {
             m_siteTaskerQueue.offer(new SnapshotTask());
@@ -475,10 +492,10 @@ public class SnapshotSiteProcessor {
                         m_siteTaskerQueue.offer(new SnapshotTask());
                     }
                 },
-                (m_quietUntil + (5 * m_snapshotPriority) - now),
+                (m_quietUntil + m_pacer.getInterval() - now),
                 0,
                 TimeUnit.MILLISECONDS);
-        m_quietUntil += 5 * m_snapshotPriority;
+        m_quietUntil += m_pacer.getInterval();
     }
 
     private Map<Integer, byte[]>
@@ -116,6 +116,7 @@ public class SnapshotStatus extends StatsSource {
         columns.add(new ColumnInfo("THROUGHPUT", VoltType.FLOAT));
         columns.add(new ColumnInfo("RESULT", VoltType.STRING));
         columns.add(new ColumnInfo("TYPE", VoltType.STRING));
+        columns.add(new ColumnInfo("PACE_INTERVAL", VoltType.BIGINT));
     }
 
     @SuppressWarnings("unchecked")
@@ -145,6 +146,8 @@ public class SnapshotStatus extends StatsSource {
         rowValues[columnNameToIndex.get("THROUGHPUT")] = throughput;
         rowValues[columnNameToIndex.get("RESULT")] = t.error == null ? "SUCCESS" : "FAILURE";
         rowValues[columnNameToIndex.get("TYPE")] = getSnapshotType(s.path);
+        // Milliseconds the sites of this host currently wait between units of snapshot work
+        rowValues[columnNameToIndex.get("PACE_INTERVAL")] = s.timeFinished == 0 ? SnapshotPacer.getHostInterval() : 0L;
         super.updateStatsRow(rowKey, rowValues);
     }
 
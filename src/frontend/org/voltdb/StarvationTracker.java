@@ -57,7 +57,7 @@ public class StarvationTracker extends SiteStatsSource {
     /**
      * Is there currently starvation
      */
-    private boolean m_starved = false;
+    private volatile boolean m_starved = false;
     public void beginStarvation() {
         if (m_starved) {
             return;
@@ -66,6 +66,13 @@ public class StarvationTracker extends SiteStatsSource {
         m_starvationStartTime = System.nanoTime();
     }
 
+    /**
+     * @return true if the site is waiting for work, safe to call from any thread
+     */
+    public boolean isStarved() {
+        return m_starved;
+    }
+
     public void endStarvation() {
         if (!m_starved) {
             return;
@@ -19,6 +19,11 @@ package org.voltdb;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram_voltpatches.Histogram;
+import org.HdrHistogram_voltpatches.Recorder;
+import org.HdrHistogram_voltpatches.SingleWriterRecorder;
 
 /**
  * Record statistics for each statement in the stored procedure.
@@ -32,11 +37,15 @@ public final class StatementStats {
     StatsData m_coordinatorTask = null;
     StatsData m_workerTask;
 
-    public StatementStats(String stmtName, boolean hasCoordinatorTask) {
+    /**
+     * @param singleWriter true if only one thread ever records the statistics,
+     *                     which is the site thread for transactional procedures
+     */
+    public StatementStats(String stmtName, boolean hasCoordinatorTask, boolean singleWriter) {
         m_stmtName = stmtName;
-        m_workerTask = new StatsData();
+        m_workerTask = new StatsData(singleWriter);
         if (hasCoordinatorTask) {
-            m_coordinatorTask = new StatsData();
+            m_coordinatorTask = new StatsData(singleWriter);
         }
     }
 
@@ -144,6 +153,34 @@ public final class StatementStats {
         return retval;
     }
 
+    /**
+     * Move the execution times recorded since the last call into the histograms the
+     * percentiles are read from. Only called by the stats thread.
+     */
+    public void sampleExecutionTimes() {
+        m_workerTask.m_executionTimes.sample();
+        if (m_coordinatorTask != null) {
+            m_coordinatorTask.m_executionTimes.sample();
+        }
+    }
+
+    // Same approximation as the min and max: the percentile of the worker task plus
+    // the percentile of the coordinator task.
+    public long getExecutionTimePercentile(double percentile, boolean incremental) {
+        long retval = m_workerTask.m_executionTimes.getValueAtPercentile(percentile, incremental);
+        if (isCoordinatorStatsUsable(incremental)) {
+            retval += m_coordinatorTask.m_executionTimes.getValueAtPercentile(percentile, incremental);
+        }
+        return retval;
+    }
+
+    public void resetIncrementalExecutionTimes() {
+        m_workerTask.m_executionTimes.resetInterval();
+        if (m_coordinatorTask != null) {
+            m_coordinatorTask.m_executionTimes.resetInterval();
+        }
+    }
+
     public long getAbortCount() {
         return m_workerTask.m_abortCount;
     }
@@ -363,7 +400,105 @@ public final class StatementStats {
         }
     }
 
+    /**
+     * Histogram of sampled execution times. Recording goes through an HdrHistogram recorder,
+     * so the executing thread never waits for the stats thread. The stats thread drains
+     * the recorder into the cumulative and the interval histograms when it polls.
+     */
+    static final class ExecutionTimeHistogram {
+        // Microseconds up to one minute, longer executions count as one minute
+        static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+        static final int SIGNIFICANT_DIGITS = 2;
+
+        private final boolean m_singleWriter;
+        // Created on the first recording so statements that never run cost no memory
+        private volatile SingleWriterRecorder m_singleWriterRecorder;
+        private volatile Recorder m_recorder;
+
+        // Only used by the stats thread
+        private Histogram m_recycled;
+        private Histogram m_total;
+        private Histogram m_sinceLastInterval;
+
+        ExecutionTimeHistogram(boolean singleWriter) {
+            m_singleWriter = singleWriter;
+        }
+
+        void record(long durationNanos) {
+            final long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(durationNanos), HIGHEST_TRACKABLE_MICROS);
+            if (m_singleWriter) {
+                SingleWriterRecorder recorder = m_singleWriterRecorder;
+                if (recorder == null) {
+                    recorder = new SingleWriterRecorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+                    m_singleWriterRecorder = recorder;
+                }
+                recorder.recordValue(micros);
+            }
+            else {
+                Recorder recorder = m_recorder;
+                if (recorder == null) {
+                    recorder = createRecorder();
+                }
+                recorder.recordValue(micros);
+            }
+        }
+
+        private synchronized Recorder createRecorder() {
+            if (m_recorder == null) {
+                m_recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            }
+            return m_recorder;
+        }
+
+        void sample() {
+            final Histogram interval;
+            if (m_singleWriter) {
+                SingleWriterRecorder recorder = m_singleWriterRecorder;
+                if (recorder == null) {
+                    return;
+                }
+                interval = recorder.getIntervalHistogram(m_recycled);
+            }
+            else {
+                Recorder recorder = m_recorder;
+                if (recorder == null) {
+                    return;
+                }
+                interval = recorder.getIntervalHistogram(m_recycled);
+            }
+            if (m_total == null) {
+                m_total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+                m_sinceLastInterval = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            }
+            m_total.add(interval);
+            m_sinceLastInterval.add(interval);
+            m_recycled = interval;
+        }
+
+        /**
+         * @return the execution time in nanoseconds at the given percentile of what was sampled
+         *         since startup, or since the last interval if {@code incremental}, 0 if nothing was
+         */
+        long getValueAtPercentile(double percentile, boolean incremental) {
+            Histogram histogram = incremental ? m_sinceLastInterval : m_total;
+            if (histogram == null) {
+                return 0;
+            }
+            return TimeUnit.MICROSECONDS.toNanos(histogram.getValueAtPercentile(percentile));
+        }
+
+        void resetInterval() {
+            if (m_sinceLastInterval != null) {
+                m_sinceLastInterval.reset();
+            }
+        }
+    }
+
     static final class StatsData {
+        StatsData(boolean singleWriter) {
+            m_executionTimes = new ExecutionTimeHistogram(singleWriter);
+        }
+
         /**
          * Number of times this procedure has been invoked.
          */
@@ -441,5 +576,10 @@ public final class StatementStats {
          */
         long m_totalParameterSetSize = 0;
         long m_lastTotalParameterSetSize = 0;
+
+        /**
+         * Sampled execution times for percentiles
+         */
+        final ExecutionTimeHistogram m_executionTimes;
     }
 }
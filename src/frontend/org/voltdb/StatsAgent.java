@@ -574,6 +574,9 @@ public class StatsAgent extends OpsAgent
         case TTL:
             stats = collectStats(StatsSelector.TTL, interval);
             break;
+        case MPREADPOOL:
+            stats = collectStats(StatsSelector.MPREADPOOL, interval);
+            break;
         case EXPORT:
             stats = collectStats(StatsSelector.EXPORT, interval);
             break;
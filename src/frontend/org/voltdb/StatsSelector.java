@@ -60,6 +60,7 @@ public enum StatsSelector {
     KSAFETY,        // return ksafety coverage information
     CPU,            // return CPU Stats
     GC,             // return GC Stats
+    MPREADPOOL,     // return MP read-only site pool size and wait times
 
     COMMANDLOG,     // return number of outstanding bytes and txns on this node
     IMPORTER,       // synonym as IMPORT for backward compatibility
@@ -211,6 +211,9 @@ public class SystemProcedureCatalog {
         builder.put("@CheckUpgradePlanNT",      new Config("org.voltdb.sysprocs.CheckUpgradePlanNT",       true,  false, false, 0,    VoltType.INVALID,   true,  false, true,      false,  false,            false,        false ));
         builder.put("@PrerequisitesCheckNT",    new Config("org.voltdb.sysprocs.CheckUpgradePlanNT$PrerequisitesCheckNT",
                                                                                                            false, false, false, 0,    VoltType.INVALID,   true,  false, true,      false,  false,            false,        false ));
+        builder.put("@Analyze",                 new Config("org.voltdb.sysprocs.Analyze",                  false, true,  false, 0,    VoltType.INVALID,   false, false, true,      false,  false,            false,        false ));
+        builder.put("@UpdatePlannerStatisticsNT", new Config("org.voltdb.sysprocs.Analyze$UpdatePlannerStatisticsNT",
+                                                                                                           false, true,  false, 0,    VoltType.INVALID,   false, false, true,      false,  false,            false,        false ));
         builder.put("@RestartDRConsumerNT",     new Config("org.voltdb.sysprocs.RestartDRConsumerNT",      false, false, false, 0,    VoltType.INVALID,   true,  false, true,      false,  false,            false,        false ));
         builder.put("@ShutdownNodeDRConsumerNT", new Config("org.voltdb.sysprocs.RestartDRConsumerNT$ShutdownNodeDRConsumerNT",
                                                                                                            false, false, false, 0,    VoltType.INVALID,   true,  false, true,      false,  false,            false,        false ));
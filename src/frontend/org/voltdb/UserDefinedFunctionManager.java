@@ -18,6 +18,10 @@
 package org.voltdb;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
@@ -128,6 +132,10 @@ public class UserDefinedFunctionManager {
         final boolean[] m_boxUpByteArray;
         final VoltType m_returnType;
         final int m_paramCount;
+        // Reads the parameters straight from the UDF buffer and calls the function,
+        // so that a row needs neither an Object[] nor boxed primitive parameters.
+        // Null when the handle could not be built; call() then falls back to reflection.
+        final MethodHandle m_functionHandle;
 
         static final int VAR_LEN_SIZE = Integer.SIZE/8;
 
@@ -152,6 +160,7 @@ public class UserDefinedFunctionManager {
                 m_boxUpByteArray[i] = paramTypeClasses[i] == Byte[].class;
             }
             m_returnType = VoltType.typeFromClass(m_functionMethod.getReturnType());
+            m_functionHandle = buildFunctionHandle();
 
             m_logger.debug(String.format("The user-defined function manager is defining function %s (ID = %s)",
                     m_functionName, m_functionId));
@@ -186,8 +195,84 @@ public class UserDefinedFunctionManager {
             }
         }
 
+        /**
+         * Build a handle of type (ByteBuffer)Object which reads the parameters of one row
+         * from the buffer in order, with typed reads for the primitive types, and calls the function.
+         * The handles are folded so that parameter i is read before parameter i+1:
+         * step k takes the k parameters read so far, most recent first, plus the buffer.
+         */
+        private MethodHandle buildFunctionHandle() {
+            try {
+                final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                final Class<?>[] paramClasses = m_functionMethod.getParameterTypes();
+                MethodHandle target = lookup.unreflect(m_functionMethod).bindTo(m_functionInstance);
+                target = MethodHandles.dropArguments(target, m_paramCount, ByteBuffer.class);
+                // (P1, ..., Pn, ByteBuffer) -> (Pn, ..., P1, ByteBuffer)
+                Class<?>[] reversed = new Class<?>[m_paramCount + 1];
+                int[] reorder = new int[m_paramCount + 1];
+                for (int i = 0; i < m_paramCount; i++) {
+                    reversed[m_paramCount - 1 - i] = paramClasses[i];
+                    reorder[i] = m_paramCount - 1 - i;
+                }
+                reversed[m_paramCount] = ByteBuffer.class;
+                reorder[m_paramCount] = m_paramCount;
+                target = MethodHandles.permuteArguments(target,
+                        MethodType.methodType(target.type().returnType(), reversed), reorder);
+                for (int i = m_paramCount - 1; i >= 0; i--) {
+                    MethodHandle reader = getParameterReader(i, paramClasses[i]);
+                    // The reader ignores the parameters which have already been read.
+                    reader = MethodHandles.dropArguments(reader, 0,
+                            target.type().dropParameterTypes(0, 1).dropParameterTypes(i, i + 1).parameterList());
+                    target = MethodHandles.foldArguments(target, reader);
+                }
+                return target.asType(MethodType.methodType(Object.class, ByteBuffer.class));
+            }
+            catch (ReflectiveOperationException | RuntimeException e) {
+                m_logger.debug(String.format("Function %s will be called through reflection: %s",
+                        m_functionName, e.toString()));
+                return null;
+            }
+        }
+
+        private MethodHandle getParameterReader(int index, Class<?> paramClass) throws ReflectiveOperationException {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle reader;
+            switch (m_paramTypes[index]) {
+            case TINYINT:
+                reader = lookup.findVirtual(ByteBuffer.class, "get", MethodType.methodType(byte.class));
+                break;
+            case SMALLINT:
+                reader = lookup.findVirtual(ByteBuffer.class, "getShort", MethodType.methodType(short.class));
+                break;
+            case INTEGER:
+                reader = lookup.findVirtual(ByteBuffer.class, "getInt", MethodType.methodType(int.class));
+                break;
+            case BIGINT:
+                reader = lookup.findVirtual(ByteBuffer.class, "getLong", MethodType.methodType(long.class));
+                break;
+            case FLOAT:
+                reader = lookup.findVirtual(ByteBuffer.class, "getDouble", MethodType.methodType(double.class));
+                break;
+            default:
+                if (m_boxUpByteArray[index]) {
+                    reader = lookup.findStatic(UserDefinedFunctionRunner.class, "readBoxedVarbinary",
+                            MethodType.methodType(Byte[].class, ByteBuffer.class));
+                }
+                else {
+                    reader = lookup.findStatic(UserDefinedFunctionRunner.class, "getValueFromBuffer",
+                            MethodType.methodType(Object.class, ByteBuffer.class, VoltType.class));
+                    reader = MethodHandles.insertArguments(reader, 1, m_paramTypes[index]);
+                }
+            }
+            return reader.asType(MethodType.methodType(paramClass, ByteBuffer.class));
+        }
+
         // We should refactor those functions into SerializationHelper
 
+        private static Byte[] readBoxedVarbinary(ByteBuffer buffer) {
+            return SerializationHelper.boxUpByteArray(readVarbinary(buffer));
+        }
+
         private static byte[] readVarbinary(ByteBuffer buffer) {
             // Sanity check the size against the remaining buffer size.
             if (VAR_LEN_SIZE > buffer.remaining()) {
@@ -322,7 +407,59 @@ public class UserDefinedFunctionManager {
             }
         }
 
+        /**
+         * Upper bound of the bytes {@link #writeValueToBuffer} needs for a value of the given type.
+         */
+        public static int getSerializedSizeBound(VoltType type, Object value) {
+            // 1 byte for the type indicator.
+            if (! type.isVariableLength()) {
+                return 1 + type.getLengthInBytesForFixedTypesWithoutCheck();
+            }
+            // 4 bytes for the prefixed length.
+            int size = 1 + 4;
+            if (VoltType.isVoltNullValue(value)) {
+                return size;
+            }
+            switch (type) {
+            case VARBINARY:
+                if (value instanceof byte[]) {
+                    size += ((byte[])value).length;
+                }
+                else if (value instanceof Byte[]) {
+                    size += ((Byte[])value).length;
+                }
+                break;
+            case STRING:
+                size += ((String)value).getBytes(Constants.UTF8ENCODING).length;
+                break;
+            case GEOGRAPHY:
+                size += ((GeographyValue)value).getLengthInBytes();
+                break;
+            default:
+            }
+            return size;
+        }
+
+        /**
+         * Call the function once for each of the rowCount rows of parameters in the buffer.
+         * Exceptions thrown by the function are not wrapped, whichever way it is called.
+         */
+        public Object[] callBatch(ByteBuffer udfBuffer, int rowCount) throws Throwable {
+            Object[] results = new Object[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                results[row] = call(udfBuffer);
+            }
+            return results;
+        }
+
         public Object call(ByteBuffer udfBuffer) throws Throwable {
+            if (m_functionHandle != null) {
+                return m_functionHandle.invokeExact(udfBuffer);
+            }
+            return callReflectively(udfBuffer);
+        }
+
+        Object callReflectively(ByteBuffer udfBuffer) throws Throwable {
             Object[] paramsIn = new Object[m_paramCount];
             for (int i = 0; i < m_paramCount; i++) {
                 paramsIn[i] = getValueFromBuffer(udfBuffer, m_paramTypes[i]);
@@ -330,7 +467,12 @@ public class UserDefinedFunctionManager {
                     paramsIn[i] = SerializationHelper.boxUpByteArray((byte[])paramsIn[i]);
                 }
             }
-            return m_functionMethod.invoke(m_functionInstance, paramsIn);
+            try {
+                return m_functionMethod.invoke(m_functionInstance, paramsIn);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
         }
 
         public VoltType getReturnType() {
@@ -0,0 +1,147 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.client;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.voltdb.client.Distributer.CallbackBookeeping;
+
+/**
+ * The invocations a connection is waiting on responses for, indexed by client handle.
+ *
+ * Client handles are handed out sequentially, so as long as the handles outstanding on a
+ * connection span less than the capacity of the table each one maps to a slot of its own.
+ * The bookkeeping object of a slot is reused from one call to the next, so tracking a call
+ * allocates nothing once the table is warm. A call whose slot is taken goes to an overflow
+ * map instead.
+ *
+ * Any thread may add, look at or remove calls. A call is removed at most once, and the
+ * thread that removes it owns invoking its callback. Removing copies the bookkeeping into
+ * an object supplied by the caller, because the slot may be reused as soon as it is free.
+ */
+final class CallbackTable {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    // A slot is claimed while its bookkeeping is filled in, before its handle is published
+    private static final long CLAIMED = Long.MIN_VALUE + 1;
+
+    private final int m_mask;
+    private final AtomicLongArray m_handles;
+    private final CallbackBookeeping[] m_slots;
+    private final ConcurrentHashMap<Long, CallbackBookeeping> m_overflow = new ConcurrentHashMap<>();
+
+    /**
+     * Receives the calls of {@link CallbackTable#forEach}. The bookkeeping passed in is a
+     * copy that is only valid for the duration of the call.
+     */
+    interface Visitor {
+        void visit(long handle, CallbackBookeeping call);
+    }
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    CallbackTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        m_mask = size - 1;
+        m_handles = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            m_handles.set(i, EMPTY);
+        }
+        m_slots = new CallbackBookeeping[size];
+    }
+
+    void put(long handle, long timestampNanos, ProcedureCallback callback, String name, ClientStats stats,
+             long timeoutNanos, boolean ignoreBackpressure) {
+        assert(handle != EMPTY && handle != CLAIMED);
+        final int index = (int) (handle & m_mask);
+        if (m_handles.compareAndSet(index, EMPTY, CLAIMED)) {
+            CallbackBookeeping slot = m_slots[index];
+            if (slot == null) {
+                slot = new CallbackBookeeping();
+                m_slots[index] = slot;
+            }
+            slot.set(timestampNanos, callback, name, stats, timeoutNanos, ignoreBackpressure);
+            // Publishes the bookkeeping along with the handle
+            m_handles.set(index, handle);
+        }
+        else {
+            CallbackBookeeping call = new CallbackBookeeping();
+            call.set(timestampNanos, callback, name, stats, timeoutNanos, ignoreBackpressure);
+            m_overflow.put(handle, call);
+        }
+    }
+
+    /**
+     * Remove a call.
+     *
+     * @param handle the client handle of the call
+     * @param out receives the bookkeeping of the call if it was removed
+     * @return true if this thread removed the call, false if it was not (or no longer) outstanding
+     */
+    boolean remove(long handle, CallbackBookeeping out) {
+        final int index = (int) (handle & m_mask);
+        if (m_handles.get(index) == handle) {
+            // Nobody writes the slot while it holds this handle, and handles are never reused,
+            // so the copy is good if the handle is still there when the slot is released.
+            out.copy(m_slots[index]);
+            if (m_handles.compareAndSet(index, handle, EMPTY)) {
+                return true;
+            }
+        }
+        if (m_overflow.isEmpty()) {
+            return false;
+        }
+        final CallbackBookeeping call = m_overflow.remove(handle);
+        if (call == null) {
+            return false;
+        }
+        out.copy(call);
+        return true;
+    }
+
+    boolean contains(long handle) {
+        return m_handles.get((int) (handle & m_mask)) == handle || m_overflow.containsKey(handle);
+    }
+
+    /**
+     * Visit every outstanding call. Calls added or removed concurrently may or may not be visited.
+     *
+     * @param scratch used to hand each call to the visitor
+     */
+    void forEach(CallbackBookeeping scratch, Visitor visitor) {
+        for (int i = 0; i <= m_mask; i++) {
+            final long handle = m_handles.get(i);
+            if (handle == EMPTY || handle == CLAIMED) {
+                continue;
+            }
+            scratch.copy(m_slots[i]);
+            if (m_handles.get(i) == handle) {
+                visitor.visit(handle, scratch);
+            }
+        }
+        if (!m_overflow.isEmpty()) {
+            for (Map.Entry<Long, CallbackBookeeping> e : m_overflow.entrySet()) {
+                scratch.copy(e.getValue());
+                visitor.visit(e.getKey(), scratch);
+            }
+        }
+    }
+}
@@ -22,7 +22,10 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.voltdb.client.VoltBulkLoader.BulkLoaderFailureCallBack;
 import org.voltdb.client.VoltBulkLoader.BulkLoaderSuccessCallback;
@@ -111,6 +114,53 @@ public interface Client {
     public boolean callProcedure(ProcedureCallback callback, String procName, Object... parameters)
     throws IOException, NoConnectionsException;
 
+    /**
+     * <p>Asynchronously invoke a procedure, returning a future of its response. The future completes
+     * normally with a successful response, and exceptionally with a {@link ProcCallException} carrying any
+     * other response. It also completes exceptionally if the invocation could not be queued, because the
+     * client is not connected or because {@link #configureBlocking(boolean) configureBlocking(false)} was
+     * invoked and there is backpressure.</p>
+     *
+     * <p>The future is completed by the thread backing the client instance, so dependent actions that are
+     * not run asynchronously run on that thread. See the {@link Client} class documentation for the
+     * negative performance impact of slow or blocking callbacks.</p>
+     *
+     * @param procName class name (not qualified by package) of the procedure to execute.
+     * @param parameters vararg list of procedure's parameter values.
+     * @return future that will be completed with the procedure's response.
+     */
+    public default CompletableFuture<ClientResponse> callProcedureAsync(String procName, Object... parameters) {
+        ProcedureFuture future = new ProcedureFuture();
+        try {
+            if (!callProcedure(future, procName, parameters)) {
+                future.failToQueue();
+            }
+        }
+        catch (IOException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * <p>Asynchronously invoke several procedures at once. The default implementation invokes them one
+     * at a time with {@link #callProcedureAsync(String, Object...)}; the VoltDB client sends invocations
+     * headed for the same server together in a single network write, which is cheaper. Each returned future behaves as one returned by {@link #callProcedureAsync(String, Object...)}.
+     * If there is backpressure this call blocks until all invocations are queued, unless
+     * configureBlocking(false) was invoked, in which case the invocations that could not be queued
+     * complete exceptionally.</p>
+     *
+     * @param invocations the procedures to invoke, in the order in which they should be sent.
+     * @return one future per invocation, in the same order.
+     */
+    public default List<CompletableFuture<ClientResponse>> callProcedures(List<Invocation> invocations) {
+        List<CompletableFuture<ClientResponse>> futures = new ArrayList<>(invocations.size());
+        for (Invocation invocation : invocations) {
+            futures.add(callProcedureAsync(invocation.getProcName(), invocation.getParameters()));
+        }
+        return Collections.unmodifiableList(futures);
+    }
+
     /**
      * <p>Synchronously invoke a procedure with timeout. Blocks until a result is available. A {@link ProcCallException}
      * is thrown if the response is anything other then success.</p>
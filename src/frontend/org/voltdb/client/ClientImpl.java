@@ -22,10 +22,13 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
@@ -450,6 +453,87 @@ public final class ClientImpl implements Client {
         return callProcedure(callback, procName, parameters);
     }
 
+    @Override
+    public List<CompletableFuture<ClientResponse>> callProcedures(List<Invocation> invocations) {
+        final List<ProcedureInvocation> procedureInvocations = new ArrayList<>(invocations.size());
+        final List<ProcedureFuture> futures = new ArrayList<>(invocations.size());
+        for (Invocation invocation : invocations) {
+            procedureInvocations.add(new ProcedureInvocation(
+                    m_handle.getAndIncrement(), invocation.getProcName(), invocation.getParameters()));
+            futures.add(new ProcedureFuture());
+        }
+
+        if (m_isShutdown) {
+            for (ProcedureFuture future : futures) {
+                future.failToQueue();
+            }
+        }
+        else {
+            internalAsyncCallProcedures(procedureInvocations, futures);
+        }
+        return Collections.<CompletableFuture<ClientResponse>>unmodifiableList(futures);
+    }
+
+    /**
+     * Queue a batch of invocations, waiting on backpressure like internalAsyncCallProcedure.
+     * The futures of the invocations that can't be queued are completed exceptionally.
+     */
+    private void internalAsyncCallProcedures(
+            List<ProcedureInvocation> invocations,
+            List<ProcedureFuture> futures) {
+        final long nowNanos = System.nanoTime();
+        //Blessed threads (the ones that invoke callbacks) are not subject to backpressure
+        boolean isBlessed = m_blessedThreadIds.contains(Thread.currentThread().getId());
+        int queued = 0;
+        while (true) {
+            final List<ProcedureFuture> remaining = futures.subList(queued, futures.size());
+            try {
+                queued += m_distributer.queueBatch(invocations.subList(queued, invocations.size()),
+                        remaining, isBlessed, nowNanos, Distributer.USE_DEFAULT_CLIENT_TIMEOUT);
+            }
+            catch (NoConnectionsException e) {
+                for (ProcedureFuture future : remaining) {
+                    future.completeExceptionally(e);
+                }
+                return;
+            }
+            if (queued == invocations.size()) {
+                return;
+            }
+            if ( ! m_blockingQueue) {
+                for (ProcedureFuture future : futures.subList(queued, futures.size())) {
+                    future.failToQueue();
+                }
+                return;
+            }
+
+            final long delta = Math.max(1, System.nanoTime() - nowNanos);
+            final long timeout = m_distributer.getProcedureTimeoutNanos();
+            try {
+                if (backpressureBarrier(nowNanos, timeout - delta)) {
+                    final ClientResponse response = new ClientResponseImpl(
+                            ClientResponse.CONNECTION_TIMEOUT,
+                            ClientResponse.UNINITIALIZED_APP_STATUS_CODE,
+                            "",
+                            new VoltTable[0],
+                            String.format("No response received in the allotted time (set to %d ms).",
+                                    TimeUnit.NANOSECONDS.toMillis(timeout)));
+                    for (ProcedureFuture future : futures.subList(queued, futures.size())) {
+                        future.clientCallback(response);
+                    }
+                    return;
+                }
+            }
+            catch (InterruptedException e) {
+                for (ProcedureFuture future : futures.subList(queued, futures.size())) {
+                    future.completeExceptionally(e);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
     private final ClientResponse internalSyncCallProcedure(
             long clientTimeoutNanos,
             ProcedureInvocation invocation) throws ProcCallException, IOException {
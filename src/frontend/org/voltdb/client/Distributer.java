@@ -33,8 +33,6 @@ import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
@@ -149,6 +147,9 @@ class Distributer {
     //This is a global timeout that will be used if a per-procedure timeout is not provided with the procedure call.
     private final long m_procedureCallTimeoutNanos;
     private static final long MINIMUM_LONG_RUNNING_SYSTEM_CALL_TIMEOUT_MS = 30 * 60 * 1000; // 30 minutes
+
+    // Calls a connection can have outstanding before tracking them allocates
+    private static final int CALLBACK_TABLE_CAPACITY = Integer.getInteger("CLIENT_CALLBACK_TABLE_CAPACITY", 4096);
     private final long m_connectionResponseTimeoutNanos;
     private final Map<Integer, ClientAffinityStats> m_clientAffinityStats =
         new HashMap<>();
@@ -164,6 +165,24 @@ class Distributer {
         Executors.newSingleThreadScheduledExecutor(
                 CoreUtils.getThreadFactory("VoltDB Client Reaper Thread"));
     ScheduledFuture<?> m_timeoutReaperHandle;
+    //Bookkeeping of the calls being expired, only used by the reaper thread
+    private final CallbackBookeeping m_scratch = new CallbackBookeeping();
+
+    /*
+     * Calls with a timeout below the resolution of the periodic expiration task, which
+     * is most of the calls made with a short timeout. The wheel is ticked by the reaper
+     * thread only while it has calls, and the lock of the wheel guards starting and
+     * stopping the ticker.
+     */
+    private final TimeoutWheel<NodeConnection> m_timeoutWheel =
+            new TimeoutWheel<>(TimeUnit.MILLISECONDS.toNanos(1), 1024, System.nanoTime());
+    private final TimeoutWheel.Expirer<NodeConnection> m_timeoutExpirer = new TimeoutWheel.Expirer<NodeConnection>() {
+        @Override
+        public void expire(NodeConnection owner, long handle, long nowNanos) {
+            owner.handleTimedoutCallback(handle, nowNanos);
+        }
+    };
+    private ScheduledFuture<?> m_timeoutTickerHandle;
 
     /**
      * Server's instances id. Unique for the cluster
@@ -318,6 +337,8 @@ class Distributer {
     }
 
     class CallExpiration implements Runnable {
+        private final CallbackBookeeping m_scanScratch = new CallbackBookeeping();
+
         @Override
         public void run() {
             try {
@@ -348,24 +369,48 @@ class Distributer {
                     }
 
                     // for each outstanding procedure
-                    for (final Map.Entry<Long, CallbackBookeeping> e : c.m_callbacks.entrySet()) {
-                        final long handle = e.getKey();
-                        final CallbackBookeeping cb = e.getValue();
-
-                        // if the timeout is expired, call the callback and remove the
-                        // bookeeping data
-                        final long deltaNanos = Math.max(1, nowNanos - cb.timestampNanos);
-                        if (deltaNanos > cb.procedureTimeoutNanos) {
-
-                            //For expected long operations don't use the default timeout
-                            //unless it is > MINIMUM_LONG_RUNNING_SYSTEM_CALL_TIMEOUT_MS
-                            final boolean isLongOp = isLongOp(cb.name);
-                            if (isLongOp && (deltaNanos < TimeUnit.MILLISECONDS.toNanos(MINIMUM_LONG_RUNNING_SYSTEM_CALL_TIMEOUT_MS))) {
-                                continue;
-                            }
+                    c.m_callbacks.forEach(m_scanScratch, new CallbackTable.Visitor() {
+                        @Override
+                        public void visit(long handle, CallbackBookeeping cb) {
+                            // if the timeout is expired, call the callback and remove the
+                            // bookeeping data
+                            final long deltaNanos = Math.max(1, nowNanos - cb.timestampNanos);
+                            if (deltaNanos > cb.procedureTimeoutNanos) {
+
+                                //For expected long operations don't use the default timeout
+                                //unless it is > MINIMUM_LONG_RUNNING_SYSTEM_CALL_TIMEOUT_MS
+                                final boolean isLongOp = isLongOp(cb.name);
+                                if (isLongOp && (deltaNanos < TimeUnit.MILLISECONDS.toNanos(MINIMUM_LONG_RUNNING_SYSTEM_CALL_TIMEOUT_MS))) {
+                                    return;
+                                }
 
-                            c.handleTimedoutCallback(handle, nowNanos);
+                                c.handleTimedoutCallback(handle, nowNanos);
+                            }
                         }
+                    });
+                }
+            } catch (Throwable t) {
+                t.printStackTrace();
+            }
+        }
+    }
+
+    /*
+     * Expires the calls with discrete timeouts, run every tick of the timeout wheel
+     * while it has any
+     */
+    class TimeoutTicker implements Runnable {
+        @Override
+        public void run() {
+            try {
+                if (m_timeoutWheel.expire(System.nanoTime(), m_timeoutExpirer) > 0) {
+                    return;
+                }
+                synchronized (m_timeoutWheel) {
+                    // A call may have been scheduled since, in which case the ticker keeps running
+                    if (m_timeoutWheel.pending() == 0 && m_timeoutTickerHandle != null) {
+                        m_timeoutTickerHandle.cancel(false);
+                        m_timeoutTickerHandle = null;
                     }
                 }
             } catch (Throwable t) {
@@ -374,6 +419,29 @@ class Distributer {
         }
     }
 
+    /*
+     * For high precision timeouts, add the call to the timeout wheel, starting its
+     * ticker if the wheel was empty. Expiring the call races with the response and
+     * with the periodic task that checks lower resolution timeouts and it is fine,
+     * the callback table makes sure each callback is handled exactly once.
+     */
+    void scheduleDiscreteTimeout(NodeConnection cxn, long handle, long deadlineNanos) {
+        if (!m_timeoutWheel.schedule(cxn, handle, deadlineNanos)) {
+            return;
+        }
+        synchronized (m_timeoutWheel) {
+            if (m_timeoutTickerHandle == null && !m_ex.isShutdown()) {
+                final long tickNanos = m_timeoutWheel.tickNanos();
+                try {
+                    m_timeoutTickerHandle = m_ex.scheduleAtFixedRate(new TimeoutTicker(),
+                            tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException ree) {
+                    // this is for race if m_ex shuts down in the middle of schedule
+                }
+            }
+        }
+    }
+
     /*
      * Check if the proc name is a procedure that is expected to run long
      * Make the minimum timeoutMS for certain long running system procedures
@@ -390,27 +458,41 @@ class Distributer {
         return false;
     }
 
-    class CallbackBookeeping {
-        public CallbackBookeeping(long timestampNanos, ProcedureCallback callback, String name, long timeoutNanos, boolean ignoreBackpressure) {
+    /*
+     * Reused from one call to the next by the CallbackTable, and used as scratch space
+     * by the threads that remove calls from it
+     */
+    static final class CallbackBookeeping {
+        void set(long timestampNanos, ProcedureCallback callback, String name, ClientStats stats,
+                long timeoutNanos, boolean ignoreBackpressure) {
             assert(callback != null);
             this.timestampNanos = timestampNanos;
             this.callback = callback;
             this.name = name;
+            this.stats = stats;
             this.procedureTimeoutNanos = timeoutNanos;
             this.ignoreBackpressure = ignoreBackpressure;
         }
+        void copy(CallbackBookeeping other) {
+            set(other.timestampNanos, other.callback, other.name, other.stats,
+                    other.procedureTimeoutNanos, other.ignoreBackpressure);
+        }
         long timestampNanos;
         //Timeout in ms 0 means use conenction specified procedure timeoutMS.
-        final long procedureTimeoutNanos;
+        long procedureTimeoutNanos;
         ProcedureCallback callback;
         String name;
+        //Statistics of the procedure on the connection, looked up when the call is made
+        ClientStats stats;
         boolean ignoreBackpressure;
     }
 
     class NodeConnection extends VoltProtocolHandler implements org.voltcore.network.QueueMonitor {
         private final AtomicInteger m_callbacksToInvoke = new AtomicInteger(0);
-        private final ConcurrentMap<Long, CallbackBookeeping> m_callbacks = new ConcurrentHashMap<>();
+        private final CallbackTable m_callbacks = new CallbackTable(CALLBACK_TABLE_CAPACITY);
         private final NonBlockingHashMap<String, ClientStats> m_stats = new NonBlockingHashMap<>();
+        //Receives the bookkeeping of the calls responses arrive for, only used by the network thread
+        private final CallbackBookeeping m_responseScratch = new CallbackBookeeping();
         private Connection m_connection;
         private volatile boolean m_isConnected = true;
 
@@ -454,18 +536,18 @@ class Distributer {
                  * the transaction out on the wire due to max outstanding
                  */
                 final long deltaNanos = Math.max(1, System.nanoTime() - nowNanos);
-                invokeCallbackWithTimeout(name, callback, deltaNanos, afterRateLimitNanos, timeoutNanos, handle, ignoreBackpressure);
+                invokeCallbackWithTimeout(name, null, callback, deltaNanos, afterRateLimitNanos, timeoutNanos, handle, ignoreBackpressure);
                 return;
             }
 
-            assert(m_callbacks.containsKey(handle) == false);
+            assert(m_callbacks.contains(handle) == false);
 
             //Drain needs to know when all callbacks have been invoked
             final int callbacksToInvoke = m_callbacksToInvoke.incrementAndGet();
             assert(callbacksToInvoke >= 0);
 
             //Optimistically submit the task
-            m_callbacks.put(handle, new CallbackBookeeping(nowNanos, callback, name, timeoutNanos, ignoreBackpressure));
+            m_callbacks.put(handle, nowNanos, callback, name, statsFor(name), timeoutNanos, ignoreBackpressure);
 
             //Schedule the timeout to fire relative to the amount of time
             //spent getting to this point. Might fire immediately
@@ -475,55 +557,113 @@ class Distributer {
             //Schedule an individual timeout if necessary
             //If it is a long op, don't bother scheduling a discrete timeout
             if (timeoutNanos < TimeUnit.SECONDS.toNanos(1) && !isLongOp(name)) {
-                submitDiscreteTimeoutTask(handle, Math.max(0, timeoutRemaining));
+                scheduleDiscreteTimeout(this, handle, afterRateLimitNanos + Math.max(0, timeoutRemaining));
             }
 
             //Check for disconnect
             if (!m_isConnected) {
-                //Check if the disconnect or expiration already handled the callback
-                if (m_callbacks.remove(handle) == null) {
-                    return;
-                }
-                final ClientResponse r = new ClientResponseImpl(
-                        ClientResponse.CONNECTION_LOST, new VoltTable[0],
-                        "Connection to database host (" + m_connection.getHostnameAndIPAndPort() +
-                ") was lost before a response was received");
+                handleLostBeforeSent(handle, callback, nowNanos, ignoreBackpressure);
+                return;
+            } else {
+                m_connection.writeStream().enqueue(c);
+            }
+        }
+
+        /*
+         * Same as createWork for several invocations at once. The invocations are serialized
+         * into one buffer after they get past the rate limiter, and the ones that need a
+         * discrete timeout share one timeout task. The invocations are those at the
+         * first count positions of indexes.
+         */
+        public void createBatchWork(final long nowNanos, List<ProcedureInvocation> invocations,
+                List<? extends ProcedureCallback> callbacks, int indexes[], int count,
+                boolean ignoreBackpressure, long timeoutNanos) {
+            timeoutNanos = (timeoutNanos == Distributer.USE_DEFAULT_CLIENT_TIMEOUT) ? m_procedureCallTimeoutNanos : timeoutNanos;
+            final long timeoutTime = nowNanos + timeoutNanos;
+            final boolean discreteTimeout = timeoutNanos < TimeUnit.SECONDS.toNanos(1);
+
+            long afterRateLimitNanos = 0;
+            int serializedSize = 0;
+            int accepted = 0;
+            for (int k = 0; k < count; ++k) {
+                final ProcedureInvocation invocation = invocations.get(indexes[k]);
+                final ProcedureCallback callback = callbacks.get(indexes[k]);
+                assert(callback != null);
                 try {
-                    callback.clientCallback(r);
-                } catch (Exception e) {
-                    uncaughtException(callback, r, e);
+                    afterRateLimitNanos = m_rateLimiter.sendTxnWithOptionalBlockAndReturnCurrentTime(
+                            nowNanos, timeoutNanos, ignoreBackpressure);
+                } catch (TimeoutException e) {
+                    final long deltaNanos = Math.max(1, System.nanoTime() - nowNanos);
+                    invokeCallbackWithTimeout(invocation.getProcName(), null, callback, deltaNanos, afterRateLimitNanos,
+                            timeoutNanos, invocation.getHandle(), ignoreBackpressure);
+                    continue;
                 }
+                assert(m_callbacks.contains(invocation.getHandle()) == false);
 
                 //Drain needs to know when all callbacks have been invoked
-                final int remainingToInvoke = m_callbacksToInvoke.decrementAndGet();
-                assert(remainingToInvoke >= 0);
+                m_callbacksToInvoke.incrementAndGet();
+                final String name = invocation.getProcName();
+                m_callbacks.put(invocation.getHandle(), nowNanos, callback, name, statsFor(name),
+                        timeoutNanos, ignoreBackpressure);
+                if (discreteTimeout && !isLongOp(name)) {
+                    scheduleDiscreteTimeout(this, invocation.getHandle(),
+                            Math.max(afterRateLimitNanos, timeoutTime));
+                }
+                serializedSize += 4 + invocation.getSerializedSize();
+                indexes[accepted++] = indexes[k];
+            }
+            if (accepted == 0) {
+                return;
+            }
 
-                //for bookkeeping, but it feels dishonest to call this here
-                m_rateLimiter.transactionResponseReceived(nowNanos, -1, ignoreBackpressure);
+            //Check for disconnect
+            if (!m_isConnected) {
+                for (int k = 0; k < accepted; ++k) {
+                    handleLostBeforeSent(invocations.get(indexes[k]).getHandle(), callbacks.get(indexes[k]),
+                            nowNanos, ignoreBackpressure);
+                }
                 return;
-            } else {
-                m_connection.writeStream().enqueue(c);
             }
+
+            final ByteBuffer buf = ByteBuffer.allocate(serializedSize);
+            try {
+                for (int k = 0; k < accepted; ++k) {
+                    final ProcedureInvocation invocation = invocations.get(indexes[k]);
+                    buf.putInt(invocation.getSerializedSize());
+                    invocation.flattenToBuffer(buf);
+                }
+            } catch (IOException e) {
+                Throwables.propagate(e);
+            }
+            buf.flip();
+            m_connection.writeStream().enqueue(buf);
         }
 
         /*
-         * For high precision timeouts, submit a discrete task to a scheduled
-         * executor service to time out the transaction. The timeout task
-         * when run checks if the task is still present in the concurrent map
-         * of tasks and removes it. If it wins the race to remove the map
-         * then the transaction will be timed out even if a response is received
-         * at the same time.
-         *
-         * This will race with the periodic task that checks lower resolution timeouts
-         * and it is fine, the concurrent map makes sure each callback is handled exactly once
+         * Fail an invocation whose connection was lost before it could be written,
+         * unless the disconnect or expiration already handled the callback
          */
-        void submitDiscreteTimeoutTask(final long handle, long timeoutNanos) {
-            m_ex.schedule(new Runnable() {
-                @Override
-                public void run() {
-                    handleTimedoutCallback(handle, System.nanoTime());
-                }
-            }, timeoutNanos, TimeUnit.NANOSECONDS);
+        private void handleLostBeforeSent(long handle, ProcedureCallback callback, long nowNanos,
+                boolean ignoreBackpressure) {
+            if (!m_callbacks.remove(handle, new CallbackBookeeping())) {
+                return;
+            }
+            final ClientResponse r = new ClientResponseImpl(
+                    ClientResponse.CONNECTION_LOST, new VoltTable[0],
+                    "Connection to database host (" + m_connection.getHostnameAndIPAndPort() +
+            ") was lost before a response was received");
+            try {
+                callback.clientCallback(r);
+            } catch (Exception e) {
+                uncaughtException(callback, r, e);
+            }
+
+            //Drain needs to know when all callbacks have been invoked
+            final int remainingToInvoke = m_callbacksToInvoke.decrementAndGet();
+            assert(remainingToInvoke >= 0);
+
+            //for bookkeeping, but it feels dishonest to call this here
+            m_rateLimiter.transactionResponseReceived(nowNanos, -1, ignoreBackpressure);
         }
 
         /*
@@ -532,23 +672,26 @@ class Distributer {
          */
         void handleTimedoutCallback(long handle, long nowNanos) {
             //Callback doesn't have to be there, it may have already
-            //received a response or been expired by the periodic expiration task, or a discrete expiration task
-            final CallbackBookeeping cb = m_callbacks.remove(handle);
+            //received a response or been expired by the periodic expiration task, or the timeout wheel.
+            //Both expire on the reaper thread, which owns the scratch bookkeeping.
+            final CallbackBookeeping cb = m_scratch;
 
             //It was handled during the race
-            if (cb == null) {
+            if (!m_callbacks.remove(handle, cb)) {
                 return;
             }
 
             final long deltaNanos = Math.max(1, nowNanos - cb.timestampNanos);
 
-            invokeCallbackWithTimeout(cb.name, cb.callback, deltaNanos, nowNanos, cb.procedureTimeoutNanos, handle, cb.ignoreBackpressure);
+            invokeCallbackWithTimeout(cb.name, cb.stats, cb.callback, deltaNanos, nowNanos, cb.procedureTimeoutNanos,
+                    handle, cb.ignoreBackpressure);
         }
 
         /*
          * Factor out the boilerplate involved in invoking a callback with a timeout response
          */
         void invokeCallbackWithTimeout(String procName,
+                                       ClientStats stats,
                                        ProcedureCallback callback,
                                        long deltaNanos,
                                        long nowNanos,
@@ -576,7 +719,8 @@ class Distributer {
             assert(remainingToInvoke >= 0);
 
             m_rateLimiter.transactionResponseReceived(nowNanos, -1, ignoreBackpressure);
-            updateStatsForTimeout(procName, r.getClientRoundtripNanos(), r.getClusterRoundtrip());
+            updateStatsForTimeout(stats == null ? statsFor(procName) : stats,
+                    r.getClientRoundtripNanos(), r.getClusterRoundtrip());
         }
 
         void sendPing() {
@@ -594,31 +738,25 @@ class Distributer {
         }
 
         private void updateStatsForTimeout(
-                final String procName,
+                final ClientStats stats,
                 final long roundTripNanos,
                 final int clusterRoundTrip) {
+            //Statistics are only updated by the network thread
             m_connection.queueTask(new Runnable() {
                 @Override
                 public void run() {
-                    updateStats(procName, roundTripNanos, clusterRoundTrip, false, false, true);
+                    stats.update(roundTripNanos, clusterRoundTrip, false, false, true);
                 }
             });
         }
 
         /**
-         * Update the procedures statistics
-         * @param procName Name of procedure being updated
-         * @param clusterRoundTrip round trip measured within the VoltDB cluster
-         * @param abort true of the procedure was aborted
-         * @param failure true if the procedure failed
+         * Get the statistics of a procedure, creating them on its first call.
+         * Statistics are looked up when a call is made so that the response
+         * only has to update them.
+         * @param procName Name of procedure
          */
-        private void updateStats(
-                String procName,
-                long roundTripNanos,
-                int clusterRoundTrip,
-                boolean abort,
-                boolean failure,
-                boolean timeout) {
+        private ClientStats statsFor(String procName) {
             ClientStats stats = m_stats.get(procName);
             if (stats == null) {
                 stats = new ClientStats();
@@ -628,9 +766,12 @@ class Distributer {
                 stats.m_procName = procName;
                 stats.m_startTS = System.currentTimeMillis();
                 stats.m_endTS = Long.MIN_VALUE;
-                m_stats.put(procName, stats);
+                final ClientStats existing = m_stats.putIfAbsent(procName, stats);
+                if (existing != null) {
+                    stats = existing;
+                }
             }
-            stats.update(roundTripNanos, clusterRoundTrip, abort, failure, timeout);
+            return stats;
         }
 
         @Override
@@ -679,10 +820,10 @@ class Distributer {
 
             //Race with expiration thread to be the first to remove the callback
             //from the map and process it
-            final CallbackBookeeping stuff = m_callbacks.remove(response.getClientHandle());
+            final CallbackBookeeping stuff = m_responseScratch;
 
             // presumably (hopefully) this is a response for a timed-out message
-            if (stuff == null) {
+            if (!m_callbacks.remove(response.getClientHandle(), stuff)) {
                 // also ignore internal (topology and procedure) calls
                 if (handle >= 0) {
                     // notify any listeners of the late response
@@ -711,7 +852,7 @@ class Distributer {
 
                 int clusterRoundTrip = response.getClusterRoundtrip();
                 m_rateLimiter.transactionResponseReceived(nowNanos, clusterRoundTrip, stuff.ignoreBackpressure);
-                updateStats(stuff.name, deltaNanos, clusterRoundTrip, abort, error, false);
+                stuff.stats.update(deltaNanos, clusterRoundTrip, abort, error, false);
                 response.setClientRoundtrip(deltaNanos);
                 assert(response.getHashes() == null) : "A determinism hash snuck into the client wire protocol";
                 try {
@@ -838,12 +979,19 @@ class Distributer {
                         ClientResponse.CONNECTION_LOST, new VoltTable[0],
                         "Connection to database host (" + m_connection.getHostnameAndIPAndPort() +
                 ") was lost before a response was received");
-            for (Map.Entry<Long, CallbackBookeeping> e : m_callbacks.entrySet()) {
+            final List<Long> handles = new ArrayList<>();
+            m_callbacks.forEach(new CallbackBookeeping(), new CallbackTable.Visitor() {
+                @Override
+                public void visit(long handle, CallbackBookeeping call) {
+                    handles.add(handle);
+                }
+            });
+            final CallbackBookeeping callBk = new CallbackBookeeping();
+            for (long handle : handles) {
                 //Check for race with other threads
-                if (m_callbacks.remove(e.getKey()) == null) {
+                if (!m_callbacks.remove(handle, callBk)) {
                     continue;
                 }
-                final CallbackBookeeping callBk = e.getValue();
                 try {
                     callBk.callback.clientCallback(r);
                 }
@@ -1143,140 +1291,209 @@ class Distributer {
         assert(invocation != null);
         assert(cb != null);
 
-        NodeConnection cxn = null;
-        boolean backpressure = true;
+        NodeConnection cxn;
 
         /*
          * Synchronization is necessary to ensure that m_connections is not modified
          * as well as to ensure that backpressure is reported correctly
          */
         synchronized (this) {
-            final int totalConnections = m_connections.size();
+            cxn = routeInvocation(invocation, ignoreBackpressure);
+        }
 
-            if (totalConnections == 0) {
-                throw new NoConnectionsException("No connections.");
+        /*
+         * Do the heavy weight serialization outside the synchronized block.
+         * createWork synchronizes on an individual connection which allows for more concurrency
+         */
+        if (cxn != null) {
+            ByteBuffer buf = null;
+            try {
+                buf = serializeSPI(invocation);
+            } catch (Exception e) {
+                Throwables.propagate(e);
             }
+            cxn.createWork(nowNanos, invocation.getHandle(), invocation.getProcName(), buf, cb, ignoreBackpressure, timeoutNanos);
+        }
+        if (m_topologyChangeAware) {
+            createConnectionsUponTopologyChange();
+        }
+        return cxn != null;
+    }
 
-            /*
-             * Check if the master for the partition is known. No back pressure check to ensure correct
-             * routing, but backpressure will be managed anyways. This is where we guess partition based on client
-             * affinity and known topology (hashinator initialized).
-             */
-            if (m_useClientAffinity && (m_hashinator != null)) {
-                final ImmutableSortedMap<String, Procedure> procedures = m_procedureInfo.get();
-                Procedure procedureInfo = null;
-                if (procedures != null) {
-                    procedureInfo = procedures.get(invocation.getProcName());
+    /**
+     * Queue a batch of invocations. Each invocation is routed as {@link #queue} would route it,
+     * but the invocations headed for the same connection are serialized into a single buffer,
+     * written with a single write and timed out by a single task. Routing stops at the first
+     * invocation that meets backpressure, so the invocations that were queued are always a
+     * prefix of the list.
+     *
+     * @param invocations the invocations to queue
+     * @param callbacks the callback of each invocation
+     * @param ignoreBackpressure If true the invocations will be queued even if there is backpressure
+     * @param nowNanos Current time in nanoseconds using System.nanoTime
+     * @param timeoutNanos nanoseconds from nowNanos where timeout should fire
+     * @return The number of invocations, from the start of the list, that were queued
+     * @throws NoConnectionsException
+     */
+    int queueBatch(
+            List<ProcedureInvocation> invocations,
+            List<? extends ProcedureCallback> callbacks,
+            final boolean ignoreBackpressure, final long nowNanos, final long timeoutNanos)
+            throws NoConnectionsException {
+        assert(invocations.size() == callbacks.size());
+
+        final NodeConnection routes[] = new NodeConnection[invocations.size()];
+        int queued = 0;
+        synchronized (this) {
+            while (queued < routes.length) {
+                NodeConnection cxn = routeInvocation(invocations.get(queued), ignoreBackpressure);
+                if (cxn == null) {
+                    break;
                 }
-                Integer hashedPartition = -1;
-
-                if (procedureInfo != null) {
-                    hashedPartition = Constants.MP_INIT_PID;
-                    if (( ! procedureInfo.multiPart) &&
-                        // User may have passed too few parameters to allow dispatching.
-                        // Avoid an indexing error here to fall through to the proper ProcCallException.
-                            (procedureInfo.partitionParameter < invocation.getPassedParamCount())) {
-                        hashedPartition = m_hashinator.getHashedPartitionForParameter(
-                                procedureInfo.partitionParameterType,
-                                invocation.getPartitionParamValue(procedureInfo.partitionParameter));
-                    }
-                    /*
-                     * If the procedure is read only and single part and the user wants it, load balance across replicas
-                     * This is probably slower for SAFE consistency.
-                     */
-                    if (!procedureInfo.multiPart && procedureInfo.readOnly && m_sendReadsToReplicasBytDefaultIfCAEnabled) {
-                        NodeConnection partitionReplicas[] = m_partitionReplicas.get(hashedPartition);
-                        if (partitionReplicas != null && partitionReplicas.length > 0) {
-                            cxn = partitionReplicas[ThreadLocalRandom.current().nextInt(partitionReplicas.length)];
-                            if (cxn.hadBackPressure()) {
-                                //See if there is one without backpressure, make sure it's still connected
-                                for (NodeConnection nc : partitionReplicas) {
-                                    if (!nc.hadBackPressure() && nc.m_isConnected) {
-                                        cxn = nc;
-                                        break;
-                                    }
+                routes[queued++] = cxn;
+            }
+        }
+
+        // Hand each connection its share of the batch, in the order of the list
+        final int indexes[] = new int[queued];
+        for (int first = 0; first < queued; ++first) {
+            final NodeConnection cxn = routes[first];
+            if (cxn == null) {
+                continue;
+            }
+            int count = 0;
+            for (int i = first; i < queued; ++i) {
+                if (routes[i] == cxn) {
+                    indexes[count++] = i;
+                    routes[i] = null;
+                }
+            }
+            cxn.createBatchWork(nowNanos, invocations, callbacks, indexes, count, ignoreBackpressure, timeoutNanos);
+        }
+        if (m_topologyChangeAware) {
+            createConnectionsUponTopologyChange();
+        }
+        return queued;
+    }
+
+    /**
+     * Pick the connection an invocation should be sent over. Must be called while
+     * synchronized on this distributer.
+     *
+     * @return the connection, or null if the invocation can't be queued because of backpressure
+     */
+    private NodeConnection routeInvocation(ProcedureInvocation invocation, boolean ignoreBackpressure)
+            throws NoConnectionsException {
+        NodeConnection cxn = null;
+        boolean backpressure = true;
+        final int totalConnections = m_connections.size();
+
+        if (totalConnections == 0) {
+            throw new NoConnectionsException("No connections.");
+        }
+
+        /*
+         * Check if the master for the partition is known. No back pressure check to ensure correct
+         * routing, but backpressure will be managed anyways. This is where we guess partition based on client
+         * affinity and known topology (hashinator initialized).
+         */
+        if (m_useClientAffinity && (m_hashinator != null)) {
+            final ImmutableSortedMap<String, Procedure> procedures = m_procedureInfo.get();
+            Procedure procedureInfo = null;
+            if (procedures != null) {
+                procedureInfo = procedures.get(invocation.getProcName());
+            }
+            Integer hashedPartition = -1;
+
+            if (procedureInfo != null) {
+                hashedPartition = Constants.MP_INIT_PID;
+                if (( ! procedureInfo.multiPart) &&
+                    // User may have passed too few parameters to allow dispatching.
+                    // Avoid an indexing error here to fall through to the proper ProcCallException.
+                        (procedureInfo.partitionParameter < invocation.getPassedParamCount())) {
+                    hashedPartition = m_hashinator.getHashedPartitionForParameter(
+                            procedureInfo.partitionParameterType,
+                            invocation.getPartitionParamValue(procedureInfo.partitionParameter));
+                }
+                /*
+                 * If the procedure is read only and single part and the user wants it, load balance across replicas
+                 * This is probably slower for SAFE consistency.
+                 */
+                if (!procedureInfo.multiPart && procedureInfo.readOnly && m_sendReadsToReplicasBytDefaultIfCAEnabled) {
+                    NodeConnection partitionReplicas[] = m_partitionReplicas.get(hashedPartition);
+                    if (partitionReplicas != null && partitionReplicas.length > 0) {
+                        cxn = partitionReplicas[ThreadLocalRandom.current().nextInt(partitionReplicas.length)];
+                        if (cxn.hadBackPressure()) {
+                            //See if there is one without backpressure, make sure it's still connected
+                            for (NodeConnection nc : partitionReplicas) {
+                                if (!nc.hadBackPressure() && nc.m_isConnected) {
+                                    cxn = nc;
+                                    break;
                                 }
                             }
-                            if (!cxn.hadBackPressure() || ignoreBackpressure) {
-                                backpressure = false;
-                            }
                         }
-                    } else {
-                        /*
-                         * For writes or SAFE reads, this is the best way to go
-                         */
-                        cxn = m_partitionMasters.get(hashedPartition);
-                        if (cxn != null && !cxn.hadBackPressure() || ignoreBackpressure) {
+                        if (!cxn.hadBackPressure() || ignoreBackpressure) {
                             backpressure = false;
                         }
                     }
-                }
-                if (cxn != null && !cxn.m_isConnected) {
-                    // Would be nice to log something here
-                    // Client affinity picked a connection that was actually disconnected.  Reset to null
-                    // and let the round-robin choice pick a connection
-                    cxn = null;
-                }
-                ClientAffinityStats stats = m_clientAffinityStats.get(hashedPartition);
-                if (stats == null) {
-                    stats = new ClientAffinityStats(hashedPartition, 0, 0, 0, 0);
-                    m_clientAffinityStats.put(hashedPartition, stats);
-                }
-                if (cxn != null) {
-                    if (procedureInfo != null && procedureInfo.readOnly) {
-                        stats.addAffinityRead();
-                    }
-                    else {
-                        stats.addAffinityWrite();
+                } else {
+                    /*
+                     * For writes or SAFE reads, this is the best way to go
+                     */
+                    cxn = m_partitionMasters.get(hashedPartition);
+                    if (cxn != null && !cxn.hadBackPressure() || ignoreBackpressure) {
+                        backpressure = false;
                     }
                 }
-                // account these here because we lose the partition ID and procedure info once we
-                // bust out of this scope.
+            }
+            if (cxn != null && !cxn.m_isConnected) {
+                // Would be nice to log something here
+                // Client affinity picked a connection that was actually disconnected.  Reset to null
+                // and let the round-robin choice pick a connection
+                cxn = null;
+            }
+            ClientAffinityStats stats = m_clientAffinityStats.get(hashedPartition);
+            if (stats == null) {
+                stats = new ClientAffinityStats(hashedPartition, 0, 0, 0, 0);
+                m_clientAffinityStats.put(hashedPartition, stats);
+            }
+            if (cxn != null) {
+                if (procedureInfo != null && procedureInfo.readOnly) {
+                    stats.addAffinityRead();
+                }
                 else {
-                    if (procedureInfo != null && procedureInfo.readOnly) {
-                        stats.addRrRead();
-                    }
-                    else {
-                        stats.addRrWrite();
-                    }
+                    stats.addAffinityWrite();
                 }
             }
-            if (cxn == null) {
-                for (int i=0; i < totalConnections; ++i) {
-                    cxn = m_connections.get(Math.abs(++m_nextConnection % totalConnections));
-                    if (!cxn.hadBackPressure() || ignoreBackpressure) {
-                        // serialize and queue the invocation
-                        backpressure = false;
-                        break;
-                    }
+            // account these here because we lose the partition ID and procedure info once we
+            // bust out of this scope.
+            else {
+                if (procedureInfo != null && procedureInfo.readOnly) {
+                    stats.addRrRead();
+                }
+                else {
+                    stats.addRrWrite();
                 }
             }
-
-            if (backpressure) {
-                cxn = null;
-                for (ClientStatusListenerExt s : m_listeners) {
-                    s.backpressure(true);
+        }
+        if (cxn == null) {
+            for (int i=0; i < totalConnections; ++i) {
+                cxn = m_connections.get(Math.abs(++m_nextConnection % totalConnections));
+                if (!cxn.hadBackPressure() || ignoreBackpressure) {
+                    // serialize and queue the invocation
+                    backpressure = false;
+                    break;
                 }
             }
         }
 
-        /*
-         * Do the heavy weight serialization outside the synchronized block.
-         * createWork synchronizes on an individual connection which allows for more concurrency
-         */
-        if (cxn != null) {
-            ByteBuffer buf = null;
-            try {
-                buf = serializeSPI(invocation);
-            } catch (Exception e) {
-                Throwables.propagate(e);
+        if (backpressure) {
+            cxn = null;
+            for (ClientStatusListenerExt s : m_listeners) {
+                s.backpressure(true);
             }
-            cxn.createWork(nowNanos, invocation.getHandle(), invocation.getProcName(), buf, cb, ignoreBackpressure, timeoutNanos);
         }
-        if (m_topologyChangeAware) {
-            createConnectionsUponTopologyChange();
-        }
-        return !backpressure;
+        return cxn;
     }
 
     /**
@@ -1287,6 +1504,12 @@ class Distributer {
     final void shutdown() throws InterruptedException {
         // stop the old proc call reaper
         m_timeoutReaperHandle.cancel(false);
+        synchronized (m_timeoutWheel) {
+            if (m_timeoutTickerHandle != null) {
+                m_timeoutTickerHandle.cancel(false);
+                m_timeoutTickerHandle = null;
+            }
+        }
         m_ex.shutdown();
         if (CoreUtils.isJunitTest()) {
             m_ex.awaitTermination(1, TimeUnit.SECONDS);
@@ -1341,7 +1564,11 @@ class Distributer {
             for (NodeConnection conn : m_connections) {
                 Map<String, ClientStats> connMap = new TreeMap<>();
                 for (Entry<String, ClientStats> e : conn.m_stats.entrySet()) {
-                    connMap.put(e.getKey(), (ClientStats) e.getValue().clone());
+                    final ClientStats stats = (ClientStats) e.getValue().clone();
+                    //Procedures that have been called but have yet to complete are left out
+                    if (stats.m_invocationsCompleted > 0) {
+                        connMap.put(e.getKey(), stats);
+                    }
                 }
                 retval.put(conn.connectionId(), connMap);
             }
@@ -0,0 +1,48 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.client;
+
+/**
+ * The name and parameters of one stored procedure call, for use with
+ * {@link Client#callProcedures(java.util.List)}.
+ */
+public final class Invocation {
+
+    private final String m_procName;
+    private final Object[] m_parameters;
+
+    /**
+     * @param procName class name (not qualified by package) of the procedure to execute.
+     * @param parameters vararg list of procedure's parameter values.
+     */
+    public Invocation(String procName, Object... parameters) {
+        if (procName == null) {
+            throw new IllegalArgumentException("Procedure name can not be null");
+        }
+        m_procName = procName;
+        m_parameters = parameters;
+    }
+
+    public String getProcName() {
+        return m_procName;
+    }
+
+    public Object[] getParameters() {
+        return m_parameters;
+    }
+}
@@ -0,0 +1,51 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.client;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.VoltTable;
+
+/**
+ * The future returned by {@link Client#callProcedureAsync(String, Object...)}, which is
+ * also the callback of the invocation so that an asynchronous call allocates no more
+ * than a callback based one.
+ */
+class ProcedureFuture extends CompletableFuture<ClientResponse> implements ProcedureCallback {
+
+    @Override
+    public void clientCallback(ClientResponse clientResponse) {
+        if (clientResponse.getStatus() == ClientResponse.SUCCESS) {
+            complete(clientResponse);
+        }
+        else {
+            completeExceptionally(new ProcCallException(clientResponse, clientResponse.getStatusString(), null));
+        }
+    }
+
+    void failToQueue() {
+        final ClientResponseImpl r = new ClientResponseImpl(
+                ClientResponse.GRACEFUL_FAILURE,
+                ClientResponse.UNINITIALIZED_APP_STATUS_CODE,
+                "",
+                new VoltTable[0],
+                "Unable to queue client request.");
+        completeExceptionally(new ProcCallException(r, "Unable to queue client request.", null));
+    }
+}
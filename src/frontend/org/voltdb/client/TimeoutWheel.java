@@ -0,0 +1,153 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.client;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timing wheel of call timeouts. Each entry is a client handle, the connection
+ * it was sent on and its deadline, hashed into a bucket by the tick its deadline falls in.
+ * Entries that are due are handed to an {@link Expirer}, which checks whether the call is
+ * still outstanding, so calls that got their response are never removed from the wheel.
+ *
+ * Buckets are arrays that only grow, so scheduling a timeout allocates nothing in the
+ * steady state. Any thread may schedule timeouts but only one thread may expire them.
+ */
+final class TimeoutWheel<T> {
+
+    interface Expirer<T> {
+        void expire(T owner, long handle, long nowNanos);
+    }
+
+    private static final class Bucket {
+        long[] m_handles = new long[16];
+        long[] m_deadlines = new long[16];
+        Object[] m_owners = new Object[16];
+        int m_size = 0;
+    }
+
+    private final long m_tickNanos;
+    private final int m_mask;
+    private final Bucket[] m_buckets;
+    private final AtomicInteger m_pending = new AtomicInteger();
+    // The last tick that was expired and the entries being expired,
+    // only used by the expiring thread
+    private long m_lastTick;
+    private long[] m_dueHandles = new long[16];
+    private Object[] m_dueOwners = new Object[16];
+
+    /**
+     * @param tickNanos the resolution of the wheel
+     * @param ticks the number of buckets, rounded up to a power of two
+     * @param nowNanos the current time according to System.nanoTime
+     */
+    TimeoutWheel(long tickNanos, int ticks, long nowNanos) {
+        m_tickNanos = tickNanos;
+        int size = Integer.highestOneBit(Math.max(2, ticks - 1)) << 1;
+        m_mask = size - 1;
+        m_buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            m_buckets[i] = new Bucket();
+        }
+        m_lastTick = nowNanos / tickNanos;
+    }
+
+    long tickNanos() {
+        return m_tickNanos;
+    }
+
+    /**
+     * @return the number of entries in the wheel
+     */
+    int pending() {
+        return m_pending.get();
+    }
+
+    /**
+     * @return true if the wheel was empty, in which case the caller should make
+     * sure the wheel is being expired
+     */
+    boolean schedule(T owner, long handle, long deadlineNanos) {
+        // A deadline that has already passed goes in the bucket of the current tick,
+        // which the next expiration looks at, rather than one a full turn away
+        deadlineNanos = Math.max(deadlineNanos, System.nanoTime());
+        final Bucket bucket = m_buckets[(int) ((deadlineNanos / m_tickNanos) & m_mask)];
+        synchronized (bucket) {
+            if (bucket.m_size == bucket.m_handles.length) {
+                final int capacity = bucket.m_size * 2;
+                bucket.m_handles = Arrays.copyOf(bucket.m_handles, capacity);
+                bucket.m_deadlines = Arrays.copyOf(bucket.m_deadlines, capacity);
+                bucket.m_owners = Arrays.copyOf(bucket.m_owners, capacity);
+            }
+            bucket.m_handles[bucket.m_size] = handle;
+            bucket.m_deadlines[bucket.m_size] = deadlineNanos;
+            bucket.m_owners[bucket.m_size] = owner;
+            bucket.m_size++;
+        }
+        return m_pending.getAndIncrement() == 0;
+    }
+
+    /**
+     * Expire every entry whose deadline has passed. The expirer is not called while
+     * holding any lock of the wheel, so it may schedule more timeouts.
+     *
+     * @return the number of entries left in the wheel
+     */
+    @SuppressWarnings("unchecked")
+    int expire(long nowNanos, Expirer<T> expirer) {
+        final long nowTick = nowNanos / m_tickNanos;
+        // The last tick is looked at again for the entries scheduled after it was expired.
+        // Past a full turn of the wheel every bucket has to be looked at anyway.
+        final long firstTick = Math.max(m_lastTick, nowTick - m_mask);
+        for (long tick = firstTick; tick <= nowTick; tick++) {
+            final Bucket bucket = m_buckets[(int) (tick & m_mask)];
+            int due = 0;
+            synchronized (bucket) {
+                int kept = 0;
+                for (int i = 0; i < bucket.m_size; i++) {
+                    if (bucket.m_deadlines[i] <= nowNanos) {
+                        if (due == m_dueHandles.length) {
+                            m_dueHandles = Arrays.copyOf(m_dueHandles, due * 2);
+                            m_dueOwners = Arrays.copyOf(m_dueOwners, due * 2);
+                        }
+                        m_dueHandles[due] = bucket.m_handles[i];
+                        m_dueOwners[due] = bucket.m_owners[i];
+                        due++;
+                    }
+                    else {
+                        // Due in a later turn of the wheel
+                        bucket.m_handles[kept] = bucket.m_handles[i];
+                        bucket.m_deadlines[kept] = bucket.m_deadlines[i];
+                        bucket.m_owners[kept] = bucket.m_owners[i];
+                        kept++;
+                    }
+                }
+                Arrays.fill(bucket.m_owners, kept, bucket.m_size, null);
+                bucket.m_size = kept;
+            }
+            for (int i = 0; i < due; i++) {
+                m_pending.decrementAndGet();
+                expirer.expire((T) m_dueOwners[i], m_dueHandles[i], nowNanos);
+                m_dueOwners[i] = null;
+            }
+        }
+        m_lastTick = Math.max(m_lastTick, nowTick);
+        return m_pending.get();
+    }
+}
@@ -226,6 +226,14 @@ public class AdHocCompilerCache implements Serializable {
         m_planEvictions = 0;
     }
 
+    /**
+     * Drop all cached plans, e.g. when new table statistics may lead to better plans.
+     */
+    public synchronized void clear() {
+        m_literalCache.clear();
+        m_coreCache.clear();
+    }
+
     /**
      * @param sql SQL literal
      * @return full, ready-to-go plan
@@ -18,22 +18,167 @@
 package org.voltdb.compiler;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
+import org.json_voltpatches.JSONStringer;
+import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.expressions.ExpressionUtil;
+import org.voltdb.expressions.TupleValueExpression;
+import org.voltdb.types.ExpressionType;
 
 public class DatabaseEstimates {
 
+    // Selectivity assumed for an equality filter on a column without a distinct value count
+    public static final double DEFAULT_EQUALITY_SELECTIVITY = 0.1;
+    // Selectivity assumed for any other filter, as in most textbook cost models
+    public static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3.0;
+
     public static class TableEstimates {
         public long maxTuples = 1000000;
         public long minTuples = 100000;
         public ArrayList<ScalarValueHints> valueHints = new ArrayList<ScalarValueHints>();
+
+        // True when the counts come from @Analyze rather than the defaults above
+        public boolean analyzed = false;
+        // Number of distinct values per column name, from @Analyze
+        public final HashMap<String, Long> distinctValues = new HashMap<String, Long>();
+
+        /**
+         * @return the number of distinct values in the column, or -1 if it is not known
+         */
+        public long getDistinctValues(String columnName) {
+            Long ndv = distinctValues.get(columnName);
+            return ndv == null ? -1 : ndv;
+        }
+
+        /**
+         * @return the fraction of rows expected to match "column = value"
+         */
+        public double equalitySelectivity(String columnName) {
+            long ndv = getDistinctValues(columnName);
+            if (ndv <= 0) {
+                return DEFAULT_EQUALITY_SELECTIVITY;
+            }
+            return 1.0 / ndv;
+        }
+
+        /**
+         * Estimate the fraction of rows of this table passing a conjunction of filters,
+         * assuming the filters are independent.
+         */
+        public double predicateSelectivity(AbstractExpression predicate) {
+            if (predicate == null) {
+                return 1.0;
+            }
+            double selectivity = 1.0;
+            for (AbstractExpression expr : ExpressionUtil.uncombinePredicate(predicate)) {
+                if (expr.getExpressionType() == ExpressionType.COMPARE_EQUAL) {
+                    TupleValueExpression tve = null;
+                    if (expr.getLeft() instanceof TupleValueExpression) {
+                        tve = (TupleValueExpression) expr.getLeft();
+                    }
+                    else if (expr.getRight() instanceof TupleValueExpression) {
+                        tve = (TupleValueExpression) expr.getRight();
+                    }
+                    selectivity *= tve == null ? DEFAULT_EQUALITY_SELECTIVITY : equalitySelectivity(tve.getColumnName());
+                }
+                else {
+                    selectivity *= DEFAULT_RANGE_SELECTIVITY;
+                }
+            }
+            return Math.max(selectivity, 1.0 / Math.max(maxTuples, 1));
+        }
     }
 
     HashMap<String, TableEstimates> tables = new HashMap<String, TableEstimates>();
 
+    public DatabaseEstimates() {
+    }
+
+    /**
+     * Estimates seeded with the analyzed tables. The TableEstimates are shared, read only,
+     * by every planner using the same statistics.
+     */
+    public DatabaseEstimates(Map<String, TableEstimates> analyzedTables) {
+        tables.putAll(analyzedTables);
+    }
+
     public TableEstimates getEstimatesForTable(String tableName) {
         if (tables.containsKey(tableName) == false)
             tables.put(tableName, new TableEstimates());
 
         return tables.get(tableName);
     }
+
+    /**
+     * @return true if any table has statistics from @Analyze, in which case the
+     * plan nodes cost joins by their estimated output sizes.
+     */
+    public boolean hasAnalyzedTables() {
+        for (TableEstimates tableEstimates : tables.values()) {
+            if (tableEstimates.analyzed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Create the estimates of an analyzed table.
+     *
+     * @param rowCount        number of rows in the table
+     * @param distinctValues  number of distinct values per column name
+     */
+    public static TableEstimates analyzedTable(long rowCount, Map<String, Long> distinctValues) {
+        TableEstimates tableEstimates = new TableEstimates();
+        tableEstimates.analyzed = true;
+        tableEstimates.maxTuples = Math.max(rowCount, 1);
+        tableEstimates.minTuples = tableEstimates.maxTuples;
+        tableEstimates.distinctValues.putAll(distinctValues);
+        return tableEstimates;
+    }
+
+    /**
+     * Serialize analyzed table statistics so they can be sent to every host.
+     */
+    public static String analyzedTablesToJSON(Map<String, TableEstimates> analyzedTables) throws JSONException {
+        JSONStringer stringer = new JSONStringer();
+        stringer.object();
+        for (Map.Entry<String, TableEstimates> e : analyzedTables.entrySet()) {
+            stringer.key(e.getKey()).object();
+            stringer.keySymbolValuePair("rowCount", e.getValue().maxTuples);
+            stringer.key("distinctValues").object();
+            for (Map.Entry<String, Long> ndv : e.getValue().distinctValues.entrySet()) {
+                stringer.keySymbolValuePair(ndv.getKey(), ndv.getValue());
+            }
+            stringer.endObject();
+            stringer.endObject();
+        }
+        stringer.endObject();
+        return stringer.toString();
+    }
+
+    public static Map<String, TableEstimates> analyzedTablesFromJSON(String json) throws JSONException {
+        JSONObject jsonObj = new JSONObject(json);
+        Map<String, TableEstimates> analyzedTables = new HashMap<String, TableEstimates>();
+        Iterator<String> tableNames = jsonObj.keys();
+        while (tableNames.hasNext()) {
+            String tableName = tableNames.next();
+            JSONObject tableObj = jsonObj.getJSONObject(tableName);
+            JSONObject ndvObj = tableObj.getJSONObject("distinctValues");
+            Map<String, Long> distinctValues = new HashMap<String, Long>();
+            Iterator<String> columnNames = ndvObj.keys();
+            while (columnNames.hasNext()) {
+                String columnName = columnNames.next();
+                distinctValues.put(columnName, ndvObj.getLong(columnName));
+            }
+            analyzedTables.put(tableName, analyzedTable(tableObj.getLong("rowCount"), distinctValues));
+        }
+        return Collections.unmodifiableMap(analyzedTables);
+    }
 }
@@ -17,12 +17,19 @@
 
 package org.voltdb.compiler;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.hsqldb_voltpatches.HSQLInterface;
 import org.hsqldb_voltpatches.HSQLInterface.HSQLParseException;
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
 import org.voltdb.ParameterSet;
 import org.voltdb.PlannerStatsCollector;
 import org.voltdb.PlannerStatsCollector.CacheUse;
@@ -47,18 +54,31 @@ import org.voltdb.utils.Encoder;
  * interactively accept SQL and outputs plans on standard out.
  *
  * Used only for ad hoc queries.
+ *
+ * Planning a statement needs exclusive use of an HSQLInterface, so the tool keeps a
+ * small pool of them, all loaded from the same catalog schema. Up to PLANNER_POOL_SIZE
+ * statements are planned in parallel; other callers wait for a free planner.
  */
 public class PlannerTool {
     private static final VoltLogger hostLog = new VoltLogger("HOST");
     private static final VoltLogger compileLog = new VoltLogger("COMPILE");
 
-    private Database m_database;
-    private byte[] m_catalogHash;
-    private AdHocCompilerCache m_cache;
-    private long m_adHocLargeFallbackCount = 0;
-    private long m_adHocLargeModeCount = 0;
+    private volatile Database m_database;
+    private volatile byte[] m_catalogHash;
+    private volatile AdHocCompilerCache m_cache;
+    private final AtomicLong m_adHocLargeFallbackCount = new AtomicLong();
+    private final AtomicLong m_adHocLargeModeCount = new AtomicLong();
+
+    // Maximum number of HSQL instances, and so of statements planned at once
+    static final int PLANNER_POOL_SIZE = Math.max(1, Integer.getInteger("PLANNER_POOL_SIZE",
+            Math.min(8, Math.max(1, CoreUtils.availableProcessors() / 2))));
 
-    private final HSQLInterface m_hsql;
+    // Planners not currently in use; more are loaded lazily until PLANNER_POOL_SIZE exist
+    private final ArrayBlockingQueue<HSQLInterface> m_idlePlanners = new ArrayBlockingQueue<>(PLANNER_POOL_SIZE);
+    private final AtomicInteger m_plannerCount = new AtomicInteger(1);
+
+    // Table statistics gathered by @Analyze for this schema, keyed by table name
+    private volatile Map<String, DatabaseEstimates.TableEstimates> m_analyzedTables = Collections.emptyMap();
 
     private static PlannerStatsCollector m_plannerStats;
 
@@ -78,8 +98,27 @@ public class PlannerTool {
         m_cache = AdHocCompilerCache.getCacheForCatalogHash(catalogHash);
 
         // LOAD HSQL
-        m_hsql = HSQLInterface.loadHsqldb(ParameterizationInfo.getParamStateManager());
-        String binDDL = m_database.getSchema();
+        m_idlePlanners.add(loadHsql(m_database));
+        hostLog.debug("hsql loaded");
+
+        // Create and register a singleton planner stats collector, if this is the first time.
+        if (m_plannerStats == null) {
+            synchronized (this.getClass()) {
+                if (m_plannerStats == null) {
+                    final StatsAgent statsAgent = VoltDB.instance().getStatsAgent();
+                    // In mock test environments there may be no stats agent.
+                    if (statsAgent != null) {
+                        m_plannerStats = new PlannerStatsCollector(-1);
+                        statsAgent.registerStatsSource(StatsSelector.PLANNER, -1, m_plannerStats);
+                    }
+                }
+            }
+        }
+    }
+
+    private static HSQLInterface loadHsql(Database database) {
+        HSQLInterface hsql = HSQLInterface.loadHsqldb(ParameterizationInfo.getParamStateManager());
+        String binDDL = database.getSchema();
         String ddl = CompressionService.decodeBase64AndDecompress(binDDL);
         String[] commands = ddl.split("\n");
         for (String command : commands) {
@@ -88,28 +127,51 @@ public class PlannerTool {
             if (decoded_cmd.length() == 0)
                 continue;
             try {
-                m_hsql.runDDLCommand(decoded_cmd);
+                hsql.runDDLCommand(decoded_cmd);
             }
             catch (HSQLParseException e) {
                 // need a good error message here
                 throw new RuntimeException("Error creating hsql: " + e.getMessage() + " in DDL statement: " + decoded_cmd);
             }
         }
-        hostLog.debug("hsql loaded");
+        return hsql;
+    }
 
-        // Create and register a singleton planner stats collector, if this is the first time.
-        if (m_plannerStats == null) {
-            synchronized (this.getClass()) {
-                if (m_plannerStats == null) {
-                    final StatsAgent statsAgent = VoltDB.instance().getStatsAgent();
-                    // In mock test environments there may be no stats agent.
-                    if (statsAgent != null) {
-                        m_plannerStats = new PlannerStatsCollector(-1);
-                        statsAgent.registerStatsSource(StatsSelector.PLANNER, -1, m_plannerStats);
-                    }
+    /**
+     * Take an idle planner from the pool, loading a new one if the pool is not full yet,
+     * or wait for one to be returned.
+     */
+    private HSQLInterface borrowPlanner() {
+        HSQLInterface hsql = m_idlePlanners.poll();
+        if (hsql != null) {
+            return hsql;
+        }
+        int count;
+        while ((count = m_plannerCount.get()) < PLANNER_POOL_SIZE) {
+            if (m_plannerCount.compareAndSet(count, count + 1)) {
+                try {
+                    hsql = loadHsql(m_database);
+                }
+                catch (RuntimeException e) {
+                    m_plannerCount.decrementAndGet();
+                    throw e;
                 }
+                hostLog.debug("hsql loaded for planner " + (count + 1) + " of " + PLANNER_POOL_SIZE);
+                return hsql;
             }
         }
+        try {
+            return m_idlePlanners.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a planner", e);
+        }
+    }
+
+    private void returnPlanner(HSQLInterface hsql) {
+        boolean added = m_idlePlanners.offer(hsql);
+        assert(added);
     }
 
     public PlannerTool updateWhenNoSchemaChange(Database database, byte[] catalogHash) {
@@ -120,16 +182,42 @@ public class PlannerTool {
         return this;
     }
 
-    public HSQLInterface getHSQLInterface() {
-        return m_hsql;
+    /**
+     * Install table statistics gathered by @Analyze, replacing any earlier statistics
+     * of the same tables. Cached plans are dropped so that statements get re-planned
+     * with the new estimates.
+     */
+    public synchronized void updateAnalyzedTables(Map<String, DatabaseEstimates.TableEstimates> analyzedTables) {
+        Map<String, DatabaseEstimates.TableEstimates> merged = new HashMap<>(m_analyzedTables);
+        merged.putAll(analyzedTables);
+        m_analyzedTables = Collections.unmodifiableMap(merged);
+        m_cache.clear();
+    }
+
+    public Map<String, DatabaseEstimates.TableEstimates> getAnalyzedTables() {
+        return m_analyzedTables;
+    }
+
+    /**
+     * Take one of the pooled HSQL instances for use outside the planner, e.g. by
+     * @UpdateClasses. HSQL is not thread safe, so the instance must be handed back with
+     * {@link #releaseHSQLInterface(HSQLInterface)} before anyone else can plan with it.
+     * Callers must not modify its schema.
+     */
+    public HSQLInterface acquireHSQLInterface() {
+        return borrowPlanner();
+    }
+
+    public void releaseHSQLInterface(HSQLInterface hsql) {
+        returnPlanner(hsql);
     }
 
     public long getAdHocLargeFallbackCount() {
-        return m_adHocLargeFallbackCount;
+        return m_adHocLargeFallbackCount.get();
     }
 
     public long getAdHocLargeModeCount() {
-        return m_adHocLargeModeCount;
+        return m_adHocLargeModeCount.get();
     }
 
     public AdHocPlannedStatement planSqlForTest(String sqlIn) {
@@ -144,16 +232,15 @@ public class PlannerTool {
     /**
      * Stripped down compile that is ONLY used to plan default procedures.
      */
-    public synchronized CompiledPlan planSqlCore(String sql, StatementPartitioning partitioning) {
+    public CompiledPlan planSqlCore(String sql, StatementPartitioning partitioning) {
         TrivialCostModel costModel = new TrivialCostModel();
-        DatabaseEstimates estimates = new DatabaseEstimates();
+        DatabaseEstimates estimates = new DatabaseEstimates(m_analyzedTables);
 
         CompiledPlan plan = null;
-        // This try-with-resources block acquires a global lock on all planning
-        // This is required until we figure out how to do parallel planning.
+        HSQLInterface hsql = borrowPlanner();
         try (QueryPlanner planner = new QueryPlanner(
                 sql, "PlannerTool", "PlannerToolProc", m_database,
-                partitioning, m_hsql, estimates, !VoltCompiler.DEBUG_MODE,
+                partitioning, hsql, estimates, !VoltCompiler.DEBUG_MODE,
                 costModel, null, null, DeterminismMode.FASTER, false)) {
 
             // do the expensive full planning.
@@ -176,6 +263,9 @@ public class PlannerTool {
             }
             throw new RuntimeException("SQL error while compiling query: " + e.toString() + loggedMsg, e);
         }
+        finally {
+            returnPlanner(hsql);
+        }
 
         if (plan == null) {
             throw new RuntimeException("Null plan received in PlannerTool.planSql");
@@ -184,19 +274,21 @@ public class PlannerTool {
         return plan;
     }
 
-    public synchronized AdHocPlannedStatement planSql(String sql, StatementPartitioning partitioning,
+    public AdHocPlannedStatement planSql(String sql, StatementPartitioning partitioning,
             boolean isExplainMode, final Object[] userParams, boolean isSwapTables, boolean isLargeQuery) {
         // large_mode_ratio will force execution of SQL queries to use the "large" path (for read-only queries)
         // a certain percentage of the time
         if (m_largeModeRatio > 0 && !isLargeQuery) {
             if (m_largeModeRatio >= 1 || m_largeModeRatio > ThreadLocalRandom.current().nextDouble()) {
                 isLargeQuery = true;
-                m_adHocLargeModeCount++;
+                m_adHocLargeModeCount.incrementAndGet();
             }
         }
         CacheUse cacheUse = CacheUse.FAIL;
+        Long statsStartTime = null;
+        long queueWaitNanos = -1;
         if (m_plannerStats != null) {
-            m_plannerStats.startStatsCollection();
+            statsStartTime = m_plannerStats.startSampledStatsCollection();
         }
         boolean hasUserQuestionMark = false;
         boolean wrongNumberParameters = false;
@@ -238,16 +330,17 @@ public class PlannerTool {
             String parsedToken = null;
 
             TrivialCostModel costModel = new TrivialCostModel();
-            DatabaseEstimates estimates = new DatabaseEstimates();
-            // This try-with-resources block acquires a global lock on all planning
-            // This is required until we figure out how to do parallel planning.
+            DatabaseEstimates estimates = new DatabaseEstimates(m_analyzedTables);
+            final long waitStartTime = System.nanoTime();
+            HSQLInterface hsql = borrowPlanner();
+            queueWaitNanos = System.nanoTime() - waitStartTime;
             try (QueryPlanner planner = new QueryPlanner(
                     sql,
                     "PlannerTool",
                     "PlannerToolProc",
                     m_database,
                     partitioning,
-                    m_hsql,
+                    hsql,
                     estimates,
                     !VoltCompiler.DEBUG_MODE,
                     costModel,
@@ -329,7 +422,7 @@ public class PlannerTool {
                     partitioning = plan.getStatementPartitioning();
                 }
                 if (plan.getIsLargeQuery() != isLargeQuery) {
-                    ++m_adHocLargeFallbackCount;
+                    m_adHocLargeFallbackCount.incrementAndGet();
                 }
 
                 planHasExceptionsWhenParameterized = planner.wasBadPameterized();
@@ -351,6 +444,9 @@ public class PlannerTool {
                 }
                 throw new RuntimeException("SQL error while compiling query: " + e.toString() + loggedMsg, e);
             }
+            finally {
+                returnPlanner(hsql);
+            }
 
             //////////////////////
             // OUTPUT THE RESULT
@@ -378,7 +474,8 @@ public class PlannerTool {
         }
         finally {
             if (m_plannerStats != null) {
-                m_plannerStats.endStatsCollection(m_cache.getLiteralCacheSize(), m_cache.getCoreCacheSize(), cacheUse, -1);
+                m_plannerStats.endStatsCollection(statsStartTime, queueWaitNanos,
+                        m_cache.getLiteralCacheSize(), m_cache.getCoreCacheSize(), cacheUse, -1);
             }
         }
     }
@@ -52,6 +52,19 @@ public interface TransactionCreator
             int messageSize,
             long nowNanos);
 
+    // Create a transaction using the provided txnId, routed to every partition in partitions.
+    public CreateTransactionResult createTransaction(
+            long connectionId,
+            long txnId,
+            long uniqueId,
+            StoredProcedureInvocation invocation,
+            boolean isReadOnly,
+            boolean isSinglePartition,
+            boolean isEverySite,
+            int[] partitions,
+            int messageSize,
+            long nowNanos);
+
     // dispatched invocation through invocation dispatcher
     public ClientResponseImpl dispatch(
             StoredProcedureInvocation invocation,
@@ -154,7 +154,7 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
             new AtomicReference<>(Pair.of((Mailbox)null, ImmutableList.<Long>builder().build()));
     private final Semaphore m_bufferPushPermits = new Semaphore(16);
 
-    private volatile ListeningExecutorService m_es;
+    private volatile ExportStrand m_es;
     // A place to keep unfinished export buffer when processor shuts down.
     private final AtomicReference<AckingContainer> m_pendingContainer = new AtomicReference<>();
     // Is EDS from catalog or from disk pdb?
@@ -351,8 +351,8 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                 exportLog.debug(toString() + " is a replicated export stream");
             }
         }
-        m_es = CoreUtils.getListeningExecutorService("ExportDataSource for table " +
-                    m_tableName + " partition " + m_partitionId, 1);
+        m_es = new ExportStrand("ExportDataSource for table " +
+                    m_tableName + " partition " + m_partitionId);
     }
 
     public ExportDataSource(Generation generation, File adFile,
@@ -430,8 +430,8 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                 exportLog.debug(toString() + " is a replicated export stream");
             }
         }
-        m_es = CoreUtils.getListeningExecutorService("ExportDataSource for table " +
-                m_tableName + " partition " + m_partitionId, 1);
+        m_es = new ExportStrand("ExportDataSource for table " +
+                m_tableName + " partition " + m_partitionId);
     }
 
     public void setReadyForPolling(boolean readyForPolling) {
@@ -687,10 +687,12 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                 } else {
                     exportingRole = (m_mastershipAccepted.get() ? "TRUE" : "FALSE");
                 }
+                long queueWait[] = m_es.getQueueWaitMicros(interval);
                 return new ExportStatsRow(m_partitionId, m_siteId, m_tableName, m_exportTargetName,
                         exportingRole, m_tupleCount, m_tuplesPending.get(),
                         m_lastQueuedTimestamp, m_lastAckedTimestamp,
-                        avgLatency, maxLatency, m_queueGap, m_status.toString());
+                        avgLatency, maxLatency, m_queueGap, m_status.toString(),
+                        queueWait[0], queueWait[1]);
             }
         });
     }
@@ -229,6 +229,8 @@ public class ExportManager
             rowValues[columnNameToIndex.get(Columns.MAX_LATENCY)] = stat.m_maxLatency;
             rowValues[columnNameToIndex.get(Columns.QUEUE_GAP)] = stat.m_queueGap;
             rowValues[columnNameToIndex.get(Columns.STATUS)] = stat.m_status;
+            rowValues[columnNameToIndex.get(Columns.AVERAGE_QUEUE_WAIT)] = stat.m_averageQueueWait;
+            rowValues[columnNameToIndex.get(Columns.MAX_QUEUE_WAIT)] = stat.m_maxQueueWait;
         }
 
         public ExportStatsRow getStatsRow(Object rowKey) {
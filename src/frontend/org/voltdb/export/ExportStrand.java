@@ -0,0 +1,253 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.export;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
+
+import com.google_voltpatches.common.util.concurrent.AbstractListeningExecutorService;
+
+/**
+ * A serial executor for one export data source that runs its tasks on a pool of
+ * worker threads shared by every source on the host. Tasks submitted to a strand
+ * run one at a time in submission order, exactly as they did on the single threaded
+ * executor each source used to own, but an idle source no longer holds a thread.
+ *
+ * The shared pool grows on demand up to EXPORT_WORKER_THREADS and lets idle threads
+ * expire, because export decoders are free to block (retry backoff, slow targets)
+ * on the thread that delivers their buffers.
+ *
+ * The strand also tracks how long tasks wait between submission and execution so
+ * export statistics can report per source queueing delay.
+ */
+public class ExportStrand extends AbstractListeningExecutorService {
+    private static final VoltLogger exportLog = new VoltLogger("EXPORT");
+
+    public static final int EXPORT_WORKER_THREADS = Math.max(1, Integer.getInteger("EXPORT_WORKER_THREADS",
+            Math.max(16, CoreUtils.availableProcessors() * 2)));
+
+    // Tasks run per turn before a busy strand yields its worker to other strands
+    private static final int TASKS_PER_TURN = 64;
+
+    /*
+     * Work queue of the shared pool. A task is only accepted if an idle worker takes it
+     * at once; otherwise the offer fails so the pool starts another thread, and once the
+     * pool is at EXPORT_WORKER_THREADS the rejection handler queues the task for the next
+     * worker to come free. A plain core sized pool would start a thread per submission
+     * until it was full, whether or not an idle one was already waiting.
+     */
+    private static final class WorkerQueue extends LinkedTransferQueue<Runnable> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean offer(Runnable task) {
+            return tryTransfer(task);
+        }
+    }
+
+    private static final ThreadPoolExecutor s_workers;
+    static {
+        final WorkerQueue queue = new WorkerQueue();
+        s_workers = new ThreadPoolExecutor(0, EXPORT_WORKER_THREADS,
+                60L, TimeUnit.SECONDS,
+                queue,
+                CoreUtils.getThreadFactory("Export worker"),
+                new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Export worker pool is shut down");
+                        }
+                        queue.put(task);
+                    }
+                });
+    }
+
+    static int getWorkerThreadCount() {
+        return s_workers.getPoolSize();
+    }
+
+    private static final class QueuedTask {
+        final Runnable m_task;
+        final long m_queuedAtNanos;
+
+        QueuedTask(Runnable task) {
+            m_task = task;
+            m_queuedAtNanos = System.nanoTime();
+        }
+    }
+
+    private final String m_name;
+    private final ArrayDeque<QueuedTask> m_tasks = new ArrayDeque<>();
+    private final CountDownLatch m_terminated = new CountDownLatch(1);
+    private boolean m_scheduled = false;
+    private volatile boolean m_shutdown = false;
+
+    // Queue wait statistics, guarded by this
+    private long m_waitCount = 0;
+    private long m_totalWaitNanos = 0;
+    private long m_maxWaitNanos = 0;
+    private long m_waitCountSinceClear = 0;
+    private long m_totalWaitNanosSinceClear = 0;
+    private long m_maxWaitNanosSinceClear = 0;
+
+    private final Runnable m_drain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    public ExportStrand(String name) {
+        m_name = name;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        boolean schedule = false;
+        synchronized (this) {
+            if (m_shutdown) {
+                throw new RejectedExecutionException(m_name + " has been shut down");
+            }
+            m_tasks.offer(new QueuedTask(command));
+            if (!m_scheduled) {
+                m_scheduled = true;
+                schedule = true;
+            }
+        }
+        if (schedule) {
+            s_workers.execute(m_drain);
+        }
+    }
+
+    private void drain() {
+        for (int ii = 0; ii < TASKS_PER_TURN; ii++) {
+            final QueuedTask next;
+            synchronized (this) {
+                next = m_tasks.poll();
+                if (next == null) {
+                    m_scheduled = false;
+                    if (m_shutdown) {
+                        m_terminated.countDown();
+                    }
+                    return;
+                }
+                recordWait(System.nanoTime() - next.m_queuedAtNanos);
+            }
+            try {
+                next.m_task.run();
+            } catch (Throwable t) {
+                // Same as an uncaught exception on a dedicated thread, the strand keeps going
+                exportLog.error("Unexpected exception in " + m_name, t);
+            }
+        }
+        // Let other strands have a turn, this one goes to the back of the worker queue
+        s_workers.execute(m_drain);
+    }
+
+    private void recordWait(long waitNanos) {
+        m_waitCount++;
+        m_totalWaitNanos += waitNanos;
+        m_maxWaitNanos = Math.max(m_maxWaitNanos, waitNanos);
+        m_waitCountSinceClear++;
+        m_totalWaitNanosSinceClear += waitNanos;
+        m_maxWaitNanosSinceClear = Math.max(m_maxWaitNanosSinceClear, waitNanos);
+    }
+
+    /**
+     * Get the average and maximum time in microseconds tasks waited in this strand
+     * before running.
+     * @param interval if true report the wait since the previous interval query and
+     *        start a new interval, otherwise report the wait since the strand was created
+     * @return an array of { average wait, maximum wait }
+     */
+    public synchronized long[] getQueueWaitMicros(boolean interval) {
+        final long avg;
+        final long max;
+        if (interval) {
+            avg = m_waitCountSinceClear == 0 ? 0 : m_totalWaitNanosSinceClear / m_waitCountSinceClear;
+            max = m_maxWaitNanosSinceClear;
+            m_waitCountSinceClear = 0;
+            m_totalWaitNanosSinceClear = 0;
+            m_maxWaitNanosSinceClear = 0;
+        } else {
+            avg = m_waitCount == 0 ? 0 : m_totalWaitNanos / m_waitCount;
+            max = m_maxWaitNanos;
+        }
+        return new long[] { TimeUnit.NANOSECONDS.toMicros(avg), TimeUnit.NANOSECONDS.toMicros(max) };
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (this) {
+            m_shutdown = true;
+            if (!m_scheduled && m_tasks.isEmpty()) {
+                m_terminated.countDown();
+            }
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        final List<Runnable> pending = new ArrayList<>();
+        synchronized (this) {
+            m_shutdown = true;
+            for (QueuedTask task : m_tasks) {
+                pending.add(task.m_task);
+            }
+            m_tasks.clear();
+            if (!m_scheduled) {
+                m_terminated.countDown();
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return m_shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return m_terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return m_terminated.await(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return m_name;
+    }
+}
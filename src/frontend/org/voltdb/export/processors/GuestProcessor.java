@@ -30,6 +30,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.Pair;
@@ -262,11 +263,14 @@ public class GuestProcessor implements ExportDataProcessor {
                                     buildListener(ads);
                                 }
                             } else {
-                                Thread.sleep(5);
-                                resubmitSelf();
+                                // Don't hold a shared export worker while waiting, check again later
+                                VoltDB.instance().scheduleWork(new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        resubmitSelf();
+                                    }
+                                }, 5, -1, TimeUnit.MILLISECONDS);
                             }
-                        } catch(InterruptedException e) {
-                            resubmitSelf();
                         } catch (Exception e) {
                             VoltDB.crashLocalVoltDB("Failed to initiate export binary deque poll", true, e);
                         }
@@ -189,7 +189,7 @@ public abstract class KafkaConsumerRunner implements Runnable {
         }
     }
 
-    public abstract boolean invoke(String rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception;
+    public abstract boolean invoke(ByteBuffer rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception;
 
     @Override
     public void run() {
@@ -279,13 +279,12 @@ public abstract class KafkaConsumerRunner implements Runnable {
                             }
 
                             Object params[] = null;
-                            String smsg = null;
+                            ByteBuffer msg = record.value();
                             try {
-                                smsg = new String(record.value().array(), StandardCharsets.UTF_8);
                                 if (formatter != null) {
-                                    params = formatter.transform(ByteBuffer.wrap(smsg.getBytes()));
+                                    params = formatter.transform(msg.slice());
                                 } else {
-                                    params = csvParser.parseLine(smsg);
+                                    params = csvParser.parseLine(StandardCharsets.UTF_8.decode(msg.slice()).toString());
                                 }
                                 commitTracker.submit(nextOffSet);
                                 submitCount.incrementAndGet();
@@ -294,7 +293,7 @@ public abstract class KafkaConsumerRunner implements Runnable {
                                         topicIdentifer);
                                 partitionSubmittedCount++;
 
-                                if (invoke(smsg, offset, partition.topic(), params, cb)) {
+                                if (invoke(msg, offset, partition.topic(), params, cb)) {
                                     m_workTrackers.get(partition).produceWork();
                                 } else {
                                     if (LOGGER.isDebugEnabled()) {
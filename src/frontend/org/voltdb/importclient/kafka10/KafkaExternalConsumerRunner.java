@@ -66,8 +66,10 @@ public class KafkaExternalConsumerRunner extends KafkaConsumerRunner {
     }
 
     @Override
-    public boolean invoke(String rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception {
-        m_loader.insertRow(new RowWithMetaData(rawMessage, offset, procedureCallback), params);
+    public boolean invoke(ByteBuffer rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception {
+        // The loader reports the raw message of rows that fail to insert
+        String smsg = StandardCharsets.UTF_8.decode(rawMessage.slice()).toString();
+        m_loader.insertRow(new RowWithMetaData(smsg, offset, procedureCallback), params);
         return true;
     }
     protected void subscribe() {
@@ -112,10 +114,10 @@ public class KafkaExternalConsumerRunner extends KafkaConsumerRunner {
                 for (ConsumerRecord<ByteBuffer, ByteBuffer> record : records) {
                     long offset = record.offset();
                     Object params[];
-                    String smsg = new String(record.value().array(), StandardCharsets.UTF_8);
+                    String smsg = StandardCharsets.UTF_8.decode(record.value().slice()).toString();
                     if (m_formatter != null) {
                         try {
-                            params = m_formatter.transform(ByteBuffer.wrap(smsg.getBytes()));
+                            params = m_formatter.transform(record.value().slice());
                         } catch (FormatException badMsg) {
                             LOGGER.warn("Failed to transform message " + smsg + " at offset " + offset
                                     + ", error: " + badMsg.getMessage());
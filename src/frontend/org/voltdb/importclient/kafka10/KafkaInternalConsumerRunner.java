@@ -30,7 +30,7 @@ public class KafkaInternalConsumerRunner extends KafkaConsumerRunner {
     }
 
     @Override
-    public boolean invoke(String rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception {
+    public boolean invoke(ByteBuffer rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception {
         return ((AbstractImporter)m_lifecycle).callProcedure(new Invocation(m_config.getProcedure(topic), params), procedureCallback);
     }
 }
@@ -112,6 +112,19 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
     //The total number of consumers for the importer, which are distributed among the hosts.
     private int m_consumerCount;
 
+    /**
+     * <code>m_batchSize</code> The maximum number of messages for the same partition that are inserted
+     * in one transaction. Only messages for default insert and upsert procedures are batched.
+     * Configured via property <code>import.batch.size</code> Default: 1, every message on its own
+     */
+    private int m_batchSize = 1;
+
+    /**
+     * <code>m_batchLingerMs</code> The time, in milliseconds, a message waits for its batch to fill.
+     * Configured via property <code>import.batch.linger.ms</code> Default: 10ms
+     */
+    private int m_batchLingerMs = DEFAULT_BATCH_LINGER_MS;
+
     private String m_securityProtocol;
     private String m_saslKerberosServiceName;
     /**
@@ -177,6 +190,9 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
 
         m_consumerCount = parseProperty(properties, ImportDataProcessor.KAFKA10_CONSUMER_COUNT, 0);
 
+        m_batchSize = parseProperty(properties, ImportDataProcessor.IMPORT_BATCH_SIZE, 1);
+        m_batchLingerMs = parseProperty(properties, ImportDataProcessor.IMPORT_BATCH_LINGER_MS, DEFAULT_BATCH_LINGER_MS);
+
         //host count, will not be missing in the property because is is explicitly set.
         //set default to 1 anyway.
         m_dbHostCount = parseProperty(properties, ImportDataProcessor.VOLTDB_HOST_COUNT, 1);
@@ -234,6 +250,8 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
         builder.append("\n\tSessionTimeOut: " + m_sessionTimeOut);
         builder.append("\n\tURI: " + m_uri);
         builder.append("\n\tProcedures: " + m_procedureMap);
+        builder.append("\n\tBatchSize: " + m_batchSize);
+        builder.append("\n\tBatchLingerMs: " + m_batchLingerMs);
         builder.append("\n\tFormatterBuilder: " + m_formatterBuilderMap);
         LOGGER.debug(builder.toString());
     }
@@ -360,6 +378,16 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
         return m_pollTimeout;
     }
 
+    @Override
+    public int getBatchSize() {
+        return m_batchSize;
+    }
+
+    @Override
+    public int getBatchLingerMs() {
+        return m_batchLingerMs;
+    }
+
     public int getConsumerCount() {
         return m_consumerCount;
     }
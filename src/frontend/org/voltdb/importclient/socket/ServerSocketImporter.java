@@ -17,14 +17,15 @@
 
 package org.voltdb.importclient.socket;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.voltcore.logging.Level;
@@ -114,17 +115,16 @@ public class ServerSocketImporter extends AbstractImporter {
         public void run()
         {
             try {
-                BufferedReader in = new BufferedReader(
-                        new InputStreamReader(m_clientSocket.getInputStream()));
+                LineReader in = new LineReader(m_clientSocket.getInputStream());
                 Formatter formatter = m_config.getFormatterBuilder().create();
                 Object params[] = null;
                 while (shouldRun()) {
-                    String line = in.readLine();
+                    ByteBuffer line = in.readLine();
                     if (line == null) {
                         break; // end of stream
                     }
                     try{
-                        params = formatter.transform(ByteBuffer.wrap(line.getBytes()));
+                        params = formatter.transform(line);
                         //You should convert your data to params here.
                         if (params == null) continue;
                         Invocation invocation = new Invocation(m_procedure, params);
@@ -132,7 +132,8 @@ public class ServerSocketImporter extends AbstractImporter {
                             rateLimitedLog(Level.ERROR, null, "Socket importer insertion failed");
                         }
                    } catch (FormatException e){
-                       rateLimitedLog(Level.ERROR, e, "Failed to tranform data: %s" ,line);
+                       rateLimitedLog(Level.ERROR, e, "Failed to tranform data: %s",
+                               new String(line.array(), line.arrayOffset(), line.capacity(), StandardCharsets.UTF_8));
                   }
                 }
             } catch (IOException ioe) {
@@ -152,4 +153,73 @@ public class ServerSocketImporter extends AbstractImporter {
             // nothing to do for now
         }
     }
+
+    /**
+     * Reads lines terminated by \n, \r or \r\n from a stream without decoding them.
+     * Each line is returned as a slice of the read buffer, which is only valid until
+     * the next call.
+     */
+    static final class LineReader
+    {
+        private final InputStream m_in;
+        private byte[] m_buf = new byte[8192];
+        // Start of the line being read, and end of the bytes read so far
+        private int m_start;
+        private int m_end;
+        // The last line ended with \r, so a \n that follows it ends nothing
+        private boolean m_skipLF;
+
+        LineReader(InputStream in)
+        {
+            m_in = in;
+        }
+
+        /**
+         * @return the next line without its terminator, or null at the end of the stream
+         */
+        ByteBuffer readLine() throws IOException
+        {
+            int scan = m_start;
+            while (true) {
+                while (scan < m_end) {
+                    final byte b = m_buf[scan];
+                    if (m_skipLF) {
+                        m_skipLF = false;
+                        if (b == '\n') {
+                            m_start = ++scan;
+                            continue;
+                        }
+                    }
+                    if (b == '\n' || b == '\r') {
+                        ByteBuffer line = ByteBuffer.wrap(m_buf, m_start, scan - m_start).slice();
+                        m_skipLF = b == '\r';
+                        m_start = scan + 1;
+                        return line;
+                    }
+                    scan++;
+                }
+
+                // Keep the partial line at the front of the buffer and read more after it
+                if (m_start > 0) {
+                    System.arraycopy(m_buf, m_start, m_buf, 0, m_end - m_start);
+                    scan -= m_start;
+                    m_end -= m_start;
+                    m_start = 0;
+                }
+                if (m_end == m_buf.length) {
+                    m_buf = Arrays.copyOf(m_buf, m_buf.length * 2);
+                }
+                int read = m_in.read(m_buf, m_end, m_buf.length - m_end);
+                if (read < 0) {
+                    if (m_start == m_end) {
+                        return null;
+                    }
+                    ByteBuffer line = ByteBuffer.wrap(m_buf, m_start, m_end - m_start).slice();
+                    m_start = m_end;
+                    return line;
+                }
+                m_end += read;
+            }
+        }
+    }
 }
@@ -18,6 +18,7 @@
 package org.voltdb.importer;
 
 import java.net.URI;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Function;
 
 import org.voltcore.logging.Level;
@@ -54,6 +55,7 @@ public abstract class AbstractImporter
     private ImporterServerAdapter m_importServerAdapter;
     private volatile boolean m_stopping;
     private final Function<Integer, Boolean> m_backPressurePredicate = (x) -> shouldRun();
+    private InvocationBatcher m_batcher;
 
     protected AbstractImporter() {
         m_logger = new VoltLogger(getName());
@@ -74,6 +76,21 @@ public abstract class AbstractImporter
         m_importServerAdapter = adapter;
     }
 
+    /**
+     * Lets the importer execute invocations of the same procedure and partition together,
+     * as configured for it.
+     *
+     * @param batchSize the maximum number of invocations per batch
+     * @param lingerMs how long an invocation may wait for its batch to fill
+     * @param executor runs the batches that are done lingering and replays the failed ones
+     */
+    final void setBatching(int batchSize, int lingerMs, ScheduledExecutorService executor) {
+        if (batchSize > 1 && executor != null) {
+            m_batcher = new InvocationBatcher(this, m_importServerAdapter, m_backPressurePredicate,
+                    batchSize, lingerMs, executor);
+        }
+    }
+
     /**
      * This method indicates if the importer has been stopped or if it should continue running.
      * This should be checked by importer implementations regularly to determine if the importer
@@ -108,6 +125,9 @@ public abstract class AbstractImporter
     public boolean callProcedure(Invocation invocation, ProcedureCallback callback)
     {
         try {
+            if (m_batcher != null && m_batcher.add(invocation, callback)) {
+                return true;
+            }
             boolean result = m_importServerAdapter.callProcedure(this,
                                                                  m_backPressurePredicate,
                                                                  callback, invocation.getProcedure(), invocation.getParams());
@@ -126,6 +146,9 @@ public abstract class AbstractImporter
     public void stopImporter()
     {
         m_stopping = true;
+        if (m_batcher != null) {
+            m_batcher.flush();
+        }
         stop();
     }
 
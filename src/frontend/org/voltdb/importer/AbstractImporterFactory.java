@@ -20,6 +20,7 @@ package org.voltdb.importer;
 import java.net.URI;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
@@ -38,6 +39,7 @@ public abstract class AbstractImporterFactory implements BundleActivator
 {
 
     private ImporterServerAdapter m_importServerAdapter;
+    private ScheduledExecutorService m_batchExecutor;
 
     /**
      * Registers this as an OSGi service. At startup, the server will look
@@ -65,6 +67,17 @@ public abstract class AbstractImporterFactory implements BundleActivator
         m_importServerAdapter = importServerAdapter;
     }
 
+    /**
+     * Passes in the executor that runs the invocation batches of the importers created by this.
+     * Importers are created without batching until this is set.
+     *
+     * @param batchExecutor executor owned by the import processor, shut down with it
+     */
+    final void setBatchExecutor(ScheduledExecutorService batchExecutor)
+    {
+        m_batchExecutor = batchExecutor;
+    }
+
     /**
      * Method that is used by the importer framework classes to create
      * an importer instance and wire it correctly for use within the server.
@@ -76,6 +89,7 @@ public abstract class AbstractImporterFactory implements BundleActivator
     {
         AbstractImporter importer = create(config);
         importer.setImportServerAdapter(m_importServerAdapter);
+        importer.setBatching(config.getBatchSize(), config.getBatchLingerMs(), m_batchExecutor);
         return importer;
     }
 
@@ -40,6 +40,8 @@ public interface ImportDataProcessor  {
     static final String VOLTDB_HOST_COUNT = "voltdb.host.count";
     static final String KAFKA10_CONSUMER_COUNT = "kafka.consumer.count";
     static final String POLL_TIMEOUT_MS = "poll.timeout.ms";
+    static final String IMPORT_BATCH_SIZE = "import.batch.size";
+    static final String IMPORT_BATCH_LINGER_MS = "import.batch.linger.ms";
 
     /**
      * Inform the processor that initialization is complete; commence work.
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
@@ -39,6 +40,9 @@ public class ImportProcessor implements ImportDataProcessor {
     private final Map<String, ImporterWrapper> m_importers = new HashMap<String, ImporterWrapper>();
     private final ChannelDistributer m_distributer;
     private final ExecutorService m_es = CoreUtils.getSingleThreadExecutor("ImportProcessor");
+    //Runs the invocation batches of the importers of all types.
+    private final ScheduledThreadPoolExecutor m_batchExecutor =
+            CoreUtils.getScheduledThreadPoolExecutor("Importer batches", 1, CoreUtils.SMALL_STACK_SIZE);
     private final ImporterServerAdapter m_importServerAdapter;
     private final String m_clusterTag;
 
@@ -61,6 +65,7 @@ public class ImportProcessor implements ImportDataProcessor {
         public ImporterWrapper(AbstractImporterFactory importerFactory) {
             m_importerFactory = importerFactory;
             m_importerFactory.setImportServerAdapter(m_importServerAdapter);
+            m_importerFactory.setBatchExecutor(m_batchExecutor);
             m_importerTypeMgr = new ImporterLifeCycleManager(
                     m_importerFactory, m_distributer, m_clusterTag);
         }
@@ -147,6 +152,10 @@ public class ImportProcessor implements ImportDataProcessor {
         } catch (InterruptedException | ExecutionException ex) {
             m_logger.error("Failed to stop import processor.", ex);
         }
+        //The importers flushed their batches when they stopped, drop the linger timers
+        //but let the replays of failed batches run.
+        m_batchExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        m_batchExecutor.shutdown();
         try {
             m_es.shutdown();
             m_es.awaitTermination(365, TimeUnit.DAYS);
@@ -38,4 +38,26 @@ public interface ImporterConfig
     public URI getResourceID();
 
     public FormatterBuilder getFormatterBuilder();
+
+    /**
+     * The number of invocations for the same procedure and partition that importers created
+     * with this configuration may execute as one transaction. Only invocations of the default
+     * insert and upsert procedures are batched.
+     *
+     * @return the maximum number of rows per batch, 1 to execute every invocation on its own
+     */
+    public default int getBatchSize() {
+        return 1;
+    }
+
+    /**
+     * How long an invocation may wait for more invocations to join its batch.
+     *
+     * @return the linger time in milliseconds
+     */
+    public default int getBatchLingerMs() {
+        return DEFAULT_BATCH_LINGER_MS;
+    }
+
+    public static final int DEFAULT_BATCH_LINGER_MS = 10;
 }
@@ -19,6 +19,7 @@ package org.voltdb.importer;
 
 import org.voltdb.client.ProcedureCallback;
 
+import java.util.List;
 import java.util.function.Function;
 
 
@@ -49,6 +50,31 @@ public interface ImporterServerAdapter {
      */
     public boolean callProcedure(AbstractImporter importer, Function<Integer, Boolean> backPressurePredicate, ProcedureCallback callback, String proc, Object... fieldList);
 
+    /**
+     * Returns the partition that an invocation of a procedure would be executed on, if the
+     * invocation can be executed together with others for the same procedure and partition.
+     *
+     * @param proc the name of the procedure
+     * @param fieldList the parameters of the invocation
+     * @return the partition id, or a negative value if the invocation must be executed on its own
+     */
+    public int getBatchPartition(String proc, Object[] fieldList);
+
+    /**
+     * This is used by importers to execute a procedure once for many rows in one transaction.
+     * All rows must have the same batch partition. The callback receives the response of the
+     * whole batch.
+     *
+     * @param importer the calling importer instance
+     * @param backPressurePredicate see {@link #callProcedure}
+     * @param callback the callback object that will receive the execution status of the batch
+     * @param proc the name of the procedure that is to be executed for every row
+     * @param rows the parameters of each row
+     * @return returns true if the batch was queued successfully; false if the rows must be
+     * executed one at a time.
+     */
+    public boolean callProcedureBatch(AbstractImporter importer, Function<Integer, Boolean> backPressurePredicate, ProcedureCallback callback, String proc, List<Object[]> rows);
+
     /**
      * This should be used by importers to report failure while trying to execute a procedure.
      *
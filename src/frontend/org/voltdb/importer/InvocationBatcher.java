@@ -0,0 +1,233 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.importer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.voltcore.logging.Level;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.VoltTable;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+
+/**
+ * Groups the invocations of an importer by procedure and target partition, and executes each
+ * group as one transaction once it has reached the batch size or has waited for the linger time.
+ * Invocations that the server can't batch are left to the importer to execute on their own.
+ *
+ * The callback of every invocation in a batch gets the response of the batch, so commit
+ * trackers advance once per batch. A batch that fails is replayed one invocation at a time,
+ * like VoltBulkLoader does, so that each invocation gets its own response and bad rows
+ * fail on their own.
+ */
+final class InvocationBatcher {
+
+    private final AbstractImporter m_importer;
+    private final ImporterServerAdapter m_adapter;
+    private final Function<Integer, Boolean> m_backPressurePredicate;
+    private final int m_batchSize;
+    private final long m_lingerMs;
+    // Flushes lingering batches and replays failed ones, owned by the import processor
+    private final ScheduledExecutorService m_executor;
+
+    // Open batches by procedure and partition, guarded by this
+    private final Map<String, Map<Integer, Batch>> m_batches = new HashMap<>();
+
+    private final class Batch implements ProcedureCallback, Runnable {
+        final String m_procedure;
+        final int m_partition;
+        final List<Object[]> m_rows;
+        final List<ProcedureCallback> m_callbacks;
+
+        Batch(String procedure, int partition) {
+            m_procedure = procedure;
+            m_partition = partition;
+            m_rows = new ArrayList<>(m_batchSize);
+            m_callbacks = new ArrayList<>(m_batchSize);
+        }
+
+        // Linger time is up
+        @Override
+        public void run() {
+            synchronized (InvocationBatcher.this) {
+                if (!close(this)) {
+                    return;
+                }
+            }
+            execute(this);
+        }
+
+        @Override
+        public void clientCallback(ClientResponse response) throws Exception {
+            if (response.getStatus() == ClientResponse.RESPONSE_UNKNOWN) {
+                // The server retries the transaction and responds again
+                return;
+            }
+            if (response.getStatus() != ClientResponse.SUCCESS) {
+                try {
+                    m_executor.execute(() -> replay(this));
+                } catch (RejectedExecutionException e) {
+                    // The importers have been shut down, there is nothing left to replay the batch
+                    for (ProcedureCallback callback : m_callbacks) {
+                        fail(m_procedure, callback);
+                    }
+                }
+                return;
+            }
+            for (ProcedureCallback callback : m_callbacks) {
+                respond(callback, response);
+            }
+        }
+    }
+
+    InvocationBatcher(AbstractImporter importer, ImporterServerAdapter adapter,
+            Function<Integer, Boolean> backPressurePredicate, int batchSize, long lingerMs,
+            ScheduledExecutorService executor) {
+        m_importer = importer;
+        m_adapter = adapter;
+        m_backPressurePredicate = backPressurePredicate;
+        m_batchSize = batchSize;
+        m_lingerMs = Math.max(1, lingerMs);
+        m_executor = executor;
+    }
+
+    /**
+     * Adds an invocation to the batch for its procedure and partition, and reports it as queued.
+     *
+     * @return false if the invocation can't be batched and must be executed on its own
+     */
+    boolean add(Invocation invocation, ProcedureCallback callback) {
+        final String procedure = invocation.getProcedure();
+        final int partition = m_adapter.getBatchPartition(procedure, invocation.getParams());
+        if (partition < 0) {
+            return false;
+        }
+        m_adapter.reportQueued(m_importer.getName(), procedure);
+
+        Batch full = null;
+        synchronized (this) {
+            Map<Integer, Batch> batches = m_batches.get(procedure);
+            if (batches == null) {
+                batches = new HashMap<>();
+                m_batches.put(procedure, batches);
+            }
+            Batch batch = batches.get(partition);
+            if (batch == null) {
+                batch = new Batch(procedure, partition);
+                m_executor.schedule(batch, m_lingerMs, TimeUnit.MILLISECONDS);
+                batches.put(partition, batch);
+            }
+            batch.m_rows.add(invocation.getParams());
+            batch.m_callbacks.add(callback);
+            if (batch.m_rows.size() >= m_batchSize) {
+                close(batch);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            execute(full);
+        }
+        return true;
+    }
+
+    /**
+     * Executes every open batch without waiting for its linger time.
+     */
+    void flush() {
+        List<Batch> open = new ArrayList<>();
+        synchronized (this) {
+            for (Map<Integer, Batch> batches : m_batches.values()) {
+                open.addAll(batches.values());
+            }
+            m_batches.clear();
+        }
+        for (Batch batch : open) {
+            execute(batch);
+        }
+    }
+
+    // Removes the batch from the open batches, returns false if it was already removed
+    private boolean close(Batch batch) {
+        Map<Integer, Batch> batches = m_batches.get(batch.m_procedure);
+        if (batches == null || batches.get(batch.m_partition) != batch) {
+            return false;
+        }
+        batches.remove(batch.m_partition);
+        return true;
+    }
+
+    private void execute(Batch batch) {
+        if (batch.m_rows.size() == 1) {
+            replay(batch);
+            return;
+        }
+        boolean queued;
+        try {
+            queued = m_adapter.callProcedureBatch(m_importer, m_backPressurePredicate, batch,
+                    batch.m_procedure, batch.m_rows);
+        } catch (Exception e) {
+            m_importer.rateLimitedLog(Level.ERROR, e, "%s: Error trying to import a batch", m_importer.getName());
+            queued = false;
+        }
+        if (!queued) {
+            replay(batch);
+        }
+    }
+
+    private void replay(Batch batch) {
+        for (int i = 0; i < batch.m_rows.size(); i++) {
+            final ProcedureCallback callback = batch.m_callbacks.get(i);
+            boolean queued;
+            try {
+                queued = m_adapter.callProcedure(m_importer, m_backPressurePredicate, callback,
+                        batch.m_procedure, batch.m_rows.get(i));
+            } catch (Exception e) {
+                m_importer.rateLimitedLog(Level.ERROR, e, "%s: Error trying to import", m_importer.getName());
+                queued = false;
+            }
+            if (!queued) {
+                fail(batch.m_procedure, callback);
+            }
+        }
+    }
+
+    // The invocation was reported as queued when it was added, but could not be executed
+    private void fail(String procedure, ProcedureCallback callback) {
+        m_adapter.reportFailure(m_importer.getName(), procedure, true);
+        respond(callback, new ClientResponseImpl(ClientResponse.GRACEFUL_FAILURE, new VoltTable[0],
+                "The invocation could not be queued"));
+    }
+
+    private void respond(ProcedureCallback callback, ClientResponse response) {
+        if (callback == null) {
+            return;
+        }
+        try {
+            callback.clientCallback(response);
+        } catch (Exception e) {
+            m_importer.rateLimitedLog(Level.ERROR, e, "%s: Error in procedure callback", m_importer.getName());
+        }
+    }
+}
@@ -26,6 +26,11 @@ import java.nio.ByteBuffer;
 public interface Formatter {
     /**
      * Transforms data from one format to another.
+     *
+     * The data is the bytes between the position and the limit of sourceData. Importers
+     * hand over slices of their own buffers, so the buffer may be a view on a larger array,
+     * may be direct, and must not be kept after transform returns.
+     *
      * @param sourceData - raw data from source
      * @return Array of data converted from sourceData
      * @throws FormatException
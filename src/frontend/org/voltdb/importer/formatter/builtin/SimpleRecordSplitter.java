@@ -0,0 +1,117 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.importer.formatter.builtin;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits records that need no CSV parsing straight from their bytes. A record is simple
+ * when none of its bytes is a quote or escape character or an excluded byte, in which
+ * case its fields are exactly the runs of bytes between separators, and each field is
+ * decoded into a String of its own without decoding the whole record first.
+ *
+ * This only works when the separator, quote and escape characters are ASCII, since no
+ * byte of a multi-byte UTF-8 character can then be mistaken for one of them.
+ *
+ * The record is the bytes between the position and the limit of the buffer, which may
+ * be a slice of a larger buffer and may be direct. The buffer is not modified.
+ */
+final class SimpleRecordSplitter {
+
+    private final byte m_separator;
+    private final byte m_quote;
+    private final byte m_escape;
+    private final byte m_excluded1;
+    private final byte m_excluded2;
+
+    // Copy of a record that isn't backed by an accessible array
+    private byte[] m_scratch = new byte[0];
+
+    /**
+     * @return a splitter, or null if the characters are not all ASCII
+     */
+    static SimpleRecordSplitter create(char separator, char quote, char escape, char excluded1, char excluded2) {
+        if (separator > 127 || quote > 127 || escape > 127 || excluded1 > 127 || excluded2 > 127) {
+            return null;
+        }
+        return new SimpleRecordSplitter(separator, quote, escape, excluded1, excluded2);
+    }
+
+    private SimpleRecordSplitter(char separator, char quote, char escape, char excluded1, char excluded2) {
+        m_separator = (byte) separator;
+        m_quote = (byte) quote;
+        m_escape = (byte) escape;
+        m_excluded1 = (byte) excluded1;
+        m_excluded2 = (byte) excluded2;
+    }
+
+    /**
+     * @return the fields of the record, or null if the record is not simple
+     */
+    String[] split(ByteBuffer record) {
+        final byte[] bytes;
+        final int start;
+        final int length = record.remaining();
+        if (record.hasArray()) {
+            bytes = record.array();
+            start = record.arrayOffset() + record.position();
+        } else {
+            if (m_scratch.length < length) {
+                m_scratch = new byte[Math.max(length, m_scratch.length * 2)];
+            }
+            record.duplicate().get(m_scratch, 0, length);
+            bytes = m_scratch;
+            start = 0;
+        }
+        final int end = start + length;
+
+        int fields = 1;
+        for (int i = start; i < end; i++) {
+            final byte b = bytes[i];
+            if (b == m_separator) {
+                fields++;
+            } else if (b == m_quote || b == m_escape || b == m_excluded1 || b == m_excluded2) {
+                return null;
+            }
+        }
+
+        final String[] values = new String[fields];
+        int field = 0;
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == m_separator) {
+                values[field++] = new String(bytes, fieldStart, i - fieldStart, StandardCharsets.UTF_8);
+                fieldStart = i + 1;
+            }
+        }
+        values[field] = new String(bytes, fieldStart, end - fieldStart, StandardCharsets.UTF_8);
+        return values;
+    }
+
+    /**
+     * Decode the whole record, for the records that are not simple
+     */
+    static String decode(ByteBuffer record) {
+        if (record.hasArray()) {
+            return new String(record.array(), record.arrayOffset() + record.position(), record.remaining(),
+                    StandardCharsets.UTF_8);
+        }
+        return StandardCharsets.UTF_8.decode(record.duplicate()).toString();
+    }
+}
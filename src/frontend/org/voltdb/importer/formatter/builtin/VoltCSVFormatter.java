@@ -26,10 +26,11 @@ import org.voltdb.importer.formatter.Formatter;
 
 import au.com.bytecode.opencsv_voltpatches.CSVParser;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 
 public class VoltCSVFormatter implements Formatter {
     final CSVParser m_parser;
+    // Splits records that have no quotes or escapes, null if the parser is always needed
+    private final SimpleRecordSplitter m_splitter;
 
     public VoltCSVFormatter (String formatName, Properties prop) {
 
@@ -68,6 +69,7 @@ public class VoltCSVFormatter implements Formatter {
         }
 
         m_parser = new CSVParser(separator, quotechar, escape, strictQuotes, ignoreLeadingWhiteSpace);
+        m_splitter = strictQuotes ? null : SimpleRecordSplitter.create(separator, quotechar, escape, quotechar, quotechar);
     }
 
     @Override
@@ -77,8 +79,11 @@ public class VoltCSVFormatter implements Formatter {
             if (payload == null) {
                 return null;
             }
-            line = new String(payload.array(), payload.arrayOffset(), payload.limit(), StandardCharsets.UTF_8);
-            Object list[] = m_parser.parseLine(line);
+            Object list[] = m_splitter == null ? null : m_splitter.split(payload);
+            if (list == null) {
+                line = SimpleRecordSplitter.decode(payload);
+                list = m_parser.parseLine(line);
+            }
             if (list != null) {
                 for (int i = 0; i < list.length; i++) {
                     if ("NULL".equals(list[i])
@@ -21,7 +21,6 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Properties;
 
@@ -57,6 +56,8 @@ public class VoltSuperCSVFormatter implements Formatter {
     private char m_escape;
     private boolean m_strictquotes;
     private VoltCVSTokenizer m_tokenizer;
+    // Splits records that have no quotes, escapes or newlines, null if the tokenizer is always needed
+    private SimpleRecordSplitter m_splitter;
     CsvListReader m_csvReader;
 
     public VoltSuperCSVFormatter(String formatName, Properties prop) {
@@ -106,6 +107,10 @@ public class VoltSuperCSVFormatter implements Formatter {
                 DEFAULT_COLUMN_LIMIT_SIZE, 0);
 
         m_csvReader = new CsvListReader(m_tokenizer, csvPreference);
+
+        if (!m_strictquotes && !m_surroundingSpacesNeedQuotes) {
+            m_splitter = SimpleRecordSplitter.create(m_separator, quotechar, m_escape, '\n', '\r');
+        }
     }
 
     @Override
@@ -113,20 +118,44 @@ public class VoltSuperCSVFormatter implements Formatter {
         if (payload == null) {
             return null;
         }
-        String line = new String(payload.array(), payload.arrayOffset(), payload.limit(), StandardCharsets.UTF_8);
-        m_tokenizer.setSourceString(line);
-        List<String> dataList;
-        try {
-            dataList = m_csvReader.read();
-        } catch (IOException | SuperCsvException e) {
-            throw new FormatException("Failed to parse csv data", e);
+        String[] data = m_splitter == null ? null : m_splitter.split(payload);
+        if (data != null) {
+            if (isBlank(data)) {
+                // The tokenizer skips blank lines
+                return null;
+            }
+            for (int i = 0; i < data.length; i++) {
+                if (data[i].isEmpty()) {
+                    data[i] = null;
+                }
+            }
+        } else {
+            m_tokenizer.setSourceString(SimpleRecordSplitter.decode(payload));
+            List<String> dataList;
+            try {
+                dataList = m_csvReader.read();
+            } catch (IOException | SuperCsvException e) {
+                throw new FormatException("Failed to parse csv data", e);
+            }
+            if (dataList == null) return null;
+            data = dataList.toArray(new String[0]);
         }
-        if (dataList == null) return null;
-        String[] data = dataList.toArray(new String[0]);
         normalize(data);
         return data;
     }
 
+    private boolean isBlank(String[] values) {
+        if (values.length > 1 && m_separator > ' ') {
+            return false;
+        }
+        for (String value : values) {
+            if (!value.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void normalize(String[] lineValues) throws FormatException {
 
         for (int i = 0; i < lineValues.length; i++) {
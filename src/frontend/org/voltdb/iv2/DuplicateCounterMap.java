@@ -0,0 +1,166 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.voltcore.utils.LongObjectHashMap;
+
+/**
+ * DuplicateCounters of an SpScheduler keyed by (txnId, spHandle).
+ *
+ * Every spHandle is handed out once by a partition leader, so the counters are
+ * indexed by spHandle in a primitive long map and the txnId is checked on
+ * lookup. Lookups and removals on the initiate/response path do not allocate.
+ * The few callers that need the counters in (txnId, spHandle) order, which is
+ * the order responses have to reach the client interface in, get a sorted
+ * snapshot from {@link #sortedEntries()}.
+ */
+class DuplicateCounterMap {
+
+    static final class Entry implements Comparable<Entry> {
+        final long m_txnId;
+        final long m_spHandle;
+        final DuplicateCounter m_counter;
+        // Another txn using the same spHandle. Should not happen, but is kept
+        // distinct so that it reports as a collision rather than being lost.
+        private Entry m_next;
+
+        private Entry(long txnId, long spHandle, DuplicateCounter counter) {
+            m_txnId = txnId;
+            m_spHandle = spHandle;
+            m_counter = counter;
+        }
+
+        // Order by TXN ID then SP handle, as the responses must be released in txnId order
+        @Override
+        public int compareTo(Entry o) {
+            int cmp = Long.compare(m_txnId, o.m_txnId);
+            return cmp != 0 ? cmp : Long.compare(m_spHandle, o.m_spHandle);
+        }
+
+        boolean isSpTransaction() {
+            return (TxnEgo.getPartitionId(m_txnId) != MpInitiator.MP_INIT_PID);
+        }
+
+        @Override
+        public String toString() {
+            return "[txn:" + TxnEgo.txnIdToString(m_txnId) + "(" + m_txnId + "), spHandle:" + TxnEgo.txnIdToString(m_spHandle) + "(" + m_spHandle + ")]";
+        }
+    }
+
+    private final LongObjectHashMap<Entry> m_bySpHandle = new LongObjectHashMap<>(1024);
+    private int m_size;
+
+    DuplicateCounter get(long txnId, long spHandle) {
+        for (Entry e = m_bySpHandle.get(spHandle); e != null; e = e.m_next) {
+            if (e.m_txnId == txnId) {
+                return e.m_counter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Add a counter unless one already exists for the key.
+     * @return the existing counter for the key, or null if counter was added
+     */
+    DuplicateCounter putIfAbsent(long txnId, long spHandle, DuplicateCounter counter) {
+        Entry head = m_bySpHandle.get(spHandle);
+        for (Entry e = head; e != null; e = e.m_next) {
+            if (e.m_txnId == txnId) {
+                return e.m_counter;
+            }
+        }
+        Entry entry = new Entry(txnId, spHandle, counter);
+        if (head == null) {
+            m_bySpHandle.put(spHandle, entry);
+        } else {
+            entry.m_next = head.m_next;
+            head.m_next = entry;
+        }
+        m_size++;
+        return null;
+    }
+
+    DuplicateCounter remove(long txnId, long spHandle) {
+        Entry head = m_bySpHandle.get(spHandle);
+        Entry prev = null;
+        for (Entry e = head; e != null; prev = e, e = e.m_next) {
+            if (e.m_txnId == txnId) {
+                if (prev != null) {
+                    prev.m_next = e.m_next;
+                } else if (e.m_next != null) {
+                    m_bySpHandle.put(spHandle, e.m_next);
+                } else {
+                    m_bySpHandle.remove(spHandle);
+                }
+                m_size--;
+                return e.m_counter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove counters for stale versions of a restarted txn, those with the
+     * same txnId and a lower (non-negative) spHandle. Only used on the abort path.
+     */
+    void removeStale(long txnId, long spHandle) {
+        for (Entry e : sortedEntries()) {
+            if (e.m_txnId == txnId && e.m_spHandle >= 0 && e.m_spHandle < spHandle) {
+                remove(e.m_txnId, e.m_spHandle);
+            }
+        }
+    }
+
+    /**
+     * Remove all counters of the given txn.
+     */
+    void removeTxn(long txnId) {
+        for (Entry e : sortedEntries()) {
+            if (e.m_txnId == txnId) {
+                remove(e.m_txnId, e.m_spHandle);
+            }
+        }
+    }
+
+    int size() {
+        return m_size;
+    }
+
+    boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    /**
+     * @return a snapshot of all counters in (txnId, spHandle) order
+     */
+    List<Entry> sortedEntries() {
+        final List<Entry> entries = new ArrayList<>(m_size);
+        m_bySpHandle.forEach((spHandle, head) -> {
+            for (Entry e = head; e != null; e = e.m_next) {
+                entries.add(e);
+            }
+        });
+        Collections.sort(entries);
+        return entries;
+    }
+}
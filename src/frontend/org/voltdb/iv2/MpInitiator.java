@@ -20,6 +20,8 @@ package org.voltdb.iv2;
 import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.zookeeper_voltpatches.KeeperException;
 import org.apache.zookeeper_voltpatches.ZooKeeper;
@@ -35,6 +37,7 @@ import org.voltdb.ProducerDRGateway;
 import org.voltdb.Promotable;
 import org.voltdb.StartAction;
 import org.voltdb.StatsAgent;
+import org.voltdb.StatsSelector;
 import org.voltdb.TTLManager;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltZK;
@@ -50,6 +53,8 @@ import org.voltdb.messaging.Iv2InitiateTaskMessage;
 public class MpInitiator extends BaseInitiator<MpScheduler> implements Promotable
 {
     public static final int MP_INIT_PID = TxnEgo.PARTITIONID_MAX_VALUE;
+    private static final long RETIRE_IDLE_SITES_INTERVAL_SECONDS = 10;
+    private ScheduledFuture<?> m_retireIdleSitesTask = null;
 
     public MpInitiator(HostMessenger messenger, List<Long> buddyHSIds, StatsAgent agent)
     {
@@ -87,13 +92,21 @@ public class MpInitiator extends BaseInitiator<MpScheduler> implements Promotabl
         super.configureCommon(backend, catalogContext, serializedCatalog,
                 numberOfPartitions, startAction, null, null, cl, coreBindIds, false);
         // Hacky
-        MpScheduler sched = m_scheduler;
+        final MpScheduler sched = m_scheduler;
         MpRoSitePool sitePool = new MpRoSitePool(m_initiatorMailbox.getHSId(),
                 backend,
                 catalogContext,
                 m_partitionId,
                 m_initiatorMailbox);
         sched.setMpRoSitePool(sitePool);
+        agent.registerStatsSource(StatsSelector.MPREADPOOL, getInitiatorHSId(), sitePool.getStats());
+        // Reads normally retire idle sites as they complete, this catches a pool that went quiet
+        m_retireIdleSitesTask = VoltDB.instance().scheduleWork(new Runnable() {
+            @Override
+            public void run() {
+                sched.retireIdleMpRoSites();
+            }
+        }, RETIRE_IDLE_SITES_INTERVAL_SECONDS, RETIRE_IDLE_SITES_INTERVAL_SECONDS, TimeUnit.SECONDS);
 
         // add ourselves to the ephemeral node list which BabySitters will watch for this
         // partition
@@ -144,8 +157,8 @@ public class MpInitiator extends BaseInitiator<MpScheduler> implements Promotabl
                     m_initiatorMailbox.setLeaderState(txnid);
                     List<Iv2InitiateTaskMessage> restartTxns = ((MpPromoteAlgo)repair).getInterruptedTxns();
                     if (!restartTxns.isEmpty()) {
-                        // Should only be one restarting MP txn
-                        if (restartTxns.size() > 1) {
+                        // Should only be one restarting MP txn, unless disjoint writes ran concurrently
+                        if (restartTxns.size() > 1 && m_scheduler.getMaxConcurrentWrites() <= 1) {
                             tmLog.fatal("Detected a fatal condition while repairing multipartition transactions " +
                                     "following a cluster topology change.");
                             tmLog.fatal("The MPI found multiple transactions requiring restart: ");
@@ -159,10 +172,12 @@ public class MpInitiator extends BaseInitiator<MpScheduler> implements Promotabl
                                     new DumpMessage());
                             throw new RuntimeException("Failing promoted MPI node with unresolvable repair condition.");
                         }
-                        tmLog.debug(m_whoami + " restarting MP transaction: " + restartTxns.get(0));
-                        Iv2InitiateTaskMessage firstMsg = restartTxns.get(0);
-                        assert(firstMsg.getTruncationHandle() == TransactionInfoBaseMessage.UNUSED_TRUNC_HANDLE);
-                        m_initiatorMailbox.repairReplicasWith(null, firstMsg);
+                        // Restart in txnId order, so every partition still sees the writes in order
+                        for (Iv2InitiateTaskMessage restartMsg : restartTxns) {
+                            tmLog.debug(m_whoami + " restarting MP transaction: " + restartMsg);
+                            assert(restartMsg.getTruncationHandle() == TransactionInfoBaseMessage.UNUSED_TRUNC_HANDLE);
+                            m_initiatorMailbox.repairReplicasWith(null, restartMsg);
+                        }
                     }
                     tmLog.info(m_whoami
                              + "finished leader promotion. Took "
@@ -199,6 +214,16 @@ public class MpInitiator extends BaseInitiator<MpScheduler> implements Promotabl
         return false;
     }
 
+    @Override
+    public void shutdown()
+    {
+        if (m_retireIdleSitesTask != null) {
+            m_retireIdleSitesTask.cancel(false);
+            m_retireIdleSitesTask = null;
+        }
+        super.shutdown();
+    }
+
     @Override
     public Term createTerm(ZooKeeper zk, int partitionId, long initiatorHSId, InitiatorMailbox mailbox,
             String whoami)
@@ -92,7 +92,8 @@ public class MpInitiatorMailbox extends InitiatorMailbox
                 @Override
                 public RepairAlgo call() throws Exception {
                     RepairAlgo ra = new MpPromoteAlgo(survivors.get(), deadHost, MpInitiatorMailbox.this,
-                            m_restartSeqGenerator, whoami, balanceSPI);
+                            m_restartSeqGenerator, whoami, balanceSPI,
+                            ((MpScheduler)m_scheduler).getMaxConcurrentWrites());
                     setRepairAlgoInternal(ra);
                     return ra;
                 }
@@ -104,7 +105,8 @@ public class MpInitiatorMailbox extends InitiatorMailbox
                 Throwables.propagate(e);
             }
         } else {
-            ra = new MpPromoteAlgo(survivors.get(), deadHost, this, m_restartSeqGenerator, whoami, balanceSPI);
+            ra = new MpPromoteAlgo(survivors.get(), deadHost, this, m_restartSeqGenerator, whoami, balanceSPI,
+                    ((MpScheduler)m_scheduler).getMaxConcurrentWrites());
             setRepairAlgoInternal(ra);
         }
         return ra;
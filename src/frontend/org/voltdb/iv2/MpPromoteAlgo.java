@@ -51,6 +51,9 @@ public class MpPromoteAlgo implements RepairAlgo
     private final int m_deadHost;
     private long m_maxSeenTxnId = TxnEgo.makeZero(MpInitiator.MP_INIT_PID).getTxnId();
     private long m_maxSeenCompleteTxnId = TxnEgo.makeZero(MpInitiator.MP_INIT_PID).getTxnId();
+    private long m_maxSeenTruncationHandle = Long.MIN_VALUE;
+    // Whether the MPI may have had more than one write in flight, see MpTransactionTaskQueue
+    private final boolean m_concurrentWrites;
     private final List<Iv2InitiateTaskMessage> m_interruptedTxns = new ArrayList<Iv2InitiateTaskMessage>();
     private Pair<Long, byte[]> m_newestHashinatorConfig = Pair.of(Long.MIN_VALUE,new byte[0]);
     // Each Term can process at most one promotion; if promotion fails, make
@@ -125,6 +128,18 @@ public class MpPromoteAlgo implements RepairAlgo
     public MpPromoteAlgo(List<Long> survivors, int deadHost, InitiatorMailbox mailbox,
             MpRestartSequenceGenerator seqGen, String whoami, boolean migratePartitionLeader)
     {
+        this(survivors, deadHost, mailbox, seqGen, whoami, migratePartitionLeader,
+                MpTransactionTaskQueue.DEFAULT_MAX_CONCURRENT_WRITES);
+    }
+
+    /**
+     * Setup a new RepairAlgo for an MPI that admits up to maxConcurrentWrites writes at once.
+     */
+    public MpPromoteAlgo(List<Long> survivors, int deadHost, InitiatorMailbox mailbox,
+            MpRestartSequenceGenerator seqGen, String whoami, boolean migratePartitionLeader,
+            int maxConcurrentWrites)
+    {
+        m_concurrentWrites = maxConcurrentWrites > 1;
         m_survivors = new ArrayList<Long>(survivors);
         m_deadHost = deadHost;
         m_mailbox = mailbox;
@@ -251,7 +266,7 @@ public class MpPromoteAlgo implements RepairAlgo
 
     public List<Iv2InitiateTaskMessage> getInterruptedTxns()
     {
-        assert(m_interruptedTxns.isEmpty() || m_interruptedTxns.size() == 1);
+        assert(m_concurrentWrites || m_interruptedTxns.size() <= 1);
         return m_interruptedTxns;
     }
 
@@ -306,6 +321,10 @@ public class MpPromoteAlgo implements RepairAlgo
         if (msg.getPayload() == null) {
             return;
         }
+        if (m_concurrentWrites) {
+            addToConcurrentRepairLog(msg);
+            return;
+        }
         // MP repair log has at most two messages, complete message for prior transaction
         // and fragment message for current transaction, don't add message before prior completion
         if (msg.getTxnId() <= m_maxSeenCompleteTxnId) {
@@ -327,6 +346,37 @@ public class MpPromoteAlgo implements RepairAlgo
         }
     }
 
+    // With several disjoint writes in flight a completion only finishes its own transaction,
+    // an earlier write may still be interrupted. Everything at or below a truncation handle
+    // has finished though, as the MPI never moves the handle past a write in progress.
+    private void addToConcurrentRepairLog(Iv2RepairLogResponseMessage msg)
+    {
+        final long truncationHandle = ((TransactionInfoBaseMessage)msg.getPayload()).getTruncationHandle();
+        if (truncationHandle > m_maxSeenTruncationHandle) {
+            m_maxSeenTruncationHandle = truncationHandle;
+            m_repairLogUnion.removeIf((p) -> p.getTxnId() <= truncationHandle);
+        }
+        if (msg.getTxnId() <= m_maxSeenTruncationHandle) {
+            return;
+        }
+        Iv2RepairLogResponseMessage prev = m_repairLogUnion.floor(msg);
+        if (prev != null && (prev.getTxnId() != msg.getTxnId())) {
+            prev = null;
+        }
+
+        if (msg.getPayload() instanceof CompleteTransactionMessage) {
+            // prefer complete messages to fragment tasks
+            if (prev != null) {
+                m_repairLogUnion.remove(prev);
+            }
+            m_repairLogUnion.add(msg);
+            m_maxSeenCompleteTxnId = Math.max(m_maxSeenCompleteTxnId, msg.getTxnId());
+        }
+        else if (prev == null) {
+            m_repairLogUnion.add(msg);
+        }
+    }
+
     VoltMessage createRepairMessage(Iv2RepairLogResponseMessage msg)
     {
         if (msg.getPayload() instanceof CompleteTransactionMessage) {
@@ -26,6 +26,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
 import org.voltdb.BackendTarget;
@@ -34,15 +36,23 @@ import org.voltdb.LoadedProcedureSet;
 import org.voltdb.StarvationTracker;
 
 /**
- * Provide a pool of MP Read-only sites to do MP RO work.
+ * Provide a pool of MP Read-only sites to do MP RO work. The sites also coordinate
+ * N-partition writes that run alongside the write on the MPI's own Site.
  * This should be owned by the MpTransactionTaskQueue and expects all operations
  * to be done while holding its lock.
+ *
+ * The pool starts with its minimum number of sites and adds a site whenever work
+ * arrives and every site is busy, up to its maximum. Sites idle for longer than
+ * the idle timeout are retired until the pool is back to its minimum.
  */
 class MpRoSitePool {
     final static VoltLogger tmLog = new VoltLogger("TM");
 
     static int DEFAULT_MAX_POOL_SIZE = 20;
+    // MP reads mostly wait on fragment responses, so allow several sites per core
+    static int SITES_PER_CORE = 4;
     static int INITIAL_POOL_SIZE = 1;
+    static long DEFAULT_IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(1);
 
     class MpRoSiteContext {
         final private SiteTaskerQueue m_queue;
@@ -50,6 +60,8 @@ class MpRoSitePool {
         final private CatalogContext m_catalogContext;
         final private LoadedProcedureSet m_loadedProcedures;
         final private Thread m_siteThread;
+        // When the site last went idle
+        private long m_idleSince;
 
         MpRoSiteContext(long siteId, BackendTarget backend,
                 CatalogContext context, int partitionId,
@@ -81,6 +93,14 @@ class MpRoSitePool {
             return m_catalogContext.catalogVersion;
         }
 
+        void markIdle(long now) {
+            m_idleSince = now;
+        }
+
+        long getIdleSince() {
+            return m_idleSince;
+        }
+
         void shutdown() {
             m_site.startShutdown();
             // Need to unblock the site's run() loop on the take() call on the queue
@@ -111,6 +131,9 @@ class MpRoSitePool {
     private CatalogContext m_catalogContext;
     private ThreadFactory m_poolThreadFactory;
     private final int m_poolSize;
+    private final int m_minPoolSize;
+    private final long m_idleTimeoutNanos;
+    private final MpRoSitePoolStats m_stats;
     private volatile boolean m_shuttingDown = false;
 
     MpRoSitePool(
@@ -131,22 +154,75 @@ class MpRoSitePool {
 
         Integer poolSize = Integer.getInteger("mpiReadPoolSize");
         if (poolSize == null) {
-            poolSize = DEFAULT_MAX_POOL_SIZE;
+            poolSize = Math.max(DEFAULT_MAX_POOL_SIZE, SITES_PER_CORE * CoreUtils.availableProcessors());
         }
-        m_poolSize = poolSize;
-        tmLog.info("Setting maximum size of MPI read pool to: " + m_poolSize);
+        m_poolSize = Math.max(1, poolSize);
+        m_minPoolSize = Math.max(0, Math.min(m_poolSize, Integer.getInteger("mpiReadPoolMinSize", INITIAL_POOL_SIZE)));
+        m_idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(
+                Long.getLong("mpiReadPoolIdleTimeoutMs", DEFAULT_IDLE_TIMEOUT_MS));
+        m_stats = new MpRoSitePoolStats(m_siteId, m_minPoolSize, m_poolSize);
+        tmLog.info("Setting size of MPI read pool to between " + m_minPoolSize + " and " + m_poolSize + " sites");
 
         // Construct the initial pool
-        for (int i = 0; i < INITIAL_POOL_SIZE; i++) {
+        final long now = System.nanoTime();
+        for (int i = 0; i < m_minPoolSize; i++) {
             MpRoSiteContext site = new MpRoSiteContext(m_siteId,
                     m_backend,
                     m_catalogContext,
                     m_partitionId,
                     m_initiatorMailbox,
                     m_poolThreadFactory);
+            site.markIdle(now);
             m_idleSites.push(site);
             m_allSites.add(site);
         }
+        updateSiteCounts();
+    }
+
+    MpRoSitePoolStats getStats()
+    {
+        return m_stats;
+    }
+
+    private void updateSiteCounts()
+    {
+        m_stats.setSiteCounts(m_busySites.size(), m_idleSites.size());
+    }
+
+    /**
+     * An MP read was added to the backlog and waits for a site
+     */
+    void readQueued()
+    {
+        m_stats.readQueued();
+    }
+
+    /**
+     * An MP read from the backlog was given a site after waiting for the given time
+     */
+    void readStarted(long waitNanos)
+    {
+        m_stats.readStarted(waitNanos);
+    }
+
+    /**
+     * Shut down the sites that have been idle for longer than the idle timeout, least
+     * recently used first, as long as the pool keeps its minimum number of sites.
+     */
+    void retireIdleSites(long now)
+    {
+        if (m_shuttingDown) {
+            return;
+        }
+        // Sites go idle on top of the stack, so the bottom one has been idle the longest
+        while (m_allSites.size() > m_minPoolSize && !m_idleSites.isEmpty() &&
+                now - m_idleSites.peekLast().getIdleSince() > m_idleTimeoutNanos) {
+            MpRoSiteContext site = m_idleSites.pollLast();
+            site.shutdown();
+            m_allSites.remove(site);
+            m_stats.siteRetired();
+        }
+        updateSiteCounts();
     }
 
     /**
@@ -168,10 +244,11 @@ class MpRoSitePool {
             if (site.getCatalogCRC() != m_catalogContext.getCatalogCRC()
                     || site.getCatalogVersion() != m_catalogContext.catalogVersion) {
                 site.shutdown();
-                m_idleSites.remove(site);
+                siterator.remove();
                 m_allSites.remove(site);
             }
         }
+        updateSiteCounts();
     }
 
     /**
@@ -239,6 +316,7 @@ class MpRoSitePool {
             }
             site = m_idleSites.pop();
             m_busySites.put(txnId, site);
+            updateSiteCounts();
         }
         site.offer(task);
         return true;
@@ -260,14 +338,17 @@ class MpRoSitePool {
         // check the catalog versions, only push back onto idle if the catalog hasn't changed
         // otherwise, just let it get garbage collected and let doWork() construct new ones for the
         // pool with the updated catalog.
+        final long now = System.nanoTime();
         if (site.getCatalogCRC() == m_catalogContext.getCatalogCRC()
                 && site.getCatalogVersion() == m_catalogContext.catalogVersion) {
+            site.markIdle(now);
             m_idleSites.push(site);
         }
         else {
             site.shutdown();
             m_allSites.remove(site);
         }
+        retireIdleSites(now);
     }
 
     void shutdown()
@@ -0,0 +1,170 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram_voltpatches.AbstractHistogram;
+import org.HdrHistogram_voltpatches.Histogram;
+import org.HdrHistogram_voltpatches.Recorder;
+import org.voltcore.utils.CompressionStrategySnappy;
+import org.voltdb.SiteStatsSource;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+
+/**
+ * Source of @Statistics MPREADPOOL.
+ * Reports the size of the MPI's pool of read-only sites, how many MP reads are waiting
+ * for a site and how long reads waited before a site took them, in microseconds.
+ * The pool updates the counters while holding the MpTransactionTaskQueue lock.
+ */
+public class MpRoSitePoolStats extends SiteStatsSource {
+
+    // Waits up to one hour, longer waits count as one hour
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    static final int SIGNIFICANT_DIGITS = 2;
+
+    public enum StatName {
+        ACTIVE_SITES,
+        IDLE_SITES,
+        MIN_SITES,
+        MAX_SITES,
+        CURRENT_DEPTH,
+        ADMITTED,
+        RETIRED,
+        AVG_WAIT,
+        P50_WAIT,
+        P99_WAIT,
+        MAX_WAIT,
+        WAIT_HISTOGRAM
+    };
+
+    private final int m_minSites;
+    private final int m_maxSites;
+    private volatile int m_activeSites = 0;
+    private volatile int m_idleSites = 0;
+    private volatile int m_depth = 0;
+    private volatile long m_retired = 0;
+    private final Recorder m_waits = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    // Only used by the stats thread
+    private Histogram m_recycled;
+    private final Histogram m_total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram m_sinceLastInterval = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private long m_lastRetired = 0;
+    private boolean m_interval;
+
+    public MpRoSitePoolStats(long siteId, int minSites, int maxSites) {
+        super(siteId, false);
+        m_minSites = minSites;
+        m_maxSites = maxSites;
+    }
+
+    void setSiteCounts(int activeSites, int idleSites) {
+        m_activeSites = activeSites;
+        m_idleSites = idleSites;
+    }
+
+    void siteRetired() {
+        m_retired++;
+    }
+
+    void readQueued() {
+        m_depth++;
+    }
+
+    void readStarted(long waitNanos) {
+        m_depth = Math.max(0, m_depth - 1);
+        m_waits.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(waitNanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns);
+        columns.add(new ColumnInfo(StatName.ACTIVE_SITES.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.IDLE_SITES.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.MIN_SITES.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.MAX_SITES.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.CURRENT_DEPTH.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.ADMITTED.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.RETIRED.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.AVG_WAIT.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.P50_WAIT.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.P99_WAIT.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.MAX_WAIT.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.WAIT_HISTOGRAM.name(), VoltType.VARBINARY));
+    }
+
+    @Override
+    protected void updateStatsRow(Object rowKey, Object[] rowValues) {
+        Histogram interval = m_waits.getIntervalHistogram(m_recycled);
+        m_total.add(interval);
+        m_sinceLastInterval.add(interval);
+        m_recycled = interval;
+
+        final Histogram waits = m_interval ? m_sinceLastInterval : m_total;
+        final long retired = m_retired;
+        rowValues[columnNameToIndex.get(StatName.ACTIVE_SITES.name())] = m_activeSites;
+        rowValues[columnNameToIndex.get(StatName.IDLE_SITES.name())] = m_idleSites;
+        rowValues[columnNameToIndex.get(StatName.MIN_SITES.name())] = m_minSites;
+        rowValues[columnNameToIndex.get(StatName.MAX_SITES.name())] = m_maxSites;
+        rowValues[columnNameToIndex.get(StatName.CURRENT_DEPTH.name())] = m_depth;
+        rowValues[columnNameToIndex.get(StatName.ADMITTED.name())] = waits.getTotalCount();
+        rowValues[columnNameToIndex.get(StatName.RETIRED.name())] = m_interval ? retired - m_lastRetired : retired;
+        rowValues[columnNameToIndex.get(StatName.AVG_WAIT.name())] = (long) waits.getMean();
+        rowValues[columnNameToIndex.get(StatName.P50_WAIT.name())] = waits.getValueAtPercentile(50.0);
+        rowValues[columnNameToIndex.get(StatName.P99_WAIT.name())] = waits.getValueAtPercentile(99.0);
+        rowValues[columnNameToIndex.get(StatName.MAX_WAIT.name())] = waits.getMaxValue();
+        rowValues[columnNameToIndex.get(StatName.WAIT_HISTOGRAM.name())] =
+                AbstractHistogram.toCompressedBytes(waits.toUncompressedBytes(), CompressionStrategySnappy.INSTANCE);
+        if (m_interval) {
+            m_sinceLastInterval.reset();
+            m_lastRetired = retired;
+        }
+        super.updateStatsRow(rowKey, rowValues);
+    }
+
+    @Override
+    protected Iterator<Object> getStatsRowKeyIterator(final boolean interval) {
+        m_interval = interval;
+        return new Iterator<Object>() {
+            boolean returnRow = true;
+            @Override
+            public boolean hasNext() {
+                return returnRow;
+            }
+
+            @Override
+            public Object next() {
+                if (returnRow) {
+                    returnRow = false;
+                    return new Object();
+                } else {
+                    return null;
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -106,6 +106,11 @@ public class MpScheduler extends Scheduler
         m_pendingTasks.setMpRoSitePool(sitePool);
     }
 
+    int getMaxConcurrentWrites()
+    {
+        return m_pendingTasks.getMaxConcurrentWrites();
+    }
+
     void updateCatalog(String diffCmds, CatalogContext context)
     {
         m_pendingTasks.updateCatalog(diffCmds, context);
@@ -116,6 +121,11 @@ public class MpScheduler extends Scheduler
         m_pendingTasks.updateSettings(context);
     }
 
+    void retireIdleMpRoSites()
+    {
+        m_pendingTasks.retireIdleSites();
+    }
+
     @Override
     public void shutdown()
     {
@@ -173,8 +183,7 @@ public class MpScheduler extends Scheduler
                 if (resp != null && resp instanceof InitiateResponseMessage) {
                     InitiateResponseMessage msg = (InitiateResponseMessage)resp;
                     if (msg.shouldCommit() && msg.haveSentMpFragment()) {
-                        m_repairLogTruncationHandle = m_repairLogAwaitingCommit;
-                        m_repairLogAwaitingCommit = msg.getTxnId();
+                        advanceRepairLogTruncationHandle(msg.getTxnId());
                     }
                     m_outstandingTxns.remove(msg.getTxnId());
                     m_mailbox.send(counter.m_destinationId, resp);
@@ -521,8 +530,7 @@ public class MpScheduler extends Scheduler
                 // Only advance the truncation point on committed transactions that sent fragments to SPIs.
                 // See ENG-4211 & ENG-14563
                 if (message.shouldCommit() && message.haveSentMpFragment()) {
-                    m_repairLogTruncationHandle = m_repairLogAwaitingCommit;
-                    m_repairLogAwaitingCommit = message.getTxnId();
+                    advanceRepairLogTruncationHandle(message.getTxnId());
                 }
                 m_outstandingTxns.remove(message.getTxnId());
 
@@ -538,8 +546,7 @@ public class MpScheduler extends Scheduler
         else {
             // Only advance the truncation point on committed transactions that sent fragments to SPIs.
             if (message.shouldCommit() && message.haveSentMpFragment()) {
-                m_repairLogTruncationHandle = m_repairLogAwaitingCommit;
-                m_repairLogAwaitingCommit = message.getTxnId();
+                advanceRepairLogTruncationHandle(message.getTxnId());
             }
             MpTransactionState txn = (MpTransactionState)m_outstandingTxns.remove(message.getTxnId());
             assert(txn != null);
@@ -559,6 +566,27 @@ public class MpScheduler extends Scheduler
         }
     }
 
+    /**
+     * The truncation point trails the most recent committed transaction by one. Disjoint
+     * N-partition writes can commit out of txnId order, so never move it past a write
+     * that is still in progress.
+     */
+    private void advanceRepairLogTruncationHandle(long txnId)
+    {
+        long truncationHandle;
+        if (txnId > m_repairLogAwaitingCommit) {
+            truncationHandle = m_repairLogAwaitingCommit;
+            m_repairLogAwaitingCommit = txnId;
+        }
+        else {
+            truncationHandle = txnId;
+        }
+        if (truncationHandle > m_repairLogTruncationHandle &&
+                truncationHandle < m_pendingTasks.getOldestWriteInProgress()) {
+            m_repairLogTruncationHandle = truncationHandle;
+        }
+    }
+
     public void handleFragmentTaskMessage(FragmentTaskMessage message,
                                           Map<Integer, List<VoltTable>> inputDeps)
     {
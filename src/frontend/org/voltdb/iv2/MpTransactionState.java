@@ -711,6 +711,18 @@ public class MpTransactionState extends TransactionState
         return m_nPartTxn;
     }
 
+    /**
+     * The MPI may run a user N-partition write alongside other N-partition writes
+     * as long as none of them touch the same partition.
+     * @return the partitions this transaction writes, or null if it must run alone
+     */
+    Set<Integer> getDisjointWritePartitions() {
+        if (!m_nPartTxn || isReadOnly() || m_initiationMsg.getStoredProcedureName().startsWith("@")) {
+            return null;
+        }
+        return new HashSet<Integer>(m_masterHSIds.keySet());
+    }
+
     // Have MPI sent out at least one round of fragment to leaders?
     // When MP txn is restarted, the flag is reset to false.
     public boolean haveSentFragment() {
@@ -18,6 +18,7 @@
 package org.voltdb.iv2;
 
 import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -38,22 +39,57 @@ import org.voltdb.messaging.FragmentTaskMessage;
  * Provide an implementation of the TransactionTaskQueue specifically for the MPI.
  * This class will manage separating the stream of reads and writes to different
  * Sites and block appropriately so that reads and writes never execute concurrently.
+ *
+ * Writes normally run one at a time on the MPI's own Site. User N-partition writes
+ * whose partitions do not intersect may run together: the first one runs on the MPI
+ * Site and the rest borrow Sites from the MP read pool. Writes are only admitted in
+ * backlog order, so every partition still sees them in txnId order.
+ *
+ * Concurrent writes are off by default (mpiMaxConcurrentWrites=1). Repairing several
+ * interrupted writes on MPI failover is only covered by unit tests so far, and each
+ * extra write takes a Site away from MP reads. Set -DmpiMaxConcurrentWrites=N to let
+ * up to N disjoint writes run at once; NPartWriteBenchmark shows what that gains.
  */
 public class MpTransactionTaskQueue extends TransactionTaskQueue
 {
     protected static final VoltLogger tmLog = new VoltLogger("TM");
 
+    // Default maximum number of disjoint N-partition writes in progress at once, 1 turns it off.
+    // See the class comment for why it is off.
+    static final int DEFAULT_MAX_CONCURRENT_WRITES = Integer.getInteger("mpiMaxConcurrentWrites", 1);
+
     // Track the current writes and reads in progress.  If writes contains anything, reads must be empty,
     // and vice versa
     private final Map<Long, TransactionTask> m_currentWrites = new HashMap<Long, TransactionTask>();
     private final Map<Long, TransactionTask> m_currentReads = new HashMap<Long, TransactionTask>();
     private Deque<TransactionTask> m_backlog = new ArrayDeque<TransactionTask>();
 
+    // Partitions written by each current write that may share the MPI with other writes.
+    // If any current write is missing from here it runs alone.
+    private final Map<Long, Set<Integer>> m_currentWritePartitions = new HashMap<Long, Set<Integer>>();
+    // Current writes running on a Site borrowed from the pool rather than the MPI Site
+    private final Set<Long> m_pooledWrites = new HashSet<Long>();
+    // The write running on the MPI Site, or null if it is idle
+    private Long m_siteWrite = null;
+
     private MpRoSitePool m_sitePool = null;
 
+    private final int m_maxConcurrentWrites;
+
     MpTransactionTaskQueue(SiteTaskerQueue queue)
+    {
+        this(queue, DEFAULT_MAX_CONCURRENT_WRITES);
+    }
+
+    MpTransactionTaskQueue(SiteTaskerQueue queue, int maxConcurrentWrites)
     {
         super(queue, false);
+        m_maxConcurrentWrites = maxConcurrentWrites;
+    }
+
+    int getMaxConcurrentWrites()
+    {
+        return m_maxConcurrentWrites;
     }
 
     void setMpRoSitePool(MpRoSitePool sitePool)
@@ -71,6 +107,11 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
         m_sitePool.updateSettings(context);
     }
 
+    synchronized void retireIdleSites()
+    {
+        m_sitePool.retireIdleSites(System.nanoTime());
+    }
+
     void shutdown()
     {
         if (m_sitePool != null) {
@@ -89,6 +130,10 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
     synchronized void offer(TransactionTask task)
     {
         Iv2Trace.logTransactionTaskQueueOffer(task);
+        if (task.getTransactionState().isReadOnly()) {
+            task.setQueueOfferTime();
+            m_sitePool.readQueued();
+        }
         m_backlog.addLast(task);
         taskQueueOffer();
     }
@@ -102,6 +147,7 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
         // We know that every Site assigned to the MPI (either the main writer or
         // any of the MP read pool) will only have one active transaction at a time,
         // and that we either have active reads or active writes, but never both.
+        // Concurrent writes on pool Sites are repaired on those Sites as well.
         // Figure out which we're doing, and then poison all of the appropriate sites.
         Map<Long, TransactionTask> currentSet;
         boolean readonly = true;
@@ -120,6 +166,9 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
                 tmLog.debug("MpTTQ: repairing writes. MigratePartitionLeader:" + balanceSPI);
             }
             m_taskQueue.offer(task);
+            for (Long txnId : m_pooledWrites) {
+                m_sitePool.repair(txnId, task);
+            }
             currentSet = m_currentWrites;
             readonly = false;
         }
@@ -178,7 +227,7 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
     private void taskQueueOffer(TransactionTask task)
     {
         Iv2Trace.logSiteTaskerQueueOffer(task);
-        if (task.getTransactionState().isReadOnly()) {
+        if (task.getTransactionState().isReadOnly() || m_pooledWrites.contains(task.getTxnId())) {
             m_sitePool.doWork(task.getTxnId(), task);
         }
         else {
@@ -192,6 +241,9 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
         // - If so, is it a write?
         //   - If so, are there reads or writes outstanding?
         //     - if not, pull it from the backlog, add it to current write set, and queue it
+        //     - if only writes, while the head write and all current writes are N-partition
+        //       writes on disjoint partitions and there is a Site to run it:
+        //       - pull it from the backlog, add it to the current write set, and queue it
         //     - if so, bail for now
         //   - If not, are there writes outstanding?
         //     - if not, while there are reads on the backlog and the pool has capacity:
@@ -206,9 +258,15 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
             if (!task.getTransactionState().isReadOnly()) {
                 if (m_currentReads.isEmpty() && m_currentWrites.isEmpty()) {
                     task = m_backlog.pollFirst();
-                    m_currentWrites.put(task.getTxnId(), task);
-                    taskQueueOffer(task);
+                    startWrite(task, getDisjointWritePartitions(task));
                     retval = true;
+                    task = m_backlog.peekFirst();
+                }
+                while (task != null && m_currentReads.isEmpty() && canStartConcurrentWrite(task)) {
+                    task = m_backlog.pollFirst();
+                    startWrite(task, getDisjointWritePartitions(task));
+                    retval = true;
+                    task = m_backlog.peekFirst();
                 }
             }
             else if (m_currentWrites.isEmpty()) {
@@ -217,6 +275,7 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
                 {
                     task = m_backlog.pollFirst();
                     assert(task.getTransactionState().isReadOnly());
+                    m_sitePool.readStarted(System.nanoTime() - task.getQueueOfferTime());
                     m_currentReads.put(task.getTxnId(), task);
                     taskQueueOffer(task);
                     retval = true;
@@ -229,6 +288,48 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
         return retval;
     }
 
+    private Set<Integer> getDisjointWritePartitions(TransactionTask task)
+    {
+        if (m_maxConcurrentWrites <= 1 || !(task instanceof MpProcedureTask)) {
+            return null;
+        }
+        return ((MpTransactionState)task.getTransactionState()).getDisjointWritePartitions();
+    }
+
+    private boolean canStartConcurrentWrite(TransactionTask task)
+    {
+        if (task.getTransactionState().isReadOnly() ||
+                m_currentWrites.size() >= m_maxConcurrentWrites ||
+                m_currentWritePartitions.size() != m_currentWrites.size()) {
+            return false;
+        }
+        Set<Integer> partitions = getDisjointWritePartitions(task);
+        if (partitions == null) {
+            return false;
+        }
+        for (Set<Integer> current : m_currentWritePartitions.values()) {
+            if (!Collections.disjoint(current, partitions)) {
+                return false;
+            }
+        }
+        return m_siteWrite == null || m_sitePool.canAcceptWork();
+    }
+
+    private void startWrite(TransactionTask task, Set<Integer> partitions)
+    {
+        m_currentWrites.put(task.getTxnId(), task);
+        if (partitions != null) {
+            m_currentWritePartitions.put(task.getTxnId(), partitions);
+        }
+        if (m_siteWrite == null) {
+            m_siteWrite = task.getTxnId();
+        }
+        else {
+            m_pooledWrites.add(task.getTxnId());
+        }
+        taskQueueOffer(task);
+    }
+
     /**
      * Indicate that the transaction associated with txnId is complete.  Perform
      * management of reads/writes in progress then call taskQueueOffer() to
@@ -246,7 +347,14 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
         else {
             assert(m_currentWrites.containsKey(txnId));
             m_currentWrites.remove(txnId);
-            assert(m_currentWrites.isEmpty());
+            m_currentWritePartitions.remove(txnId);
+            if (m_pooledWrites.remove(txnId)) {
+                m_sitePool.completeWork(txnId);
+            }
+            else {
+                assert(m_siteWrite != null && m_siteWrite == txnId);
+                m_siteWrite = null;
+            }
         }
         if (taskQueueOffer()) {
             ++offered;
@@ -255,12 +363,12 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
     }
 
     /**
-     * Restart the current task at the head of the queue.  This will be called
+     * Restart the current task with the given txnId.  This will be called
      * instead of flush by the currently blocking MP transaction in the event a
      * restart is necessary.
      */
     @Override
-    synchronized void restart()
+    synchronized void restart(long txnId)
     {
         if (!m_currentReads.isEmpty()) {
             // re-submit all the tasks in the current read set to the pool.
@@ -271,15 +379,26 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
             }
         }
         else {
-            assert(!m_currentWrites.isEmpty());
-            TransactionTask task;
-            // There currently should only ever be one current write.  This
-            // is the awkward way to get a single value out of a Map
-            task = m_currentWrites.entrySet().iterator().next().getValue();
+            // Disjoint N-partition writes may be in progress alongside this one,
+            // only the restarting write goes back to its Site
+            TransactionTask task = m_currentWrites.get(txnId);
+            assert(task != null);
             taskQueueOffer(task);
         }
     }
 
+    /**
+     * @return the lowest txnId of the writes in progress, or Long.MAX_VALUE if there are none
+     */
+    synchronized long getOldestWriteInProgress()
+    {
+        long oldest = Long.MAX_VALUE;
+        for (Long txnId : m_currentWrites.keySet()) {
+            oldest = Math.min(oldest, txnId);
+        }
+        return oldest;
+    }
+
     /**
      * How many Tasks are un-runnable?
      * @return
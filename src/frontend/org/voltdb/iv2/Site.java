@@ -82,6 +82,7 @@ import org.voltdb.catalog.DRCatalogDiffEngine;
 import org.voltdb.catalog.Database;
 import org.voltdb.catalog.Deployment;
 import org.voltdb.catalog.Procedure;
+import org.voltdb.catalog.Systemsettings;
 import org.voltdb.catalog.Table;
 import org.voltdb.dtxn.SiteTracker;
 import org.voltdb.dtxn.TransactionState;
@@ -715,6 +716,7 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
 
         m_snapshotter = new SnapshotSiteProcessor(m_scheduler,
         m_snapshotPriority,
+        getSnapshotLatencyTarget(),
         new SnapshotSiteProcessor.IdlePredicate() {
             @Override
             public boolean idle(long now) {
@@ -723,6 +725,17 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
         });
     }
 
+    /** The site queue wait in milliseconds snapshot work is paced to, 0 if not configured */
+    private int getSnapshotLatencyTarget()
+    {
+        Deployment deploy = m_context.cluster.getDeployment().get("deployment");
+        if (deploy == null) {
+            return 0;
+        }
+        Systemsettings sysSettings = deploy.getSystemsettings().get("systemsettings");
+        return sysSettings == null ? 0 : sysSettings.getSnapshotlatencytarget();
+    }
+
     /** Create a native VoltDB execution engine */
     ExecutionEngine initializeEE()
     {
@@ -831,16 +844,27 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
         m_startupConfig = null; // release the serializableCatalog.
         //Maintain a minimum ratio of task log (unrestricted) to live (restricted) transactions
         final MinimumRatioMaintainer mrm = new MinimumRatioMaintainer(m_taskLogReplayRatio);
+        final SiteTasker[] batch = new SiteTasker[SiteTaskerQueue.DRAIN_BATCH_SIZE];
         try {
             while (m_shouldContinue) {
                 if (m_rejoinState == kStateRunning) {
-                    // Normal operation blocks the site thread on the sitetasker queue.
-                    SiteTasker task = m_scheduler.take();
-                    if (task instanceof TransactionTask) {
-                        m_currentTxnId = ((TransactionTask)task).getTxnId();
-                        m_lastTxnTime = EstTime.currentTimeMillis();
+                    // Normal operation blocks the site thread on the sitetasker queue
+                    // and then runs everything that queued up behind the first task.
+                    final int count = m_scheduler.takeBatch(batch);
+                    for (int i = 0; i < count; i++) {
+                        SiteTasker task = batch[i];
+                        batch[i] = null;
+                        // a task (e.g. shutdown) may stop the site, drop the rest as
+                        // they would have been left on the queue
+                        if (!m_shouldContinue) {
+                            continue;
+                        }
+                        if (task instanceof TransactionTask) {
+                            m_currentTxnId = ((TransactionTask)task).getTxnId();
+                            m_lastTxnTime = EstTime.currentTimeMillis();
+                        }
+                        task.run(getSiteProcedureConnection());
                     }
-                    task.run(getSiteProcedureConnection());
                 } else if (m_rejoinState == kStateReplayingRejoin) {
                     // Rejoin operation poll and try to do some catchup work. Tasks
                     // are responsible for logging any rejoin work they might have.
@@ -1278,6 +1302,21 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
         return info;
     }
 
+    @Override
+    public Map<Integer, Long> getTableChangeSpHandles()
+    {
+        // Set the psetBuffer buffer capacity and clear the buffer
+        m_ee.getParamBufferForExecuteTask(0);
+        ByteBuffer resultBuffer = ByteBuffer.wrap(m_ee.executeTask(TaskType.GET_TABLE_CHANGE_SPHANDLES, ByteBuffer.allocate(0)));
+        int count = resultBuffer.getInt();
+        Map<Integer, Long> spHandles = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int tableId = resultBuffer.getInt();
+            spHandles.put(tableId, resultBuffer.getLong());
+        }
+        return spHandles;
+    }
+
     @Override
     public void setDRSequenceNumbers(Long partitionSequenceNumber, Long mpSequenceNumber) {
         if (partitionSequenceNumber == null && mpSequenceNumber == null) {
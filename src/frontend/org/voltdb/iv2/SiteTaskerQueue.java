@@ -17,16 +17,38 @@
 
 package org.voltdb.iv2;
 
-import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.locks.LockSupport;
 
+import org.jctools_voltpatches.queues.MpscChunkedArrayQueue;
 import org.voltcore.utils.CoreUtils;
 import org.voltdb.QueueDepthTracker;
 import org.voltdb.StarvationTracker;
 
-/** SiteTaskerScheduler orders SiteTaskers for execution. */
+/**
+ * SiteTaskerScheduler orders SiteTaskers for execution.
+ *
+ * Tasks are offered by many threads (network, other sites, the MPI) but are
+ * only ever taken by the one site thread that owns the queue, so the backing
+ * store is a multi-producer/single-consumer array queue. It is pre-sized so
+ * that the steady state offer/take path does not allocate, and only grows in
+ * linked chunks if a burst overruns the initial capacity.
+ *
+ * take(), takeBatch(), poll() and peek() must only be called by the consumer
+ * (site) thread. offer(), size() and isEmpty() are safe from any thread.
+ */
 public class SiteTaskerQueue
 {
-    private final LinkedTransferQueue<SiteTasker> m_tasks = new LinkedTransferQueue<SiteTasker>();
+    // Initial slot count of the ring, grown in chunks (never shrunk) past this
+    public static final int INITIAL_CAPACITY = Integer.getInteger("SITE_TASKER_QUEUE_INITIAL_CAPACITY", 1024);
+    // Effectively unbounded, offer() never fails in practice
+    private static final int MAX_CAPACITY = 1 << 30;
+    // Maximum number of tasks handed to the site per takeBatch()
+    public static final int DRAIN_BATCH_SIZE = Integer.getInteger("SITE_TASKER_QUEUE_DRAIN_BATCH", 64);
+
+    private final MpscChunkedArrayQueue<SiteTasker> m_tasks =
+            new MpscChunkedArrayQueue<SiteTasker>(INITIAL_CAPACITY, MAX_CAPACITY, false);
+    // The consumer thread when it is parked waiting for work, null otherwise
+    private volatile Thread m_waiter;
     private StarvationTracker m_starvationTracker;
     private QueueDepthTracker m_queueDepthTracker;
     private int m_partitionId;
@@ -42,12 +64,16 @@ public class SiteTaskerQueue
     public boolean offer(SiteTasker task)
     {
         task.setQueueOfferTime();
-        // update tracker before enqueue the task
-        // prevent another thread from polling a task and decrementing
-        // the queue depth before it is incremented
-        // i.e. avoid queueDepth < 0
-        m_queueDepthTracker.offerUpdate();
-        return m_tasks.offer(task);
+        if (!m_tasks.offer(task)) {
+            return false;
+        }
+        // The producer index CAS inside offer() orders this read after the
+        // publish, pairing with the waiter write in awaitTask()
+        Thread waiter = m_waiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+        return true;
     }
 
     // Block on the site tasker queue.
@@ -62,7 +88,7 @@ public class SiteTaskerQueue
             return task;
         }
         try {
-            task = CoreUtils.queueSpinTake(m_tasks);
+            task = awaitTask();
             // task is never null
             m_queueDepthTracker.pollUpdate(task.getQueueOfferTime());
             return task;
@@ -71,6 +97,61 @@ public class SiteTaskerQueue
         }
     }
 
+    /**
+     * Block until at least one task is available, then move up to
+     * batch.length tasks into batch in queue order. Queue depth statistics
+     * are updated once for the whole batch.
+     * @return the number of tasks placed at the start of batch, always > 0
+     */
+    public int takeBatch(SiteTasker[] batch) throws InterruptedException
+    {
+        SiteTasker task = m_tasks.poll();
+        if (task == null) {
+            m_starvationTracker.beginStarvation();
+            try {
+                task = awaitTask();
+            } finally {
+                m_starvationTracker.endStarvation();
+            }
+        }
+        batch[0] = task;
+        final long oldestOfferTime = task.getQueueOfferTime();
+        long offerTimeSum = oldestOfferTime;
+        int count = 1;
+        while (count < batch.length && (task = m_tasks.poll()) != null) {
+            batch[count++] = task;
+            offerTimeSum += task.getQueueOfferTime();
+        }
+        m_queueDepthTracker.pollUpdate(oldestOfferTime, offerTimeSum, count);
+        return count;
+    }
+
+    // Spin (if configured) and then park until a producer hands us a task
+    private SiteTasker awaitTask() throws InterruptedException
+    {
+        SiteTasker task;
+        if (CoreUtils.QUEUE_SPIN_MICROSECONDS > 0) {
+            final long start = System.nanoTime();
+            do {
+                if ((task = m_tasks.poll()) != null) {
+                    return task;
+                }
+            } while (System.nanoTime() - start <= CoreUtils.QUEUE_SPIN_MICROSECONDS);
+        }
+        m_waiter = Thread.currentThread();
+        try {
+            while ((task = m_tasks.poll()) == null) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return task;
+        } finally {
+            m_waiter = null;
+        }
+    }
+
     // Non-blocking poll on the site tasker queue.
     public SiteTasker poll()
     {
@@ -103,4 +184,18 @@ public class SiteTaskerQueue
     public int size() {
         return m_tasks.size();
     }
+
+    /**
+     * @return how long tasks are waiting in this queue right now in nanoseconds
+     */
+    public long getCurrentWait() {
+        return m_queueDepthTracker == null ? 0 : m_queueDepthTracker.getCurrentWait();
+    }
+
+    /**
+     * @return true if the site is waiting for work
+     */
+    public boolean isStarved() {
+        return m_starvationTracker != null && m_starvationTracker.isStarved();
+    }
 }
@@ -23,17 +23,11 @@ import java.lang.management.ThreadMXBean;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
@@ -44,6 +38,7 @@ import org.voltcore.messaging.Mailbox;
 import org.voltcore.messaging.TransactionInfoBaseMessage;
 import org.voltcore.messaging.VoltMessage;
 import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.LongObjectHashMap;
 import org.voltdb.ClientResponseImpl;
 import org.voltdb.CommandLog;
 import org.voltdb.CommandLog.DurabilityListener;
@@ -89,62 +84,6 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
     static final VoltLogger hostLog = new VoltLogger("HOST");
     private static final Object threadDumpLock = new Object();
     static long txnIdForSiteThreadDump = 0;
-    static class DuplicateCounterKey implements Comparable<DuplicateCounterKey> {
-        private final long m_txnId;
-        private final long m_spHandle;
-
-        DuplicateCounterKey(long txnId, long spHandle) {
-            m_txnId = txnId;
-            m_spHandle = spHandle;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            try {
-                DuplicateCounterKey other = (DuplicateCounterKey) o;
-                return (m_txnId == other.m_txnId && m_spHandle == other.m_spHandle);
-            }
-            catch (Exception e) {
-                return false;
-            }
-        }
-
-        // Only care about comparing TXN ID part for sorting in updateReplicas
-        @Override
-        public int compareTo(DuplicateCounterKey o) {
-            if (m_txnId < o.m_txnId) {
-                return -1;
-            } else if (m_txnId > o.m_txnId) {
-                return 1;
-            } else {
-                if (m_spHandle < o.m_spHandle) {
-                    return -1;
-                }
-                else if (m_spHandle > o.m_spHandle) {
-                    return 1;
-                }
-                else {
-                    return 0;
-                }
-            }
-        }
-
-        @Override
-        public int hashCode() {
-            assert(false) : "Hashing this is unsafe as it can't promise no collisions.";
-            throw new UnsupportedOperationException(
-                    "Hashing this is unsafe as it can't promise no collisions.");
-        }
-
-        @Override
-        public String toString() {
-            return "[txn:" + TxnEgo.txnIdToString(m_txnId) + "(" + m_txnId + "), spHandle:" + TxnEgo.txnIdToString(m_spHandle) + "(" + m_spHandle + ")]";
-        }
-
-        public boolean isSpTransaction() {
-            return (TxnEgo.getPartitionId(m_txnId) != MpInitiator.MP_INIT_PID);
-        }
-    };
 
     public interface DurableUniqueIdListener {
         /**
@@ -156,13 +95,13 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
     private List<Long> m_replicaHSIds = new ArrayList<>();
     long m_sendToHSIds[] = new long[0];
     private final TransactionTaskQueue m_pendingTasks;
-    private final Map<Long, TransactionState> m_outstandingTxns =
-        new HashMap<Long, TransactionState>();
-    private final TreeMap<DuplicateCounterKey, DuplicateCounter> m_duplicateCounters =
-        new TreeMap<DuplicateCounterKey, DuplicateCounter>();
+    // Keyed by txnId, touched by every initiate and response so keep the keys unboxed
+    private final LongObjectHashMap<TransactionState> m_outstandingTxns =
+        new LongObjectHashMap<TransactionState>(1024);
+    private final DuplicateCounterMap m_duplicateCounters = new DuplicateCounterMap();
     // MP fragment tasks or completion tasks pending durability
-    private final Map<Long, Queue<TransactionTask>> m_mpsPendingDurability =
-        new HashMap<Long, Queue<TransactionTask>>();
+    private final LongObjectHashMap<Queue<TransactionTask>> m_mpsPendingDurability =
+        new LongObjectHashMap<Queue<TransactionTask>>();
     private CommandLog m_cl;
     private final SnapshotCompletionMonitor m_snapMonitor;
     private BufferedReadLog m_bufferedReadLog = null;
@@ -282,9 +221,8 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         // A new site joins in, forward the current txn (stream snapshot save) message to new site
         if (m_isLeader && snapshotTransactionState != null) {
             // Look up the DuplicateCounter for this snapshots fragment
-            DuplicateCounterKey key = new DuplicateCounterKey(snapshotTransactionState.txnId,
+            DuplicateCounter duplicateCounter = m_duplicateCounters.get(snapshotTransactionState.txnId,
                     snapshotTransactionState.m_spHandle);
-            DuplicateCounter duplicateCounter = m_duplicateCounters.get(key);
             assert (duplicateCounter != null);
             duplicateCounter.addReplicas(replicasAdded);
             // Forward fragment message to new replica
@@ -293,12 +231,14 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
         // Cleanup duplicate counters and collect DONE counters
         // in this list for further processing.
-        List<DuplicateCounterKey> doneCounters = new LinkedList<DuplicateCounterKey>();
-        for (Entry<DuplicateCounterKey, DuplicateCounter> entry : m_duplicateCounters.entrySet()) {
-            DuplicateCounter counter = entry.getValue();
+        // The entries come back in txnId order, which maintains the CI invariant
+        // that responses arrive in txnid order.
+        List<DuplicateCounterMap.Entry> doneCounters = new ArrayList<DuplicateCounterMap.Entry>();
+        for (DuplicateCounterMap.Entry entry : m_duplicateCounters.sortedEntries()) {
+            DuplicateCounter counter = entry.m_counter;
             int result = counter.updateReplicas(m_replicaHSIds);
             if (result == DuplicateCounter.DONE) {
-                doneCounters.add(entry.getKey());
+                doneCounters.add(entry);
             }
         }
 
@@ -309,16 +249,14 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
             ((InitiatorMailbox)m_mailbox).notifyNewLeaderOfTxnDoneIfNeeded();
         }
 
-        // Maintain the CI invariant that responses arrive in txnid order.
-        Collections.sort(doneCounters);
-        for (DuplicateCounterKey key : doneCounters) {
-            DuplicateCounter counter = m_duplicateCounters.remove(key);
+        for (DuplicateCounterMap.Entry key : doneCounters) {
+            DuplicateCounter counter = m_duplicateCounters.remove(key.m_txnId, key.m_spHandle);
 
             final TransactionState txn = m_outstandingTxns.get(key.m_txnId);
             if (txn == null || txn.isDone()) {
                 m_outstandingTxns.remove(key.m_txnId);
                 // for MP write txns, we should use it's first SpHandle in the TransactionState
-                // for SP write txns, we can just use the SpHandle from the DuplicateCounterKey
+                // for SP write txns, we can just use the SpHandle from the duplicate counter key
                 long safeSpHandle = txn == null ? key.m_spHandle: txn.m_spHandle;
                 setRepairLogTruncationHandle(safeSpHandle, false);
             }
@@ -624,7 +562,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                         m_replicaHSIds,
                         replmsg);
 
-                safeAddToDuplicateCounterMap(new DuplicateCounterKey(msg.getTxnId(), newSpHandle), counter);
+                safeAddToDuplicateCounterMap(msg.getTxnId(), newSpHandle, counter);
             }
         }
         else {
@@ -728,7 +666,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                 message.getTxnId(),
                 expectedHSIds,
                 message);
-        safeAddToDuplicateCounterMap(new DuplicateCounterKey(message.getTxnId(), message.getSpHandle()), counter);
+        safeAddToDuplicateCounterMap(message.getTxnId(), message.getSpHandle(), counter);
 
         m_uniqueIdGenerator.updateMostRecentlyGeneratedUniqueId(message.getUniqueId());
         // is local repair necessary?
@@ -761,7 +699,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                 message.getTxnId(),
                 expectedHSIds,
                 message);
-        safeAddToDuplicateCounterMap(new DuplicateCounterKey(message.getTxnId(), message.getSpHandle()), counter);
+        safeAddToDuplicateCounterMap(message.getTxnId(), message.getSpHandle(), counter);
 
         // is local repair necessary?
         if (needsRepair.contains(m_mailbox.getHSId())) {
@@ -803,8 +741,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
          * possible to read an unconfirmed transaction's writes that will be lost.
          */
         final long spHandle = message.getSpHandle();
-        final DuplicateCounterKey dcKey = new DuplicateCounterKey(message.getTxnId(), spHandle);
-        DuplicateCounter counter = m_duplicateCounters.get(dcKey);
+        DuplicateCounter counter = m_duplicateCounters.get(message.getTxnId(), spHandle);
         final VoltTrace.TraceEventBatch traceLog = VoltTrace.log(VoltTrace.Category.SPI);
 
         // All reads will have no duplicate counter.
@@ -834,7 +771,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
             int result = counter.offer(message);
             if (result == DuplicateCounter.DONE) {
-                m_duplicateCounters.remove(dcKey);
+                m_duplicateCounters.remove(message.getTxnId(), spHandle);
                 final TransactionState txn = m_outstandingTxns.get(message.getTxnId());
                 setRepairLogTruncationHandle(spHandle, (txn != null && txn.isLeaderMigrationInvolved()));
                 m_mailbox.send(counter.m_destinationId, counter.m_lastResponse);
@@ -1032,7 +969,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                             m_replicaHSIds,
                             replmsg);
                 }
-                safeAddToDuplicateCounterMap(new DuplicateCounterKey(message.getTxnId(), newSpHandle), counter);
+                safeAddToDuplicateCounterMap(message.getTxnId(), newSpHandle, counter);
             }
         } else {
             // message processed on replica
@@ -1209,7 +1146,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
         // Send the message to the duplicate counter, if any
         DuplicateCounter counter =
-            m_duplicateCounters.get(new DuplicateCounterKey(message.getTxnId(), message.getSpHandle()));
+            m_duplicateCounters.get(message.getTxnId(), message.getSpHandle());
         final TransactionState txn = m_outstandingTxns.get(message.getTxnId());
         if (counter != null) {
             String traceName = "recvfragment";
@@ -1227,7 +1164,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                     setRepairLogTruncationHandle(txn.m_spHandle, txn.isLeaderMigrationInvolved());
                 }
 
-                m_duplicateCounters.remove(new DuplicateCounterKey(message.getTxnId(), message.getSpHandle()));
+                m_duplicateCounters.remove(message.getTxnId(), message.getSpHandle());
                 FragmentResponseMessage resp = (FragmentResponseMessage)counter.getLastResponse();
                 // MPI is tracking deps per partition HSID.  We need to make
                 // sure we write ours into the message getting sent to the MPI
@@ -1314,7 +1251,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                                                msg.getTxnId(),
                                                m_replicaHSIds,
                                                msg);
-                safeAddToDuplicateCounterMap(new DuplicateCounterKey(msg.getTxnId(), msg.getSpHandle()), counter);
+                safeAddToDuplicateCounterMap(msg.getTxnId(), msg.getSpHandle(), counter);
             }
 
             Iv2Trace.logCompleteTransactionMessage(msg, m_mailbox.getHSId());
@@ -1339,8 +1276,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
     private void handleCompleteTransactionResponseMessage(CompleteTransactionResponseMessage msg)
     {
-        final DuplicateCounterKey duplicateCounterKey = new DuplicateCounterKey(msg.getTxnId(), msg.getSpHandle());
-        DuplicateCounter counter = m_duplicateCounters.get(duplicateCounterKey);
+        DuplicateCounter counter = m_duplicateCounters.get(msg.getTxnId(), msg.getSpHandle());
         boolean txnDone = true;
         if (msg.isRestart()) {
             // Don't mark txn done for restarts
@@ -1349,12 +1285,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         if (msg.isAborted() && counter != null) {
             // The last completion was an abort due to a repair/abort or restart/abort so we need to remove duplicate counters
             // for stale versions of the restarted Txn that never made it past the scoreboard
-            final DuplicateCounterKey lowestPossible = new DuplicateCounterKey(msg.getTxnId(), 0);
-            DuplicateCounterKey staleMatch = m_duplicateCounters.ceilingKey(lowestPossible);
-            while (staleMatch != null && staleMatch.compareTo(duplicateCounterKey) == -1) {
-                m_duplicateCounters.remove(staleMatch);
-                staleMatch = m_duplicateCounters.ceilingKey(lowestPossible);
-            };
+            m_duplicateCounters.removeStale(msg.getTxnId(), msg.getSpHandle());
         }
 
         if (counter != null) {
@@ -1363,7 +1294,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
         if (txnDone) {
             final TransactionState txn = m_outstandingTxns.remove(msg.getTxnId());
-            m_duplicateCounters.remove(duplicateCounterKey);
+            m_duplicateCounters.remove(msg.getTxnId(), msg.getSpHandle());
             if (txn != null && !txn.isReadOnly()) {
                 // Set the truncation handle here instead of when processing
                 // FragmentResponseMessage to avoid letting replicas think a
@@ -1447,13 +1378,13 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
             }
         }
         builder.append("\n  most recent SP handle: ").append(TxnEgo.txnIdToString(getCurrentTxnId()));
-        builder.append("\n  outstanding txns: ").append(TxnEgo.txnIdCollectionToString(m_outstandingTxns.keySet()));
+        builder.append("\n  outstanding txns: ").append(TxnEgo.txnIdCollectionToString(Longs.asList(m_outstandingTxns.keys())));
         builder.append("\n  ");
         m_pendingTasks.toString(builder);
         if (m_duplicateCounters.size() > 0) {
             builder.append("\n  DUPLICATE COUNTERS:\n ");
-            for (Entry<DuplicateCounterKey, DuplicateCounter> e : m_duplicateCounters.entrySet()) {
-                builder.append("  ").append(e.getKey().toString()).append(": ").append(e.getValue().toString());
+            for (DuplicateCounterMap.Entry e : m_duplicateCounters.sortedEntries()) {
+                builder.append("  ").append(e.toString()).append(": ").append(e.m_counter.toString());
             }
         }
         builder.append("END of STATE DUMP FOR SITE: ").append(who);
@@ -1492,7 +1423,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                         msg.getTxnId(),
                         m_replicaHSIds,
                         msg);
-                safeAddToDuplicateCounterMap(new DuplicateCounterKey(msg.getTxnId(), newSpHandle), counter);
+                safeAddToDuplicateCounterMap(msg.getTxnId(), newSpHandle, counter);
             }
         } else {
             setMaxSeenTxnId(msg.getSpHandle());
@@ -1515,8 +1446,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
     private void handleDummyTransactionResponseMessage(DummyTransactionResponseMessage message) {
         final long spHandle = message.getSpHandle();
-        final DuplicateCounterKey dcKey = new DuplicateCounterKey(message.getTxnId(), spHandle);
-        DuplicateCounter counter = m_duplicateCounters.get(dcKey);
+        DuplicateCounter counter = m_duplicateCounters.get(message.getTxnId(), spHandle);
         if (counter == null) {
             // this will be on SPI without k-safety or replica only with k-safety
             setRepairLogTruncationHandle(spHandle, false);
@@ -1529,7 +1459,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         int result = counter.offer(message);
         if (result == DuplicateCounter.DONE) {
             // DummyTransactionResponseMessage ends on SPI
-            m_duplicateCounters.remove(dcKey);
+            m_duplicateCounters.remove(message.getTxnId(), spHandle);
             setRepairLogTruncationHandle(spHandle, false);
         }
     }
@@ -1632,11 +1562,9 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
      * Just using "put" on the dup counter map is unsafe.
      * It won't detect the case where keys collide from two different transactions.
      */
-    void safeAddToDuplicateCounterMap(DuplicateCounterKey dpKey, DuplicateCounter counter) {
-        DuplicateCounter existingDC = m_duplicateCounters.get(dpKey);
-        if (existingDC == null) {
-            m_duplicateCounters.put(dpKey, counter);
-        } else {
+    void safeAddToDuplicateCounterMap(long txnId, long spHandle, DuplicateCounter counter) {
+        DuplicateCounter existingDC = m_duplicateCounters.putIfAbsent(txnId, spHandle, counter);
+        if (existingDC != null) {
             existingDC.logWithCollidingDuplicateCounters(counter);
             VoltDB.crashGlobalVoltDB("DUPLICATE COUNTER MISMATCH: two duplicate counter keys collided.", true, null);
         }
@@ -1764,14 +1692,14 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         if (m_migratePartitionLeaderCheckPoint < 0) {
             return false;
         }
-        List<DuplicateCounterKey> keys = m_duplicateCounters.keySet().stream()
+        List<DuplicateCounterMap.Entry> keys = m_duplicateCounters.sortedEntries().stream()
                 .filter(k->k.m_spHandle < m_migratePartitionLeaderCheckPoint && k.isSpTransaction()).collect(Collectors.toList());
         if (!keys.isEmpty()) {
             if (tmLog.isDebugEnabled()) {
                 StringBuilder builder = new StringBuilder();
-                for (DuplicateCounterKey dc : keys) {
+                for (DuplicateCounterMap.Entry dc : keys) {
                     builder.append(TxnEgo.txnIdToString(dc.m_txnId) + "(" + dc.m_spHandle + "),");
-                    DuplicateCounter counter = m_duplicateCounters.get(dc);
+                    DuplicateCounter counter = dc.m_counter;
                     builder.append(counter.m_openMessage + "\n");
                 }
                 tmLog.debug("Duplicate counters on " + CoreUtils.hsIdToString(m_mailbox.getHSId()) + " have keys smaller than the sphandle:" + m_migratePartitionLeaderCheckPoint + "\n" + builder.toString());
@@ -1809,8 +1737,8 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
             return;
         }
         boolean sentAny = false;
-        for (Map.Entry<DuplicateCounterKey, DuplicateCounter> entry : m_duplicateCounters.entrySet()) {
-            if (snapshotSpHandle < entry.getKey().m_spHandle) {
+        for (DuplicateCounterMap.Entry entry : m_duplicateCounters.sortedEntries()) {
+            if (snapshotSpHandle < entry.m_spHandle) {
                 if (!sentAny) {
                     sentAny = true;
                     if (tmLog.isDebugEnabled()) {
@@ -1820,9 +1748,9 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
                 // Then forward any message after the MP txn, I expect them are all Iv2InitiateMessages
                 if (tmLog.isDebugEnabled()) {
-                    tmLog.debug(entry.getValue().getOpenMessage().getMessageInfo());
+                    tmLog.debug(entry.m_counter.getOpenMessage().getMessageInfo());
                 }
-                m_mailbox.send(replicasAdded, entry.getValue().getOpenMessage());
+                m_mailbox.send(replicasAdded, entry.m_counter.getOpenMessage());
             }
         }
         if (sentAny && tmLog.isDebugEnabled()) {
@@ -1841,18 +1769,16 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         if (m_isLeader && m_sendToHSIds.length > 0) {
             m_mailbox.send(m_sendToHSIds, new MPBacklogFlushMessage());
         }
-        Iterator<Entry<Long, TransactionState>> iter = m_outstandingTxns.entrySet().iterator();
-        while (iter.hasNext()) {
-            Entry<Long, TransactionState> entry = iter.next();
-            TransactionState txnState = entry.getValue();
-            if (TxnEgo.getPartitionId(entry.getKey()) == MpInitiator.MP_INIT_PID ) {
+        m_outstandingTxns.removeIf((txnId, txnState) -> {
+            if (TxnEgo.getPartitionId(txnId) == MpInitiator.MP_INIT_PID ) {
                 if (txnState.isReadOnly()) {
                     txnState.setDone();
-                    m_duplicateCounters.entrySet().removeIf((e) -> e.getKey().m_txnId == entry.getKey());
-                    iter.remove();
+                    m_duplicateCounters.removeTxn(txnId);
+                    return true;
                 }
             }
-        }
+            return false;
+        });
 
         // flush all RO transactions out of backlog
         m_pendingTasks.removeMPReadTransactions();
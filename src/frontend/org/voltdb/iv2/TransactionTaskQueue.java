@@ -452,10 +452,12 @@ public class TransactionTaskQueue
      * Restart the current task at the head of the queue.  This will be called
      * instead of flush by the currently blocking MP transaction in the event a
      * restart is necessary.
+     * @param txnId The transaction ID of the TransactionTask which is restarting
      */
-    synchronized void restart()
+    synchronized void restart(long txnId)
     {
         TransactionTask task = m_backlog.getFirst();
+        assert(task.getTxnId() == txnId);
         if (task.needCoordination() && m_scoreboardEnabled) {
             coordinatedTaskQueueOffer(task);
         } else {
@@ -18,23 +18,37 @@
 package org.voltdb.jdbc;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.voltdb.VoltTable;
 import org.voltdb.VoltType;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcCallException;
+import org.voltdb.client.ProcedureCallback;
+import org.voltdb.client.VoltBulkLoader.BulkLoaderFailureCallBack;
+import org.voltdb.client.VoltBulkLoader.VoltBulkLoader;
 import org.voltdb.parser.JDBCParser;
 import org.voltdb.parser.SQLLexer;
 import org.voltdb.parser.JDBCParser.ParsedCall;
@@ -50,6 +64,16 @@ public class JDBC4Statement implements java.sql.Statement
         public static final byte TYPE_UPDATE = 2;
         public static final byte TYPE_EXEC = 3;
 
+        // INSERT of literal or parameter VALUES into a table, and INSERT of a whole row from parameters,
+        // which a bulk loader can do as well. INSERT ... SELECT may read the rows other entries insert,
+        // so it is not an independent insert.
+        private static final Pattern INSERT_VALUES = Pattern.compile(
+                "^\\s*INSERT\\s+INTO\\s+([\\w$]+)\\s*(\\([^)]*\\))?\\s*VALUES\\s*\\(", Pattern.CASE_INSENSITIVE);
+        private static final Pattern SELECT = Pattern.compile("\\bSELECT\\b", Pattern.CASE_INSENSITIVE);
+        private static final Pattern INSERT_ROW = Pattern.compile(
+                "^\\s*INSERT\\s+INTO\\s+[\\w$]+\\s+VALUES\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)\\s*;?\\s*$",
+                Pattern.CASE_INSENSITIVE);
+
         private final String[] sql;
         private final int parameterCount;
         private final byte type;
@@ -126,24 +150,7 @@ public class JDBC4Statement implements java.sql.Statement
             {
                 ClientResponse response = e.getClientResponse();
                 if (response != null) {
-                    // Map response status to specific JDBC exception, mostly GENERAL_ERROR except
-                    // for connection problems.
-                    switch (response.getStatus()) {
-                    case ClientResponse.CONNECTION_LOST:
-                        throw SQLError.get(e, SQLError.CONNECTION_CLOSED, "CONNECTION_LOST", e.getMessage());
-                    case ClientResponse.CONNECTION_TIMEOUT:
-                        throw SQLError.get(e, SQLError.CONNECTION_FAILURE, "CONNECTION_TIMEOUT", e.getMessage());
-                    case ClientResponse.SERVER_UNAVAILABLE:
-                        throw SQLError.get(e, SQLError.CONNECTION_FAILURE, "CONNECTION_UNAVAILABLE", e.getMessage());
-                    case ClientResponse.USER_ABORT:
-                        throw SQLError.get(e, SQLError.GENERAL_ERROR, "USER_ABORT", e.getMessage());
-                    case ClientResponse.UNEXPECTED_FAILURE:
-                        throw SQLError.get(e, SQLError.GENERAL_ERROR, "UNEXPECTED_FAILURE", e.getMessage());
-                    case ClientResponse.GRACEFUL_FAILURE:
-                        throw SQLError.get(e, SQLError.GENERAL_ERROR, "GRACEFUL_FAILURE", e.getMessage());
-                    default:
-                        throw SQLError.get(e, SQLError.GENERAL_ERROR, String.format("status=%d", (int)response.getStatus()), e.getMessage());
-                    }
+                    throw getResponseError(response, e);
                 } else {
                     throw SQLError.get(e, SQLError.GENERAL_ERROR, e.getMessage());
                 }
@@ -154,6 +161,94 @@ public class JDBC4Statement implements java.sql.Statement
             }
         }
 
+        protected void executeAsync(JDBC4ClientConnection connection, long timeout, TimeUnit queryTimeOutUnit,
+                ProcedureCallback callback) throws SQLException {
+            try
+            {
+                boolean queued;
+                if (this.type == TYPE_EXEC) {
+                    queued = connection.executeAsyncWithTimeout(callback, this.sql[0], timeout, queryTimeOutUnit, this.parameters);
+                } else {
+                    queued = connection.executeAsyncWithTimeout(callback, "@AdHoc", timeout, queryTimeOutUnit, this.sql[0]);
+                }
+                if (!queued) {
+                    throw SQLError.get(SQLError.CONNECTION_CLOSED);
+                }
+            }
+            catch(IOException e)
+            {
+                throw SQLError.get(e, SQLError.CONNECTION_FAILURE, e.getMessage());
+            }
+        }
+
+        /**
+         * Map a failed response to a specific JDBC exception, mostly GENERAL_ERROR except
+         * for connection problems.
+         * @param cause the exception the response came with, null for an asynchronous call
+         */
+        static SQLException getResponseError(ClientResponse response, Exception cause)
+        {
+            String message = cause == null ? response.getStatusString() : cause.getMessage();
+            switch (response.getStatus()) {
+            case ClientResponse.CONNECTION_LOST:
+                return SQLError.get(cause, SQLError.CONNECTION_CLOSED, "CONNECTION_LOST", message);
+            case ClientResponse.CONNECTION_TIMEOUT:
+                return SQLError.get(cause, SQLError.CONNECTION_FAILURE, "CONNECTION_TIMEOUT", message);
+            case ClientResponse.SERVER_UNAVAILABLE:
+                return SQLError.get(cause, SQLError.CONNECTION_FAILURE, "CONNECTION_UNAVAILABLE", message);
+            case ClientResponse.USER_ABORT:
+                return SQLError.get(cause, SQLError.GENERAL_ERROR, "USER_ABORT", message);
+            case ClientResponse.UNEXPECTED_FAILURE:
+                return SQLError.get(cause, SQLError.GENERAL_ERROR, "UNEXPECTED_FAILURE", message);
+            case ClientResponse.GRACEFUL_FAILURE:
+                return SQLError.get(cause, SQLError.GENERAL_ERROR, "GRACEFUL_FAILURE", message);
+            default:
+                return SQLError.get(cause, SQLError.GENERAL_ERROR, String.format("status=%d", (int)response.getStatus()), message);
+            }
+        }
+
+        private String getSqlText()
+        {
+            if (this.type == TYPE_EXEC && this.parameters != null && this.parameters.length > 0 && "@AdHoc".equals(this.sql[0])) {
+                return (String) this.parameters[0];
+            }
+            return this.type == TYPE_EXEC ? null : this.sql[0];
+        }
+
+        /**
+         * @return the table this inserts VALUES into, or null if it is any other statement,
+         * including an INSERT with a subquery
+         */
+        public String getInsertTable()
+        {
+            String text = getSqlText();
+            if (text == null) {
+                return null;
+            }
+            Matcher matcher = INSERT_VALUES.matcher(text);
+            if (!matcher.find() || SELECT.matcher(text).find(matcher.end())) {
+                return null;
+            }
+            return matcher.group(1).toUpperCase();
+        }
+
+        /**
+         * @return true if this inserts a whole row from its parameters
+         */
+        public boolean isInsertRow()
+        {
+            String text = getSqlText();
+            return text != null && this.type == TYPE_EXEC && INSERT_ROW.matcher(text).matches();
+        }
+
+        /**
+         * @return the row values of a prepared INSERT, without the SQL text
+         */
+        public Object[] getInsertRow()
+        {
+            return Arrays.copyOfRange(this.parameters, 1, this.parameters.length);
+        }
+
         public static boolean isUpdateResult(VoltTable table)
         {
             return ((table.getColumnName(0).length() == 0 || table.getColumnName(0).equals("modified_tuples"))&& table.getRowCount() == 1 && table.getColumnCount() == 1 && table.getColumnType(0) == VoltType.BIGINT);
@@ -227,6 +322,9 @@ public class JDBC4Statement implements java.sql.Statement
         }
     }
 
+    // Rows per partition a bulk loaded batch sends in one call
+    private static final int BULK_LOAD_BATCH_SIZE = 200;
+
     private ArrayList<VoltSQL> batch = null;
     protected boolean isClosed = false;
     private int fetchDirection = ResultSet.FETCH_FORWARD;
@@ -412,6 +510,18 @@ public class JDBC4Statement implements java.sql.Statement
     }
 
     // Submits a batch of commands to the database for execution and if all commands execute successfully, returns an array of update counts.
+    //
+    // Consecutive INSERT ... VALUES into the same table are sent without waiting for each other's
+    // response, or loaded through a bulk loader if the connection asks for it. Any other entry, including
+    // INSERT ... SELECT, waits for everything before it. After a failure the rest of its run of INSERTs
+    // has already executed, so the update counts cover the whole run and execution stops there.
+    //
+    // The entries of a run execute in no particular order, so a run never holds two entries that could
+    // collide on a unique index of the table. The run ends before a prepared INSERT of a whole row whose
+    // key values repeat those of an earlier entry, and INSERTs into a table with a unique index run one
+    // at a time unless they are such prepared INSERTs. The entry reported as EXECUTE_FAILED is then the
+    // one that fails when the entries run one at a time. A partition row limit is not looked at, so the
+    // entries that run into one may still depend on the order of execution.
     @Override
     public int[] executeBatch() throws SQLException
     {
@@ -422,37 +532,306 @@ public class JDBC4Statement implements java.sql.Statement
         }
 
         int[] updateCounts = new int[batch.size()];
-        // keep a running total of update counts
-        int runningUpdateCount = 0;
-
-        int i = 0;
+        SQLException[] errors = new SQLException[batch.size()];
+        SQLException firstError = null;
+        // An exception may be the error of several entries, and chaining it twice makes a cycle
+        Set<SQLException> chained = Collections.newSetFromMap(new IdentityHashMap<SQLException, Boolean>());
+        Map<String, int[][]> uniqueKeys = new HashMap<String, int[][]>();
+        int end = 0;
         try {
-            for (; i < batch.size(); i++) {
+            while (end < batch.size() && firstError == null) {
+                int start = end;
+                String table = batch.get(start).getInsertTable();
+                end++;
+                if (table != null && end < batch.size() && table.equals(batch.get(end).getInsertTable())) {
+                    if (!uniqueKeys.containsKey(table)) {
+                        uniqueKeys.put(table, getUniqueKeyColumns(table));
+                    }
+                    InsertRun run = new InsertRun(uniqueKeys.get(table));
+                    if (run.add(batch.get(start))) {
+                        while (end < batch.size() && table.equals(batch.get(end).getInsertTable()) && run.add(batch.get(end))) {
+                            end++;
+                        }
+                    }
+                }
 
-                setCurrentResult(
-                        null,
-                        (int) batch.get(i).execute(
+                if (end - start == 1) {
+                    try {
+                        updateCounts[start] = getUpdateCount(batch.get(start).execute(
                                 sourceConnection.NativeConnection,
                                 this.m_timeout,
-                                sourceConnection.queryTimeOutUnit)[0].fetchRow(
-                                0).getLong(0));
-                updateCounts[i] = this.lastUpdateCount;
-                runningUpdateCount += this.lastUpdateCount;
+                                sourceConnection.queryTimeOutUnit));
+                    } catch (SQLException x) {
+                        errors[start] = x;
+                    }
+                }
+                else if (!(sourceConnection.batchBulkLoad && loadBatch(table, start, end, updateCounts, errors))) {
+                    executeBatchAsync(start, end, updateCounts, errors);
+                }
+
+                for (int i = start; i < end; i++) {
+                    if (errors[i] == null) {
+                        continue;
+                    }
+                    updateCounts[i] = EXECUTE_FAILED;
+                    if (!chained.add(errors[i])) {
+                        continue;
+                    }
+                    if (firstError == null) {
+                        firstError = errors[i];
+                    } else {
+                        firstError.setNextException(errors[i]);
+                    }
+                }
             }
-        } catch (SQLException x) {
-            updateCounts[i] = EXECUTE_FAILED;
-            throw new BatchUpdateException(Arrays.copyOf(updateCounts, i + 1),
-                    x);
         } finally {
             clearBatch();
         }
+        if (firstError != null) {
+            throw new BatchUpdateException(Arrays.copyOf(updateCounts, end), firstError);
+        }
+
         // replace the update count from the last statement with the update count
         // from the last batch.
+        int runningUpdateCount = 0;
+        for (int updateCount : updateCounts) {
+            runningUpdateCount += updateCount;
+        }
         this.lastUpdateCount = runningUpdateCount;
 
         return updateCounts;
     }
 
+    private static int getUpdateCount(VoltTable[] results)
+    {
+        return (int) results[0].fetchRow(0).getLong(0);
+    }
+
+    /**
+     * Look up the columns of each unique index of a table, primary key included.
+     *
+     * @return for each unique index the zero based positions of its columns in the table,
+     * or null if the table could not be looked up
+     */
+    private int[][] getUniqueKeyColumns(String table)
+    {
+        try {
+            DatabaseMetaData metaData = sourceConnection.getMetaData();
+            Map<String, Integer> positions = new HashMap<String, Integer>();
+            ResultSet columns = metaData.getColumns(null, null, table, null);
+            while (columns.next()) {
+                if (table.equals(columns.getString("TABLE_NAME"))) {
+                    positions.put(columns.getString("COLUMN_NAME"), columns.getInt("ORDINAL_POSITION") - 1);
+                }
+            }
+            Map<String, List<Integer>> indexes = new HashMap<String, List<Integer>>();
+            ResultSet indexInfo = metaData.getIndexInfo(null, null, table, true, false);
+            while (indexInfo.next()) {
+                Integer position = positions.get(indexInfo.getString("COLUMN_NAME"));
+                if (position == null) {
+                    // An index on an expression, nothing to compare the rows by
+                    return null;
+                }
+                String index = indexInfo.getString("INDEX_NAME");
+                if (!indexes.containsKey(index)) {
+                    indexes.put(index, new ArrayList<Integer>());
+                }
+                indexes.get(index).add(position);
+            }
+            int[][] keys = new int[indexes.size()][];
+            int k = 0;
+            for (List<Integer> index : indexes.values()) {
+                keys[k] = new int[index.size()];
+                for (int i = 0; i < keys[k].length; i++) {
+                    keys[k][i] = index.get(i);
+                }
+                k++;
+            }
+            return keys;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The entries of a run of INSERTs into one table, which may execute in any order.
+     * An entry is only added if it can not collide with the entries before it on a unique index.
+     */
+    private static class InsertRun
+    {
+        private final int[][] m_keyColumns;
+        private final Set<List<Object>> m_keys = new HashSet<List<Object>>();
+
+        InsertRun(int[][] keyColumns)
+        {
+            m_keyColumns = keyColumns;
+        }
+
+        boolean add(VoltSQL entry)
+        {
+            if (m_keyColumns == null) {
+                return false;
+            }
+            if (m_keyColumns.length == 0) {
+                return true;
+            }
+            if (!entry.isInsertRow()) {
+                return false;
+            }
+            Object[] row = entry.getInsertRow();
+            for (int k = 0; k < m_keyColumns.length; k++) {
+                List<Object> key = new ArrayList<Object>(m_keyColumns[k].length + 1);
+                key.add(k);
+                for (int column : m_keyColumns[k]) {
+                    if (column >= row.length) {
+                        return false;
+                    }
+                    key.add(keyValue(row[column]));
+                }
+                if (!m_keys.add(key)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Values the server would take as equal, such as 1, 1L and "1.0", must compare equal.
+        // Values that only might be equal are fine to compare equal, it just ends the run sooner.
+        private static Object keyValue(Object value)
+        {
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof byte[]) {
+                return ByteBuffer.wrap((byte[]) value);
+            }
+            String text = value.toString();
+            if (value instanceof Number || value instanceof String) {
+                try {
+                    return new BigDecimal(text.trim()).stripTrailingZeros().toPlainString();
+                } catch (NumberFormatException e) {
+                    // Not a number, compare the text
+                }
+            }
+            return text;
+        }
+    }
+
+    /**
+     * Send the batch entries from start to end without waiting in between, then wait for all the responses.
+     */
+    private void executeBatchAsync(int start, int end, int[] updateCounts, SQLException[] errors)
+    {
+        final ClientResponse[] responses = new ClientResponse[end - start];
+        final CountDownLatch done = new CountDownLatch(end - start);
+        int i = start;
+        try {
+            for (; i < end; i++) {
+                final int index = i - start;
+                batch.get(i).executeAsync(
+                        sourceConnection.NativeConnection,
+                        this.m_timeout,
+                        sourceConnection.queryTimeOutUnit,
+                        new ProcedureCallback() {
+                            @Override
+                            public void clientCallback(ClientResponse response) {
+                                responses[index] = response;
+                                done.countDown();
+                            }
+                        });
+            }
+        } catch (SQLException x) {
+            // Nothing after a failed submission is sent
+            for (; i < end; i++) {
+                errors[i] = x;
+                done.countDown();
+            }
+        }
+
+        // The entries have been sent, so wait for all of them even when interrupted. Every call gets a
+        // response, if only a timeout or a lost connection, and reading them early would race with it.
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (i = start; i < end; i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            ClientResponse response = responses[i - start];
+            if (response.getStatus() != ClientResponse.SUCCESS) {
+                errors[i] = VoltSQL.getResponseError(response, null);
+            } else {
+                updateCounts[i] = getUpdateCount(response.getResults());
+            }
+        }
+    }
+
+    /**
+     * Load the batch entries from start to end, which all insert whole rows into the table,
+     * through a bulk loader that sends one call per partition for many rows.
+     *
+     * @return false if the entries can not be bulk loaded and nothing was done
+     */
+    private boolean loadBatch(String table, int start, int end, int[] updateCounts, final SQLException[] errors)
+    {
+        for (int i = start; i < end; i++) {
+            if (!batch.get(i).isInsertRow()) {
+                return false;
+            }
+        }
+
+        VoltBulkLoader loader;
+        try {
+            loader = sourceConnection.NativeConnection.getNewBulkLoader(table, BULK_LOAD_BATCH_SIZE,
+                    new BulkLoaderFailureCallBack() {
+                        @Override
+                        public void failureCallback(Object rowHandle, Object[] fieldList, ClientResponse response) {
+                            errors[(Integer) rowHandle] = VoltSQL.getResponseError(response, null);
+                        }
+                    });
+        } catch (Exception e) {
+            // Not a table the bulk loader can load, e.g. a stream
+            return false;
+        }
+
+        try {
+            for (int i = start; i < end; i++) {
+                loader.insertRow(i, batch.get(i).getInsertRow());
+            }
+            loader.drain();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // No telling which of the rows made it
+            for (int i = start; i < end; i++) {
+                if (errors[i] == null) {
+                    errors[i] = SQLError.get(e, SQLError.CONNECTION_FAILURE, "Interrupted while loading the batch");
+                }
+            }
+        } finally {
+            try {
+                loader.close();
+            } catch (Exception e) {
+                // The rows have all been loaded or failed by now
+            }
+        }
+        for (int i = start; i < end; i++) {
+            if (errors[i] == null) {
+                updateCounts[i] = 1;
+            }
+        }
+        return true;
+    }
+
     protected ResultSet executeQuery(VoltSQL query) throws SQLException
     {
         setCurrentResult(query.execute(this.sourceConnection.NativeConnection, this.m_timeout, this.sourceConnection.queryTimeOutUnit), -1);
@@ -79,7 +79,8 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
         SET_MERGED_DRID_TRACKER(7),
         INIT_DRID_TRACKER(8),
         RESET_DR_APPLIED_TRACKER_SINGLE(9),
-        ELASTIC_CHANGE(10);
+        ELASTIC_CHANGE(10),
+        GET_TABLE_CHANGE_SPHANDLES(11);
 
         private TaskType(int taskId) {
             this.taskId = taskId;
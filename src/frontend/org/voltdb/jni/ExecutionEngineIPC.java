@@ -20,7 +20,6 @@ package org.voltdb.jni;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.lang.reflect.InvocationTargetException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
@@ -337,29 +336,26 @@ public class ExecutionEngineIPC extends ExecutionEngine {
                 udfBuffer.flip();
 
                 int functionId = udfBuffer.getInt();
+                int rowCount = udfBuffer.getInt();
                 UserDefinedFunctionRunner udfRunner = m_functionManager.getFunctionRunnerById(functionId);
                 assert(udfRunner != null);
                 Throwable throwable = null;
-                Object returnValue = null;
                 try {
-                    // Call the user-defined function.
-                    returnValue = udfRunner.call(udfBuffer);
+                    // Call the user-defined function once for each row of parameters.
+                    Object[] returnValues = udfRunner.callBatch(udfBuffer, rowCount);
                     m_data.clear();
                     // Put the status code for success (zero) into the buffer.
                     m_data.putInt(0);
-                    // Write the result to the buffer.
-                    UserDefinedFunctionRunner.writeValueToBuffer(m_data, udfRunner.getReturnType(), returnValue);
+                    // Write the results to the buffer.
+                    for (Object returnValue : returnValues) {
+                        UserDefinedFunctionRunner.writeValueToBuffer(m_data, udfRunner.getReturnType(), returnValue);
+                    }
                     m_data.flip();
                     m_connection.write();
                     return;
                 }
-                catch (InvocationTargetException ex1) {
-                    // Exceptions thrown during Java reflection will be wrapped into this InvocationTargetException.
-                    // We need to get its cause and throw that to the user.
-                    throwable = ex1.getCause();
-                }
-                catch (Throwable ex2) {
-                    throwable = ex2;
+                catch (Throwable ex) {
+                    throwable = ex;
                 }
                 // Getting here means the execution was not successful.
                 m_data.clear();
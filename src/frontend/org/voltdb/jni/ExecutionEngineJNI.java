@@ -18,7 +18,6 @@
 package org.voltdb.jni;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.nio.ByteBuffer;
 import java.util.List;
 
@@ -43,7 +42,6 @@ import org.voltdb.largequery.BlockId;
 import org.voltdb.largequery.LargeBlockTask;
 import org.voltdb.messaging.FastDeserializer;
 import org.voltdb.sysprocs.saverestore.SnapshotUtil;
-import org.voltdb.types.GeographyValue;
 import org.voltdb.utils.SerializationHelper;
 
 /**
@@ -792,62 +790,58 @@ public class ExecutionEngineJNI extends ExecutionEngine {
         updateEEBufferPointers();
     }
 
+    /**
+     * Call a user-defined function for the rows of parameters the EE serialized into the UDF buffer:
+     * the function ID, the number of rows, and then each row of parameters.
+     * The EE buffers rows wherever it can evaluate them ahead of time, so that one JNI call
+     * serves many rows. The return values are written back to the buffer in row order.
+     */
     public int callJavaUserDefinedFunction() {
         m_udfBuffer.clear();
         m_udfBuffer.getInt(); // skip the buffer size integer, it is only used by VoltDB IPC.
         int functionId = m_udfBuffer.getInt();
+        int rowCount = m_udfBuffer.getInt();
         UserDefinedFunctionRunner udfRunner = m_functionManager.getFunctionRunnerById(functionId);
         assert(udfRunner != null);
         Throwable throwable = null;
-        Object returnValue = null;
         try {
-            // Call the user-defined function.
-            returnValue = udfRunner.call(m_udfBuffer);
-
             VoltType returnType = udfRunner.getReturnType();
-            // If the function we are running returns variable-length return value,
-            // it may be possible that the buffer is not large enough to hold it.
-            // Check the required buffer size and enlarge the existing buffer when necessary.
-            // The default buffer size is 256K, which is more than enough for any
-            // fixed-length data and NULL variable-length data (the buffer size will not go less than 256K).
-            if (returnType.isVariableLength() && ! VoltType.isVoltNullValue(returnValue)) {
-                // The minimum required size is 5 bytes:
-                // 1 byte for the type indicator, 4 bytes for the prefixed length.
-                int sizeRequired = 1 + 4;
-                switch(returnType) {
-                case VARBINARY:
-                    if (returnValue instanceof byte[]) {
-                        sizeRequired += ((byte[])returnValue).length;
-                    }
-                    else if (returnValue instanceof Byte[]) {
-                        sizeRequired += ((Byte[])returnValue).length;
-                    }
-                    break;
-                case STRING:
-                    sizeRequired += ((String)returnValue).getBytes(Constants.UTF8ENCODING).length;
-                    break;
-                case GEOGRAPHY:
-                    sizeRequired += ((GeographyValue)returnValue).getLengthInBytes();
-                    break;
-                default:
+            if (rowCount == 1) {
+                // Call the user-defined function.
+                Object returnValue = udfRunner.call(m_udfBuffer);
+                // If the function we are running returns variable-length return value,
+                // it may be possible that the buffer is not large enough to hold it.
+                // Check the required buffer size and enlarge the existing buffer when necessary.
+                // The default buffer size is 256K, which is more than enough for any
+                // fixed-length data and NULL variable-length data (the buffer size will not go less than 256K).
+                int sizeRequired = UserDefinedFunctionRunner.getSerializedSizeBound(returnType, returnValue);
+                if (sizeRequired > m_udfBuffer.capacity()) {
+                    resizeUDFBuffer(sizeRequired);
+                }
+                // Write the result to the shared buffer.
+                m_udfBuffer.clear();
+                UserDefinedFunctionRunner.writeValueToBuffer(m_udfBuffer, returnType, returnValue);
+            }
+            else {
+                // All the parameters have to be read before the first result overwrites them.
+                Object[] returnValues = udfRunner.callBatch(m_udfBuffer, rowCount);
+                int sizeRequired = 0;
+                for (Object returnValue : returnValues) {
+                    sizeRequired += UserDefinedFunctionRunner.getSerializedSizeBound(returnType, returnValue);
                 }
                 if (sizeRequired > m_udfBuffer.capacity()) {
                     resizeUDFBuffer(sizeRequired);
                 }
+                m_udfBuffer.clear();
+                for (Object returnValue : returnValues) {
+                    UserDefinedFunctionRunner.writeValueToBuffer(m_udfBuffer, returnType, returnValue);
+                }
             }
-            // Write the result to the shared buffer.
-            m_udfBuffer.clear();
-            UserDefinedFunctionRunner.writeValueToBuffer(m_udfBuffer, returnType, returnValue);
             // Return zero status code for a successful execution.
             return 0;
         }
-        catch (InvocationTargetException ex1) {
-            // Exceptions thrown during Java reflection will be wrapped into this InvocationTargetException.
-            // We need to get its cause and throw that to the user.
-            throwable = ex1.getCause();
-        }
-        catch (Throwable ex2) {
-            throwable = ex2;
+        catch (Throwable ex) {
+            throwable = ex;
         }
         // Getting here means the execution was not successful.
         try {
@@ -2635,8 +2635,8 @@ public class ParsedSelectStmt extends AbstractParsedStmt {
             // one statement id here.  We only really use the statement id
             // subqueries, and this is not a subquery.  So we might as well
             // make this StatementId the StatementId of the base plan.  This
-            // will be NEXT_STMT_ID+1.
-            StmtCommonTableScanShared tableScanShared = defineCommonTableScanShared(tableName, NEXT_STMT_ID+1);
+            // will be peekNextStmtId()+1.
+            StmtCommonTableScanShared tableScanShared = defineCommonTableScanShared(tableName, peekNextStmtId()+1);
             parseTableSchemaFromXML(tableName, tableScanShared, tableXML);
             // Note: The m_sql strings here are not the strings for the
             //       actual queries.  It's not easy to get the right query
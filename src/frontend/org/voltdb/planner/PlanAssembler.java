@@ -65,6 +65,10 @@ import org.voltdb.utils.CatalogUtil;
  *
  */
 public class PlanAssembler {
+    // Hash joins are considered once the tables have been analyzed.
+    // Start the server with -DHASH_JOIN_ENABLED=false to plan nested loop joins only.
+    static boolean HASH_JOIN_ENABLED = Boolean.parseBoolean(System.getProperty("HASH_JOIN_ENABLED", "true"));
+
     // The convenience struct to accumulate results after parsing multiple statements
     private static class ParsedResultAccumulator {
         public final boolean m_orderIsDeterministic;
@@ -280,7 +284,10 @@ public class PlanAssembler {
                 // Convert RIGHT joins to the LEFT ones
                 ((BranchNode)m_parsedSelect.m_joinTree).toLeftJoin();
             }
-            m_subAssembler = new SelectSubPlanAssembler(m_catalogDb, m_parsedSelect, m_partitioning);
+            // In a large query the hash join executor partitions an inner input
+            // that does not fit in the large temp table block cache.
+            m_subAssembler = new SelectSubPlanAssembler(m_catalogDb, m_parsedSelect, m_partitioning,
+                    HASH_JOIN_ENABLED && m_planSelector.m_estimates.hasAnalyzedTables());
 
             // Process the GROUP BY information, decide whether it is group by the partition column
             if (isPartitionColumnInGroupbyList(m_parsedSelect.groupByColumns())) {
@@ -18,8 +18,6 @@
 package org.voltdb.planner;
 
 import java.util.*;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import org.hsqldb_voltpatches.HSQLInterface;
 import org.hsqldb_voltpatches.HSQLInterface.HSQLParseException;
 import org.hsqldb_voltpatches.VoltXMLElement;
@@ -73,16 +71,12 @@ public class QueryPlanner implements AutoCloseable {
 
     public final static String UPSERT_TAG = "isUpsert";
 
-    private static final Lock PLANNER_LOCK = new ReentrantLock();
-
     /**
      * Initialize planner with physical schema info and a reference to HSQLDB parser.
      *
-     * NOTE: Until the planner can handle planning multiple statements in parallel,
-     * creating an instance of this object will lock the global PLANNER_LOCK, which must
-     * be released by calling this class's close method.
-     *
-     * This class implements AutoCloseable, so the easiest way to achieve this is like so:
+     * NOTE: Statements may be planned in parallel, as long as each thread uses its own
+     * HSQLInterface; the statement, plan node and parameter counters are kept per thread.
+     * This class still implements AutoCloseable so callers can scope a planning session like so:
      * try (QueryPlanner planner = new QueryPlanner(...)) {
      *     <do all the planning here>
      * }
@@ -113,7 +107,6 @@ public class QueryPlanner implements AutoCloseable {
                         String joinOrder,
                         DeterminismMode detMode,
                         boolean isLargeQuery) {
-        PLANNER_LOCK.lock();
         assert(sql != null);
         assert(stmtName != null);
         assert(procName != null);
@@ -142,7 +135,7 @@ public class QueryPlanner implements AutoCloseable {
 
     @Override
     public void close() {
-        PLANNER_LOCK.unlock();
+        // Nothing to release; planning no longer holds a global lock.
     }
 
     /**
@@ -19,8 +19,10 @@ package org.voltdb.planner;
 
 import java.util.*;
 
+import org.voltdb.VoltType;
 import org.voltdb.catalog.Database;
 import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.expressions.AbstractSubqueryExpression;
 import org.voltdb.expressions.ExpressionUtil;
 import org.voltdb.expressions.TupleValueExpression;
 import org.voltdb.planner.parseinfo.BranchNode;
@@ -32,11 +34,13 @@ import org.voltdb.plannodes.IndexSortablePlanNode;
 import org.voltdb.plannodes.AbstractJoinPlanNode;
 import org.voltdb.plannodes.AbstractPlanNode;
 import org.voltdb.plannodes.AbstractReceivePlanNode;
+import org.voltdb.plannodes.HashJoinPlanNode;
 import org.voltdb.plannodes.IndexScanPlanNode;
 import org.voltdb.plannodes.IndexUseForOrderBy;
 import org.voltdb.plannodes.MaterializedScanPlanNode;
 import org.voltdb.plannodes.NestLoopIndexPlanNode;
 import org.voltdb.plannodes.NestLoopPlanNode;
+import org.voltdb.types.ExpressionType;
 import org.voltdb.types.JoinType;
 import org.voltdb.utils.PermutationGenerator;
 
@@ -65,6 +69,13 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
     private static final short MAX_HEAP_MEMORY_USAGE_PCT = 80;
     private static final long MAX_ALLOWED_PLAN_MEMORY = RUN_TIME.maxMemory() * MAX_HEAP_MEMORY_USAGE_PCT / 100;
 
+    /** Whether to offer hash join alternatives of the nested loop plans */
+    private final boolean m_considerHashJoins;
+    /** Set while the plan being built should use hash joins wherever they are possible */
+    private boolean m_planHashJoins = false;
+    /** Set if the plan just built has at least one join that could have been a hash join */
+    private boolean m_hasHashJoinCandidate = false;
+
     /**
      * Stop further planning, if we have used more heap memory than we could hopefully exhaustively plan it out,
      * at the time this method is called.
@@ -81,10 +92,14 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
      * @param selectStmt The parsed and dissected statement object describing the sql to execute.
      * @param partitioning in/out param first element is partition key value, forcing a single-partition statement if non-null,
      * second may be an inferred partition key if no explicit single-partitioning was specified
+     * @param considerHashJoins whether to also generate plans that use hash joins. Only
+     * table statistics let the plan costs tell a hash join from a nested loop join.
      */
-    SelectSubPlanAssembler(Database db, ParsedSelectStmt selectStmt, StatementPartitioning partitioning)
+    SelectSubPlanAssembler(Database db, ParsedSelectStmt selectStmt, StatementPartitioning partitioning,
+                           boolean considerHashJoins)
     {
         super(db, selectStmt, partitioning);
+        m_considerHashJoins = considerHashJoins;
         if (selectStmt.hasJoinOrder()) {
             // If a join order was provided or large number of tables join
             m_joinOrders.addAll(selectStmt.getJoinOrder());
@@ -541,11 +556,22 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
         if (nodes.size() == nextNode + 1) {
             for (AccessPath path : joinNode.m_accessPaths) {
                 joinNode.m_currentAccessPath = path;
+                m_hasHashJoinCandidate = false;
                 AbstractPlanNode plan = getSelectSubPlanForJoinNode(rootNode);
                 if (plan == null) {
                     continue;
                 }
                 m_plans.add(plan);
+                if (m_considerHashJoins && m_hasHashJoinCandidate) {
+                    // The same access paths can also be joined by hashing the inner side
+                    // of the equi-joins. Offer that plan too and let the costing decide.
+                    m_planHashJoins = true;
+                    plan = getSelectSubPlanForJoinNode(rootNode);
+                    m_planHashJoins = false;
+                    if (plan != null) {
+                        m_plans.add(plan);
+                    }
+                }
             }
             return;
         }
@@ -737,12 +763,12 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
 
         AbstractJoinPlanNode ajNode = null;
         if (canHaveNLJ) {
-            NestLoopPlanNode nljNode = new NestLoopPlanNode();
             // get all the clauses that join the applicable two tables
             // Copy innerAccessPath.joinExprs to leave it unchanged,
             // avoiding accumulation of redundant expressions when
             // joinClauses gets built up for various alternative plans.
             ArrayList<AbstractExpression> joinClauses = new ArrayList<>(innerAccessPath.joinExprs);
+            boolean innerUsesIndex = false;
             if ((innerPlan instanceof IndexScanPlanNode) ||
                 (innerPlan instanceof NestLoopIndexPlanNode
                     && innerPlan.getChild(0) instanceof MaterializedScanPlanNode)) {
@@ -767,6 +793,7 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
                     scanNode = ((NestLoopIndexPlanNode) innerPlan).getInlineIndexScan();
                 }
                 scanNode.setPredicate(innerExpr);
+                innerUsesIndex = true;
             }
             else if (innerJoinNode instanceof BranchNode && joinNode.getJoinType() != JoinType.INNER) {
                 // If the innerJoinNode is a LEAF node OR if the join type is an INNER join,
@@ -778,6 +805,24 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
                 // the inner node ONLY, that can not be pushed down.
                 joinClauses.addAll(innerAccessPath.otherExprs);
             }
+            // An equi-join with an inner side that is not driven by an index
+            // can be a hash join.
+            AbstractJoinPlanNode nljNode;
+            List<AbstractExpression> outerHashExprs = new ArrayList<>();
+            List<AbstractExpression> innerHashExprs = new ArrayList<>();
+            if ( ! needInnerSendReceive && ! innerUsesIndex &&
+                    (joinNode.getJoinType() == JoinType.INNER || joinNode.getJoinType() == JoinType.LEFT) &&
+                    findHashJoinKeys(joinClauses, innerJoinNode, outerHashExprs, innerHashExprs)) {
+                m_hasHashJoinCandidate = true;
+            }
+            if (m_planHashJoins && ! outerHashExprs.isEmpty()) {
+                HashJoinPlanNode hjNode = new HashJoinPlanNode();
+                hjNode.setHashExpressions(outerHashExprs, innerHashExprs);
+                nljNode = hjNode;
+            }
+            else {
+                nljNode = new NestLoopPlanNode();
+            }
             nljNode.setJoinPredicate(ExpressionUtil.combinePredicates(joinClauses));
 
             // combine the tails plan graph with the new head node
@@ -825,6 +870,88 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
         return ajNode;
     }
 
+    /**
+     * Find the equalities among the join clauses that compare an expression of the outer
+     * tables with an expression of the inner tables, which a hash join can use as its keys.
+     * Both sides must hash the same way in the EE: they must have the same type, or both
+     * be integers. Floating point keys are left to the join predicate, since equal values
+     * such as 0.0 and -0.0 do not hash alike.
+     *
+     * @param joinClauses the join predicate clauses
+     * @param innerJoinNode the inner side of the join
+     * @param outerExprs receives the outer side of each usable equality
+     * @param innerExprs receives the inner side of each usable equality
+     * @return true if at least one usable equality was found
+     */
+    private static boolean findHashJoinKeys(List<AbstractExpression> joinClauses,
+                                            JoinNode innerJoinNode,
+                                            List<AbstractExpression> outerExprs,
+                                            List<AbstractExpression> innerExprs) {
+        Collection<String> innerTableAliases = innerJoinNode.generateTableJoinOrder();
+        for (AbstractExpression expr : joinClauses) {
+            if (expr.getExpressionType() != ExpressionType.COMPARE_EQUAL ||
+                    expr.hasAnySubexpressionOfClass(AbstractSubqueryExpression.class)) {
+                continue;
+            }
+            AbstractExpression left = expr.getLeft();
+            AbstractExpression right = expr.getRight();
+            if ( ! isHashableKeyPair(left.getValueType(), right.getValueType())) {
+                continue;
+            }
+            Boolean leftIsInner = referencesOnlyInnerTables(left, innerTableAliases);
+            Boolean rightIsInner = referencesOnlyInnerTables(right, innerTableAliases);
+            if (leftIsInner == null || rightIsInner == null || leftIsInner.equals(rightIsInner)) {
+                continue;
+            }
+            outerExprs.add(leftIsInner ? right : left);
+            innerExprs.add(leftIsInner ? left : right);
+        }
+        return ! outerExprs.isEmpty();
+    }
+
+    /**
+     * @return TRUE if every column of the expression comes from the inner tables,
+     * FALSE if none do, or null if it mixes both sides or references no columns.
+     */
+    private static Boolean referencesOnlyInnerTables(AbstractExpression expr,
+                                                     Collection<String> innerTableAliases) {
+        List<TupleValueExpression> tves = ExpressionUtil.getTupleValueExpressions(expr);
+        if (tves.isEmpty()) {
+            return null;
+        }
+        int innerCount = 0;
+        for (TupleValueExpression tve : tves) {
+            if (innerTableAliases.contains(tve.getTableAlias())) {
+                ++innerCount;
+            }
+        }
+        if (innerCount == tves.size()) {
+            return Boolean.TRUE;
+        }
+        return innerCount == 0 ? Boolean.FALSE : null;
+    }
+
+    private static boolean isHashableKeyPair(VoltType left, VoltType right) {
+        if (left == null || right == null) {
+            return false;
+        }
+        if (left.isAnyIntegerType() && right.isAnyIntegerType()) {
+            return true;
+        }
+        if (left != right) {
+            return false;
+        }
+        switch (left) {
+        case TIMESTAMP:
+        case DECIMAL:
+        case STRING:
+        case VARBINARY:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     /**
      * A method to filter out single-TVE expressions.
      *
@@ -73,11 +73,12 @@ public class InlineAggregation extends MicroOptimization {
         // Assuming all AggregatePlanNode has not been inlined before this microoptimization
         AbstractPlanNode child = aggplan.getChild(0);
 
-        // EE Currently support: seqscan + indexscan
+        // EE Currently support: seqscan + indexscan + joins
         if (child.getPlanNodeType() != PlanNodeType.SEQSCAN &&
             child.getPlanNodeType() != PlanNodeType.INDEXSCAN &&
             child.getPlanNodeType() != PlanNodeType.NESTLOOP &&
-            child.getPlanNodeType() != PlanNodeType.NESTLOOPINDEX) {
+            child.getPlanNodeType() != PlanNodeType.NESTLOOPINDEX &&
+            child.getPlanNodeType() != PlanNodeType.HASHJOIN) {
             return plan;
         }
 
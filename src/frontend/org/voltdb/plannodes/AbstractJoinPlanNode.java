@@ -25,6 +25,7 @@ import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONObject;
 import org.json_voltpatches.JSONStringer;
 import org.voltdb.catalog.Database;
+import org.voltdb.compiler.DatabaseEstimates;
 import org.voltdb.expressions.AbstractExpression;
 import org.voltdb.expressions.AbstractSubqueryExpression;
 import org.voltdb.expressions.ExpressionUtil;
@@ -395,6 +396,55 @@ public abstract class AbstractJoinPlanNode extends AbstractPlanNode implements I
         }
     }
 
+    /**
+     * Clamp a tuple count estimate computed in floating point, so that products of
+     * large estimates cannot overflow when they are summed into the plan cost.
+     */
+    protected static long boundedTupleCount(double tupleCount) {
+        final double MAX_TUPLE_COUNT_ESTIMATE = 1e15;
+        return (long) Math.max(1, Math.min(tupleCount, MAX_TUPLE_COUNT_ESTIMATE));
+    }
+
+    /**
+     * Estimate the output of the join given the rows coming from the outer child and the
+     * matching inner rows per outer row. Outer joins produce at least one row per outer row.
+     */
+    protected long estimateJoinOutputTupleCount(long outerTupleCount, double innerTuplesPerOuterTuple) {
+        double tupleCount = outerTupleCount * innerTuplesPerOuterTuple;
+        if (m_joinType != JoinType.INNER) {
+            tupleCount = Math.max(tupleCount, outerTupleCount);
+        }
+        return boundedTupleCount(tupleCount);
+    }
+
+    /**
+     * Estimate the fraction of the outer x inner row pairs passing the join predicate.
+     * An equality between two columns selects 1 / (the larger of their distinct value counts).
+     */
+    protected double joinSelectivity(DatabaseEstimates estimates) {
+        if (m_joinPredicate == null) {
+            return 1.0;
+        }
+        double selectivity = 1.0;
+        for (AbstractExpression expr : ExpressionUtil.uncombinePredicate(m_joinPredicate)) {
+            if (expr.getExpressionType() != ExpressionType.COMPARE_EQUAL) {
+                selectivity *= DatabaseEstimates.DEFAULT_RANGE_SELECTIVITY;
+            }
+            else if (expr.getLeft() instanceof TupleValueExpression &&
+                     expr.getRight() instanceof TupleValueExpression) {
+                TupleValueExpression left = (TupleValueExpression) expr.getLeft();
+                TupleValueExpression right = (TupleValueExpression) expr.getRight();
+                selectivity *= Math.min(
+                        estimates.getEstimatesForTable(left.getTableName()).equalitySelectivity(left.getColumnName()),
+                        estimates.getEstimatesForTable(right.getTableName()).equalitySelectivity(right.getColumnName()));
+            }
+            else {
+                selectivity *= DatabaseEstimates.DEFAULT_EQUALITY_SELECTIVITY;
+            }
+        }
+        return selectivity;
+    }
+
     /**
      * Discount join node child estimates based on the number of its filters
      *
@@ -412,8 +462,8 @@ public abstract class AbstractJoinPlanNode extends AbstractPlanNode implements I
         AbstractExpression predicate = null;
         if (childNode instanceof AbstractScanPlanNode) {
             predicate = ((AbstractScanPlanNode) childNode).getPredicate();
-        } else if (childNode instanceof NestLoopPlanNode) {
-            predicate = ((NestLoopPlanNode) childNode).getWherePredicate();
+        } else if (childNode instanceof NestLoopPlanNode || childNode instanceof HashJoinPlanNode) {
+            predicate = ((AbstractJoinPlanNode) childNode).getWherePredicate();
         } else if (childNode instanceof NestLoopIndexPlanNode) {
             AbstractPlanNode inlineIndexScan = ((NestLoopIndexPlanNode) childNode).getInlinePlanNode(PlanNodeType.INDEXSCAN);
             assert(inlineIndexScan != null);
@@ -0,0 +1,210 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.plannodes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
+import org.json_voltpatches.JSONStringer;
+import org.voltdb.catalog.Database;
+import org.voltdb.compiler.DatabaseEstimates;
+import org.voltdb.compiler.ScalarValueHints;
+import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.types.JoinType;
+import org.voltdb.types.PlanNodeType;
+import org.voltdb.types.SortDirectionType;
+
+/**
+ * An equi-join that builds a hash table over the rows of its inner (right) child,
+ * keyed by the inner hash expressions, and probes it once per outer row with the
+ * outer hash expressions. Candidate matches are still filtered by the full join
+ * predicate, so hash collisions and NULL keys need no special handling in the plan.
+ *
+ * Only INNER and LEFT joins are planned this way: the outer side is the probe side
+ * and is never buffered, so unmatched outer rows can be null-padded as they stream by.
+ */
+public class HashJoinPlanNode extends AbstractJoinPlanNode {
+
+    public enum Members {
+        OUTER_HASH_EXPRESSIONS,
+        INNER_HASH_EXPRESSIONS;
+    }
+
+    // Building the hash table costs about as much as reading each inner row once more
+    private static final double HASH_BUILD_COST_FACTOR = 1.0;
+
+    private List<AbstractExpression> m_outerHashExpressions = new ArrayList<>();
+    private List<AbstractExpression> m_innerHashExpressions = new ArrayList<>();
+
+    public HashJoinPlanNode() {
+        super();
+    }
+
+    @Override
+    public PlanNodeType getPlanNodeType() {
+        return PlanNodeType.HASHJOIN;
+    }
+
+    @Override
+    public void validate() throws Exception {
+        super.validate();
+
+        if (m_outerHashExpressions.isEmpty() ||
+                m_outerHashExpressions.size() != m_innerHashExpressions.size()) {
+            throw new Exception("ERROR: Hash join has " + m_outerHashExpressions.size() +
+                    " outer and " + m_innerHashExpressions.size() + " inner hash expressions");
+        }
+        for (AbstractExpression expr : m_outerHashExpressions) {
+            expr.validate();
+        }
+        for (AbstractExpression expr : m_innerHashExpressions) {
+            expr.validate();
+        }
+    }
+
+    /**
+     * @param outerExpressions the expressions of the outer row to hash
+     * @param innerExpressions the matching expressions of the inner row to hash
+     */
+    public void setHashExpressions(List<AbstractExpression> outerExpressions,
+                                   List<AbstractExpression> innerExpressions) {
+        assert(outerExpressions.size() == innerExpressions.size());
+        m_outerHashExpressions = new ArrayList<>();
+        for (AbstractExpression expr : outerExpressions) {
+            m_outerHashExpressions.add(expr.clone());
+        }
+        m_innerHashExpressions = new ArrayList<>();
+        for (AbstractExpression expr : innerExpressions) {
+            m_innerHashExpressions.add(expr.clone());
+        }
+    }
+
+    public List<AbstractExpression> getOuterHashExpressions() {
+        return m_outerHashExpressions;
+    }
+
+    public List<AbstractExpression> getInnerHashExpressions() {
+        return m_innerHashExpressions;
+    }
+
+    @Override
+    public void resolveColumnIndexes() {
+        super.resolveColumnIndexes();
+        final NodeSchema outer_schema = m_children.get(0).getOutputSchema();
+        final NodeSchema inner_schema = m_children.get(1).getOutputSchema();
+        resolvePredicate(m_outerHashExpressions, outer_schema, inner_schema);
+        resolvePredicate(m_innerHashExpressions, outer_schema, inner_schema);
+    }
+
+    @Override
+    public void computeCostEstimates(long childOutputTupleCountEstimate,
+                                     DatabaseEstimates estimates,
+                                     ScalarValueHints[] paramHints)
+    {
+        assert(m_children.size() == 2);
+        AbstractPlanNode outer = m_children.get(0);
+        AbstractPlanNode inner = m_children.get(1);
+        if (estimates.hasAnalyzedTables()) {
+            // Each side is read once, plus the cost of building the hash table
+            // and of one probe per outer row.
+            m_estimatedProcessedTupleCount = boundedTupleCount(discountEstimatedProcessedTupleCount(outer) +
+                    (double) outer.m_estimatedOutputTupleCount + inner.m_estimatedProcessedTupleCount +
+                    HASH_BUILD_COST_FACTOR * inner.m_estimatedOutputTupleCount);
+            m_estimatedOutputTupleCount = estimateJoinOutputTupleCount(outer.m_estimatedOutputTupleCount,
+                    inner.m_estimatedOutputTupleCount * joinSelectivity(estimates));
+            return;
+        }
+        // Without statistics the nested loop join is not charged for its repeated
+        // inner scans, so there is no basis for preferring a hash join. Charge the
+        // build on top of the nested loop cost so that the nested loop plan wins.
+        m_estimatedOutputTupleCount = childOutputTupleCountEstimate;
+        m_estimatedProcessedTupleCount = discountEstimatedProcessedTupleCount(outer) +
+                inner.m_estimatedProcessedTupleCount + inner.m_estimatedOutputTupleCount;
+    }
+
+    /**
+     * The executor probes the hash table once per outer row, and the matches for each
+     * outer row follow the hash table rather than any index. In a large query it may
+     * also partition both inputs by key hash first. Never claim an order.
+     */
+    @Override
+    public boolean isOutputOrdered(List<AbstractExpression> sortExpressions, List<SortDirectionType> sortDirections) {
+        return false;
+    }
+
+    @Override
+    public void resolveSortDirection() {
+        m_sortDirection = SortDirectionType.INVALID;
+    }
+
+    @Override
+    public void setJoinType(JoinType joinType) {
+        assert(joinType == JoinType.INNER || joinType == JoinType.LEFT);
+        super.setJoinType(joinType);
+    }
+
+    @Override
+    public void toJSONString(JSONStringer stringer) throws JSONException {
+        super.toJSONString(stringer);
+        stringer.key(Members.OUTER_HASH_EXPRESSIONS.name()).array();
+        for (AbstractExpression expr : m_outerHashExpressions) {
+            stringer.object();
+            expr.toJSONString(stringer);
+            stringer.endObject();
+        }
+        stringer.endArray();
+        stringer.key(Members.INNER_HASH_EXPRESSIONS.name()).array();
+        for (AbstractExpression expr : m_innerHashExpressions) {
+            stringer.object();
+            expr.toJSONString(stringer);
+            stringer.endObject();
+        }
+        stringer.endArray();
+    }
+
+    @Override
+    public void loadFromJSONObject(JSONObject jobj, Database db) throws JSONException {
+        super.loadFromJSONObject(jobj, db);
+        m_outerHashExpressions = new ArrayList<>();
+        AbstractExpression.loadFromJSONArrayChild(m_outerHashExpressions, jobj,
+                                                  Members.OUTER_HASH_EXPRESSIONS.name(), null);
+        m_innerHashExpressions = new ArrayList<>();
+        AbstractExpression.loadFromJSONArrayChild(m_innerHashExpressions, jobj,
+                                                  Members.INNER_HASH_EXPRESSIONS.name(), null);
+    }
+
+    @Override
+    public void findAllExpressionsOfClass(Class< ? extends AbstractExpression> aeClass, Set<AbstractExpression> collected) {
+        super.findAllExpressionsOfClass(aeClass, collected);
+        for (AbstractExpression expr : m_outerHashExpressions) {
+            collected.addAll(expr.findAllSubexpressionsOfClass(aeClass));
+        }
+        for (AbstractExpression expr : m_innerHashExpressions) {
+            collected.addAll(expr.findAllSubexpressionsOfClass(aeClass));
+        }
+    }
+
+    @Override
+    protected String explainPlanForNode(String indent) {
+        return "HASH " + this.m_joinType.toString() + " JOIN" + explainFilters(indent);
+    }
+
+}
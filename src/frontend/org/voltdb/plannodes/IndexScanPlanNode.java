@@ -595,6 +595,29 @@ public class IndexScanPlanNode extends AbstractScanPlanNode implements IndexSort
         return keyWidth;
     }
 
+    /**
+     * Estimate the fraction of the table read through the index for a search key of the given width.
+     * Without statistics each fully covered column is assumed to select 10% of the rows.
+     * Tables analyzed by @Analyze use the distinct value counts of the equality-covered columns.
+     */
+    private double getSearchKeySelectivity(DatabaseEstimates.TableEstimates tableEstimates, double keyWidth) {
+        String exprsjson = m_catalogIndex.getExpressionsjson();
+        if ( ! tableEstimates.analyzed || (exprsjson != null && ! exprsjson.isEmpty())) {
+            return Math.pow(0.10, keyWidth);
+        }
+        List<ColumnRef> indexedColumns = CatalogUtil.getSortedCatalogItems(m_catalogIndex.getColumns(), "index");
+        int coveredColumns = (int) keyWidth;
+        double selectivity = 1.0;
+        for (int i = 0; i < coveredColumns && i < indexedColumns.size(); ++i) {
+            selectivity *= tableEstimates.equalitySelectivity(indexedColumns.get(i).getColumn().getTypeName());
+        }
+        if (keyWidth > coveredColumns) {
+            // a range filter on the next indexed column
+            selectivity *= DatabaseEstimates.DEFAULT_RANGE_SELECTIVITY;
+        }
+        return Math.max(selectivity, 1.0 / tableEstimates.maxTuples);
+    }
+
     @Override
     public void computeCostEstimates(long unusedChildOutputTupleCountEstimate,
                                      DatabaseEstimates estimates,
@@ -664,7 +687,7 @@ public class IndexScanPlanNode extends AbstractScanPlanNode implements IndexSort
             // Using a factor of 0.1 per FULLY covered (equality-filtered) column,
             // the effective scale factor for a single PARTIALLY covered (range-filtered) column
             // comes to SQRT(0.1) which is just under 32% FTW!
-            tuplesToRead += (int) (tableEstimates.maxTuples * 0.90 * Math.pow(0.10, keyWidth));
+            tuplesToRead += (int) (tableEstimates.maxTuples * 0.90 * getSearchKeySelectivity(tableEstimates, keyWidth));
             // "Covering cell" indexes get a special adjustment to make them look more favorable
             // than non-unique range filters in particular.
             // I can't quite justify that rationally, but it "seems reasonable". --paul
@@ -693,6 +716,11 @@ public class IndexScanPlanNode extends AbstractScanPlanNode implements IndexSort
                 tuplesToRead = 4; // i.e. costing 1 unit more than a covered unique btree.
             }
             m_estimatedOutputTupleCount = tuplesToRead;
+            if (tableEstimates.analyzed) {
+                // Keep in sync with SeqScanPlanNode, which applies its filters to its output estimate.
+                m_estimatedOutputTupleCount = Math.max(1,
+                        (long) (tuplesToRead * tableEstimates.predicateSelectivity(m_predicate)));
+            }
         }
 
         m_estimatedProcessedTupleCount = tuplesToRead;
@@ -232,6 +232,15 @@ public class NestLoopIndexPlanNode extends AbstractJoinPlanNode {
 
         IndexScanPlanNode indexScan = getInlineIndexScan();
 
+        if (estimates.hasAnalyzedTables()) {
+            // With statistics, cost the index lookup once per outer row.
+            AbstractPlanNode outer = m_children.get(0);
+            m_estimatedOutputTupleCount = estimateJoinOutputTupleCount(outer.getEstimatedOutputTupleCount(),
+                    indexScan.getEstimatedOutputTupleCount());
+            m_estimatedProcessedTupleCount = boundedTupleCount(discountEstimatedProcessedTupleCount(outer) +
+                    (double) outer.getEstimatedOutputTupleCount() * indexScan.getEstimatedProcessedTupleCount());
+            return;
+        }
         m_estimatedOutputTupleCount = indexScan.getEstimatedOutputTupleCount() + childOutputTupleCountEstimate;
         // Discount outer child estimates based on the number of its filters
         m_estimatedProcessedTupleCount = indexScan.getEstimatedProcessedTupleCount() + discountEstimatedProcessedTupleCount(m_children.get(0));
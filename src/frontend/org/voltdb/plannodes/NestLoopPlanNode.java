@@ -42,6 +42,16 @@ public class NestLoopPlanNode extends AbstractJoinPlanNode {
         m_estimatedOutputTupleCount = childOutputTupleCountEstimate;
         // Discount outer child estimates based on the number of its filters
         assert(m_children.size() == 2);
+        if (estimates.hasAnalyzedTables()) {
+            // The inner child is scanned once for each outer row.
+            AbstractPlanNode outer = m_children.get(0);
+            AbstractPlanNode inner = m_children.get(1);
+            m_estimatedProcessedTupleCount = boundedTupleCount(discountEstimatedProcessedTupleCount(outer) +
+                    (double) outer.m_estimatedOutputTupleCount * inner.m_estimatedProcessedTupleCount);
+            m_estimatedOutputTupleCount = estimateJoinOutputTupleCount(outer.m_estimatedOutputTupleCount,
+                    inner.m_estimatedOutputTupleCount * joinSelectivity(estimates));
+            return;
+        }
         m_estimatedProcessedTupleCount = discountEstimatedProcessedTupleCount(m_children.get(0)) +
                 m_children.get(1).m_estimatedProcessedTupleCount;
     }
@@ -114,6 +114,13 @@ public class SeqScanPlanNode extends AbstractScanPlanNode implements ScanPlanNod
         // here to make sure that SeqScanPlanNode never gains an unfair advantage over IndexScanPlanNode.
         m_estimatedProcessedTupleCount = tableEstimates.maxTuples;
         m_estimatedOutputTupleCount = tableEstimates.maxTuples;
+        if (tableEstimates.analyzed) {
+            // With real row counts and distinct value counts, the size of the filtered
+            // result drives the costing of joins and of any follow-on plan steps.
+            // IndexScanPlanNode applies the same post-filter selectivity to its output.
+            m_estimatedOutputTupleCount = Math.max(1,
+                    (long) (tableEstimates.maxTuples * tableEstimates.predicateSelectivity(m_predicate)));
+        }
     }
 
     @Override
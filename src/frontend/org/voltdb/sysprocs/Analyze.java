@@ -0,0 +1,183 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.json_voltpatches.JSONException;
+import org.voltcore.logging.VoltLogger;
+import org.voltdb.CatalogContext;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltNTSystemProcedure;
+import org.voltdb.VoltProcedure.VoltAbortException;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Column;
+import org.voltdb.catalog.Table;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.compiler.DatabaseEstimates;
+import org.voltdb.compiler.DatabaseEstimates.TableEstimates;
+import org.voltdb.utils.CatalogUtil;
+
+/**
+ * Gather the row count and the number of distinct values of each column of one or all
+ * tables, and hand them to the ad hoc planner of every host. The planner uses them in
+ * place of its default estimates for join ordering and index selection, until the
+ * schema changes.
+ *
+ * The statistics are computed with ad hoc aggregate queries, so analyzing a large table
+ * costs a full scan of it. There is no sampling and there are no histograms: the
+ * selectivity of a filter comes from the number of distinct values alone. The statistics
+ * are only kept in the memory of each host's planner. They are not stored with the
+ * catalog, so a restart or a schema change loses them and @Analyze has to run again.
+ */
+public class Analyze extends VoltNTSystemProcedure {
+    private static final VoltLogger hostLog = new VoltLogger("HOST");
+
+    /**
+     * Install the statistics on the planner of this host.
+     */
+    public static class UpdatePlannerStatisticsNT extends VoltNTSystemProcedure {
+
+        public VoltTable run(String statisticsJson) throws JSONException {
+            Map<String, TableEstimates> analyzedTables = DatabaseEstimates.analyzedTablesFromJSON(statisticsJson);
+            CatalogContext context = VoltDB.instance().getCatalogContext();
+            context.m_ptool.updateAnalyzedTables(analyzedTables);
+            VoltTable vt = new VoltTable(new ColumnInfo("TABLES", VoltType.INTEGER));
+            vt.addRow(analyzedTables.size());
+            return vt;
+        }
+    }
+
+    private static boolean canCountDistinct(Column column) {
+        VoltType type = VoltType.get((byte) column.getType());
+        return type != VoltType.GEOGRAPHY && type != VoltType.GEOGRAPHY_POINT;
+    }
+
+    private VoltTable runAggregate(String sql) throws InterruptedException, ExecutionException {
+        ClientResponse cr = callProcedure("@AdHoc", sql).get();
+        if (cr.getStatus() != ClientResponse.SUCCESS) {
+            hostLog.info("@Analyze could not run \"" + sql + "\": " + cr.getStatusString());
+            return null;
+        }
+        VoltTable result = cr.getResults()[0];
+        result.advanceRow();
+        return result;
+    }
+
+    // Delimit a catalog name so that tables and columns named after SQL keywords still parse
+    private static String quote(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    private TableEstimates analyzeTable(Table table) throws InterruptedException, ExecutionException {
+        List<Column> columns = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*)");
+        for (Column column : CatalogUtil.getSortedCatalogItems(table.getColumns(), "index")) {
+            if (canCountDistinct(column)) {
+                columns.add(column);
+                sql.append(", COUNT(DISTINCT ").append(quote(column.getTypeName())).append(')');
+            }
+        }
+        sql.append(" FROM ").append(quote(table.getTypeName())).append(';');
+
+        Map<String, Long> distinctValues = new HashMap<>();
+        VoltTable result = runAggregate(sql.toString());
+        if (result != null) {
+            for (int i = 0; i < columns.size(); i++) {
+                distinctValues.put(columns.get(i).getTypeName(), result.getLong(i + 1));
+            }
+            return DatabaseEstimates.analyzedTable(result.getLong(0), distinctValues);
+        }
+
+        // Some combinations of distinct aggregates can't be planned for a partitioned table,
+        // count each column on its own and skip those that still fail.
+        result = runAggregate("SELECT COUNT(*) FROM " + quote(table.getTypeName()) + ";");
+        if (result == null) {
+            return null;
+        }
+        long rowCount = result.getLong(0);
+        for (Column column : columns) {
+            result = runAggregate("SELECT COUNT(DISTINCT " + quote(column.getTypeName()) + ") FROM " +
+                    quote(table.getTypeName()) + ";");
+            if (result != null) {
+                distinctValues.put(column.getTypeName(), result.getLong(0));
+            }
+        }
+        return DatabaseEstimates.analyzedTable(rowCount, distinctValues);
+    }
+
+    /**
+     * @param tableName the table to analyze, or an empty string for all tables
+     */
+    public VoltTable run(String tableName) throws InterruptedException, ExecutionException, JSONException {
+        CatalogContext ctx = VoltDB.instance().getCatalogContext();
+        List<Table> tables = new ArrayList<>();
+        if (tableName == null || tableName.trim().isEmpty()) {
+            for (Table table : ctx.database.getTables()) {
+                if ( ! CatalogUtil.isTableExportOnly(ctx.database, table)) {
+                    tables.add(table);
+                }
+            }
+        }
+        else {
+            Table table = ctx.database.getTables().getIgnoreCase(tableName.trim());
+            if (table == null) {
+                throw new VoltAbortException(String.format("Table \"%s\" not found.", tableName.trim()));
+            }
+            if (CatalogUtil.isTableExportOnly(ctx.database, table)) {
+                throw new VoltAbortException(String.format("Stream \"%s\" can not be analyzed.", table.getTypeName()));
+            }
+            tables.add(table);
+        }
+
+        VoltTable vt = new VoltTable(
+                new ColumnInfo[] { new ColumnInfo("TABLE_NAME", VoltType.STRING),
+                                   new ColumnInfo("COLUMN_NAME", VoltType.STRING),
+                                   new ColumnInfo("ROW_COUNT", VoltType.BIGINT),
+                                   new ColumnInfo("DISTINCT_VALUES", VoltType.BIGINT)});
+        Map<String, TableEstimates> analyzedTables = new HashMap<>();
+        for (Table table : tables) {
+            TableEstimates tableEstimates = analyzeTable(table);
+            if (tableEstimates == null) {
+                continue;
+            }
+            analyzedTables.put(table.getTypeName(), tableEstimates);
+            for (Column column : CatalogUtil.getSortedCatalogItems(table.getColumns(), "index")) {
+                vt.addRow(table.getTypeName(), column.getTypeName(), tableEstimates.maxTuples,
+                        tableEstimates.getDistinctValues(column.getTypeName()));
+            }
+        }
+
+        String statisticsJson = DatabaseEstimates.analyzedTablesToJSON(analyzedTables);
+        Map<Integer, ClientResponse> responses =
+                callNTProcedureOnAllHosts("@UpdatePlannerStatisticsNT", statisticsJson).get();
+        for (Map.Entry<Integer, ClientResponse> e : responses.entrySet()) {
+            if (e.getValue().getStatus() != ClientResponse.SUCCESS) {
+                throw new VoltAbortException("Failed to update the planner statistics on host " + e.getKey() +
+                        ": " + e.getValue().getStatusString());
+            }
+        }
+        return vt;
+    }
+}
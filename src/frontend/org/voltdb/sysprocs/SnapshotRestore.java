@@ -30,7 +30,6 @@ import java.io.StringWriter;
 import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -104,6 +103,7 @@ import org.voltdb.sysprocs.saverestore.SavedTableConverter;
 import org.voltdb.sysprocs.saverestore.SnapshotPathType;
 import org.voltdb.sysprocs.saverestore.SnapshotUtil;
 import org.voltdb.sysprocs.saverestore.TableSaveFile;
+import org.voltdb.sysprocs.saverestore.TableSaveFileQueue;
 import org.voltdb.sysprocs.saverestore.TableSaveFileState;
 import org.voltdb.utils.CatalogUtil;
 import org.voltdb.utils.CompressionService;
@@ -130,7 +130,12 @@ public class SnapshotRestore extends VoltSystemProcedure {
     public static final int K_CHECK_UNIQUE_VIOLATIONS_REPLICATED = 1;
 
     private static HashSet<String>  m_initializedTableSaveFileNames = new HashSet<String>();
-    private static ArrayDeque<TableSaveFile> m_saveFiles = new ArrayDeque<TableSaveFile>();
+    /*
+     * Number of save files of a table that are read and decompressed concurrently
+     * while the table is distributed
+     */
+    public static final int SNAPSHOT_RESTORE_READERS = Math.max(1, Integer.getInteger("SNAPSHOT_RESTORE_READERS", 4));
+    private static TableSaveFileQueue m_saveFiles = new TableSaveFileQueue(SNAPSHOT_RESTORE_READERS);
 
     private static volatile DuplicateRowHandler m_duplicateRowHandler = null;
 
@@ -175,13 +180,15 @@ public class SnapshotRestore extends VoltSystemProcedure {
             relevantPartitionSet.add(part_id);
         }
 
+        // Split the read ahead between the files that are read at the same time
+        final int readAheadChunks = Math.max(2, (st.getLocalSites().length * 2) / m_saveFiles.getConcurrency());
         for (int originalHostId : originalHostIds) {
             final File f = getSaveFileForPartitionedTable(filePath, fileNonce,
                     tableName,
                     originalHostId);
             TableSaveFile savefile = getTableSaveFile(
                     f,
-                    st.getLocalSites().length * 2,
+                    readAheadChunks,
                     relevantPartitionSet.toArray(new Integer[relevantPartitionSet.size()]));
 
             m_saveFiles.offer(savefile);
@@ -195,35 +202,15 @@ public class SnapshotRestore extends VoltSystemProcedure {
             }
             assert(m_saveFiles.peekLast().getCompleted());
         }
+        m_saveFiles.startReading();
     }
 
     private static synchronized boolean hasMoreChunks() throws IOException {
-        boolean hasMoreChunks = false;
-        while (!hasMoreChunks && m_saveFiles.peek() != null) {
-            TableSaveFile f = m_saveFiles.peek();
-            hasMoreChunks = f.hasMoreChunks();
-            if (!hasMoreChunks) {
-                try {
-                    f.close();
-                } catch (IOException e) {
-                }
-                m_saveFiles.poll();
-            }
-        }
-        return hasMoreChunks;
+        return m_saveFiles.hasMoreChunks();
     }
 
     private static synchronized BBContainer getNextChunk() throws IOException {
-        BBContainer c = null;
-        while (c == null && m_saveFiles.peek() != null) {
-            TableSaveFile f = m_saveFiles.peek();
-            c = f.getNextChunk();
-            if (c == null) {
-                f.close();
-                m_saveFiles.poll();
-            }
-        }
-        return c;
+        return m_saveFiles.getNextChunk();
     }
 
     @Override
@@ -468,7 +455,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
                 // distribution fragments, so two sites on the same node
                 // can't be attempting to set and clear this HashSet simultaneously
                 m_initializedTableSaveFileNames.clear();
-                m_saveFiles.clear();// Tests will reuse a VoltDB process that fails a restore
+                m_saveFiles.closeAll();// Tests will reuse a VoltDB process that fails a restore
 
                 m_filePath = (String) params[0];
                 m_filePathType = (String) params[1];
@@ -509,6 +496,8 @@ public class SnapshotRestore extends VoltSystemProcedure {
                 if (savefiles == null) {
                     return new DependencyPair.TableDependencyPair(SysProcFragmentId.PF_restoreScan, result);
                 }
+                final SnapshotUtil.LinkedTables linkedTables =
+                        SnapshotUtil.retrieveLinkedTables(m_filePath, m_fileNonce, SNAP_LOG);
                 for (File file : savefiles) {
                     TableSaveFile savefile = null;
                     try {
@@ -531,7 +520,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
                                         savefile.getClusterName(),
                                         savefile.getDatabaseName(),
                                         savefile.getTableName(),
-                                        savefile.getTxnId(),
+                                        linkedTables.getTxnId(savefile),
                                         isReplicated,
                                         pid,
                                         savefile.getTotalPartitions());
@@ -1295,8 +1284,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
         final boolean isStartWithNoAutomatedRestore =
             startAction == StartAction.CREATE && mode != org.voltdb.OperationMode.INITIALIZING;
 
-        final boolean isCLEnabled =
-            VoltDB.instance().getCommandLog().getClass().getSimpleName().equals("CommandLogImpl");
+        final boolean isCLEnabled = VoltDB.instance().getCommandLog().isEnabled();
 
         final boolean isStartedWithCreateAction = startAction == StartAction.CREATE;
 
@@ -2363,14 +2351,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
         catch (IOException e)
         {
             synchronized (SnapshotRestore.class) {
-                TableSaveFile tsf = null;
-                while ((tsf = m_saveFiles.poll()) != null) {
-                    try {
-                        tsf.close();
-                    } catch (Exception ex) {
-                        SNAP_LOG.warn("Error closing save files on failure", ex);
-                    }
-                }
+                m_saveFiles.closeAll();
             }
             VoltTable result = constructResultsTable();
             result.addRow(m_hostId, hostname, CoreUtils.getSiteIdFromHSId(m_siteId), tableName, relevantPartitionIds[0],
@@ -2507,14 +2488,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
             return result;
         } finally {
             synchronized (SnapshotRestore.class) {
-                TableSaveFile tsf = null;
-                while ((tsf = m_saveFiles.poll()) != null) {
-                    try {
-                        tsf.close();
-                    } catch (Exception e) {
-                        SNAP_LOG.warn("Error closing save files on failure", e);
-                    }
-                }
+                m_saveFiles.closeAll();
             }
         }
 
@@ -552,6 +552,8 @@ public class SystemInformation extends VoltSystemProcedure
         results.addRow("elasticduration", Integer.toString(sysSettings.getElasticduration()));
         results.addRow("elasticthroughput", Integer.toString(sysSettings.getElasticthroughput()));
         results.addRow("snapshotpriority", Integer.toString(sysSettings.getSnapshotpriority()));
+        results.addRow("snapshotcompression", sysSettings.getSnapshotcompression());
+        results.addRow("snapshotlatencytarget", Integer.toString(sysSettings.getSnapshotlatencytarget()));
         results.addRow("temptablesmaxsize", Integer.toString(sysSettings.getTemptablemaxsize()));
         results.addRow("querytimeout", Integer.toString(sysSettings.getQuerytimeout()));
 
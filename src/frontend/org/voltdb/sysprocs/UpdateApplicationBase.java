@@ -132,11 +132,12 @@ public abstract class UpdateApplicationBase extends VoltNTSystemProcedure {
                 if (operationBytes != null) {
                     newCatalogJar = new InMemoryJarfile(operationBytes);
                 }
+                // Borrow a planner's hsql session to update classes, because it may race with
+                // @LoadSinglepartitionTable in Site thread and with ad hoc planning
+                HSQLInterface hsql = context.m_ptool.acquireHSQLInterface();
                 try {
-                    // Create a new hsql session to update classes, because it may races with
-                    // @LoadSinglepartitionTable in Site thread
                     InMemoryJarfile modifiedJar = modifyCatalogClasses(context.catalog, oldJar, operationString,
-                            newCatalogJar, drRole == DrRoleType.XDCR, context.m_ptool.getHSQLInterface());
+                            newCatalogJar, drRole == DrRoleType.XDCR, hsql);
                     if (modifiedJar == null) {
                         newCatalogJar = oldJar;
                     } else {
@@ -147,6 +148,9 @@ public abstract class UpdateApplicationBase extends VoltNTSystemProcedure {
                     retval.errorMsg = "Classes not found in @UpdateClasses jar: " + e.getMessage();
                     return retval;
                 }
+                finally {
+                    context.m_ptool.releaseHSQLInterface(hsql);
+                }
                 // Real deploymentString should be the current deployment, just set it to null
                 // here and let it get filled in correctly later.
                 deploymentString = null;
@@ -0,0 +1,175 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs.saverestore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.voltdb.catalog.Table;
+import org.voltdb.sysprocs.SnapshotRegistry;
+
+/**
+ * Tracks which tables changed at this host between native snapshots written to the same path.
+ *
+ * Every site records the sp handle of the last transaction that changed each of its tables
+ * when a native snapshot starts. Once the snapshot completes those handles become the base
+ * of the next snapshot to the same path, and a table whose handles at every local partition
+ * are unchanged since then has identical contents to its file in the base. An incremental
+ * snapshot links that file in instead of writing the table again, so every snapshot stays
+ * self-contained and can be restored or deleted on its own.
+ */
+public class IncrementalSnapshotTracker {
+
+    /**
+     * The state of the tables at this host when a native snapshot was taken
+     */
+    static class Generation {
+        final String m_path;
+        final String m_nonce;
+        final long m_txnId;
+        final long m_timestamp;
+        final long m_catalogCRC;
+        final int m_partitionCount;
+        final String m_drRole;
+        // Table name -> partition id -> sp handle of the last change
+        final Map<String, Map<Integer, Long>> m_changes;
+
+        Generation(String path, String nonce, long txnId, long timestamp, long catalogCRC,
+                int partitionCount, String drRole, Map<String, Map<Integer, Long>> changes)
+        {
+            m_path = path;
+            m_nonce = nonce;
+            m_txnId = txnId;
+            m_timestamp = timestamp;
+            m_catalogCRC = catalogCRC;
+            m_partitionCount = partitionCount;
+            m_drRole = drRole;
+            m_changes = changes;
+        }
+
+        /**
+         * A later snapshot can only reuse files of this one when the files would be
+         * written with the same schema and the same partitions
+         */
+        boolean isBaseFor(Generation next) {
+            return m_path.equals(next.m_path) &&
+                    m_catalogCRC == next.m_catalogCRC &&
+                    m_partitionCount == next.m_partitionCount &&
+                    (m_drRole == null ? next.m_drRole == null : m_drRole.equals(next.m_drRole));
+        }
+
+        /**
+         * @return the tables of the next snapshot which have not changed at any local
+         * partition since this one was taken
+         */
+        List<String> unchangedTables(Generation next) {
+            List<String> unchanged = new ArrayList<String>();
+            if (!isBaseFor(next)) {
+                return unchanged;
+            }
+            for (Map.Entry<String, Map<Integer, Long>> e : next.m_changes.entrySet()) {
+                Map<Integer, Long> baseChanges = m_changes.get(e.getKey());
+                if (baseChanges != null && baseChanges.equals(e.getValue())) {
+                    unchanged.add(e.getKey());
+                }
+            }
+            return unchanged;
+        }
+    }
+
+    // Partition id -> table relative index -> sp handle, recorded by the local sites
+    private static final Map<Integer, Map<Integer, Long>> s_siteChanges = new HashMap<Integer, Map<Integer, Long>>();
+    // The last completed native snapshot in each path
+    private static final Map<String, Generation> s_bases = new HashMap<String, Generation>();
+    // The native snapshot in progress on this host
+    private static Generation s_pending;
+
+    /**
+     * Called by every local site while a native snapshot is being set up
+     */
+    public static synchronized void recordSiteChanges(int partitionId, Map<Integer, Long> spHandles) {
+        s_siteChanges.put(partitionId, spHandles);
+    }
+
+    /**
+     * Called once per host when a native snapshot is planned, after every local site recorded
+     * its changes. A snapshot that is not tracked can neither be a base nor reuse one.
+     *
+     * @return the snapshot being planned, or null when it is not tracked
+     */
+    static synchronized Generation startSnapshot(String path, String nonce, long txnId, long timestamp,
+            long catalogCRC, int partitionCount, String drRole, Table[] tables, boolean tracked)
+    {
+        Map<Integer, Map<Integer, Long>> siteChanges = new HashMap<Integer, Map<Integer, Long>>(s_siteChanges);
+        s_siteChanges.clear();
+        s_pending = null;
+        if (!tracked || siteChanges.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Map<Integer, Long>> changes = new HashMap<String, Map<Integer, Long>>();
+        for (Table table : tables) {
+            Map<Integer, Long> tableChanges = new HashMap<Integer, Long>();
+            for (Map.Entry<Integer, Map<Integer, Long>> e : siteChanges.entrySet()) {
+                Long spHandle = e.getValue().get(table.getRelativeIndex());
+                if (spHandle == null) {
+                    // A table the EE doesn't know about, never reuse it
+                    tableChanges = null;
+                    break;
+                }
+                tableChanges.put(e.getKey(), spHandle);
+            }
+            if (tableChanges != null) {
+                changes.put(table.getTypeName(), tableChanges);
+            }
+        }
+        s_pending = new Generation(path, nonce, txnId, timestamp, catalogCRC, partitionCount, drRole, changes);
+        return s_pending;
+    }
+
+    /**
+     * @return the last completed native snapshot in the path of the given snapshot if its
+     * files can be reused by it, otherwise null
+     */
+    static synchronized Generation getBase(Generation snapshot) {
+        Generation base = s_bases.get(snapshot.m_path);
+        return base != null && base.isBaseFor(snapshot) ? base : null;
+    }
+
+    /**
+     * Called when all the tables of a snapshot on this host are written. A successful native
+     * snapshot becomes the base for the next incremental snapshot to the same path.
+     */
+    public static synchronized void snapshotFinished(SnapshotRegistry.Snapshot completed) {
+        if (s_pending == null || s_pending.m_txnId != completed.txnId || !s_pending.m_nonce.equals(completed.nonce)) {
+            return;
+        }
+        if (completed.result) {
+            s_bases.put(s_pending.m_path, s_pending);
+        }
+        s_pending = null;
+    }
+
+    static synchronized void clear() {
+        s_siteChanges.clear();
+        s_bases.clear();
+        s_pending = null;
+    }
+}
@@ -19,9 +19,11 @@ package org.voltdb.sysprocs.saverestore;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -40,12 +42,16 @@ import org.voltdb.SystemProcedureExecutionContext;
 import org.voltdb.TableType;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltTable;
+import org.voltdb.catalog.Cluster;
+import org.voltdb.catalog.Deployment;
+import org.voltdb.catalog.Systemsettings;
 import org.voltdb.catalog.Table;
 import org.voltdb.compiler.deploymentfile.DrRoleType;
 import org.voltdb.dtxn.SiteTracker;
 import org.voltdb.export.ExportManager;
 import org.voltdb.sysprocs.SnapshotRegistry;
 import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.CompressionCodec;
 
 import com.google_voltpatches.common.collect.Maps;
 
@@ -110,6 +116,21 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
             createUpdatePartitionCountTasksForSites(tracker, context, newPartitionCount);
         }
 
+        // Elastic snapshots that change the partition count can neither be based on an
+        // earlier snapshot nor be the base of a later one
+        final IncrementalSnapshotTracker.Generation generation = IncrementalSnapshotTracker.startSnapshot(
+                file_path, file_nonce, txnId, timestamp, context.getCatalogCRC(), partitionCount,
+                context.getCluster().getDrrole(), tableArray, config.newPartitionCount == null);
+        final Map<String, File> linkedTableFiles =
+                getLinkedTableFiles(config, generation, file_path, context.getHostId(), tableArray);
+        if (!linkedTableFiles.isEmpty()) {
+            IncrementalSnapshotTracker.Generation base = IncrementalSnapshotTracker.getBase(generation);
+            extraSnapshotData.setIncrementalBase(context.getHostId(), base.m_nonce, base.m_txnId,
+                    linkedTableFiles.keySet());
+            SNAP_LOG.info("Snapshot " + file_nonce + " links the files of " + linkedTableFiles.size() +
+                    " unchanged tables from snapshot " + base.m_nonce);
+        }
+
         m_snapshotRecord =
             SnapshotRegistry.startSnapshot(
                     txnId,
@@ -124,6 +145,15 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
         final ArrayList<SnapshotTableTask> replicatedSnapshotTasks =
             new ArrayList<SnapshotTableTask>();
         for (final Table table : tableArray) {
+            if (linkedTableFiles.containsKey(table.getTypeName())) {
+                result.addRow(context.getHostId(),
+                        CoreUtils.getHostnameOrAddress(),
+                        table.getTypeName(),
+                        "SUCCESS",
+                        "");
+                continue;
+            }
+
             final SnapshotTableTask task =
                     new SnapshotTableTask(
                             table,
@@ -168,7 +198,61 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
         return createDeferredSetup(file_path, pathType, file_nonce, txnId, partitionTransactionIds,
                 context, extraSnapshotData, tracker, hashinatorData, timestamp,
                 partitionCount, newPartitionCount, tableArray, m_snapshotRecord, partitionedSnapshotTasks,
-                replicatedSnapshotTasks, isTruncationSnapshot);
+                replicatedSnapshotTasks, linkedTableFiles, isTruncationSnapshot);
+    }
+
+    /**
+     * Find the tables of an incremental snapshot that have not changed at this host since the
+     * last native snapshot to the same path and whose files in that snapshot are still there.
+     * At least one table is always written so that the snapshot completes through the close
+     * of its data targets.
+     *
+     * @return the files of the base snapshot to link, by table name
+     */
+    private static Map<String, File> getLinkedTableFiles(SnapshotRequestConfig config,
+                                                         IncrementalSnapshotTracker.Generation generation,
+                                                         String file_path,
+                                                         int hostId,
+                                                         Table[] tables)
+    {
+        Map<String, File> linkedTableFiles = new HashMap<String, File>();
+        if (!config.incremental || generation == null) {
+            return linkedTableFiles;
+        }
+        IncrementalSnapshotTracker.Generation base = IncrementalSnapshotTracker.getBase(generation);
+        if (base == null) {
+            return linkedTableFiles;
+        }
+        List<String> unchangedTables = base.unchangedTables(generation);
+        for (Table table : tables) {
+            if (!unchangedTables.contains(table.getTypeName())) {
+                continue;
+            }
+            File baseFile = SnapshotUtil.constructFileForTable(table, file_path, base.m_nonce,
+                    SnapshotFormat.NATIVE, hostId);
+            if (baseFile.isFile()) {
+                linkedTableFiles.put(table.getTypeName(), baseFile);
+            }
+        }
+        if (linkedTableFiles.size() == tables.length) {
+            linkedTableFiles.remove(tables[0].getTypeName());
+        }
+        return linkedTableFiles;
+    }
+
+    /**
+     * Hard link the file of an unchanged table from the base snapshot, copying it when the
+     * file system can't link
+     */
+    private static void linkTableFile(File baseFile, File saveFile) throws IOException
+    {
+        try {
+            Files.createLink(saveFile.toPath(), baseFile.toPath());
+        } catch (UnsupportedOperationException | IOException e) {
+            SNAP_LOG.debug("Unable to link " + saveFile + " to " + baseFile + ", copying it", e);
+            Files.deleteIfExists(saveFile.toPath());
+            Files.copy(baseFile.toPath(), saveFile.toPath());
+        }
     }
 
     private Callable<Boolean> createDeferredSetup(final String file_path,
@@ -187,6 +271,7 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                                                   final SnapshotRegistry.Snapshot snapshotRecord,
                                                   final ArrayList<SnapshotTableTask> partitionedSnapshotTasks,
                                                   final ArrayList<SnapshotTableTask> replicatedSnapshotTasks,
+                                                  final Map<String, File> linkedTableFiles,
                                                   final boolean isTruncationSnapshot)
     {
         return new Callable<Boolean>() {
@@ -196,7 +281,7 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
             public Boolean call() throws Exception
             {
                 // TRAIL [SnapSave:6]  - 3.3 [1 site/host] Create completion tasks
-                final AtomicInteger numTables = new AtomicInteger(tables.length);
+                final AtomicInteger numTables = new AtomicInteger(tables.length - linkedTableFiles.size());
 
                 NativeSnapshotWritePlan.createFileBasedCompletionTasks(file_path, pathType, file_nonce,
                         txnId, partitionTransactionIds, context, extraSnapshotData,
@@ -206,6 +291,25 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                         tables,
                         isTruncationSnapshot);
 
+                for (Table table : tables) {
+                    File baseFile = linkedTableFiles.get(table.getTypeName());
+                    if (baseFile == null) {
+                        continue;
+                    }
+                    IOException error = null;
+                    try {
+                        linkTableFile(baseFile, SnapshotUtil.constructFileForTable(table, file_path, file_nonce,
+                                SnapshotFormat.NATIVE, context.getHostId()));
+                    } catch (IOException e) {
+                        SNAP_LOG.error("Unable to link the file of table " + table.getTypeName() +
+                                " from " + baseFile, e);
+                        error = e;
+                    }
+                    final IOException linkError = error;
+                    snapshotRecord.updateTable(table.getTypeName(),
+                            registryTable -> snapshotRecord.new Table(registryTable, 0, linkError));
+                }
+
                 for (SnapshotTableTask task : replicatedSnapshotTasks) {
                     SnapshotDataTarget target = getSnapshotDataTarget(numTables, task);
                     task.setTarget(target);
@@ -247,7 +351,8 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                                                       context.getHostId(), context.getCluster().getTypeName(),
                                                       context.getDatabase().getTypeName(), partitionCount,
                                                       DrRoleType.XDCR.value().equals(context.getCluster().getDrrole()),
-                                                      tracker, timestamp, numTables, snapshotRecord);
+                                                      tracker, timestamp, numTables, snapshotRecord,
+                                                      getSnapshotCompression(context.getCluster()));
                     m_createdTargets.put(task.m_table.getRelativeIndex(), target);
                 }
                 return target;
@@ -267,7 +372,8 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                                                         SiteTracker tracker,
                                                         long timestamp,
                                                         AtomicInteger numTables,
-                                                        SnapshotRegistry.Snapshot snapshotRecord)
+                                                        SnapshotRegistry.Snapshot snapshotRecord,
+                                                        CompressionCodec codec)
             throws IOException
     {
         SnapshotDataTarget sdt;
@@ -298,7 +404,8 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                     tracker.getPartitionsForHost(hostId),
                     tbl,
                     txnId,
-                    timestamp);
+                    timestamp,
+                    codec);
         }
         else if (CatalogUtil.needsViewHiddenColumn(table)) {
             VoltTable tbl;
@@ -318,7 +425,8 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                     tracker.getPartitionsForHost(hostId),
                     tbl,
                     txnId,
-                    timestamp);
+                    timestamp,
+                    codec);
         } else if (TableType.needsMigrateHiddenColumn(table.getTabletype())) {
             sdt = new DefaultSnapshotDataTarget(saveFilePath,
                     hostId,
@@ -330,7 +438,8 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                     tracker.getPartitionsForHost(hostId),
                     CatalogUtil.getVoltTable(table, CatalogUtil.MIGRATE_HIDDEN_COLUMN_INFO),
                     txnId,
-                    timestamp);
+                    timestamp,
+                    codec);
         } else {
             sdt = new DefaultSnapshotDataTarget(saveFilePath,
                     hostId,
@@ -342,7 +451,8 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
                     tracker.getPartitionsForHost(hostId),
                     CatalogUtil.getVoltTable(table),
                     txnId,
-                    timestamp);
+                    timestamp,
+                    codec);
         }
 
         m_targets.add(sdt);
@@ -352,6 +462,15 @@ public class NativeSnapshotWritePlan extends SnapshotWritePlan
         return sdt;
     }
 
+    /**
+     * The codec native snapshot data is compressed with, from the deployment systemsettings
+     */
+    static CompressionCodec getSnapshotCompression(Cluster cluster) {
+        Deployment deployment = cluster.getDeployment().get("deployment");
+        Systemsettings sysSettings = deployment == null ? null : deployment.getSystemsettings().get("systemsettings");
+        return CompressionCodec.fromName(sysSettings == null ? null : sysSettings.getSnapshotcompression());
+    }
+
     static void createFileBasedCompletionTasks(
             String file_path, String pathType, String file_nonce,
             long txnId, Map<Integer, Long> partitionTransactionIds,
@@ -40,6 +40,8 @@ public class SnapshotRequestConfig {
     public final Table[] tables;
     public final Integer newPartitionCount;
     public final String truncationRequestId;
+    // Link the files of tables unchanged since the last snapshot to the same path
+    public final boolean incremental;
 
     /**
      * @param tables    Tables to snapshot, cannot be null.
@@ -66,6 +68,7 @@ public class SnapshotRequestConfig {
         this.tables = tables;
         this.newPartitionCount = newPartitionCount;
         truncationRequestId = null;
+        incremental = false;
     }
 
     public SnapshotRequestConfig(JSONObject jsData, Database catalogDatabase)
@@ -75,10 +78,12 @@ public class SnapshotRequestConfig {
             emptyConfig = true;
             newPartitionCount = null;
             truncationRequestId = null;
+            incremental = false;
         } else {
             emptyConfig = false;
             newPartitionCount = (Integer) jsData.opt("newPartitionCount");
             truncationRequestId = (String) jsData.opt("truncReqId");
+            incremental = jsData.optBoolean(SnapshotUtil.JSON_INCREMENTAL);
         }
     }
 
@@ -164,5 +169,8 @@ public class SnapshotRequestConfig {
         if (newPartitionCount != null) {
             stringer.keySymbolValuePair("newPartitionCount", newPartitionCount.longValue());
         }
+        if (incremental) {
+            stringer.keySymbolValuePair(SnapshotUtil.JSON_INCREMENTAL, true);
+        }
     }
 }
@@ -115,6 +115,7 @@ public class SnapshotUtil {
      * milestone used to mark a shutdown save snapshot
      */
     public static final String JSON_TERMINUS = "terminus";
+    public static final String JSON_INCREMENTAL = "incremental";
 
     public static final ColumnInfo nodeResultsColumns[] =
     new ColumnInfo[] {
@@ -405,6 +406,56 @@ public class SnapshotUtil {
         return digests;
     }
 
+    /**
+     * The tables an incremental snapshot linked in from the files of an earlier snapshot, by
+     * the id of the host that wrote them. The headers of those files carry the transaction id
+     * and timestamp of the earlier snapshot instead of the ones of the snapshot itself.
+     */
+    public static class LinkedTables {
+        private long m_txnId;
+        private long m_timestamp;
+        private final Map<Integer, Set<String>> m_tables = new HashMap<Integer, Set<String>>();
+
+        public boolean isLinked(TableSaveFile saveFile) {
+            Set<String> tables = m_tables.get(saveFile.getHostId());
+            return tables != null && tables.contains(saveFile.getTableName());
+        }
+
+        public long getTxnId(TableSaveFile saveFile) {
+            return isLinked(saveFile) ? m_txnId : saveFile.getTxnId();
+        }
+
+        public long getTimestamp(TableSaveFile saveFile) {
+            return isLinked(saveFile) ? m_timestamp : saveFile.getTimestamp();
+        }
+    }
+
+    /**
+     * Find the tables linked into a snapshot from the digests of the snapshot in a directory
+     */
+    public static LinkedTables retrieveLinkedTables(String path, String nonce, VoltLogger logger) {
+        LinkedTables linkedTables = new LinkedTables();
+        try {
+            for (JSONObject digest : retrieveDigests(path, nonce, logger)) {
+                JSONObject base = digest.optJSONObject(ExtensibleSnapshotDigestData.INCREMENTAL_BASE);
+                if (base == null) {
+                    continue;
+                }
+                linkedTables.m_txnId = digest.getLong("txnId");
+                linkedTables.m_timestamp = digest.getLong("timestamp");
+                Set<String> tables = new HashSet<String>();
+                JSONArray tableNames = base.getJSONArray(ExtensibleSnapshotDigestData.INCREMENTAL_BASE_TABLES);
+                for (int ii = 0; ii < tableNames.length(); ii++) {
+                    tables.add(tableNames.getString(ii));
+                }
+                linkedTables.m_tables.put(base.getInt(ExtensibleSnapshotDigestData.INCREMENTAL_BASE_HOST_ID), tables);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to read the digests of snapshot " + nonce + " in " + path, e);
+        }
+        return linkedTables;
+    }
+
     /**
      * Read hashinator snapshots into byte buffers.
      * @param path base snapshot path
@@ -664,10 +715,23 @@ public class SnapshotUtil {
 
         public void setTxnId(long txnId)
         {
-            if (m_txnId != Long.MIN_VALUE) {
+            if (m_txnIdFromDigest) {
                 assert(txnId == m_txnId);
             }
             m_txnId = txnId;
+            m_txnIdFromDigest = true;
+        }
+
+        /**
+         * Files an incremental snapshot linked in from an earlier snapshot carry an older
+         * transaction id, so a table file only stands in for a missing digest with the
+         * newest transaction id of the files
+         */
+        public void setTxnIdFromTableFile(long txnId)
+        {
+            if (!m_txnIdFromDigest) {
+                m_txnId = Math.max(m_txnId, txnId);
+            }
         }
 
         public long getTxnId()
@@ -690,6 +754,7 @@ public class SnapshotUtil {
         private final String m_nonce;
         private InstanceId m_instanceId = null;
         private long m_txnId;
+        private boolean m_txnIdFromDigest = false;
     }
 
     /**
@@ -919,7 +984,7 @@ public class SnapshotUtil {
                         partitionIds.removeAll(saveFile.getCorruptedPartitionIds());
                         String nonce = parseNonceFromSnapshotFilename(f.getName());
                         Snapshot named_s = namedSnapshots.get(nonce);
-                        named_s.setTxnId(saveFile.getTxnId());
+                        named_s.setTxnIdFromTableFile(saveFile.getTxnId());
                         TableFiles namedTableFiles = named_s.m_tableFiles.get(saveFile.getTableName());
                         if (namedTableFiles == null) {
                             namedTableFiles = new TableFiles(saveFile.isReplicated());
@@ -112,6 +112,7 @@ public abstract class SnapshotWritePlan
             if (tablesLeft == 0) {
                 final SnapshotRegistry.Snapshot completed =
                     SnapshotRegistry.finishSnapshot(m_snapshotRecord);
+                IncrementalSnapshotTracker.snapshotFinished(completed);
                 final double duration =
                     (completed.timeFinished - completed.timeStarted) / 1000.0;
                 SNAP_LOG.info(
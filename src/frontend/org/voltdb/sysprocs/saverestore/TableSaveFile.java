@@ -45,6 +45,7 @@ import org.voltcore.utils.DBBPool;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltdb.NativeLibraryLoader;
 import org.voltdb.messaging.FastDeserializer;
+import org.voltdb.utils.CompressionCodec;
 import org.voltdb.utils.CompressionService;
 import org.voltdb.utils.PosixAdvise;
 
@@ -246,6 +247,7 @@ public class TableSaveFile
                 m_isReplicated = fd.readBoolean();
                 m_isCompressed = false;
                 m_checksumType = ChecksumType.CRC32;
+                m_codec = CompressionCodec.SNAPPY;
                 if (!m_isReplicated) {
                     m_partitionIds = (int[])fd.readArray(int.class);
                     if (!m_completed) {
@@ -291,6 +293,8 @@ public class TableSaveFile
                 m_isReplicated = obj.getBoolean("isReplicated");
                 m_isCompressed = obj.optBoolean("isCompressed", false);
                 m_checksumType = ChecksumType.valueOf(obj.optString("checksumType", "CRC32"));
+                // Files written before the codec was configurable don't name it and are Snappy
+                m_codec = CompressionCodec.fromName(obj.optString("compressionCodec", null));
                 if (!m_isReplicated) {
                     JSONArray partitionIds = obj.getJSONArray("partitionIds");
                     m_partitionIds = new int[partitionIds.length()];
@@ -370,6 +374,10 @@ public class TableSaveFile
         return m_isCompressed;
     }
 
+    public CompressionCodec getCompressionCodec() {
+        return m_codec;
+    }
+
     public int getTotalPartitions() {
         return m_totalPartitions;
     }
@@ -437,11 +445,7 @@ public class TableSaveFile
             return c;
         }
 
-        if (m_chunkReader == null) {
-            m_chunkReader = new ChunkReader();
-            m_chunkReaderThread = new Thread(m_chunkReader, "ChunkReader");
-            m_chunkReaderThread.start();
-        }
+        startReading();
 
         Container c = null;
         while (c == null && (m_hasMoreChunks.get() || !m_availableChunks.isEmpty())) {
@@ -464,6 +468,36 @@ public class TableSaveFile
         return c;
     }
 
+    /**
+     * Start the thread that reads chunks ahead of the consumer. Reading starts
+     * lazily on the first {@link #getNextChunk()}, calling this earlier lets
+     * several files be read and decompressed concurrently.
+     */
+    public synchronized void startReading() {
+        if (m_chunkReader == null && m_hasMoreChunks.get()) {
+            m_chunkReader = new ChunkReader();
+            m_chunkReaderThread = new Thread(m_chunkReader, "ChunkReader - " + m_tableName);
+            m_chunkReaderThread.start();
+        }
+    }
+
+    /**
+     * Like {@link #getNextChunk()} but returns null instead of waiting when
+     * the reader has no chunk ready yet.
+     */
+    public synchronized BBContainer pollNextChunk() throws IOException
+    {
+        if (m_chunkReaderException != null) {
+            throw m_chunkReaderException;
+        }
+        startReading();
+        final Container c = m_availableChunks.poll();
+        if (c != null && m_hasMoreChunks.get()) {
+            m_chunkReads.release();
+        }
+        return c;
+    }
+
     public synchronized boolean hasMoreChunks() throws IOException
     {
         if (m_chunkReaderException != null) {
@@ -485,6 +519,7 @@ public class TableSaveFile
     private final String m_tableName;
     private final boolean m_isReplicated;
     private final boolean m_isCompressed;
+    private final CompressionCodec m_codec;
     private final int m_partitionIds[];
     private final int m_totalPartitions;
     private final long m_txnId;
@@ -660,7 +695,7 @@ public class TableSaveFile
                         sinceLastFAdvise += read;
                     }
                     fileInputBuffer.flip();
-                    nextChunkLength = CompressionService.uncompressedLength(fileInputBuffer);
+                    nextChunkLength = m_codec.uncompressedLength(fileInputBuffer);
 
                     /*
                      * Validate the rest of the chunk. This can fail if the data is corrupted
@@ -678,6 +713,18 @@ public class TableSaveFile
                         }
                     }
 
+                    /*
+                     * Skip irrelevant chunks after CRC is calculated, but before paying
+                     * for the decompression. Always calulate the CRC in case it is the
+                     * length value that is corrupted
+                     */
+                    if (m_relevantPartitionIds != null) {
+                        if (!m_relevantPartitionIds.contains(nextChunkPartitionId)) {
+                            m_chunkReads.release();
+                            continue;
+                        }
+                    }
+
                     /*
                      * Now allocate space to store the chunk using the VoltTable serialization representation.
                      * The chunk will contain an integer row count preceding it so it can
@@ -706,7 +753,7 @@ public class TableSaveFile
                         m_tableHeader.position(0);
                         buf.put(m_tableHeader);
                         //Doesn't move buffer position, does change the limit
-                        CompressionService.decompressBuffer(fileInputBuffer, buf);
+                        m_codec.uncompress(fileInputBuffer, buf);
                         completedRead = true;
                     } finally {
                         if (!completedRead) {
@@ -722,17 +769,6 @@ public class TableSaveFile
                         }
                     }
 
-                    /*
-                     * Skip irrelevant chunks after CRC is calculated. Always calulate the CRC
-                     * in case it is the length value that is corrupted
-                     */
-                    if (m_relevantPartitionIds != null) {
-                        if (!m_relevantPartitionIds.contains(nextChunkPartitionId)) {
-                            m_chunkReads.release();
-                            continue;
-                        }
-                    }
-
                     /*
                      * VoltTable wants the buffer at the home position 0
                      */
@@ -882,7 +918,7 @@ public class TableSaveFile
                             }
                         }
                         fileInputBuffer.flip();
-                        nextChunkLength = CompressionService.uncompressedLength(fileInputBuffer);
+                        nextChunkLength = m_codec.uncompressedLength(fileInputBuffer);
                     }
 
                     /*
@@ -928,7 +964,7 @@ public class TableSaveFile
                         c.b().position(c.b().position() + 4);//Leave space for row count to be moved into
                         checksumStartPosition = c.b().position();
                         if (isCompressed()) {
-                            CompressionService.decompressBuffer(fileInputBuffer, c.b());
+                            m_codec.uncompress(fileInputBuffer, c.b());
                             c.b().position(c.b().limit());
                         } else {
                             while (c.b().hasRemaining()) {
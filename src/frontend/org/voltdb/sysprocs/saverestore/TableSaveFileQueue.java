@@ -0,0 +1,146 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs.saverestore;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.DBBPool.BBContainer;
+
+/**
+ * The save files holding one table on this host, drained as a single stream of chunks.
+ * Up to {@code concurrency} files have their chunk readers running at the same time so
+ * reading and decompressing one file overlaps with the others, and a chunk is handed
+ * out from whichever open file has one ready. Files are closed as they are exhausted
+ * and the next queued file is started in their place.
+ *
+ * Not thread safe, callers serialize access.
+ */
+public class TableSaveFileQueue {
+    private static final VoltLogger SNAP_LOG = new VoltLogger("SNAPSHOT");
+
+    private final int m_concurrency;
+    private final ArrayDeque<TableSaveFile> m_pending = new ArrayDeque<TableSaveFile>();
+    private final ArrayDeque<TableSaveFile> m_open = new ArrayDeque<TableSaveFile>();
+
+    public TableSaveFileQueue(int concurrency) {
+        m_concurrency = Math.max(1, concurrency);
+    }
+
+    public int getConcurrency() {
+        return m_concurrency;
+    }
+
+    public void offer(TableSaveFile savefile) {
+        m_pending.offer(savefile);
+    }
+
+    public TableSaveFile peekLast() {
+        return m_pending.peekLast();
+    }
+
+    public boolean isEmpty() {
+        return m_pending.isEmpty() && m_open.isEmpty();
+    }
+
+    /**
+     * Start the readers of queued files until {@code concurrency} files are being read
+     */
+    public void startReading() {
+        while (m_open.size() < m_concurrency && !m_pending.isEmpty()) {
+            final TableSaveFile savefile = m_pending.poll();
+            savefile.startReading();
+            m_open.offer(savefile);
+        }
+    }
+
+    public boolean hasMoreChunks() throws IOException {
+        while (!isEmpty()) {
+            startReading();
+            final Iterator<TableSaveFile> iter = m_open.iterator();
+            while (iter.hasNext()) {
+                final TableSaveFile savefile = iter.next();
+                if (savefile.hasMoreChunks()) {
+                    return true;
+                }
+                iter.remove();
+                closeQuietly(savefile);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the next chunk from any of the open files, waiting for one if none is ready,
+     * or null once every file is exhausted
+     */
+    public BBContainer getNextChunk() throws IOException {
+        while (!isEmpty()) {
+            startReading();
+            // Take whatever is ready, rotating the files so none is starved
+            for (int ii = m_open.size(); ii > 0; ii--) {
+                final TableSaveFile savefile = m_open.poll();
+                final BBContainer c = savefile.pollNextChunk();
+                if (c != null) {
+                    m_open.offer(savefile);
+                    return c;
+                }
+                if (savefile.hasMoreChunks()) {
+                    m_open.offer(savefile);
+                } else {
+                    savefile.close();
+                }
+            }
+            // Nothing is ready, wait on the file that has been waited on least recently
+            final TableSaveFile savefile = m_open.poll();
+            if (savefile == null) {
+                continue;
+            }
+            final BBContainer c = savefile.getNextChunk();
+            if (c != null) {
+                m_open.offer(savefile);
+                return c;
+            }
+            savefile.close();
+        }
+        return null;
+    }
+
+    /**
+     * Close every file, started or not
+     */
+    public void closeAll() {
+        TableSaveFile savefile;
+        while ((savefile = m_open.poll()) != null) {
+            closeQuietly(savefile);
+        }
+        while ((savefile = m_pending.poll()) != null) {
+            closeQuietly(savefile);
+        }
+    }
+
+    private static void closeQuietly(TableSaveFile savefile) {
+        try {
+            savefile.close();
+        } catch (Exception e) {
+            SNAP_LOG.warn("Error closing save files on failure", e);
+        }
+    }
+}
@@ -1347,6 +1347,8 @@ public abstract class CatalogUtil {
 
         syssettings.setTemptablemaxsize(deployment.getSystemsettings().getTemptables().getMaxsize());
         syssettings.setSnapshotpriority(deployment.getSystemsettings().getSnapshot().getPriority());
+        syssettings.setSnapshotcompression(deployment.getSystemsettings().getSnapshot().getCompression().value());
+        syssettings.setSnapshotlatencytarget(deployment.getSystemsettings().getSnapshot().getLatencytarget());
         syssettings.setElasticduration(deployment.getSystemsettings().getElastic().getDuration());
         syssettings.setElasticthroughput(deployment.getSystemsettings().getElastic().getThroughput());
         syssettings.setQuerytimeout(deployment.getSystemsettings().getQuery().getTimeout());
@@ -0,0 +1,280 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.xerial.snappy.Snappy;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * Block compression codecs usable by {@link CompressionService} consumers.
+ *
+ * All codecs share the buffer conventions of the Snappy ByteBuffer API: compression
+ * and decompression read the input between its position and limit, write the output
+ * starting at the output's position and set the output's limit to the end of what was
+ * written. Neither buffer's position is moved. The compressed form of every codec
+ * records the uncompressed length so {@link #uncompressedLength(ByteBuffer)} can size
+ * the destination before decompressing.
+ *
+ * The codec is not stored in the compressed block, callers that persist data record
+ * {@link #name()} in their own headers and absent that must assume {@link #SNAPPY},
+ * the only codec older versions wrote.
+ */
+public enum CompressionCodec {
+    /**
+     * Raw copy, for data that does not compress or when CPU matters more than disk
+     */
+    NONE {
+        @Override
+        public int maxCompressedLength(int uncompressedLength) {
+            return uncompressedLength;
+        }
+
+        @Override
+        public int compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException {
+            final int length = uncompressed.remaining();
+            checkCapacity(compressed, length);
+            ByteBuffer out = compressed.duplicate();
+            out.limit(out.capacity());
+            out.put(uncompressed.duplicate());
+            compressed.limit(compressed.position() + length);
+            return length;
+        }
+
+        @Override
+        public int uncompressedLength(ByteBuffer compressed) {
+            return compressed.remaining();
+        }
+
+        @Override
+        public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+            return compress(compressed, uncompressed);
+        }
+    },
+
+    SNAPPY {
+        @Override
+        public int maxCompressedLength(int uncompressedLength) {
+            return Snappy.maxCompressedLength(uncompressedLength);
+        }
+
+        @Override
+        public int compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException {
+            return Snappy.compress(uncompressed, compressed);
+        }
+
+        @Override
+        public int uncompressedLength(ByteBuffer compressed) throws IOException {
+            return Snappy.uncompressedLength(compressed);
+        }
+
+        @Override
+        public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+            return Snappy.uncompress(compressed, uncompressed);
+        }
+    },
+
+    /**
+     * LZ4 fast mode, compresses at about the speed of Snappy and decompresses faster
+     */
+    LZ4 {
+        @Override
+        public int maxCompressedLength(int uncompressedLength) {
+            return LZ4Block.maxCompressedLength(LZ4Block.FAST, uncompressedLength);
+        }
+
+        @Override
+        public int compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException {
+            return LZ4Block.compress(LZ4Block.FAST, uncompressed, compressed);
+        }
+
+        @Override
+        public int uncompressedLength(ByteBuffer compressed) throws IOException {
+            return LZ4Block.uncompressedLength(name(), compressed);
+        }
+
+        @Override
+        public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+            return LZ4Block.uncompress(name(), compressed, uncompressed);
+        }
+    },
+
+    /**
+     * LZ4 high compression mode, much slower to compress but a better ratio and the
+     * same decompression speed as LZ4
+     */
+    LZ4HC {
+        @Override
+        public int maxCompressedLength(int uncompressedLength) {
+            return LZ4Block.maxCompressedLength(LZ4Block.HIGH, uncompressedLength);
+        }
+
+        @Override
+        public int compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException {
+            return LZ4Block.compress(LZ4Block.HIGH, uncompressed, compressed);
+        }
+
+        @Override
+        public int uncompressedLength(ByteBuffer compressed) throws IOException {
+            return LZ4Block.uncompressedLength(name(), compressed);
+        }
+
+        @Override
+        public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+            return LZ4Block.uncompress(name(), compressed, uncompressed);
+        }
+    };
+
+    /**
+     * @return the largest compressed form {@code uncompressedLength} bytes can take
+     */
+    public abstract int maxCompressedLength(int uncompressedLength);
+
+    /**
+     * Compress the remaining bytes of {@code uncompressed} into {@code compressed}
+     * @return the compressed length
+     */
+    public abstract int compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException;
+
+    /**
+     * @return the length {@code compressed} will have once decompressed
+     */
+    public abstract int uncompressedLength(ByteBuffer compressed) throws IOException;
+
+    /**
+     * Decompress the remaining bytes of {@code compressed} into {@code uncompressed}
+     * @return the uncompressed length
+     */
+    public abstract int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException;
+
+    /*
+     * The LZ4 block format shared by LZ4 and LZ4HC: the uncompressed length as a 4 byte
+     * prefix followed by the raw LZ4 block. The lz4 library only works on arrays, keep
+     * per thread scratch arrays around so direct buffers from the snapshot and PBD paths
+     * don't allocate per block.
+     */
+    private static final class LZ4Block {
+        private static final LZ4Factory FACTORY = LZ4Factory.fastestInstance();
+        private static final LZ4Compressor FAST = FACTORY.fastCompressor();
+        private static final LZ4Compressor HIGH = FACTORY.highCompressor();
+        private static final LZ4SafeDecompressor DECOMPRESSOR = FACTORY.safeDecompressor();
+        private static final ThreadLocal<byte[][]> SCRATCH = new ThreadLocal<byte[][]>() {
+            @Override
+            protected byte[][] initialValue() {
+                return new byte[2][0];
+            }
+        };
+
+        /** Size of the uncompressed length prefix */
+        private static final int HEADER_BYTES = 4;
+
+        private static byte[] scratch(int index, int length) {
+            byte[][] scratch = SCRATCH.get();
+            if (scratch[index].length < length) {
+                scratch[index] = new byte[Math.max(length, scratch[index].length * 2)];
+            }
+            return scratch[index];
+        }
+
+        private static int maxCompressedLength(LZ4Compressor compressor, int uncompressedLength) {
+            return HEADER_BYTES + compressor.maxCompressedLength(uncompressedLength);
+        }
+
+        private static int compress(LZ4Compressor compressor, ByteBuffer uncompressed, ByteBuffer compressed)
+                throws IOException {
+            final int length = uncompressed.remaining();
+            final byte[] in = scratch(0, length);
+            uncompressed.duplicate().get(in, 0, length);
+
+            final int maxLength = compressor.maxCompressedLength(length);
+            final byte[] out = scratch(1, maxLength);
+            final int compressedLength = compressor.compress(in, 0, length, out, 0, maxLength);
+
+            checkCapacity(compressed, HEADER_BYTES + compressedLength);
+            ByteBuffer dest = compressed.duplicate();
+            dest.limit(dest.capacity());
+            dest.putInt(length);
+            dest.put(out, 0, compressedLength);
+            compressed.limit(compressed.position() + HEADER_BYTES + compressedLength);
+            return HEADER_BYTES + compressedLength;
+        }
+
+        private static int uncompressedLength(String codec, ByteBuffer compressed) throws IOException {
+            if (compressed.remaining() < HEADER_BYTES) {
+                throw new IOException("Truncated " + codec + " block");
+            }
+            final int length = compressed.getInt(compressed.position());
+            if (length < 0) {
+                throw new IOException("Corrupt " + codec + " block has negative length");
+            }
+            return length;
+        }
+
+        private static int uncompress(String codec, ByteBuffer compressed, ByteBuffer uncompressed)
+                throws IOException {
+            final int length = uncompressedLength(codec, compressed);
+            checkCapacity(uncompressed, length);
+            final int compressedLength = compressed.remaining() - HEADER_BYTES;
+            final byte[] in = scratch(0, compressedLength);
+            ByteBuffer src = compressed.duplicate();
+            src.position(src.position() + HEADER_BYTES);
+            src.get(in, 0, compressedLength);
+
+            final byte[] out = scratch(1, length);
+            final int actualLength;
+            try {
+                actualLength = DECOMPRESSOR.decompress(in, 0, compressedLength, out, 0, length);
+            } catch (LZ4Exception e) {
+                throw new IOException("Corrupt " + codec + " block", e);
+            }
+            if (actualLength != length) {
+                throw new IOException("Corrupt " + codec + " block, expected " + length +
+                        " bytes but decompressed " + actualLength);
+            }
+            ByteBuffer dest = uncompressed.duplicate();
+            dest.limit(dest.capacity());
+            dest.put(out, 0, length);
+            uncompressed.limit(uncompressed.position() + length);
+            return length;
+        }
+    }
+
+    private static void checkCapacity(ByteBuffer buffer, int length) throws IOException {
+        if (buffer.capacity() - buffer.position() < length) {
+            throw new IOException("Buffer too small, need " + length + " bytes but only " +
+                    (buffer.capacity() - buffer.position()) + " available");
+        }
+    }
+
+    /**
+     * Look up a codec by name, ignoring case. A null or empty name is the legacy
+     * {@link #SNAPPY} codec.
+     */
+    public static CompressionCodec fromName(String name) {
+        if (name == null || name.isEmpty()) {
+            return SNAPPY;
+        }
+        return valueOf(name.toUpperCase());
+    }
+}
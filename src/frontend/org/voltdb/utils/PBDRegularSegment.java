@@ -54,6 +54,12 @@ class PBDRegularSegment extends PBDSegment {
     private static final String SCANNER_CURSOR = "__scanner__";
     private static final int VERSION = 2;
     private static final Random RANDOM = new Random();
+    // Read sealed segments through memory mapped windows instead of copying entries out of the file
+    static boolean MMAP_READS = Boolean.getBoolean("PBD_MMAP_READS");
+    // Size of each window mapped by a reader, an entry larger than this gets a window of its own
+    static int MMAP_WINDOW_BYTES = Integer.getInteger("PBD_MMAP_WINDOW_BYTES", 1024 * 1024 * 8);
+    // Do not recompute entry checksums when scanning a segment whose entries have already been verified
+    static boolean SKIP_VALIDATED_CRC = Boolean.getBoolean("PBD_SKIP_VALIDATED_CRC");
 
     private final Map<String, SegmentReader> m_readCursors = new HashMap<>();
     private final Map<String, SegmentReader> m_closedCursors = new HashMap<>();
@@ -69,9 +75,14 @@ class PBDRegularSegment extends PBDSegment {
     private boolean m_isFinal;
     // Whether or not this is the current active segment being written to
     private boolean m_isActive = false;
+    // Whether the checksum of every entry has been verified since the segment was last written to
+    private boolean m_crcValidated = false;
 
     private int m_numOfEntries = -1;
     private int m_size = -1;
+    // Entries written by offer which readers can not see until publishOffered
+    private int m_offeredEntries = 0;
+    private int m_offeredSize = 0;
     private boolean m_compress;
     private int m_segmentRandomId;
     private int m_extraHeaderSize = 0;
@@ -92,6 +103,8 @@ class PBDRegularSegment extends PBDSegment {
 
     private void reset() {
         m_syncedSinceLastEdit = false;
+        m_offeredEntries = 0;
+        m_offeredSize = 0;
         if (m_segmentHeaderBuf != null) {
             m_segmentHeaderBuf.discard();
             m_segmentHeaderBuf = null;
@@ -188,6 +201,7 @@ class PBDRegularSegment extends PBDSegment {
             initNumEntries(0, 0);
             m_compress = compress;
             m_isActive = true;
+            m_crcValidated = false;
             m_segmentRandomId = RANDOM.nextInt();
         }
         if (forWrite) {
@@ -403,6 +417,7 @@ class PBDRegularSegment extends PBDSegment {
             int entriesNotScanned = initialEntryCount - entriesScanned;
             // If we checksum the file and it looks good, mark as final
             if (!isFinal() && entriesNotScanned == 0) {
+                m_crcValidated = true;
                 finalize(true);
             }
             return -entriesNotScanned;
@@ -423,8 +438,9 @@ class PBDRegularSegment extends PBDSegment {
             if (initialEntryCount == 0) {
                 return 0;
             }
+            final boolean checkCrc = !(SKIP_VALIDATED_CRC && m_crcValidated);
             while (true) {
-                cont = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY, true, true);
+                cont = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY, true, checkCrc);
                 if (cont == null) {
                     break;
                 }
@@ -438,8 +454,11 @@ class PBDRegularSegment extends PBDSegment {
 
             // Scan through entire file, everything looks good
             int entriesTruncated = initialEntryCount - entriesScanned;
-            if (!m_isActive && !isFinal() && entriesTruncated == 0) {
-                finalize(false);
+            if (!m_isActive && entriesTruncated == 0) {
+                m_crcValidated = true;
+                if (!isFinal()) {
+                    finalize(false);
+                }
             }
 
             return entriesTruncated;
@@ -527,10 +546,16 @@ class PBDRegularSegment extends PBDSegment {
         return m_isFinal;
     }
 
-    private void incrementNumEntries(int size) throws IOException
+    @Override
+    void publishOffered() throws IOException
     {
-        m_numOfEntries++;
-        m_size += size;
+        if (m_offeredEntries == 0) {
+            return;
+        }
+        m_numOfEntries += m_offeredEntries;
+        m_size += m_offeredSize;
+        m_offeredEntries = 0;
+        m_offeredSize = 0;
         writeOutHeader();
     }
 
@@ -571,6 +596,9 @@ class PBDRegularSegment extends PBDSegment {
     }
 
     private void closeReadersAndFile() throws IOException {
+        for (SegmentReader reader : m_readCursors.values()) {
+            reader.releaseWindow();
+        }
         m_readCursors.clear();
         try {
             if (m_fc != null) {
@@ -634,7 +662,6 @@ class PBDRegularSegment extends PBDSegment {
             return false;
         }
 
-        m_syncedSinceLastEdit = false;
         DBBPool.BBContainer destBuf = cont;
         try {
             m_entryHeaderBuf.b().clear();
@@ -659,8 +686,8 @@ class PBDRegularSegment extends PBDSegment {
             while (destBuf.b().hasRemaining()) {
                 m_fc.write(destBuf.b());
             }
-            // Update segment header
-            incrementNumEntries(remaining);
+            m_offeredEntries++;
+            m_offeredSize += remaining;
         } finally {
             destBuf.discard();
             if (compress) {
@@ -683,7 +710,6 @@ class PBDRegularSegment extends PBDSegment {
             return -1;
         }
 
-        m_syncedSinceLastEdit = false;
         DBBPool.BBContainer destBuf = DBBPool.allocateDirectAndPool(fullSize);
 
         try {
@@ -701,8 +727,8 @@ class PBDRegularSegment extends PBDSegment {
             while (destBuf.b().hasRemaining()) {
                 m_fc.write(destBuf.b());
             }
-            // Update segment header
-            incrementNumEntries(written);
+            m_offeredEntries++;
+            m_offeredSize += written;
             return written;
         } finally {
             destBuf.discard();
@@ -710,7 +736,8 @@ class PBDRegularSegment extends PBDSegment {
     }
 
     private void writeEntryHeader(ByteBuffer data, char flags) {
-        PBDUtils.writeEntryHeader(m_crc, m_entryHeaderBuf.b(), data, m_segmentRandomId + m_numOfEntries + 1, flags);
+        PBDUtils.writeEntryHeader(m_crc, m_entryHeaderBuf.b(), data, m_segmentRandomId + m_numOfEntries + m_offeredEntries + 1,
+                flags);
     }
 
     @Override
@@ -772,13 +799,17 @@ class PBDRegularSegment extends PBDSegment {
 
     private class SegmentReader implements PBDSegmentReader {
         private final String m_cursorId;
-        private long m_readOffset;
+        private volatile long m_readOffset;
         //Index of the next object to read, not an offset into the file
-        private int m_objectReadIndex = 0;
-        private int m_bytesRead = 0;
+        private volatile int m_objectReadIndex = 0;
+        private volatile int m_bytesRead = 0;
         private int m_discardCount = 0;
         private boolean m_readerClosed = false;
         private CRC32 m_crcReader = new CRC32();
+        // Readers of sealed segments poll concurrently so each has its own entry header buffer
+        private final ByteBuffer m_readerHeaderBuf = ByteBuffer.allocate(ENTRY_HEADER_BYTES);
+        // Window of the file mapped by this reader when reading a sealed segment. Guarded by this reader
+        private MappedWindow m_window;
 
         public SegmentReader(String cursorId) throws IOException {
             assert(cursorId != null);
@@ -801,6 +832,11 @@ class PBDRegularSegment extends PBDSegment {
             return poll(factory, false, false);
         }
 
+        /*
+         * Entries are read with positional reads so the file position, which is where the writer appends,
+         * is never moved. The caller must make sure the segment is not written to or closed concurrently
+         * unless it is sealed, in which case only this reader's own state is modified.
+         */
         DBBPool.BBContainer poll(OutputContainerFactory factory, boolean canTruncate, boolean checkCrc)
                 throws IOException {
             assert !checkCrc || canTruncate : "canTruncate must be true if checkCrc is true";
@@ -812,16 +848,20 @@ class PBDRegularSegment extends PBDSegment {
                 return null;
             }
 
-            final long writePos = m_fc.position();
-            m_fc.position(m_readOffset);
+            final FileChannelWrapper fc = m_fc;
+            if (fc == null) {
+                throw new IOException("Segment closed");
+            }
+            if (MMAP_READS && !canTruncate && !m_isActive && !fc.m_writable) {
+                return pollMapped(factory, fc);
+            }
+            long offset = m_readOffset;
 
             try {
                 //Get the length and size prefix and then read the object
-                ByteBuffer b = m_entryHeaderBuf.b();
+                ByteBuffer b = m_readerHeaderBuf;
                 b.clear();
-                if (!read(b)) {
-                    return null;
-                }
+                offset = read(fc, b, offset);
                 b.flip();
                 final int entryCRC = b.getInt();
                 final int length = b.getInt();
@@ -847,7 +887,7 @@ class PBDRegularSegment extends PBDSegment {
                     if (compressed) {
                         final DBBPool.BBContainer compressedBuf = DBBPool.allocateDirectAndPool(length);
                         try {
-                            if (!fillBuffer(compressedBuf.b(), entryId, flags, entryCRC, checkCrc)) {
+                            if (!fillBuffer(fc, compressedBuf.b(), offset, entryId, flags, entryCRC, checkCrc)) {
                                 return null;
                             }
 
@@ -863,7 +903,7 @@ class PBDRegularSegment extends PBDSegment {
                         retcont = factory.getContainer(length);
                         retcont.b().limit(length);
 
-                        if (!fillBuffer(retcont.b(), entryId, flags, entryCRC, checkCrc)) {
+                        if (!fillBuffer(fc, retcont.b(), offset, entryId, flags, entryCRC, checkCrc)) {
                             retcont.discard();
                             return null;
                         }
@@ -875,25 +915,11 @@ class PBDRegularSegment extends PBDSegment {
                     throw t;
                 }
 
+                m_readOffset = offset + length;
                 m_bytesRead += uncompressedLen;
                 m_objectReadIndex++;
 
-                return new DBBPool.DBBDelegateContainer(retcont) {
-                    private boolean m_discarded = false;
-
-                    @Override
-                    public void discard() {
-                        checkDoubleFree();
-                        if (m_discarded) {
-                            m_usageSpecificLog.error("PBD Container discarded more than once");
-                            return;
-                        }
-
-                        m_discarded = true;
-                        super.discard();
-                        m_discardCount++;
-                    }
-                };
+                return countDiscard(retcont);
             } catch (IOException e) {
                 if (canTruncate) {
                     m_usageSpecificLog.warn(
@@ -903,10 +929,113 @@ class PBDRegularSegment extends PBDSegment {
                     return null;
                 }
                 throw e;
+            }
+        }
+
+        /**
+         * Read the next entry of a sealed segment from a window of the file mapped in memory. Uncompressed entries
+         * are returned as read only slices of the window without being copied, and the window stays mapped until
+         * every slice of it has been discarded.
+         */
+        private DBBPool.BBContainer pollMapped(OutputContainerFactory factory, FileChannelWrapper fc)
+                throws IOException {
+            final long offset = m_readOffset;
+            MappedWindow window = retainWindow(fc, offset, ENTRY_HEADER_BYTES);
+            try {
+                int position = (int) (offset - window.m_start);
+                final int length = window.m_buf.getInt(position + ENTRY_HEADER_TOTAL_BYTES_OFFSET);
+                final int entryId = window.m_buf.getInt(position + ENTRY_HEADER_ENTRY_ID_OFFSET);
+                final char flags = window.m_buf.getChar(position + ENTRY_HEADER_FLAG_OFFSET);
+
+                if (length < 1 || length > PBDSegment.CHUNK_SIZE - PBDSegment.SEGMENT_HEADER_BYTES) {
+                    handleCorruptHeader("File corruption detected in " + m_file.getName() + ": invalid entry length.",
+                            false);
+                }
+                if (entryId != m_segmentRandomId + m_objectReadIndex + 1) {
+                    handleCorruptHeader("File corruption detected in " + m_file.getName() + ": invalid entry id.",
+                            false);
+                }
+
+                if (position + ENTRY_HEADER_BYTES + length > window.m_buf.capacity()) {
+                    MappedWindow entryWindow = retainWindow(fc, offset, ENTRY_HEADER_BYTES + length);
+                    window.release();
+                    window = entryWindow;
+                    position = 0;
+                }
+                final ByteBuffer entry = window.m_buf.duplicate();
+                entry.limit(position + ENTRY_HEADER_BYTES + length).position(position + ENTRY_HEADER_BYTES);
+
+                final int uncompressedLen;
+                final DBBPool.BBContainer retcont;
+                if ((flags & FLAG_COMPRESSED) != 0) {
+                    uncompressedLen = CompressionService.uncompressedLength(entry.duplicate());
+                    retcont = factory.getContainer(uncompressedLen);
+                    try {
+                        retcont.b().limit(uncompressedLen);
+                        CompressionService.decompressBuffer(entry, retcont.b());
+                    } catch (Throwable t) {
+                        retcont.discard();
+                        throw t;
+                    }
+                } else {
+                    uncompressedLen = length;
+                    retcont = window.slice(entry.slice());
+                }
+
+                m_readOffset = offset + ENTRY_HEADER_BYTES + length;
+                m_bytesRead += uncompressedLen;
+                m_objectReadIndex++;
+
+                return countDiscard(retcont);
             } finally {
-                m_readOffset = m_fc.position();
-                m_fc.position(writePos);
+                window.release();
+            }
+        }
+
+        /**
+         * Get a window which maps at least {@code length} bytes of the file starting at {@code offset}, mapping a
+         * new one if the current window does not cover them. The caller must release the returned window.
+         */
+        private synchronized MappedWindow retainWindow(FileChannelWrapper fc, long offset, int length)
+                throws IOException {
+            if (m_window == null || offset < m_window.m_start
+                    || offset + length > m_window.m_start + m_window.m_buf.capacity()) {
+                final long size = Math.min(Math.max(MMAP_WINDOW_BYTES, length), fc.size() - offset);
+                if (size < length) {
+                    throw new EOFException("EOF encountered reading " + m_file + " at position " + offset
+                            + " expected to be able to read " + length + " more bytes");
+                }
+                releaseWindow();
+                m_window = new MappedWindow(offset, fc.map(FileChannel.MapMode.READ_ONLY, offset, size));
             }
+            m_window.retain();
+            return m_window;
+        }
+
+        synchronized void releaseWindow() {
+            if (m_window != null) {
+                m_window.release();
+                m_window = null;
+            }
+        }
+
+        private DBBPool.BBContainer countDiscard(DBBPool.BBContainer retcont) {
+            return new DBBPool.DBBDelegateContainer(retcont) {
+                private boolean m_discarded = false;
+
+                @Override
+                public void discard() {
+                    checkDoubleFree();
+                    if (m_discarded) {
+                        m_usageSpecificLog.error("PBD Container discarded more than once");
+                        return;
+                    }
+
+                    m_discarded = true;
+                    super.discard();
+                    m_discardCount++;
+                }
+            };
         }
 
         private void handleCorruptHeader(String message, boolean canTruncate) throws IOException {
@@ -921,12 +1050,10 @@ class PBDRegularSegment extends PBDSegment {
             }
         }
 
-        private boolean fillBuffer(ByteBuffer entry, int entryId, char flags, int crc, boolean checkCrc)
-                throws IOException {
+        private boolean fillBuffer(FileChannel fc, ByteBuffer entry, long offset, int entryId, char flags, int crc,
+                boolean checkCrc) throws IOException {
             int origPosition = entry.position();
-            if (!read(entry)) {
-                return false;
-            }
+            read(fc, entry, offset);
 
             entry.position(origPosition);
 
@@ -944,19 +1071,24 @@ class PBDRegularSegment extends PBDSegment {
             return true;
         }
 
-        private boolean read(ByteBuffer buffer) throws IOException {
+        /**
+         * Fill the remaining space of buffer from the segment file starting at offset
+         * @return the offset following the bytes read
+         */
+        private long read(FileChannel fc, ByteBuffer buffer, long offset) throws IOException {
             do {
                 try {
-                    int read = m_fc.read(buffer);
+                    int read = fc.read(buffer, offset);
                     if (read == -1) {
-                        throw new EOFException("EOF encountered reading " + m_file + " at position " + m_fc.position()
+                        throw new EOFException("EOF encountered reading " + m_file + " at position " + offset
                                 + " expected to be able to read " + buffer.remaining() + " more bytes");
                     }
+                    offset += read;
                 } catch (IOException e) {
                     throw new IOException("Error encountered reading: " + m_file, e);
                 }
             } while (buffer.hasRemaining());
-            return true;
+            return offset;
         }
 
         private void truncateToCurrentReadIndex() throws IOException {
@@ -1033,6 +1165,7 @@ class PBDRegularSegment extends PBDSegment {
 
         private void close(boolean keep) throws IOException {
             m_readerClosed = true;
+            releaseWindow();
             m_readCursors.remove(m_cursorId);
             if (keep) {
                 m_closedCursors.put(m_cursorId, this);
@@ -1060,6 +1193,47 @@ class PBDRegularSegment extends PBDSegment {
         }
     }
 
+    /**
+     * A region of a segment file mapped by a reader. The mapping is released once the reader has moved past it and
+     * all of the entries handed out from it have been discarded.
+     */
+    private static class MappedWindow {
+        final long m_start;
+        final ByteBuffer m_buf;
+        private final DBBPool.BBContainer m_mapping;
+        // The reader holds one reference as long as this is its current window
+        private int m_refs = 1;
+
+        MappedWindow(long start, MappedByteBuffer buf) {
+            m_start = start;
+            m_buf = buf;
+            m_mapping = DBBPool.wrapMBB(buf);
+        }
+
+        synchronized void retain() {
+            assert m_refs > 0;
+            m_refs++;
+        }
+
+        synchronized void release() {
+            assert m_refs > 0;
+            if (--m_refs == 0) {
+                m_mapping.discard();
+            }
+        }
+
+        DBBPool.BBContainer slice(ByteBuffer entry) {
+            retain();
+            return new DBBPool.BBContainer(entry) {
+                @Override
+                public void discard() {
+                    checkDoubleFree();
+                    release();
+                }
+            };
+        }
+    }
+
     /**
      * A simple delegation wrapper around a {@link FileChannel} which tracks whether or not any exceptions were thrown
      * by the delegate
@@ -132,10 +132,26 @@ public abstract class PBDSegment {
 
     abstract boolean hasAllFinishedReading() throws IOException;
 
+    /**
+     * Write an entry after the last one. Readers do not see it, and it is not counted in
+     * {@link #getNumEntries()} or {@link #size()}, until {@link #publishOffered()} is called.
+     *
+     * @return false if the entry does not fit in this segment
+     */
     abstract boolean offer(DBBPool.BBContainer cont) throws IOException;
 
+    /**
+     * Write an entry after the last one, see {@link #offer(DBBPool.BBContainer)}.
+     *
+     * @return the number of bytes written or -1 if the entry does not fit in this segment
+     */
     abstract int offer(DeferredSerialization ds) throws IOException;
 
+    /**
+     * Make the entries offered since the last call visible to readers and update the segment header
+     */
+    abstract void publishOffered() throws IOException;
+
     // TODO: javadoc
     abstract int size();
 
@@ -99,6 +99,11 @@ class PbdQuarantinedSegment extends PBDSegment {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    void publishOffered() {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     int size() {
         return 0;
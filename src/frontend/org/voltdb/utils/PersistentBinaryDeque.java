@@ -78,8 +78,10 @@ public class PersistentBinaryDeque implements BinaryDeque {
     }
 
     /**
-     * Used to read entries from the PBD. Multiple readers may be active at the same time,
-     * but only one read or write may happen concurrently.
+     * Used to read entries from the PBD. Multiple readers may be active at the same time. Entries of sealed
+     * segments, those which are no longer the tail being written to, are read outside of the deque monitor so
+     * that readers do not block each other or the writer. The tail segment is only read while holding the monitor,
+     * which the writer takes to publish an entry or to replace the tail, but not to write the entry.
      */
     private class ReadCursor implements BinaryDequeReader {
         private final String m_cursorId;
@@ -91,6 +93,11 @@ public class PersistentBinaryDeque implements BinaryDeque {
         // If a rewind occurred this is set to the segment id where this cursor was before the rewind
         private long m_rewoundFromId = -1;
         private boolean m_cursorClosed = false;
+        // Serializes the operations which move this cursor. Always acquired before the deque monitor
+        private final Object m_pollLock = new Object();
+        // Set while an entry is read outside of the deque monitor, the segment reader is ahead of m_numRead.
+        // Closing the cursor or the PBD waits for it to be cleared
+        private boolean m_pollInProgress = false;
 
         public ReadCursor(String cursorId, int numObjectsDeleted) {
             m_cursorId = cursorId;
@@ -99,71 +106,126 @@ public class PersistentBinaryDeque implements BinaryDeque {
 
         @Override
         public BBContainer poll(OutputContainerFactory ocf) throws IOException {
-            synchronized (PersistentBinaryDeque.this) {
-                if (m_cursorClosed) {
-                    throw new IOException("PBD.ReadCursor.poll(): " + m_cursorId + " - Reader has been closed");
-                }
-                assertions();
+            synchronized (m_pollLock) {
+                final PBDSegment segment;
+                final PBDSegmentReader segmentReader;
+                synchronized (PersistentBinaryDeque.this) {
+                    if (m_cursorClosed) {
+                        throw new IOException("PBD.ReadCursor.poll(): " + m_cursorId + " - Reader has been closed");
+                    }
+                    assertions();
 
-                moveToValidSegment();
-                PBDSegmentReader segmentReader = m_segment.getReader(m_cursorId);
-                if (segmentReader == null) {
-                    segmentReader = m_segment.openForRead(m_cursorId);
-                }
-                long lastSegmentId = peekLastSegment().segmentIndex();
-                while (!segmentReader.hasMoreEntries()) {
-                    if (m_segment.segmentIndex() == lastSegmentId) { // nothing more to read
+                    segmentReader = moveToEntryToRead();
+                    if (segmentReader == null) {
                         return null;
                     }
+                    segment = m_segment;
+                    if (segment == peekLastSegment()) {
+                        // The writer may publish entries or seal the tail segment so read it while holding the monitor
+                        return pollCompleted(segment, segmentReader, segmentReader.poll(ocf));
+                    }
+                    m_pollInProgress = true;
+                }
 
-                    segmentReader.close();
-                    m_segment = m_segments.higherEntry(m_segment.segmentIndex()).getValue();
-                    // push to PBD will rewind cursors. So, this cursor may have already opened this segment
-                    segmentReader = m_segment.getReader(m_cursorId);
-                    if (segmentReader == null) {
-                        segmentReader = m_segment.openForRead(m_cursorId);
+                // Sealed segments are not modified until every cursor has read them so only this cursor's
+                // segment reader changes while the entry is read
+                BBContainer retcont;
+                try {
+                    retcont = segmentReader.poll(ocf);
+                } catch (Throwable t) {
+                    synchronized (PersistentBinaryDeque.this) {
+                        pollFinished();
                     }
+                    throw t;
                 }
-                BBContainer retcont = segmentReader.poll(ocf);
-                if (retcont == null) {
+                synchronized (PersistentBinaryDeque.this) {
+                    pollFinished();
+                    if (m_cursorClosed) {
+                        if (retcont != null) {
+                            retcont.discard();
+                        }
+                        throw new IOException("PBD.ReadCursor.poll(): " + m_cursorId + " - Reader has been closed");
+                    }
+                    return pollCompleted(segment, segmentReader, retcont);
+                }
+            }
+        }
+
+        // Called while holding the deque monitor. Wakes up anyone waiting to close the segment that was read
+        private void pollFinished() {
+            m_pollInProgress = false;
+            PersistentBinaryDeque.this.notifyAll();
+        }
+
+        /**
+         * Advance this cursor to the segment holding the next entry to read.
+         * @return The reader of that segment or {@code null} if there is nothing more to read
+         */
+        private PBDSegmentReader moveToEntryToRead() throws IOException {
+            moveToValidSegment();
+            PBDSegmentReader segmentReader = m_segment.getReader(m_cursorId);
+            // push to PBD will rewind cursors. So, this cursor may have already opened this segment
+            if (segmentReader == null) {
+                segmentReader = m_segment.openForRead(m_cursorId);
+            }
+            long lastSegmentId = peekLastSegment().segmentIndex();
+            while (!segmentReader.hasMoreEntries()) {
+                if (m_segment.segmentIndex() == lastSegmentId) { // nothing more to read
                     return null;
                 }
 
-                m_numRead++;
-                assertions();
-                assert (retcont.b() != null);
-                return wrapRetCont(m_segment, segmentReader.readIndex(), retcont);
+                segmentReader.close();
+                m_segment = m_segments.higherEntry(m_segment.segmentIndex()).getValue();
+                // push to PBD will rewind cursors. So, this cursor may have already opened this segment
+                segmentReader = m_segment.getReader(m_cursorId);
+                if (segmentReader == null) {
+                    segmentReader = m_segment.openForRead(m_cursorId);
+                }
             }
+            return segmentReader;
+        }
+
+        private BBContainer pollCompleted(PBDSegment segment, PBDSegmentReader segmentReader, BBContainer retcont) {
+            if (retcont == null) {
+                return null;
+            }
+
+            m_numRead++;
+            assertions();
+            assert (retcont.b() != null);
+            return wrapRetCont(segment, segmentReader.readIndex(), retcont);
         }
 
         @Override
         public BBContainer getExtraHeader(long segmentIndex) throws IOException {
-            synchronized (PersistentBinaryDeque.this) {
-                if (m_cursorClosed) {
-                    throw new IOException("PBD.ReadCursor.poll(): " + m_cursorId + " - Reader has been closed");
-                }
-                PBDSegmentReader segmentReader = null;
-                PBDSegment segment = null;
-                moveToValidSegment();
-                if (segmentIndex != -1) {
-                    // looking for schema from a specific segment
-                    segment = m_segments.get(segmentIndex);
-                    if (segment == null) {
-                        return null;
+            synchronized (m_pollLock) {
+                synchronized (PersistentBinaryDeque.this) {
+                    if (m_cursorClosed) {
+                        throw new IOException("PBD.ReadCursor.poll(): " + m_cursorId + " - Reader has been closed");
+                    }
+                    PBDSegmentReader segmentReader = null;
+                    PBDSegment segment = null;
+                    moveToValidSegment();
+                    if (segmentIndex != -1) {
+                        // looking for schema from a specific segment
+                        segment = m_segments.get(segmentIndex);
+                        if (segment == null) {
+                            return null;
+                        }
+                    } else {
+                        // looking for schema from the segment that cursor is currently reading on
+                        segment = m_segment;
                     }
-                } else {
-                    // looking for schema from the segment that cursor is currently reading on
-                    segment = m_segment;
-                }
 
-                segmentReader = segment.getReader(m_cursorId);
-                if (segmentReader == null) {
-                    segmentReader = segment.openForRead(m_cursorId);
-                } else if (segmentReader.isClosed()) {
-                    segmentReader.reopen();
+                    segmentReader = segment.getReader(m_cursorId);
+                    if (segmentReader == null) {
+                        segmentReader = segment.openForRead(m_cursorId);
+                    } else if (segmentReader.isClosed()) {
+                        segmentReader.reopen();
+                    }
+                    // need to restore the read offset
+                    return segmentReader.getExtraHeader();
                 }
-                // need to restore the read offset
-                return segmentReader.getExtraHeader();
             }
         }
 
@@ -291,35 +353,15 @@ public class PersistentBinaryDeque implements BinaryDeque {
 
         @Override
         public boolean isStartOfSegment() throws IOException {
-            synchronized(PersistentBinaryDeque.this) {
-                if (m_cursorClosed) {
-                    throw new IOException("Cannot call isStartOfSegment: PBD has been closed");
-                }
-                assertions();
-                moveToValidSegment();
-                PBDSegmentReader segmentReader = m_segment.getReader(m_cursorId);
-                // push to PBD will rewind cursors. So, this cursor may have already opened this segment
-                if (segmentReader == null) {
-                    segmentReader = m_segment.openForRead(m_cursorId);
-                }
-                long lastSegmentId = peekLastSegment().segmentIndex();
-                while (!segmentReader.hasMoreEntries()) {
-                    if (m_segment.segmentIndex() == lastSegmentId) { // nothing more to read
-                        return false;
+            synchronized (m_pollLock) {
+                synchronized (PersistentBinaryDeque.this) {
+                    if (m_cursorClosed) {
+                        throw new IOException("Cannot call isStartOfSegment: PBD has been closed");
                     }
-
-                    segmentReader.close();
-                    m_segment = m_segments.higherEntry(m_segment.segmentIndex()).getValue();
-                    // push to PBD will rewind cursors. So, this cursor may have already opened this segment
-                    segmentReader = m_segment.getReader(m_cursorId);
-                    if (segmentReader == null) {
-                        segmentReader = m_segment.openForRead(m_cursorId);
-                    }
-                }
-                if (segmentReader.readIndex() == 0) {
-                    return true;
+                    assertions();
+                    PBDSegmentReader segmentReader = moveToEntryToRead();
+                    return segmentReader != null && segmentReader.readIndex() == 0;
                 }
-                return false;
             }
         }
 
@@ -376,6 +418,10 @@ public class PersistentBinaryDeque implements BinaryDeque {
 
     private DeferredSerialization m_extraHeader;
 
+    // Serializes the operations which write to segments. Always acquired before the deque monitor. Entries are
+    // written to the tail segment while holding only this lock, so appends do not wait for readers of the tail
+    private final Object m_appendLock = new Object();
+
     /**
      * Create a persistent binary deque with the specified nonce and storage
      * back at the specified path.
@@ -711,7 +757,15 @@ public class PersistentBinaryDeque implements BinaryDeque {
     }
 
     @Override
-    public synchronized void parseAndTruncate(BinaryDequeTruncator truncator) throws IOException {
+    public void parseAndTruncate(BinaryDequeTruncator truncator) throws IOException {
+        synchronized (m_appendLock) {
+            synchronized (this) {
+                parseAndTruncateLocked(truncator);
+            }
+        }
+    }
+
+    private void parseAndTruncateLocked(BinaryDequeTruncator truncator) throws IOException {
         if (m_closed) {
             throw new IOException("Cannot parseAndTruncate(): PBD has been closed");
         }
@@ -854,48 +908,70 @@ public class PersistentBinaryDeque implements BinaryDeque {
 
     @Override
     public void updateExtraHeader(DeferredSerialization extraHeaderSerializer) throws IOException {
-        m_extraHeader = extraHeaderSerializer;
-        addSegment(peekLastSegment());
+        synchronized (m_appendLock) {
+            synchronized (this) {
+                m_extraHeader = extraHeaderSerializer;
+                addSegment(peekLastSegment());
+            }
+        }
     }
 
+    /*
+     * The entry is written to the tail segment while holding only m_appendLock. Readers of the tail hold the
+     * monitor and only see the entry once it is published, so the monitor is only taken to look up the tail,
+     * to replace a full tail and to publish the entry.
+     */
     @Override
-    public synchronized void offer(BBContainer object) throws IOException {
-        assertions();
-        if (m_closed) {
-            throw new IOException("Closed");
+    public void offer(BBContainer object) throws IOException {
+        synchronized (m_appendLock) {
+            PBDSegment tail = getTail("offer");
+            if (!tail.offer(object)) {
+                tail = addSegment(tail, "offer");
+                final boolean success = tail.offer(object);
+                if (!success) {
+                    throw new IOException("Failed to offer object in PBD");
+                }
+            }
+            publishOffered(tail);
         }
+    }
 
-        PBDSegment tail = peekLastSegment();
-        if (!tail.offer(object)) {
-            tail = addSegment(tail);
-            final boolean success = tail.offer(object);
-            if (!success) {
-                throw new IOException("Failed to offer object in PBD");
+    @Override
+    public int offer(DeferredSerialization ds) throws IOException {
+        synchronized (m_appendLock) {
+            PBDSegment tail = getTail("offer");
+            int written = tail.offer(ds);
+            if (written < 0) {
+                tail = addSegment(tail, "offer");
+                written = tail.offer(ds);
+                if (written < 0) {
+                    throw new IOException("Failed to offer object in PBD");
+                }
             }
+            publishOffered(tail);
+            return written;
         }
-        m_numObjects++;
-        assertions();
     }
 
-    @Override
-    public synchronized int offer(DeferredSerialization ds) throws IOException {
+    private synchronized PBDSegment getTail(String operation) throws IOException {
         assertions();
         if (m_closed) {
-            throw new IOException("Cannot offer(): PBD has been Closed");
+            throw new IOException("Cannot " + operation + "(): PBD has been Closed");
         }
+        return peekLastSegment();
+    }
 
-        PBDSegment tail = peekLastSegment();
-        int written = tail.offer(ds);
-        if (written < 0) {
-            tail = addSegment(tail);
-            written = tail.offer(ds);
-            if (written < 0) {
-                throw new IOException("Failed to offer object in PBD");
-            }
+    private synchronized PBDSegment addSegment(PBDSegment tail, String operation) throws IOException {
+        if (m_closed) {
+            throw new IOException("Cannot " + operation + "(): PBD has been Closed");
         }
+        return addSegment(tail);
+    }
+
+    private synchronized void publishOffered(PBDSegment tail) throws IOException {
+        tail.publishOffered();
         m_numObjects++;
         assertions();
-        return written;
     }
 
     private PBDSegment addSegment(PBDSegment tail) throws IOException {
@@ -928,7 +1004,15 @@ public class PersistentBinaryDeque implements BinaryDeque {
     }
 
     @Override
-    public synchronized void push(BBContainer objects[], DeferredSerialization ds) throws IOException {
+    public void push(BBContainer objects[], DeferredSerialization ds) throws IOException {
+        synchronized (m_appendLock) {
+            synchronized (this) {
+                pushLocked(objects, ds);
+            }
+        }
+    }
+
+    private void pushLocked(BBContainer objects[], DeferredSerialization ds) throws IOException {
         assertions();
         if (m_closed) {
             throw new IOException("Cannot push(): PBD has been Closed");
@@ -987,6 +1071,7 @@ public class PersistentBinaryDeque implements BinaryDeque {
                 writeSegment.offer(currentSegmentContents.pollFirst());
                 m_numObjects++;
             }
+            writeSegment.publishOffered();
 
             // If this segment is to become the writing segment, don't close and
             // finalize it.
@@ -1033,10 +1118,16 @@ public class PersistentBinaryDeque implements BinaryDeque {
         if (m_closed) {
             return;
         }
-        ReadCursor reader = m_readCursors.remove(cursorId);
+        ReadCursor reader = m_readCursors.get(cursorId);
         if (reader == null) {
             return;
         }
+        // The monitor is released while waiting so the cursor may have been closed by someone else in the meantime
+        waitForPollsInProgress(reader);
+        if (m_closed || m_readCursors.get(cursorId) != reader) {
+            return;
+        }
+        m_readCursors.remove(cursorId);
         reader.close();
 
         // check all segments from latest to oldest to see if segments before that segment can be deleted
@@ -1062,6 +1153,36 @@ public class PersistentBinaryDeque implements BinaryDeque {
         }
     }
 
+    /**
+     * Entries of sealed segments are read outside of the monitor, so wait for those reads to complete before the
+     * segments or readers they use are closed. Must be called while holding the monitor, which is released while
+     * waiting.
+     *
+     * @param cursor The cursor to wait for or {@code null} to wait until no cursor has a read in progress
+     */
+    private void waitForPollsInProgress(ReadCursor cursor) {
+        boolean interrupted = false;
+        while (cursor == null ? anyPollInProgress() : cursor.m_pollInProgress) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean anyPollInProgress() {
+        for (ReadCursor cursor : m_readCursors.values()) {
+            if (cursor.m_pollInProgress) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean canDeleteSegmentsBefore(PBDSegment segment) {
         for (ReadCursor cursor : m_readCursors.values()) {
             if (cursor.m_segment == null) {
@@ -1098,7 +1219,9 @@ public class PersistentBinaryDeque implements BinaryDeque {
 
     @Override
     public void close() throws IOException {
-        close(false);
+        synchronized (m_appendLock) {
+            close(false);
+        }
     }
 
     @Override
@@ -1114,10 +1237,17 @@ public class PersistentBinaryDeque implements BinaryDeque {
 
     @Override
     public void closeAndDelete() throws IOException {
-        close(true);
+        synchronized (m_appendLock) {
+            close(true);
+        }
     }
 
     private synchronized void close(boolean delete) throws IOException {
+        if (m_closed) {
+            return;
+        }
+        // The monitor is released while waiting so the PBD may have been closed by someone else in the meantime
+        waitForPollsInProgress(null);
         if (m_closed) {
             return;
         }
@@ -1227,6 +1357,9 @@ public class PersistentBinaryDeque implements BinaryDeque {
             return;
         }
         for (ReadCursor cursor : m_readCursors.values()) {
+            if (cursor.m_pollInProgress) {
+                continue;
+            }
             int numObjects = 0;
             try {
                 for (PBDSegment segment : m_segments.values()) {
@@ -31,11 +31,11 @@
 package org.hsqldb_voltpatches;
 
 import java.sql.Timestamp;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.hsqldb_voltpatches.types.Type;
 import org.voltcore.logging.VoltLogger;
@@ -432,14 +432,17 @@ public class FunctionForVoltDB extends FunctionSQL {
                     noParamList),
         };
 
+        // The planners of the ad hoc planner pool look functions up concurrently, so the
+        // lookup tables are concurrent maps. The user defined functions are only changed
+        // under the FunctionForVoltDB class lock, like in registerTokenForUDF.
         /**
          * This is the lookup table for permanently defined SQL functions.
          */
-        private static Map<String, FunctionDescriptor> m_by_LC_name = new HashMap<>();
+        private static final Map<String, FunctionDescriptor> m_by_LC_name = new ConcurrentHashMap<>();
         /**
          * This is the lookup table for user defined SQL functions.
          */
-        private static Map<String, FunctionDescriptor> m_defined_functions = new HashMap<>();
+        private static volatile Map<String, FunctionDescriptor> m_defined_functions = new ConcurrentHashMap<>();
         /**
          * This is a saved set of user defined SQL functions.
          * <ol>
@@ -454,7 +457,7 @@ public class FunctionForVoltDB extends FunctionSQL {
          *       function definitions.  So, we clear the m_saved_functions.<li>
          * </ol>
          */
-        private static Map<String, FunctionDescriptor> m_saved_functions = new HashMap<>();
+        private static volatile Map<String, FunctionDescriptor> m_saved_functions = new ConcurrentHashMap<>();
         static {
             // These are all permanent, SQL defined functions.  So, they go
             // into m_by_LC_name
@@ -494,17 +497,17 @@ public class FunctionForVoltDB extends FunctionSQL {
         }
 
         public static void clearSavedFunctions() {
-            m_saved_functions = new HashMap<>();
+            m_saved_functions = new ConcurrentHashMap<>();
         }
 
         public static void restoreSavedFunctions() {
             m_defined_functions = m_saved_functions;
-            m_saved_functions = new HashMap<>();
+            m_saved_functions = new ConcurrentHashMap<>();
         }
 
         public static void saveDefinedFunctions() {
             m_saved_functions = m_defined_functions;
-            m_defined_functions = new HashMap<>();
+            m_defined_functions = new ConcurrentHashMap<>();
         }
 
     }
@@ -903,7 +906,7 @@ public class FunctionForVoltDB extends FunctionSQL {
     // This is the unique sequential UDF Id we assign to every UDF defined by the user.
     private static int m_udfSeqId = FunctionDescriptor.FUNC_VOLT_UDF_ID_START;
 
-    public static int getNextFunctionId() {
+    public static synchronized int getNextFunctionId() {
         return m_udfSeqId++;
     }
 
@@ -911,7 +914,7 @@ public class FunctionForVoltDB extends FunctionSQL {
      * Remove one user defined function.
      * @param functionName
      */
-    public static void deregisterUserDefinedFunction(String functionName) {
+    public static synchronized void deregisterUserDefinedFunction(String functionName) {
         FunctionDescriptor.removeOneDefinedFunction(functionName);
     }
 
@@ -1131,7 +1134,7 @@ public class FunctionForVoltDB extends FunctionSQL {
     /**
      * Save all the user defined functions.
      */
-    public static void saveDefinedFunctions() {
+    public static synchronized void saveDefinedFunctions() {
         FunctionDescriptor.saveDefinedFunctions();
     }
 
@@ -1139,7 +1142,7 @@ public class FunctionForVoltDB extends FunctionSQL {
      * Restore the saved user defined functions.  This happens
      * when a procedure compilation fails.
      */
-    public static void restoreSavedFunctions() {
+    public static synchronized void restoreSavedFunctions() {
         FunctionDescriptor.restoreSavedFunctions();
     }
 
@@ -1148,7 +1151,7 @@ public class FunctionForVoltDB extends FunctionSQL {
      * when all procedure compilations complete, and we are committed
      * to a new catalog.
      */
-    public static void clearSavedFunctions() {
+    public static synchronized void clearSavedFunctions() {
         FunctionDescriptor.clearSavedFunctions();
     }
 }
@@ -0,0 +1,175 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.DefaultSnapshotDataTarget;
+import org.voltdb.SnapshotSiteProcessor;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.sysprocs.saverestore.TableSaveFile;
+import org.voltdb.sysprocs.saverestore.TableSaveFileQueue;
+
+import com.google_voltpatches.common.util.concurrent.Callables;
+
+/**
+ * Measures the throughput of the snapshot restore read path as the number of save files
+ * read concurrently grows. One table is written as one save file per original host, then
+ * drained through a TableSaveFileQueue by one consumer per site, the same way the sites
+ * of a host share the files while @SnapshotRestore distributes a table.
+ *
+ * Usage: SnapshotRestoreBench [directory] [files] [megabytes per file] [sites]
+ *
+ * The files are read back from the page cache unless it is dropped between runs, so
+ * the numbers mostly reflect the CRC and decompression work that is spread over the readers.
+ */
+public class SnapshotRestoreBench {
+
+    public static void main(String[] args) throws Exception {
+        final File dir = new File(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir"), "snapshotrestorebench");
+        final int files = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        final int megabytesPerFile = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        final int sites = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        dir.mkdirs();
+
+        final List<File> saveFiles = writeFiles(dir, files, megabytesPerFile);
+        long bytes = 0;
+        for (File f : saveFiles) {
+            bytes += f.length();
+        }
+        System.out.printf("%d files, %d MB per file, %d sites%n", files, megabytesPerFile, sites);
+        for (int readers = 1; readers <= files; readers *= 2) {
+            runTest(saveFiles, bytes, readers, sites);
+        }
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+        System.exit(0);
+    }
+
+    /*
+     * Half random, half repeated bytes so decompression has about as much work
+     * as it does with typical table data
+     */
+    private static byte[] makeChunk(Random r) {
+        byte chunk[] = new byte[SnapshotSiteProcessor.m_snapshotBufferLength - 4];
+        for (int ii = 0; ii < chunk.length; ii += 64) {
+            if ((ii / 64) % 2 == 0) {
+                for (int jj = ii; jj < Math.min(ii + 64, chunk.length); jj++) {
+                    chunk[jj] = (byte)r.nextInt();
+                }
+            } else {
+                Arrays.fill(chunk, ii, Math.min(ii + 64, chunk.length), (byte)ii);
+            }
+        }
+        return chunk;
+    }
+
+    private static List<File> writeFiles(File dir, int files, int megabytesPerFile) throws Exception {
+        final VoltTable schema = new VoltTable(new VoltTable.ColumnInfo("A", VoltType.BIGINT));
+        final byte chunk[] = makeChunk(new Random(0));
+        final int chunksPerFile = Math.max(1, (megabytesPerFile * 1024 * 1024) / chunk.length);
+
+        final List<File> saveFiles = new ArrayList<File>();
+        for (int ii = 0; ii < files; ii++) {
+            final File f = new File(dir, "TABLE-host_" + ii + ".vpt");
+            final DefaultSnapshotDataTarget target = new DefaultSnapshotDataTarget(
+                    f, ii, "cluster", "database", "TABLE", files, false,
+                    Arrays.asList(ii), schema, 0, System.currentTimeMillis());
+            final List<Future<?>> writes = new ArrayList<Future<?>>();
+            for (int jj = 0; jj < chunksPerFile; jj++) {
+                BBContainer cont = DBBPool.allocateDirectAndPool(SnapshotSiteProcessor.m_snapshotBufferLength);
+                ByteBuffer b = cont.b();
+                b.clear();
+                b.putInt(ii);
+                b.put(chunk);
+                b.flip();
+                writes.add(target.write(Callables.returning(cont), 0));
+            }
+            for (Future<?> w : writes) {
+                w.get();
+            }
+            target.close();
+            saveFiles.add(f);
+        }
+        return saveFiles;
+    }
+
+    private static void runTest(List<File> saveFiles, long bytes, int readers, int sites) throws Exception {
+        final TableSaveFileQueue queue = new TableSaveFileQueue(readers);
+        for (File f : saveFiles) {
+            queue.offer(new TableSaveFile(new FileInputStream(f), Math.max(2, (sites * 2) / readers), null));
+        }
+        final AtomicLong chunks = new AtomicLong();
+
+        final ExecutorService es = Executors.newFixedThreadPool(sites);
+        final long start = System.nanoTime();
+        queue.startReading();
+        final List<Future<?>> consumers = new ArrayList<Future<?>>();
+        for (int ii = 0; ii < sites; ii++) {
+            consumers.add(es.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    while (true) {
+                        final BBContainer c;
+                        synchronized (queue) {
+                            if (!queue.hasMoreChunks()) {
+                                return null;
+                            }
+                            c = queue.getNextChunk();
+                        }
+                        if (c == null) {
+                            return null;
+                        }
+                        chunks.incrementAndGet();
+                        c.discard();
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : consumers) {
+            f.get();
+        }
+        final double seconds = (System.nanoTime() - start) / 1000000000.0;
+        es.shutdown();
+        queue.closeAll();
+
+        final double rawMegabytes = ((double)chunks.get() * SnapshotSiteProcessor.m_snapshotBufferLength) / (1024 * 1024);
+        System.out.printf("%3d readers: %8.1f MB/s table data, %8.1f MB/s read from disk, %.2fs%n",
+                readers, rawMegabytes / seconds, (bytes / (1024.0 * 1024.0)) / seconds, seconds);
+    }
+}
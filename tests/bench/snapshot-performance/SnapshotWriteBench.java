@@ -0,0 +1,148 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.DefaultSnapshotDataTarget;
+import org.voltdb.SnapshotSiteProcessor;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+
+import com.google_voltpatches.common.util.concurrent.Callables;
+
+/**
+ * Measures the throughput of the native snapshot write path as the number of sites
+ * writing concurrently grows. Each simulated site owns one DefaultSnapshotDataTarget
+ * and pushes snapshot sized chunks through it, the same way SnapshotSiteProcessor does.
+ *
+ * Usage: SnapshotWriteBench [directory] [max sites] [megabytes per site]
+ *
+ * Run it with different -DSNAPSHOT_WRITER_THREADS and -DSNAPSHOT_INFLIGHT_BUFFER_MB
+ * values to compare write pipeline configurations.
+ */
+public class SnapshotWriteBench {
+
+    public static void main(String[] args) throws Exception {
+        final File dir = new File(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir"), "snapshotwritebench");
+        final int maxSites = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        final int megabytesPerSite = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        dir.mkdirs();
+
+        System.out.printf("Writer threads %d, in-flight budget %d MB, %d MB per site%n",
+                DefaultSnapshotDataTarget.SNAPSHOT_WRITER_THREADS,
+                DefaultSnapshotDataTarget.SNAPSHOT_INFLIGHT_BUFFER_MEGABYTES,
+                megabytesPerSite);
+        for (int sites = 1; sites <= maxSites; sites *= 2) {
+            runTest(dir, sites, megabytesPerSite);
+        }
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+        System.exit(0);
+    }
+
+    /*
+     * Half random, half repeated bytes so compression has about as much work
+     * as it does with typical table data
+     */
+    private static byte[] makeChunk(Random r) {
+        byte chunk[] = new byte[SnapshotSiteProcessor.m_snapshotBufferLength - 4];
+        for (int ii = 0; ii < chunk.length; ii += 64) {
+            if ((ii / 64) % 2 == 0) {
+                for (int jj = ii; jj < Math.min(ii + 64, chunk.length); jj++) {
+                    chunk[jj] = (byte)r.nextInt();
+                }
+            } else {
+                Arrays.fill(chunk, ii, Math.min(ii + 64, chunk.length), (byte)ii);
+            }
+        }
+        return chunk;
+    }
+
+    private static void runTest(File dir, int sites, int megabytesPerSite) throws Exception {
+        final VoltTable schema = new VoltTable(new VoltTable.ColumnInfo("A", VoltType.BIGINT));
+        final byte chunk[] = makeChunk(new Random(0));
+        final int chunksPerSite = Math.max(1, (megabytesPerSite * 1024 * 1024) / chunk.length);
+
+        final List<DefaultSnapshotDataTarget> targets = new ArrayList<DefaultSnapshotDataTarget>();
+        for (int ii = 0; ii < sites; ii++) {
+            targets.add(new DefaultSnapshotDataTarget(
+                    new File(dir, "TABLE-host_0-site_" + ii + ".vpt"),
+                    0, "cluster", "database", "TABLE", sites, false,
+                    Arrays.asList(ii), schema, 0, System.currentTimeMillis()));
+        }
+
+        final ExecutorService es = Executors.newFixedThreadPool(sites);
+        final long start = System.nanoTime();
+        final List<Future<?>> producers = new ArrayList<Future<?>>();
+        for (int ii = 0; ii < sites; ii++) {
+            final int partitionId = ii;
+            final DefaultSnapshotDataTarget target = targets.get(ii);
+            producers.add(es.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    List<Future<?>> writes = new ArrayList<Future<?>>();
+                    for (int jj = 0; jj < chunksPerSite; jj++) {
+                        BBContainer cont = DBBPool.allocateDirectAndPool(SnapshotSiteProcessor.m_snapshotBufferLength);
+                        ByteBuffer b = cont.b();
+                        b.clear();
+                        b.putInt(partitionId);
+                        b.put(chunk);
+                        b.flip();
+                        writes.add(target.write(Callables.returning(cont), 0));
+                    }
+                    for (Future<?> f : writes) {
+                        f.get();
+                    }
+                    target.close();
+                    return null;
+                }
+            }));
+        }
+        for (Future<?> f : producers) {
+            f.get();
+        }
+        final double seconds = (System.nanoTime() - start) / 1000000000.0;
+        es.shutdown();
+
+        long written = 0;
+        for (DefaultSnapshotDataTarget target : targets) {
+            written += target.getBytesWritten();
+        }
+        final double rawMegabytes = ((double)sites * chunksPerSite * chunk.length) / (1024 * 1024);
+        System.out.printf("%3d sites: %8.1f MB/s table data, %8.1f MB/s written to disk, %.2fs%n",
+                sites, rawMegabytes / seconds, (written / (1024.0 * 1024.0)) / seconds, seconds);
+    }
+}
@@ -0,0 +1,775 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include <memory>
+#include <set>
+#include <sstream>
+#include <string>
+#include <tuple>
+
+#include <boost/optional.hpp>
+
+#include "harness.h"
+
+#include "test_utils/LargeTempTableTopend.hpp"
+#include "test_utils/Tools.hpp"
+#include "test_utils/UniqueEngine.hpp"
+
+#include "common/LargeTempTableBlockCache.h"
+#include "common/executorcontext.hpp"
+#include "execution/ExecutorVector.h"
+#include "storage/AbstractTempTable.hpp"
+#include "storage/LargeTempTableBlock.h"
+#include "storage/table.h"
+#include "storage/tableiterator.h"
+
+using namespace voltdb;
+
+// Catalog for the following DDL:
+//
+// CREATE TABLE R (ID INTEGER NOT NULL, A INTEGER, PAD VARCHAR(16 BYTES));
+// CREATE TABLE S (ID INTEGER NOT NULL, A BIGINT, PAD VARCHAR(2000 BYTES));
+// PARTITION TABLE R ON COLUMN ID;
+// PARTITION TABLE S ON COLUMN ID;
+
+const std::string catalogPayload =
+    "add / clusters cluster\n"
+    "set /clusters#cluster localepoch 0\n"
+    "set $PREV securityEnabled false\n"
+    "set $PREV httpdportno 0\n"
+    "set $PREV jsonapi false\n"
+    "set $PREV networkpartition false\n"
+    "set $PREV heartbeatTimeout 0\n"
+    "set $PREV useddlschema false\n"
+    "set $PREV drConsumerEnabled false\n"
+    "set $PREV drProducerEnabled false\n"
+    "set $PREV drRole \"\"\n"
+    "set $PREV drClusterId 0\n"
+    "set $PREV drProducerPort 0\n"
+    "set $PREV drMasterHost \"\"\n"
+    "set $PREV drConsumerSslPropertyFile \"\"\n"
+    "set $PREV drFlushInterval 0\n"
+    "set $PREV preferredSource 0\n"
+    "add /clusters#cluster databases database\n"
+    "set /clusters#cluster/databases#database schema \"oAJUNDM1MjQ1NDE1NDQ1MjA1NDQxNDI0QwUMODIyMDI4NDk0NDIwNDk0RQEiDDQ3NDUBGBA0RTRGNQEYMEU1NTRDNEMyQzIwNDFCKAAYQzIwNTA0MQFCJDU2NDE1MjQzNDgBCGAyODMxMzYyMDQyNTk1NDQ1NTMyOTI5M0IKao8AADPKjwAQMjQ5NDcJvQAybo0ACDIzMAECSpEA\"\n"
+    "set $PREV isActiveActiveDRed false\n"
+    "set $PREV securityprovider \"\"\n"
+    "add /clusters#cluster/databases#database groups administrator\n"
+    "set /clusters#cluster/databases#database/groups#administrator admin true\n"
+    "set $PREV defaultproc true\n"
+    "set $PREV defaultprocread true\n"
+    "set $PREV sql true\n"
+    "set $PREV sqlread true\n"
+    "set $PREV allproc true\n"
+    "add /clusters#cluster/databases#database groups user\n"
+    "set /clusters#cluster/databases#database/groups#user admin false\n"
+    "set $PREV defaultproc true\n"
+    "set $PREV defaultprocread true\n"
+    "set $PREV sql true\n"
+    "set $PREV sqlread true\n"
+    "set $PREV allproc true\n"
+    "add /clusters#cluster/databases#database tables R\n"
+    "set /clusters#cluster/databases#database/tables#R isreplicated false\n"
+    "set $PREV partitioncolumn /clusters#cluster/databases#database/tables#R/columns#ID\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"R|iiv\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV tableType 1\n"
+    "add /clusters#cluster/databases#database/tables#R columns A\n"
+    "set /clusters#cluster/databases#database/tables#R/columns#A index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"A\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database/tables#R columns ID\n"
+    "set /clusters#cluster/databases#database/tables#R/columns#ID index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"ID\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database/tables#R columns PAD\n"
+    "set /clusters#cluster/databases#database/tables#R/columns#PAD index 2\n"
+    "set $PREV type 9\n"
+    "set $PREV size 16\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"PAD\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes true\n"
+    "add /clusters#cluster/databases#database tables S\n"
+    "set /clusters#cluster/databases#database/tables#S isreplicated false\n"
+    "set $PREV partitioncolumn /clusters#cluster/databases#database/tables#S/columns#ID\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"S|ibv\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "set $PREV tableType 1\n"
+    "add /clusters#cluster/databases#database/tables#S columns A\n"
+    "set /clusters#cluster/databases#database/tables#S/columns#A index 1\n"
+    "set $PREV type 6\n"
+    "set $PREV size 8\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"A\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database/tables#S columns ID\n"
+    "set /clusters#cluster/databases#database/tables#S/columns#ID index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"ID\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database/tables#S columns PAD\n"
+    "set /clusters#cluster/databases#database/tables#S/columns#PAD index 2\n"
+    "set $PREV type 9\n"
+    "set $PREV size 2000\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"PAD\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes true\n";
+
+// Plans for the queries below, with both tables analyzed and R as the outer table.
+// Without hash joins the planner produces the same plans with a NESTLOOP node
+// in place of the HASHJOIN node, which ignores the hash expressions.
+
+// SELECT R.ID, R.A, S.ID, S.PAD FROM R JOIN S ON R.A = S.A;
+// HASH INNER JOIN
+//  filter by (S.A = R.A)
+//  SEQUENTIAL SCAN of "R"
+//  SEQUENTIAL SCAN of "S"
+const std::string innerJoinPlan =
+    "{\n"
+    "   \"EXECUTE_LIST\": [\n"
+    "      4,\n"
+    "      6,\n"
+    "      3,\n"
+    "      2\n"
+    "   ],\n"
+    "   \"IS_LARGE_QUERY\": false,\n"
+    "   \"PLAN_NODES\": [\n"
+    "      {\n"
+    "         \"CHILDREN_IDS\": [3],\n"
+    "         \"ID\": 2,\n"
+    "         \"OUTPUT_SCHEMA\": [\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"ID\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 0,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"A\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 1,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"ID\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 2,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"PAD\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 4,\n"
+    "                  \"IN_BYTES\": true,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_SIZE\": 2000,\n"
+    "                  \"VALUE_TYPE\": 9\n"
+    "               }\n"
+    "            }\n"
+    "         ],\n"
+    "         \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+    "      },\n"
+    "      {\n"
+    "         \"CHILDREN_IDS\": [\n"
+    "            4,\n"
+    "            6\n"
+    "         ],\n"
+    "         \"ID\": 3,\n"
+    "         \"INNER_HASH_EXPRESSIONS\": [{\n"
+    "            \"COLUMN_IDX\": 1,\n"
+    "            \"TABLE_IDX\": 1,\n"
+    "            \"TYPE\": 32,\n"
+    "            \"VALUE_TYPE\": 6\n"
+    "         }],\n"
+    "         \"JOIN_PREDICATE\": {\n"
+    "            \"LEFT\": {\n"
+    "               \"COLUMN_IDX\": 1,\n"
+    "               \"TABLE_IDX\": 1,\n"
+    "               \"TYPE\": 32,\n"
+    "               \"VALUE_TYPE\": 6\n"
+    "            },\n"
+    "            \"RIGHT\": {\n"
+    "               \"COLUMN_IDX\": 1,\n"
+    "               \"TYPE\": 32,\n"
+    "               \"VALUE_TYPE\": 5\n"
+    "            },\n"
+    "            \"TYPE\": 10,\n"
+    "            \"VALUE_TYPE\": 23\n"
+    "         },\n"
+    "         \"JOIN_TYPE\": \"INNER\",\n"
+    "         \"OUTER_HASH_EXPRESSIONS\": [{\n"
+    "            \"COLUMN_IDX\": 1,\n"
+    "            \"TYPE\": 32,\n"
+    "            \"VALUE_TYPE\": 5\n"
+    "         }],\n"
+    "         \"OUTPUT_SCHEMA\": [\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"ID\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 0,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"A\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 1,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"ID\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 2,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"A\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 3,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 6\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"PAD\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 4,\n"
+    "                  \"IN_BYTES\": true,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_SIZE\": 2000,\n"
+    "                  \"VALUE_TYPE\": 9\n"
+    "               }\n"
+    "            }\n"
+    "         ],\n"
+    "         \"PLAN_NODE_TYPE\": \"HASHJOIN\",\n"
+    "         \"PRE_JOIN_PREDICATE\": null,\n"
+    "         \"WHERE_PREDICATE\": null\n"
+    "      },\n"
+    "      {\n"
+    "         \"ID\": 4,\n"
+    "         \"INLINE_NODES\": [{\n"
+    "            \"ID\": 5,\n"
+    "            \"OUTPUT_SCHEMA\": [\n"
+    "               {\n"
+    "                  \"COLUMN_NAME\": \"ID\",\n"
+    "                  \"EXPRESSION\": {\n"
+    "                     \"COLUMN_IDX\": 0,\n"
+    "                     \"TYPE\": 32,\n"
+    "                     \"VALUE_TYPE\": 5\n"
+    "                  }\n"
+    "               },\n"
+    "               {\n"
+    "                  \"COLUMN_NAME\": \"A\",\n"
+    "                  \"EXPRESSION\": {\n"
+    "                     \"COLUMN_IDX\": 1,\n"
+    "                     \"TYPE\": 32,\n"
+    "                     \"VALUE_TYPE\": 5\n"
+    "                  }\n"
+    "               }\n"
+    "            ],\n"
+    "            \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+    "         }],\n"
+    "         \"PLAN_NODE_TYPE\": \"SEQSCAN\",\n"
+    "         \"TARGET_TABLE_ALIAS\": \"R\",\n"
+    "         \"TARGET_TABLE_NAME\": \"R\"\n"
+    "      },\n"
+    "      {\n"
+    "         \"ID\": 6,\n"
+    "         \"INLINE_NODES\": [{\n"
+    "            \"ID\": 7,\n"
+    "            \"OUTPUT_SCHEMA\": [\n"
+    "               {\n"
+    "                  \"COLUMN_NAME\": \"ID\",\n"
+    "                  \"EXPRESSION\": {\n"
+    "                     \"COLUMN_IDX\": 0,\n"
+    "                     \"TYPE\": 32,\n"
+    "                     \"VALUE_TYPE\": 5\n"
+    "                  }\n"
+    "               },\n"
+    "               {\n"
+    "                  \"COLUMN_NAME\": \"A\",\n"
+    "                  \"EXPRESSION\": {\n"
+    "                     \"COLUMN_IDX\": 1,\n"
+    "                     \"TYPE\": 32,\n"
+    "                     \"VALUE_TYPE\": 6\n"
+    "                  }\n"
+    "               },\n"
+    "               {\n"
+    "                  \"COLUMN_NAME\": \"PAD\",\n"
+    "                  \"EXPRESSION\": {\n"
+    "                     \"COLUMN_IDX\": 2,\n"
+    "                     \"IN_BYTES\": true,\n"
+    "                     \"TYPE\": 32,\n"
+    "                     \"VALUE_SIZE\": 2000,\n"
+    "                     \"VALUE_TYPE\": 9\n"
+    "                  }\n"
+    "               }\n"
+    "            ],\n"
+    "            \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+    "         }],\n"
+    "         \"PLAN_NODE_TYPE\": \"SEQSCAN\",\n"
+    "         \"TARGET_TABLE_ALIAS\": \"S\",\n"
+    "         \"TARGET_TABLE_NAME\": \"S\"\n"
+    "      }\n"
+    "   ]\n"
+    "}\n";
+
+// SELECT R.ID, R.A, S.ID, S.PAD FROM R LEFT JOIN S ON R.A = S.A AND S.ID > 5 AND R.ID < 250;
+// HASH LEFT JOIN
+//  filter by (R.ID < 250) AND (S.A = R.A)
+//  SEQUENTIAL SCAN of "R"
+//  SEQUENTIAL SCAN of "S"
+//   filter by (ID > 5)
+const std::string leftJoinPlan =
+    "{\n"
+    "   \"EXECUTE_LIST\": [\n"
+    "      4,\n"
+    "      6,\n"
+    "      3,\n"
+    "      2\n"
+    "   ],\n"
+    "   \"IS_LARGE_QUERY\": false,\n"
+    "   \"PLAN_NODES\": [\n"
+    "      {\n"
+    "         \"CHILDREN_IDS\": [3],\n"
+    "         \"ID\": 2,\n"
+    "         \"OUTPUT_SCHEMA\": [\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"ID\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 0,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"A\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 1,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"ID\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 2,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"PAD\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 4,\n"
+    "                  \"IN_BYTES\": true,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_SIZE\": 2000,\n"
+    "                  \"VALUE_TYPE\": 9\n"
+    "               }\n"
+    "            }\n"
+    "         ],\n"
+    "         \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+    "      },\n"
+    "      {\n"
+    "         \"CHILDREN_IDS\": [\n"
+    "            4,\n"
+    "            6\n"
+    "         ],\n"
+    "         \"ID\": 3,\n"
+    "         \"INNER_HASH_EXPRESSIONS\": [{\n"
+    "            \"COLUMN_IDX\": 1,\n"
+    "            \"TABLE_IDX\": 1,\n"
+    "            \"TYPE\": 32,\n"
+    "            \"VALUE_TYPE\": 6\n"
+    "         }],\n"
+    "         \"JOIN_PREDICATE\": {\n"
+    "            \"LEFT\": {\n"
+    "               \"COLUMN_IDX\": 1,\n"
+    "               \"TABLE_IDX\": 1,\n"
+    "               \"TYPE\": 32,\n"
+    "               \"VALUE_TYPE\": 6\n"
+    "            },\n"
+    "            \"RIGHT\": {\n"
+    "               \"COLUMN_IDX\": 1,\n"
+    "               \"TYPE\": 32,\n"
+    "               \"VALUE_TYPE\": 5\n"
+    "            },\n"
+    "            \"TYPE\": 10,\n"
+    "            \"VALUE_TYPE\": 23\n"
+    "         },\n"
+    "         \"JOIN_TYPE\": \"LEFT\",\n"
+    "         \"OUTER_HASH_EXPRESSIONS\": [{\n"
+    "            \"COLUMN_IDX\": 1,\n"
+    "            \"TYPE\": 32,\n"
+    "            \"VALUE_TYPE\": 5\n"
+    "         }],\n"
+    "         \"OUTPUT_SCHEMA\": [\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"ID\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 0,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"A\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 1,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"ID\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 2,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 5\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"A\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 3,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_TYPE\": 6\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\": \"PAD\",\n"
+    "               \"EXPRESSION\": {\n"
+    "                  \"COLUMN_IDX\": 4,\n"
+    "                  \"IN_BYTES\": true,\n"
+    "                  \"TYPE\": 32,\n"
+    "                  \"VALUE_SIZE\": 2000,\n"
+    "                  \"VALUE_TYPE\": 9\n"
+    "               }\n"
+    "            }\n"
+    "         ],\n"
+    "         \"PLAN_NODE_TYPE\": \"HASHJOIN\",\n"
+    "         \"PRE_JOIN_PREDICATE\": {\n"
+    "            \"LEFT\": {\n"
+    "               \"COLUMN_IDX\": 0,\n"
+    "               \"TYPE\": 32,\n"
+    "               \"VALUE_TYPE\": 5\n"
+    "            },\n"
+    "            \"RIGHT\": {\n"
+    "               \"ISNULL\": false,\n"
+    "               \"TYPE\": 30,\n"
+    "               \"VALUE\": 250,\n"
+    "               \"VALUE_TYPE\": 5\n"
+    "            },\n"
+    "            \"TYPE\": 12,\n"
+    "            \"VALUE_TYPE\": 23\n"
+    "         },\n"
+    "         \"WHERE_PREDICATE\": null\n"
+    "      },\n"
+    "      {\n"
+    "         \"ID\": 4,\n"
+    "         \"INLINE_NODES\": [{\n"
+    "            \"ID\": 5,\n"
+    "            \"OUTPUT_SCHEMA\": [\n"
+    "               {\n"
+    "                  \"COLUMN_NAME\": \"ID\",\n"
+    "                  \"EXPRESSION\": {\n"
+    "                     \"COLUMN_IDX\": 0,\n"
+    "                     \"TYPE\": 32,\n"
+    "                     \"VALUE_TYPE\": 5\n"
+    "                  }\n"
+    "               },\n"
+    "               {\n"
+    "                  \"COLUMN_NAME\": \"A\",\n"
+    "                  \"EXPRESSION\": {\n"
+    "                     \"COLUMN_IDX\": 1,\n"
+    "                     \"TYPE\": 32,\n"
+    "                     \"VALUE_TYPE\": 5\n"
+    "                  }\n"
+    "               }\n"
+    "            ],\n"
+    "            \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+    "         }],\n"
+    "         \"PLAN_NODE_TYPE\": \"SEQSCAN\",\n"
+    "         \"TARGET_TABLE_ALIAS\": \"R\",\n"
+    "         \"TARGET_TABLE_NAME\": \"R\"\n"
+    "      },\n"
+    "      {\n"
+    "         \"ID\": 6,\n"
+    "         \"INLINE_NODES\": [{\n"
+    "            \"ID\": 7,\n"
+    "            \"OUTPUT_SCHEMA\": [\n"
+    "               {\n"
+    "                  \"COLUMN_NAME\": \"ID\",\n"
+    "                  \"EXPRESSION\": {\n"
+    "                     \"COLUMN_IDX\": 0,\n"
+    "                     \"TYPE\": 32,\n"
+    "                     \"VALUE_TYPE\": 5\n"
+    "                  }\n"
+    "               },\n"
+    "               {\n"
+    "                  \"COLUMN_NAME\": \"A\",\n"
+    "                  \"EXPRESSION\": {\n"
+    "                     \"COLUMN_IDX\": 1,\n"
+    "                     \"TYPE\": 32,\n"
+    "                     \"VALUE_TYPE\": 6\n"
+    "                  }\n"
+    "               },\n"
+    "               {\n"
+    "                  \"COLUMN_NAME\": \"PAD\",\n"
+    "                  \"EXPRESSION\": {\n"
+    "                     \"COLUMN_IDX\": 2,\n"
+    "                     \"IN_BYTES\": true,\n"
+    "                     \"TYPE\": 32,\n"
+    "                     \"VALUE_SIZE\": 2000,\n"
+    "                     \"VALUE_TYPE\": 9\n"
+    "                  }\n"
+    "               }\n"
+    "            ],\n"
+    "            \"PLAN_NODE_TYPE\": \"PROJECTION\"\n"
+    "         }],\n"
+    "         \"PLAN_NODE_TYPE\": \"SEQSCAN\",\n"
+    "         \"PREDICATE\": {\n"
+    "            \"LEFT\": {\n"
+    "               \"COLUMN_IDX\": 0,\n"
+    "               \"TYPE\": 32,\n"
+    "               \"VALUE_TYPE\": 5\n"
+    "            },\n"
+    "            \"RIGHT\": {\n"
+    "               \"ISNULL\": false,\n"
+    "               \"TYPE\": 30,\n"
+    "               \"VALUE\": 5,\n"
+    "               \"VALUE_TYPE\": 5\n"
+    "            },\n"
+    "            \"TYPE\": 13,\n"
+    "            \"VALUE_TYPE\": 23\n"
+    "         },\n"
+    "         \"TARGET_TABLE_ALIAS\": \"S\",\n"
+    "         \"TARGET_TABLE_NAME\": \"S\"\n"
+    "      }\n"
+    "   ]\n"
+    "}\n";
+
+namespace {
+
+typedef std::multiset<std::string> ResultRows;
+
+const int OUTER_ROWS = 300;
+// Long enough for S to fill four large temp table blocks
+const int INNER_ROWS = 16000;
+const int64_t MB = 1024 * 1024;
+
+std::string replaceFirst(std::string str, const std::string& from, const std::string& to) {
+    std::size_t pos = str.find(from);
+    assert(pos != std::string::npos);
+    return str.replace(pos, from.size(), to);
+}
+
+std::string nestLoopPlan(const std::string& hashJoinPlan) {
+    return replaceFirst(hashJoinPlan, "\"PLAN_NODE_TYPE\": \"HASHJOIN\"", "\"PLAN_NODE_TYPE\": \"NESTLOOP\"");
+}
+
+std::string largeQueryPlan(const std::string& plan) {
+    return replaceFirst(plan, "\"IS_LARGE_QUERY\": false", "\"IS_LARGE_QUERY\": true");
+}
+
+}
+
+class HashJoinExecutorTest : public Test {
+public:
+    ~HashJoinExecutorTest() {
+        voltdb::globalDestroyOncePerProcess();
+    }
+
+protected:
+    /**
+     * Build an engine with the given temp table memory limit, which is also the size
+     * of the large temp table block cache, and load R and S. Some keys are NULL, some
+     * outer keys match nothing, and each inner key is shared by 16 rows.
+     */
+    UniqueEngine buildEngine(int64_t tempTableMemoryLimit) {
+        UniqueEngine engine = UniqueEngineBuilder()
+            .setTopend(std::unique_ptr<Topend>(new LargeTempTableTopend()))
+            .setTempTableMemoryLimit(tempTableMemoryLimit)
+            .build();
+        bool success = engine->loadCatalog(0, catalogPayload);
+        assert(success);
+
+        Table* outerTable = engine->getTableByName("R");
+        StandAloneTupleStorage outerStorage(outerTable->schema());
+        TableTuple outerTuple = outerStorage.tuple();
+        for (int i = 0; i < OUTER_ROWS; ++i) {
+            boost::optional<int> a;
+            if (i % 7 != 0) {
+                a = i * 5;
+            }
+            std::ostringstream pad;
+            pad << "r" << i;
+            Tools::initTuple(&outerTuple, std::make_tuple(i, a, pad.str()));
+            outerTable->insertTuple(outerTuple);
+        }
+
+        Table* innerTable = engine->getTableByName("S");
+        StandAloneTupleStorage innerStorage(innerTable->schema());
+        TableTuple innerTuple = innerStorage.tuple();
+        for (int i = 0; i < INNER_ROWS; ++i) {
+            boost::optional<int64_t> a;
+            if (i % 50 != 0) {
+                a = i % 1000;
+            }
+            std::ostringstream pad;
+            pad << std::string(1900, 'a' + i % 26) << i;
+            Tools::initTuple(&innerTuple, std::make_tuple(i, a, pad.str()));
+            innerTable->insertTuple(innerTuple);
+        }
+
+        return engine;
+    }
+
+    ResultRows execute(VoltDBEngine* engine, const std::string& plan) {
+        auto ev = ExecutorVector::fromJsonPlan(engine, plan, 0);
+        ResultRows rows;
+        {
+            UniqueTempTableResult result = engine->executePlanFragment(ev.get(), NULL);
+            TableTuple tuple(result->schema());
+            TableIterator iter = result->iterator();
+            while (iter.next(tuple)) {
+                std::ostringstream row;
+                for (int i = 0; i < tuple.columnCount(); ++i) {
+                    NValue value = tuple.getNValue(i);
+                    row << (value.isNull() ? "NULL" : value.toString()) << "|";
+                }
+                rows.insert(row.str());
+            }
+        }
+        ExecutorContext::getExecutorContext()->cleanupAllExecutors();
+        return rows;
+    }
+
+    /**
+     * Compare the hash join with the nested loop join, first in a normal query and
+     * then in a large query whose block cache holds the given number of blocks.
+     */
+    void checkAgainstNestLoop(const std::string& hashJoinPlan, int cacheBlocks) {
+        ResultRows expected;
+        {
+            UniqueEngine engine = buildEngine(100 * MB);
+            expected = execute(engine.get(), nestLoopPlan(hashJoinPlan));
+            ASSERT_TRUE(expected.size() > 0);
+            ASSERT_TRUE(expected == execute(engine.get(), hashJoinPlan));
+        }
+
+        UniqueEngine engine = buildEngine(cacheBlocks * LargeTempTableBlock::BLOCK_SIZE_IN_BYTES);
+        ASSERT_TRUE(expected == execute(engine.get(), largeQueryPlan(hashJoinPlan)));
+        // Run it again to check that the partitions are cleaned up
+        ASSERT_TRUE(expected == execute(engine.get(), largeQueryPlan(hashJoinPlan)));
+        LargeTempTableBlockCache* lttBlockCache = ExecutorContext::getExecutorContext()->lttBlockCache();
+        ASSERT_EQ(0, lttBlockCache->totalBlockCount());
+    }
+};
+
+// The cache has room for the whole inner table.
+TEST_F(HashJoinExecutorTest, InnerJoinInCache) {
+    checkAgainstNestLoop(innerJoinPlan, 12);
+}
+
+TEST_F(HashJoinExecutorTest, LeftJoinInCache) {
+    checkAgainstNestLoop(leftJoinPlan, 12);
+}
+
+// Both inputs are split into two partitions, and each inner partition fits in the cache.
+TEST_F(HashJoinExecutorTest, InnerJoinPartitioned) {
+    checkAgainstNestLoop(innerJoinPlan, 5);
+}
+
+TEST_F(HashJoinExecutorTest, LeftJoinPartitioned) {
+    checkAgainstNestLoop(leftJoinPlan, 5);
+}
+
+// Each inner partition is hashed one block at a time, rescanning the outer partition.
+TEST_F(HashJoinExecutorTest, InnerJoinInChunks) {
+    checkAgainstNestLoop(innerJoinPlan, 3);
+}
+
+TEST_F(HashJoinExecutorTest, LeftJoinInChunks) {
+    checkAgainstNestLoop(leftJoinPlan, 3);
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
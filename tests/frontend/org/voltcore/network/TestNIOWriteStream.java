@@ -126,6 +126,8 @@ public class TestNIOWriteStream extends TestCase {
         public static int SINK = 0;     // accept all data
         public static int FULL = 1;     // accept no data
         public static int PARTIAL = 2;  // accept some data
+        public static int GATHER = 3;   // accept all data, of every buffer in a gathering write
+        public int gatheringWrites = 0;
 
         @Override
         public int write(ByteBuffer src) throws IOException {
@@ -163,16 +165,41 @@ public class TestNIOWriteStream extends TestCase {
 
         @Override
         public long write(ByteBuffer src[]) throws IOException {
+            return write(src, 0, src.length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // nothing to release
+        }
+
+        @Override
+        public boolean isOpen() {
+            return m_open;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length)
+                throws IOException {
             if (!m_open) throw new IOException();
             if (closeAfter > 0 && ++writeCount >= closeAfter) {
                 m_open = false;
             }
 
+            gatheringWrites++;
             if (m_behavior == SINK) {
-                int remaining = src[0].remaining();
-                src[0].position(src[0].limit());
+                int remaining = srcs[offset].remaining();
+                srcs[offset].position(srcs[offset].limit());
                 return remaining;
             }
+            else if (m_behavior == GATHER) {
+                long written = 0;
+                for (int i = offset; i < offset + length; i++) {
+                    written += srcs[i].remaining();
+                    srcs[i].position(srcs[i].limit());
+                }
+                return written;
+            }
             else if (m_behavior == FULL) {
                 return 0;
             }
@@ -182,30 +209,13 @@ public class TestNIOWriteStream extends TestCase {
                 } else {
                     wrotePartial = true;
                 }
-                ByteBuffer copy = ByteBuffer.allocate(src[0].remaining());
-                src[0].get(copy.array(), 0, src[0].remaining()/2);
-                return src[0].remaining();
+                final int half = srcs[offset].remaining() / 2;
+                srcs[offset].position(srcs[offset].position() + half);
+                return half;
             }
             assert(false);
             return -1;
         }
-
-        @Override
-        public void close() throws IOException {
-            // TODO Auto-generated method stub
-        }
-
-        @Override
-        public boolean isOpen() {
-            return m_open;
-        }
-
-        @Override
-        public long write(ByteBuffer[] srcs, int offset, int length)
-                throws IOException {
-            // TODO Auto-generated method stub
-            return 0;
-        }
     }
 
 
@@ -374,6 +384,74 @@ public class TestNIOWriteStream extends TestCase {
         assertEquals(0, acg.getPendingBytes());
     }
 
+    public void testGatheringWrite() throws IOException {
+        MockChannel channel = new MockChannel(MockChannel.GATHER, 0);
+        MockPort port = new MockPort();
+        VoltNIOWriteStream wstream = new VoltNIOWriteStream(port);
+
+        // Each message spans several of the 4 byte pool buffers
+        for (int i = 0; i < 5; i++) {
+            ByteBuffer tmp = ByteBuffer.allocate(10);
+            for (int j = 0; j < 10; j++) {
+                tmp.put((byte) (i * 10 + j));
+            }
+            tmp.flip();
+            wstream.enqueue(tmp);
+        }
+        assertEquals(5, wstream.getOutstandingMessageCount());
+        assertEquals(5, wstream.serializeQueuedWrites(pool));
+
+        // One write takes all the buffers, the second one finds nothing left
+        assertEquals(50, wstream.drainTo(channel));
+        assertEquals(1, channel.gatheringWrites);
+        assertTrue(wstream.isEmpty());
+        assertFalse(wstream.hadBackPressure());
+        wstream.shutdown();
+    }
+
+    public void testGatheringWriteResumesPartialBuffer() throws IOException {
+        MockChannel channel = new MockChannel(MockChannel.PARTIAL, 0);
+        MockPort port = new MockPort();
+        VoltNIOWriteStream wstream = new VoltNIOWriteStream(port);
+
+        ByteBuffer tmp = ByteBuffer.allocate(4);
+        tmp.put(new byte[] { 1, 2, 3, 4 });
+        tmp.flip();
+        wstream.enqueue(tmp);
+        ByteBuffer tmp2 = ByteBuffer.allocate(2);
+        tmp2.put(new byte[] { 5, 6 });
+        tmp2.flip();
+        wstream.enqueue(tmp2);
+        wstream.serializeQueuedWrites(pool);
+        assertEquals(2, wstream.drainTo(channel));
+        assertTrue(wstream.hadBackPressure());
+
+        // Messages serialized after a partial write go after the rest of the buffer
+        ByteBuffer tmp3 = ByteBuffer.allocate(1);
+        tmp3.put((byte) 7);
+        tmp3.flip();
+        wstream.enqueue(tmp3);
+        wstream.serializeQueuedWrites(pool);
+
+        final ByteBuffer out = ByteBuffer.allocate(5);
+        final int written = wstream.drainTo(new MockChannel(MockChannel.GATHER, 0) {
+            @Override
+            public long write(ByteBuffer[] srcs, int offset, int length) {
+                long bytes = 0;
+                for (int i = offset; i < offset + length; i++) {
+                    bytes += srcs[i].remaining();
+                    out.put(srcs[i]);
+                }
+                return bytes;
+            }
+        });
+        assertEquals(5, written);
+        assertEquals(ByteBuffer.wrap(new byte[] { 3, 4, 5, 6, 7 }), (ByteBuffer) out.flip());
+        assertTrue(wstream.isEmpty());
+        assertFalse(wstream.hadBackPressure());
+        wstream.shutdown();
+    }
+
     public void testLargeNonDirectWrite() throws IOException {
         MockChannel channel = new MockChannel(MockChannel.SINK, 0);
         MockPort port = new MockPort();
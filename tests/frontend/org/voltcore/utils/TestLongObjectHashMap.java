@@ -0,0 +1,122 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestLongObjectHashMap extends TestCase {
+
+    private static void assertSameContents(Map<Long, String> expected, LongObjectHashMap<String> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (Map.Entry<Long, String> e : expected.entrySet()) {
+            assertEquals(e.getValue(), actual.get(e.getKey()));
+        }
+        final Map<Long, String> seen = new HashMap<>();
+        actual.forEach((k, v) -> assertNull(seen.put(k, v)));
+        assertEquals(expected, seen);
+        assertEquals(expected.size(), actual.keys().length);
+    }
+
+    @Test
+    public void testBasicOperations() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-1, "minus one"));
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+        assertNull(map.put(Long.MAX_VALUE, "max"));
+        assertEquals(4, map.size());
+        assertEquals("zero", map.put(0, "nought"));
+        assertEquals(4, map.size());
+        assertEquals("nought", map.get(0));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertTrue(map.containsKey(Long.MAX_VALUE));
+        assertEquals("minus one", map.remove(-1));
+        assertNull(map.remove(-1));
+        assertFalse(map.containsKey(-1));
+        assertEquals(3, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(Long.MAX_VALUE));
+        try {
+            map.put(1, null);
+            fail();
+        } catch (NullPointerException expected) {}
+    }
+
+    @Test
+    public void testRandomizedAgainstHashMap() {
+        final Random r = new Random(1234);
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            // a small key space forces long probe chains and many deletions
+            long key = (r.nextInt(2048) << 14) + (r.nextBoolean() ? 0 : r.nextInt(4));
+            int op = r.nextInt(10);
+            if (op < 5) {
+                String value = Integer.toString(i);
+                assertEquals(expected.put(key, value), map.put(key, value));
+            } else if (op < 9) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.get(key), map.get(key));
+            }
+        }
+        assertSameContents(expected, map);
+    }
+
+    @Test
+    public void testRemoveIf() {
+        final Random r = new Random(4321);
+        for (int round = 0; round < 50; round++) {
+            LongObjectHashMap<String> map = new LongObjectHashMap<>(8);
+            Map<Long, String> expected = new HashMap<>();
+            int count = r.nextInt(500);
+            for (int i = 0; i < count; i++) {
+                long key = r.nextLong();
+                map.put(key, Long.toString(key));
+                expected.put(key, Long.toString(key));
+            }
+            final int divisor = 1 + r.nextInt(3);
+            int removed = map.removeIf((k, v) -> (k % divisor) == 0);
+            int expectedRemoved = 0;
+            for (Iterator<Long> iter = expected.keySet().iterator(); iter.hasNext();) {
+                if (iter.next() % divisor == 0) {
+                    iter.remove();
+                    expectedRemoved++;
+                }
+            }
+            assertEquals(expectedRemoved, removed);
+            assertSameContents(expected, map);
+        }
+    }
+}
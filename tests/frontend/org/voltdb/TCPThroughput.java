@@ -31,12 +31,22 @@ import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.HashSet;
 import java.util.ArrayList;
 
+import org.voltcore.network.Connection;
+import org.voltcore.network.QueueMonitor;
+import org.voltcore.network.VoltNetworkPool;
+import org.voltcore.network.VoltProtocolHandler;
+import org.voltcore.network.WriteStream;
+import org.voltcore.utils.DeferredSerialization;
+
 /**
  * A class implementing a throughput test across several TCP sockets. This class implements both the client and the server
  *
+ * Run with "writestream" to instead measure how fast several producer threads can queue messages on one
+ * VoltNetwork connection, as the site threads and the client interface do when responding on the same connection.
  */
 public class TCPThroughput {
 
@@ -131,6 +141,7 @@ public class TCPThroughput {
     private static volatile boolean shouldContinue = true;
 
     private static int seconds = 60;
+    private static int producers = 16;
     private static String addressString = "localhost";
     private static InetAddress address;
 
@@ -189,17 +200,135 @@ public class TCPThroughput {
         }
     }
 
+    /**
+     * Several producer threads enqueue deferred serializations of expectedPacketSize on one connection
+     * of a VoltNetworkPool, pausing while the write stream reports backpressure. The other end of the
+     * connection is a thread that reads and discards everything.
+     */
+    private static void runWriteStreamThroughput() throws Exception {
+        final ServerSocketChannel server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress(address, port));
+        final AtomicLong bytesSunk = new AtomicLong(0);
+        final Thread sink = new Thread("TCPThroughput sink") {
+            @Override
+            public void run() {
+                try {
+                    final SocketChannel c = server.accept();
+                    final ByteBuffer buf = ByteBuffer.allocateDirect(1024 * 1024);
+                    int read;
+                    while ((read = c.read(buf)) >= 0) {
+                        bytesSunk.addAndGet(read);
+                        buf.clear();
+                    }
+                } catch (IOException e) {
+                    if (shouldContinue) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        };
+        sink.setDaemon(true);
+        sink.start();
+
+        final VoltNetworkPool network = new VoltNetworkPool(1, 0, null, "TCPThroughput");
+        network.start();
+        final SocketChannel channel = SocketChannel.open(new InetSocketAddress(address, port));
+        channel.socket().setTcpNoDelay(false);
+        channel.configureBlocking(false);
+        final Connection connection = network.registerChannel(channel, new VoltProtocolHandler() {
+            @Override
+            public int getMaxRead() {
+                return 0;
+            }
+
+            @Override
+            public void handleMessage(ByteBuffer message, Connection c) {}
+
+            @Override
+            public Runnable onBackPressure() {
+                return null;
+            }
+
+            @Override
+            public Runnable offBackPressure() {
+                return null;
+            }
+
+            @Override
+            public QueueMonitor writestreamMonitor() {
+                return null;
+            }
+        }, null, null);
+
+        final DeferredSerialization message = new DeferredSerialization() {
+            @Override
+            public void serialize(ByteBuffer buf) {
+                buf.putInt(expectedPacketSize - 4);
+                buf.position(buf.limit());
+            }
+
+            @Override
+            public void cancel() {}
+
+            @Override
+            public int getSerializedSize() {
+                return expectedPacketSize;
+            }
+        };
+        final AtomicLong messagesQueued = new AtomicLong(0);
+        final ArrayList<Thread> threads = new ArrayList<Thread>();
+        for (int ii = 0; ii < producers; ii++) {
+            final Thread producer = new Thread("TCPThroughput producer " + ii) {
+                @Override
+                public void run() {
+                    final WriteStream stream = connection.writeStream();
+                    long queued = 0;
+                    while (shouldContinue) {
+                        if (stream.hadBackPressure()) {
+                            LockSupport.parkNanos(10000);
+                            continue;
+                        }
+                        stream.enqueue(message);
+                        queued++;
+                    }
+                    messagesQueued.addAndGet(queued);
+                }
+            };
+            threads.add(producer);
+            producer.start();
+        }
+
+        final long start = System.nanoTime();
+        Thread.sleep(seconds * 1000);
+        shouldContinue = false;
+        for (Thread t : threads) {
+            t.join();
+        }
+        final double elapsed = (System.nanoTime() - start) / 1000000000.0;
+        final long bytes = bytesSunk.get();
+        System.out.printf("TCPThroughput write stream result:\n\tproducers == %d\n\tExpected packet size == %d\n" +
+                "\tmessagesQueued == %d\n\tmessagesWritten/sec == %.0f\n\tmegabytes/sec == %.1f\n",
+                producers, expectedPacketSize, messagesQueued.get(),
+                bytes / expectedPacketSize / elapsed, bytes / elapsed / 1024 / 1024);
+
+        network.shutdown();
+        server.close();
+    }
+
     /*
      * A server opens up some server sockets and accepts connections on them. It terminates when no messages have been received for 5 seconds.
      * A client opens up some connections and sends messages for a fixed period of time.
      */
     public static void main(String[] args) {
         boolean runServer = false;
+        boolean runWriteStream = false;
         for (String arg : args) {
             String[] parts = arg.split("=",2);
             if (parts.length == 1) {
                 if (parts[0].equals("server")) {
                     runServer = true;
+                } else if (parts[0].equals("writestream")) {
+                    runWriteStream = true;
                 }
                 continue;
             } else if (parts[1].startsWith("${")) {
@@ -208,6 +337,8 @@ public class TCPThroughput {
                 addressString = parts[1];
             } else if (parts[0].equals("seconds")) {
                 seconds = Integer.parseInt(parts[1]);
+            } else if (parts[0].equals("producers")) {
+                producers = Integer.parseInt(parts[1]);
             }
         }
 
@@ -218,6 +349,16 @@ public class TCPThroughput {
             System.exit(-1);
         }
 
+        if (runWriteStream) {
+            try {
+                runWriteStreamThroughput();
+            } catch (Exception e) {
+                e.printStackTrace();
+                System.exit(-1);
+            }
+            System.exit(0);
+        }
+
         try {
             selector = Selector.open();
         } catch (IOException e1) {
@@ -0,0 +1,303 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltdb.CommandLog.CompletionChecks;
+import org.voltdb.CommandLog.DurabilityListener;
+import org.voltdb.GroupCommitCommandLog.LoggedTxn;
+import org.voltdb.iv2.SpScheduler.DurableUniqueIdListener;
+import org.voltdb.iv2.TransactionTask;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.utils.VoltFile;
+
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+
+public class TestGroupCommitCommandLog {
+
+    private final static File TEST_DIR = new File("/tmp/" + System.getProperty("user.name") + "/gclog");
+    private final static File LOG_DIR = new File(TEST_DIR, "command_log");
+    private final static File SNAPSHOT_DIR = new File(TEST_DIR, "command_log_snapshot");
+
+    /**
+     * Counts transactions instead of tracking them like SpDurabilityListener
+     */
+    private static class CountingListener implements DurabilityListener {
+        int m_added = 0;
+        volatile int m_durable = 0;
+
+        private class Checks implements CompletionChecks {
+            final int m_count;
+
+            Checks(int count) {
+                m_count = count;
+            }
+
+            @Override
+            public CompletionChecks startNewCheckList(int startSize) {
+                return new Checks(0);
+            }
+
+            @Override
+            public void addTask(TransactionTask task) {}
+
+            @Override
+            public void setLastDurableUniqueId(long uniqueId) {}
+
+            @Override
+            public boolean isChanged() {
+                return m_count > 0;
+            }
+
+            @Override
+            public int getTaskListSize() {
+                return m_count;
+            }
+
+            @Override
+            public void processChecks() {}
+        }
+
+        private int m_unchecked = 0;
+
+        @Override
+        public void configureUniqueIdListener(DurableUniqueIdListener listener, boolean install) {}
+
+        @Override
+        public void createFirstCompletionCheck(boolean isSyncLogging, boolean commandLoggingEnabled) {}
+
+        @Override
+        public boolean completionCheckInitialized() {
+            return true;
+        }
+
+        @Override
+        public void addTransaction(TransactionTask pendingTask) {
+            m_added++;
+            m_unchecked++;
+        }
+
+        @Override
+        public void initializeLastDurableUniqueId(long uniqueId) {}
+
+        @Override
+        public int getNumberOfTasks() {
+            return m_unchecked;
+        }
+
+        @Override
+        public CompletionChecks startNewTaskList(int nextMaxRowCnt) {
+            Checks checks = new Checks(m_unchecked);
+            m_unchecked = 0;
+            return checks;
+        }
+
+        @Override
+        public void processDurabilityChecks(CompletionChecks completionChecks) {
+            m_durable += completionChecks.getTaskListSize();
+        }
+    }
+
+    private MockVoltDB m_mockVoltDB;
+    private GroupCommitCommandLog m_log;
+
+    @Before
+    public void setUp() throws Exception {
+        tearDownTestDir();
+        m_mockVoltDB = new MockVoltDB();
+        VoltDB.replaceVoltDBInstanceForTest(m_mockVoltDB);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (m_log != null) {
+            m_log.shutdown();
+        }
+        m_mockVoltDB.shutdown(null);
+        VoltDB.replaceVoltDBInstanceForTest(null);
+        tearDownTestDir();
+    }
+
+    private static void tearDownTestDir() throws IOException {
+        if (TEST_DIR.exists()) {
+            VoltFile.recursivelyDelete(TEST_DIR);
+        }
+    }
+
+    private GroupCommitCommandLog createLog(boolean synchronous) {
+        m_log = new GroupCommitCommandLog(synchronous, 2, 1000, LOG_DIR.getPath(), SNAPSHOT_DIR.getPath());
+        return m_log;
+    }
+
+    private static Iv2InitiateTaskMessage makeInitiate(long spHandle, boolean readOnly, Object... params) {
+        StoredProcedureInvocation spi = new StoredProcedureInvocation();
+        spi.setProcName(readOnly ? "ReadProc" : "WriteProc");
+        spi.setParams(params);
+        Iv2InitiateTaskMessage msg = new Iv2InitiateTaskMessage(0, 0, 0, spHandle, spHandle, readOnly, true, spi,
+                0, 0, false);
+        msg.setSpHandle(spHandle);
+        return msg;
+    }
+
+    private static void awaitDurable(CountingListener listener, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (listener.m_durable < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, listener.m_durable);
+    }
+
+    private static List<LoggedTxn> readAll() throws IOException, InterruptedException {
+        final List<LoggedTxn> txns = new ArrayList<>();
+        for (long id : GroupCommitCommandLog.listGenerations(LOG_DIR)) {
+            GroupCommitCommandLog.readGeneration(LOG_DIR, id, txn -> txns.add(txn));
+        }
+        return txns;
+    }
+
+    @Test
+    public void testSyncRoundTrip() throws Exception {
+        GroupCommitCommandLog log = createLog(true);
+        log.init(1024, 0, null, new HashMap<Integer, Long>());
+        assertFalse(log.needsInitialization());
+        assertFalse(log.canOfferTask());
+
+        CountingListener listener = new CountingListener();
+        log.registerDurabilityListener(listener);
+        List<Long> spHandles = new ArrayList<>();
+        TxnEgo ego = TxnEgo.makeZero(3);
+        for (int i = 0; i < 500; i++) {
+            ego = ego.makeNext();
+            spHandles.add(ego.getTxnId());
+            assertNull(log.log(makeInitiate(ego.getTxnId(), false, i, "value" + i), ego.getTxnId(), null,
+                    listener, null));
+        }
+        awaitDurable(listener, 500);
+        log.shutdown();
+        m_log = null;
+
+        List<LoggedTxn> txns = readAll();
+        assertEquals(500, txns.size());
+        for (int i = 0; i < txns.size(); i++) {
+            LoggedTxn txn = txns.get(i);
+            assertEquals((long) spHandles.get(i), txn.m_spHandle);
+            assertEquals(3, txn.getPartitionId());
+            assertFalse(txn.isMultiPartition());
+            assertEquals("WriteProc", txn.m_message.getStoredProcedureName());
+            assertEquals(i, ((Number) txn.m_message.getParameters()[0]).intValue());
+            assertEquals("value" + i, txn.m_message.getParameters()[1]);
+        }
+    }
+
+    @Test
+    public void testReadsAreReleasedButNotWritten() throws Exception {
+        GroupCommitCommandLog log = createLog(true);
+        log.init(1024, 0, null, new HashMap<Integer, Long>());
+        CountingListener listener = new CountingListener();
+        log.registerDurabilityListener(listener);
+
+        TxnEgo ego = TxnEgo.makeZero(0).makeNext();
+        log.log(makeInitiate(ego.getTxnId(), true), ego.getTxnId(), null, listener, null);
+        ego = ego.makeNext();
+        log.log(makeInitiate(ego.getTxnId(), false), ego.getTxnId(), new int[] { 0, 1 }, listener, null);
+        ego = ego.makeNext();
+        // Dummy transactions have no initiate message
+        log.log(null, ego.getTxnId(), null, listener, null);
+        awaitDurable(listener, 3);
+        log.shutdown();
+        m_log = null;
+
+        List<LoggedTxn> txns = readAll();
+        assertEquals(1, txns.size());
+        assertTrue(txns.get(0).isMultiPartition());
+        assertEquals(2, txns.get(0).m_involvedPartitions.length);
+    }
+
+    @Test
+    public void testAsyncBackpressureFuture() throws Exception {
+        GroupCommitCommandLog log = createLog(false);
+        log.init(1024, 0, null, new HashMap<Integer, Long>());
+        assertTrue(log.canOfferTask());
+        CountingListener listener = new CountingListener();
+        log.registerDurabilityListener(listener);
+
+        TxnEgo ego = TxnEgo.makeZero(1).makeNext();
+        ListenableFuture<Object> future = log.log(makeInitiate(ego.getTxnId(), false), ego.getTxnId(), null,
+                listener, null);
+        assertNotNull(future);
+        assertTrue(future.isDone());
+        awaitDurable(listener, 1);
+    }
+
+    @Test
+    public void testPassThroughBeforeInit() throws Exception {
+        GroupCommitCommandLog log = createLog(true);
+        assertTrue(log.needsInitialization());
+        CountingListener listener = new CountingListener();
+        log.registerDurabilityListener(listener);
+
+        TxnEgo ego = TxnEgo.makeZero(0).makeNext();
+        log.log(makeInitiate(ego.getTxnId(), false), ego.getTxnId(), null, listener, null);
+        // Released right away during replay, nothing is logged
+        assertEquals(1, listener.m_durable);
+        assertTrue(GroupCommitCommandLog.listGenerations(LOG_DIR).isEmpty());
+        m_log = null;
+    }
+
+    @Test
+    public void testInitDiscardsReplayedGenerations() throws Exception {
+        GroupCommitCommandLog log = createLog(true);
+        log.init(1024, 0, null, new HashMap<Integer, Long>());
+        CountingListener listener = new CountingListener();
+        log.registerDurabilityListener(listener);
+        TxnEgo ego = TxnEgo.makeZero(0).makeNext();
+        log.log(makeInitiate(ego.getTxnId(), false), ego.getTxnId(), null, listener, null);
+        awaitDurable(listener, 1);
+        log.shutdown();
+        assertEquals(1, readAll().size());
+
+        // A restart after replay starts over from the truncation snapshot
+        HashMap<Integer, Long> partitionTxnIds = new HashMap<>();
+        partitionTxnIds.put(0, ego.getTxnId());
+        log = createLog(true);
+        log.init(1024, 42, null, partitionTxnIds);
+        assertEquals(0, readAll().size());
+        assertEquals(42, GroupCommitCommandLog.readStartPoint(LOG_DIR).getLong(GroupCommitCommandLog.JSON_TXNID));
+    }
+}
@@ -0,0 +1,129 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class TestProcedureStatsCollector extends TestCase {
+
+    private ProcedureStatsCollector m_collector;
+
+    @Override
+    public void setUp() {
+        m_collector = new ProcedureStatsCollector(0, 0, "TestProc", true,
+                new ArrayList<>(Arrays.asList("fast", "slow")), true);
+    }
+
+    private void endFragments(String stmtName, long durationMicros, int count) {
+        for (int i = 0; i < count; i++) {
+            m_collector.endFragment(stmtName, false, false, true,
+                    TimeUnit.MICROSECONDS.toNanos(durationMicros), 0, 0);
+        }
+    }
+
+    private Object[] getRow(Object[][] rows, String stmtName) {
+        int stmtColumn = m_collector.columnNameToIndex.get("STATEMENT");
+        for (Object[] row : rows) {
+            if (stmtName.equals(row[stmtColumn])) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    private long getMicros(Object[] row, String column) {
+        return TimeUnit.NANOSECONDS.toMicros((Long) row[m_collector.columnNameToIndex.get(column)]);
+    }
+
+    public void testStatementPercentiles() {
+        endFragments("fast", 100, 990);
+        endFragments("fast", 5000, 10);
+        endFragments("slow", 20000, 100);
+
+        Object[][] rows = m_collector.getStatsRows(false, 0L);
+        Object[] fast = getRow(rows, "fast");
+        assertNotNull(fast);
+        assertEquals(100, getMicros(fast, "P50_EXECUTION_TIME"), 1);
+        assertEquals(100, getMicros(fast, "P95_EXECUTION_TIME"), 1);
+        assertEquals(100, getMicros(fast, "P99_EXECUTION_TIME"), 1);
+        assertEquals(5000, getMicros(fast, "P99.9_EXECUTION_TIME"), 50);
+
+        Object[] slow = getRow(rows, "slow");
+        assertNotNull(slow);
+        assertEquals(20000, getMicros(slow, "P50_EXECUTION_TIME"), 200);
+        assertEquals(20000, getMicros(slow, "P99_EXECUTION_TIME"), 200);
+    }
+
+    public void testIntervalPercentiles() {
+        endFragments("fast", 100, 100);
+        Object[] row = getRow(m_collector.getStatsRows(true, 0L), "fast");
+        assertEquals(100, getMicros(row, "P99_EXECUTION_TIME"), 1);
+
+        // The next interval only sees what was recorded after the last poll
+        endFragments("fast", 3000, 100);
+        row = getRow(m_collector.getStatsRows(true, 0L), "fast");
+        assertEquals(3000, getMicros(row, "P50_EXECUTION_TIME"), 30);
+
+        // Nothing new, so no row
+        assertNull(getRow(m_collector.getStatsRows(true, 0L), "fast"));
+
+        // The cumulative view still has both
+        row = getRow(m_collector.getStatsRows(false, 0L), "fast");
+        assertEquals(100, getMicros(row, "P50_EXECUTION_TIME"), 1);
+        assertEquals(3000, getMicros(row, "P99_EXECUTION_TIME"), 30);
+    }
+
+    public void testUnsampledFragmentsNotRecorded() {
+        m_collector.endFragment("fast", false, false, false, TimeUnit.MILLISECONDS.toNanos(10), 0, 0);
+        endFragments("fast", 100, 1);
+        Object[] row = getRow(m_collector.getStatsRows(false, 0L), "fast");
+        assertEquals(2L, row[m_collector.columnNameToIndex.get("INVOCATIONS")]);
+        assertEquals(100, getMicros(row, "P99.9_EXECUTION_TIME"), 1);
+    }
+
+    public void testNonTransactionalRecordsConcurrently() throws Exception {
+        m_collector = new ProcedureStatsCollector(0, 0, "TestNTProc", false,
+                new ArrayList<>(Arrays.asList("fast")), false);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    endFragments("fast", 200, 1000);
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Object[] row = getRow(m_collector.getStatsRows(false, 0L), "fast");
+        assertEquals(4000L, row[m_collector.columnNameToIndex.get("TIMED_INVOCATIONS")]);
+        assertEquals(200, getMicros(row, "P99_EXECUTION_TIME"), 2);
+    }
+}
@@ -0,0 +1,52 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.voltdb.iv2.SiteTasker;
+
+import junit.framework.TestCase;
+
+public class TestQueueDepthTracker extends TestCase {
+
+    public void testWaitIsResetWhenQueueDrains() {
+        Queue<SiteTasker> tasks = new ConcurrentLinkedQueue<>();
+        QueueDepthTracker tracker = new QueueDepthTracker(0, tasks);
+        assertEquals(0, tracker.getCurrentWait());
+
+        // A task that waited a second was taken while another one is still queued
+        tasks.add(mock(SiteTasker.class));
+        tracker.pollUpdate(System.nanoTime() - TimeUnit.SECONDS.toNanos(1));
+        assertTrue(tracker.getCurrentWait() >= TimeUnit.SECONDS.toNanos(1));
+
+        // Once the site has drained the queue nothing is waiting
+        tasks.clear();
+        assertEquals(0, tracker.getCurrentWait());
+    }
+}
@@ -0,0 +1,106 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class TestSnapshotPacer extends TestCase {
+
+    private static final long START = 1_000_000L;
+    private static final long TARGET_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    public void testUnpaced() {
+        SnapshotPacer pacer = new SnapshotPacer(0, 0);
+        assertFalse(pacer.isPaced());
+        assertFalse(pacer.isAdaptive());
+        assertEquals(0, pacer.nextInterval(START, TARGET_NANOS * 100, false));
+    }
+
+    public void testPriorityOnly() {
+        SnapshotPacer pacer = new SnapshotPacer(6, 0);
+        assertTrue(pacer.isPaced());
+        assertFalse(pacer.isAdaptive());
+        assertEquals(30, pacer.getInterval());
+        // The queue wait is ignored without a target
+        assertEquals(30, pacer.nextInterval(START, TARGET_NANOS * 100, false));
+        assertEquals(30, pacer.nextInterval(START + 1000, 0, true));
+    }
+
+    public void testBacksOffOverTarget() {
+        SnapshotPacer pacer = new SnapshotPacer(2, 10);
+        assertTrue(pacer.isPaced());
+        assertTrue(pacer.isAdaptive());
+        assertEquals(10, pacer.nextInterval(START, TARGET_NANOS, false));
+        assertEquals(20, pacer.nextInterval(START + 100, TARGET_NANOS + 1, false));
+        // Only one adjustment per period
+        assertEquals(20, pacer.nextInterval(START + 150, TARGET_NANOS + 1, false));
+        assertEquals(40, pacer.nextInterval(START + 200, TARGET_NANOS + 1, false));
+    }
+
+    public void testBackOffIsCapped() {
+        SnapshotPacer pacer = new SnapshotPacer(10, 10);
+        long now = START;
+        for (int i = 0; i < 20; i++) {
+            now += SnapshotPacer.ADJUST_PERIOD_MS;
+            pacer.nextInterval(now, TARGET_NANOS * 2, false);
+        }
+        assertEquals(SnapshotPacer.MAX_INTERVAL_MS, pacer.getInterval());
+    }
+
+    public void testBackOffFromZero() {
+        // Priority 0 starts unthrottled but the target still paces it
+        SnapshotPacer pacer = new SnapshotPacer(0, 10);
+        assertTrue(pacer.isPaced());
+        assertEquals(1, pacer.nextInterval(START, TARGET_NANOS * 2, false));
+        assertEquals(2, pacer.nextInterval(START + 100, TARGET_NANOS * 2, false));
+    }
+
+    public void testSpeedsUpUnderTarget() {
+        SnapshotPacer pacer = new SnapshotPacer(8, 10);
+        assertEquals(30, pacer.nextInterval(START, TARGET_NANOS / 4, false));
+        // Between half the target and the target the delay holds
+        assertEquals(30, pacer.nextInterval(START + 100, TARGET_NANOS * 3 / 4, false));
+        // A starved site speeds up even if the last wait was long
+        assertEquals(22, pacer.nextInterval(START + 200, TARGET_NANOS * 3 / 4, true));
+    }
+
+    public void testHostInterval() {
+        SnapshotPacer first = new SnapshotPacer(2, 0);
+        SnapshotPacer second = new SnapshotPacer(4, 0);
+        first.register();
+        second.register();
+        try {
+            assertEquals(15, SnapshotPacer.getHostInterval());
+            second.unregister();
+            assertEquals(10, SnapshotPacer.getHostInterval());
+        }
+        finally {
+            first.unregister();
+            second.unregister();
+        }
+        assertEquals(0, SnapshotPacer.getHostInterval());
+    }
+}
@@ -0,0 +1,115 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.nio.ByteBuffer;
+
+import org.voltdb.UserDefinedFunctionManager.UserDefinedFunctionRunner;
+
+import junit.framework.TestCase;
+
+public class TestUserDefinedFunctionRunner extends TestCase {
+
+    // More rows than the EE sends to Java in one batch
+    static final int ROWS = 1500;
+
+    public static class Functions {
+        public long addAll(int a, long b, double c) {
+            return a + b + (long) c;
+        }
+
+        public String label(String prefix, Integer id) {
+            if (prefix == null || id == VoltType.NULL_INTEGER) {
+                return null;
+            }
+            return prefix + id;
+        }
+    }
+
+    private static void writeLabelArgs(ByteBuffer buffer, int row) {
+        if (row % 7 == 0) {
+            buffer.putInt(VoltType.NULL_STRING_LENGTH);
+        }
+        else {
+            byte[] prefix = ("row" + (row % 3)).getBytes(VoltTable.ROWDATA_ENCODING);
+            buffer.putInt(prefix.length);
+            buffer.put(prefix);
+        }
+        buffer.putInt(row % 5 == 0 ? VoltType.NULL_INTEGER : row);
+    }
+
+    private static String expectedLabel(int row) {
+        return row % 7 == 0 || row % 5 == 0 ? null : "row" + (row % 3) + row;
+    }
+
+    public void testHandleMatchesReflection() throws Throwable {
+        Functions functions = new Functions();
+        UserDefinedFunctionRunner numeric = new UserDefinedFunctionRunner("addall", 1999001, "addAll", functions);
+        UserDefinedFunctionRunner string = new UserDefinedFunctionRunner("label", 1999002, "label", functions);
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.putInt(7);
+        buffer.putLong(21L);
+        buffer.putDouble(3.5);
+        buffer.flip();
+        assertEquals(numeric.callReflectively(buffer.duplicate()), numeric.call(buffer.duplicate()));
+        assertEquals(7L + 21L + 3L, numeric.call(buffer));
+        assertFalse(buffer.hasRemaining());
+
+        for (int row : new int[] { 0, 5, 7, 11 }) {
+            buffer.clear();
+            writeLabelArgs(buffer, row);
+            buffer.flip();
+            assertEquals(string.callReflectively(buffer.duplicate()), string.call(buffer.duplicate()));
+            assertEquals(expectedLabel(row), string.call(buffer));
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    public void testBatchWithNullsAndVarcharResults() throws Throwable {
+        UserDefinedFunctionRunner runner = new UserDefinedFunctionRunner("label", 1999002, "label", new Functions());
+        assertEquals(VoltType.STRING, runner.getReturnType());
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        for (int row = 0; row < ROWS; row++) {
+            writeLabelArgs(buffer, row);
+        }
+        buffer.flip();
+        Object[] results = runner.callBatch(buffer, ROWS);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(ROWS, results.length);
+
+        // The results go back to the EE one after the other, each with its type, NULL included
+        buffer.clear();
+        for (Object result : results) {
+            UserDefinedFunctionRunner.writeValueToBuffer(buffer, runner.getReturnType(), result);
+        }
+        buffer.flip();
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals(VoltType.STRING.getValue(), buffer.get());
+            assertEquals(expectedLabel(row), UserDefinedFunctionRunner.getValueFromBuffer(buffer, VoltType.STRING));
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+}
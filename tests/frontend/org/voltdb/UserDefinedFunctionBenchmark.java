@@ -0,0 +1,173 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import org.voltdb.UserDefinedFunctionManager.UserDefinedFunctionRunner;
+
+/**
+ * Runs the same rows of arguments through a Java user-defined function the way the
+ * EE used to call it (one row per call, parameters boxed into an Object[] for
+ * Method.invoke), one row per call through the runner's method handle, and in
+ * batches of rows per call, and prints the time and bytes allocated per row.
+ * The JNI crossing itself is not part of the measurement; batching saves one
+ * of those per row on top of what is printed here. Run it with main(); it is
+ * not a unit test.
+ */
+public class UserDefinedFunctionBenchmark {
+
+    static final int ROWS = 2_000_000;
+    static final int BATCH = 1024;
+    static final int ROUNDS = 5;
+
+    public static class Functions {
+        public long addAll(int a, long b, double c) {
+            return a + b + (long) c;
+        }
+
+        public String label(String prefix, long id) {
+            return prefix + id;
+        }
+    }
+
+    interface ArgumentWriter {
+        void write(ByteBuffer buffer, int row);
+    }
+
+    static final ArgumentWriter NUMERIC_ARGS = new ArgumentWriter() {
+        @Override
+        public void write(ByteBuffer buffer, int row) {
+            buffer.putInt(row);
+            buffer.putLong(row * 3L);
+            buffer.putDouble(row / 2.0);
+        }
+    };
+
+    static final byte[] PREFIX = "row".getBytes(VoltTable.ROWDATA_ENCODING);
+
+    static final ArgumentWriter STRING_ARGS = new ArgumentWriter() {
+        @Override
+        public void write(ByteBuffer buffer, int row) {
+            buffer.putInt(PREFIX.length);
+            buffer.put(PREFIX);
+            buffer.putLong(row);
+        }
+    };
+
+    interface Workload {
+        void run(UserDefinedFunctionRunner runner, ArgumentWriter args, ByteBuffer buffer) throws Throwable;
+    }
+
+    static class ReflectivePerRowWorkload implements Workload {
+        @Override
+        public void run(UserDefinedFunctionRunner runner, ArgumentWriter args, ByteBuffer buffer) throws Throwable {
+            for (int row = 0; row < ROWS; row++) {
+                buffer.clear();
+                args.write(buffer, row);
+                buffer.flip();
+                Object result = runner.callReflectively(buffer);
+                buffer.clear();
+                UserDefinedFunctionRunner.writeValueToBuffer(buffer, runner.getReturnType(), result);
+            }
+        }
+    }
+
+    static class PerRowWorkload implements Workload {
+        @Override
+        public void run(UserDefinedFunctionRunner runner, ArgumentWriter args, ByteBuffer buffer) throws Throwable {
+            for (int row = 0; row < ROWS; row++) {
+                buffer.clear();
+                args.write(buffer, row);
+                buffer.flip();
+                Object result = runner.call(buffer);
+                buffer.clear();
+                UserDefinedFunctionRunner.writeValueToBuffer(buffer, runner.getReturnType(), result);
+            }
+        }
+    }
+
+    static class BatchedWorkload implements Workload {
+        @Override
+        public void run(UserDefinedFunctionRunner runner, ArgumentWriter args, ByteBuffer buffer) throws Throwable {
+            for (int row = 0; row < ROWS; row += BATCH) {
+                buffer.clear();
+                for (int i = 0; i < BATCH; i++) {
+                    args.write(buffer, row + i);
+                }
+                buffer.flip();
+                Object[] results = runner.callBatch(buffer, BATCH);
+                buffer.clear();
+                for (Object result : results) {
+                    UserDefinedFunctionRunner.writeValueToBuffer(buffer, runner.getReturnType(), result);
+                }
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void run(String name, Workload workload, UserDefinedFunctionRunner runner,
+            ArgumentWriter args) throws Throwable {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long startBytes = allocatedBytes();
+            final long start = System.nanoTime();
+            workload.run(runner, args, buffer);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            bestBytes = Math.min(bestBytes, allocatedBytes() - startBytes);
+        }
+        System.out.printf("%-8s %-10s %6.1f ns/row %6.1f bytes/row\n", runner.getFunctionName(),
+                name, bestNanos / (double) ROWS, bestBytes / (double) ROWS);
+    }
+
+    public static void main(String[] args) throws Throwable {
+        Functions functions = new Functions();
+        UserDefinedFunctionRunner numeric = new UserDefinedFunctionRunner("addall", 1999001, "addAll", functions);
+        UserDefinedFunctionRunner string = new UserDefinedFunctionRunner("label", 1999002, "label", functions);
+
+        // Both ways of calling the function have to agree before timing them.
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        NUMERIC_ARGS.write(buffer, 7);
+        buffer.flip();
+        Object reflected = numeric.callReflectively(buffer.duplicate());
+        Object called = numeric.call(buffer);
+        if (!reflected.equals(called) || !called.equals(7L + 21L + 3L)) {
+            throw new AssertionError("addAll returned " + reflected + " and " + called);
+        }
+
+        for (UserDefinedFunctionRunner runner : new UserDefinedFunctionRunner[] { numeric, string }) {
+            ArgumentWriter writer = runner == numeric ? NUMERIC_ARGS : STRING_ARGS;
+            run("reflect", new ReflectivePerRowWorkload(), runner, writer);
+            run("per-row", new PerRowWorkload(), runner, writer);
+            run("batched", new BatchedWorkload(), runner, writer);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.client;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Sends the same number of invocations to a mock server through the callback API,
+ * through callProcedureAsync and through callProcedures, and through the callback
+ * API with a short call timeout, and prints the time and the bytes allocated by
+ * the calling thread per invocation. Run it with main(); it is not a unit test.
+ */
+public class ClientAsyncBenchmark {
+
+    static final int PORT = 21299;
+    static final int CALLS = 200_000;
+    static final int BATCH = 100;
+    static final int ROUNDS = 5;
+
+    interface Workload {
+        void run(Client client) throws Exception;
+    }
+
+    static class CallbackWorkload implements Workload {
+        @Override
+        public void run(Client client) throws Exception {
+            final CountDownLatch done = new CountDownLatch(CALLS);
+            final ProcedureCallback callback = new ProcedureCallback() {
+                @Override
+                public void clientCallback(ClientResponse clientResponse) {
+                    done.countDown();
+                }
+            };
+            for (int i = 0; i < CALLS; i++) {
+                client.callProcedure(callback, "Foo", i);
+            }
+            done.await();
+        }
+    }
+
+    static class FutureWorkload implements Workload {
+        @Override
+        public void run(Client client) throws Exception {
+            CompletableFuture<?> last = null;
+            for (int i = 0; i < CALLS; i++) {
+                last = client.callProcedureAsync("Foo", i);
+            }
+            client.drain();
+            last.join();
+        }
+    }
+
+    static class BatchWorkload implements Workload {
+        @Override
+        public void run(Client client) throws Exception {
+            List<Invocation> invocations = new ArrayList<>(BATCH);
+            for (int i = 0; i < CALLS; i += BATCH) {
+                invocations.clear();
+                for (int j = 0; j < BATCH; j++) {
+                    invocations.add(new Invocation("Foo", i + j));
+                }
+                client.callProcedures(invocations);
+            }
+            client.drain();
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void run(String name, Workload workload, Client client) throws Exception {
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long startBytes = allocatedBytes();
+            final long start = System.nanoTime();
+            workload.run(client);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            bestBytes = Math.min(bestBytes, allocatedBytes() - startBytes);
+        }
+        System.out.printf("%-9s %7.1f ns/call %7.1f bytes/call\n",
+                name, bestNanos / (double) CALLS, bestBytes / (double) CALLS);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (ClientConfig.ENABLE_SSL_FOR_TEST) return;
+
+        TestDistributer.MockVolt volt = new TestDistributer().new MockVolt(PORT);
+        Client client = null;
+        Client timedClient = null;
+        try {
+            volt.start();
+            ClientConfig config = new ClientConfig();
+            config.setMaxOutstandingTxns(10_000);
+            client = ClientFactory.createClient(config);
+            client.createConnection("localhost", PORT);
+            volt.handler.quiet = true;
+
+            run("callback", new CallbackWorkload(), client);
+            run("future", new FutureWorkload(), client);
+            run("batch", new BatchWorkload(), client);
+
+            // Calls with a timeout under a second are tracked by the timeout wheel
+            config = new ClientConfig();
+            config.setMaxOutstandingTxns(10_000);
+            config.setProcedureCallTimeout(500);
+            timedClient = ClientFactory.createClient(config);
+            timedClient.createConnection("localhost", PORT);
+            run("timed", new CallbackWorkload(), timedClient);
+        }
+        finally {
+            if (client != null) {
+                client.close();
+            }
+            if (timedClient != null) {
+                timedClient.close();
+            }
+            volt.shutdown();
+        }
+    }
+}
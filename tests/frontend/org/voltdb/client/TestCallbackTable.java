@@ -0,0 +1,139 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.voltdb.client.Distributer.CallbackBookeeping;
+
+import junit.framework.TestCase;
+
+public class TestCallbackTable extends TestCase {
+
+    private static final ProcedureCallback NULL_CALLBACK = new NullCallback();
+
+    public void testPutAndRemove() {
+        CallbackTable table = new CallbackTable(8);
+        ClientStats stats = new ClientStats();
+        CallbackBookeeping out = new CallbackBookeeping();
+
+        table.put(1, 100, NULL_CALLBACK, "Foo", stats, 1000, false);
+        table.put(2, 200, NULL_CALLBACK, "Bar", stats, 2000, true);
+        assertTrue(table.contains(1));
+        assertTrue(table.contains(2));
+        assertFalse(table.contains(3));
+
+        assertTrue(table.remove(2, out));
+        assertEquals(200, out.timestampNanos);
+        assertEquals("Bar", out.name);
+        assertSame(stats, out.stats);
+        assertSame(NULL_CALLBACK, out.callback);
+        assertEquals(2000, out.procedureTimeoutNanos);
+        assertTrue(out.ignoreBackpressure);
+
+        // A call is only removed once
+        assertFalse(table.remove(2, out));
+        assertFalse(table.contains(2));
+        assertTrue(table.contains(1));
+    }
+
+    public void testOverflow() {
+        CallbackTable table = new CallbackTable(8);
+        CallbackBookeeping out = new CallbackBookeeping();
+
+        // More calls outstanding than there are slots, the handles collide
+        for (long handle = 0; handle < 20; handle++) {
+            table.put(handle, handle, NULL_CALLBACK, "Foo" + handle, null, 0, false);
+        }
+        final List<Long> visited = new ArrayList<>();
+        table.forEach(new CallbackBookeeping(), new CallbackTable.Visitor() {
+            @Override
+            public void visit(long handle, CallbackBookeeping call) {
+                assertEquals("Foo" + handle, call.name);
+                visited.add(handle);
+            }
+        });
+        assertEquals(20, visited.size());
+
+        for (long handle = 19; handle >= 0; handle--) {
+            assertTrue(table.remove(handle, out));
+            assertEquals(handle, out.timestampNanos);
+            assertEquals("Foo" + handle, out.name);
+        }
+        for (long handle = 0; handle < 20; handle++) {
+            assertFalse(table.contains(handle));
+        }
+
+        // The freed slots are reused
+        table.put(100, 100, NULL_CALLBACK, "Bar", null, 0, false);
+        assertTrue(table.remove(100, out));
+        assertEquals("Bar", out.name);
+    }
+
+    public void testTimeoutWheel() {
+        final long tick = TimeUnit.MILLISECONDS.toNanos(1);
+        final long start = System.nanoTime();
+        TimeoutWheel<String> wheel = new TimeoutWheel<>(tick, 16, start);
+        final List<Long> expired = new ArrayList<>();
+        TimeoutWheel.Expirer<String> expirer = new TimeoutWheel.Expirer<String>() {
+            @Override
+            public void expire(String owner, long handle, long nowNanos) {
+                assertEquals("cxn", owner);
+                expired.add(handle);
+            }
+        };
+
+        // Deadlines a day away can't be due yet, whatever bucket they land in
+        final long later = start + TimeUnit.DAYS.toNanos(1);
+        assertTrue(wheel.schedule("cxn", 1, later));
+        assertFalse(wheel.schedule("cxn", 2, later + 5 * tick));
+        // More than a full turn of the wheel away
+        assertFalse(wheel.schedule("cxn", 3, later + 40 * tick));
+        // Already past
+        assertFalse(wheel.schedule("cxn", 4, start - tick));
+        assertEquals(4, wheel.pending());
+
+        assertEquals(3, wheel.expire(System.nanoTime(), expirer));
+        assertEquals(1, expired.size());
+        assertEquals(4L, (long) expired.get(0));
+
+        expired.clear();
+        assertEquals(2, wheel.expire(later + tick, expirer));
+        assertEquals(1, expired.size());
+        assertEquals(1L, (long) expired.get(0));
+
+        expired.clear();
+        assertEquals(1, wheel.expire(later + 10 * tick, expirer));
+        assertEquals(2L, (long) expired.get(0));
+
+        expired.clear();
+        assertEquals(0, wheel.expire(later + 40 * tick, expirer));
+        assertEquals(3L, (long) expired.get(0));
+
+        // Scheduling into an empty wheel says so
+        assertTrue(wheel.schedule("cxn", 5, later + 50 * tick));
+    }
+}
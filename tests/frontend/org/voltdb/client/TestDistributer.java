@@ -31,7 +31,9 @@ import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -60,6 +62,7 @@ public class TestDistributer extends TestCase {
         volatile Semaphore invokedSubscribe = new Semaphore(0);
         volatile Semaphore invokedTopology = new Semaphore(0);
         volatile Semaphore invokedSystemInformation = new Semaphore(0);
+        volatile boolean quiet = false;
 
         @Override
         public int getMaxRead() {
@@ -105,7 +108,9 @@ public class TestDistributer extends TestCase {
                     buf.clear();
                     c.writeStream().enqueue(buf);
                     roundTrips.incrementAndGet();
-                    System.err.println("Sending response.");
+                    if (!quiet) {
+                        System.err.println("Sending response.");
+                    }
                 }
                 else {
                     System.err.println("Witholding response.");
@@ -890,6 +895,116 @@ public class TestDistributer extends TestCase {
        }
     }
 
+    @Test
+    public void testQueueBatch() throws Exception {
+        // TODO: write a mock server that can grock ssl
+        if (ClientConfig.ENABLE_SSL_FOR_TEST) return;
+
+        // A batch is spread over the connections like single invocations are.
+        MockVolt volt0, volt1;
+        volt0 = volt1 = null;
+        try {
+            volt0 = new MockVolt(20000);
+            volt0.start();
+            volt1 = new MockVolt(20001);
+            volt1.start();
+
+            Distributer dist = new Distributer(false,
+                    ClientConfig.DEFAULT_PROCEDURE_TIMOUT_NANOS,
+                    ClientConfig.DEFAULT_CONNECTION_TIMOUT_MS,
+                    false, false, null /* subject */, null);
+            dist.createConnection("localhost", "", "", 20000, ClientAuthScheme.HASH_SHA1);
+            dist.createConnection("localhost", "", "", 20001, ClientAuthScheme.HASH_SHA1);
+
+            List<ProcedureInvocation> invocations = new ArrayList<>();
+            List<ProcedureCallback> callbacks = new ArrayList<>();
+            final AtomicInteger responses = new AtomicInteger();
+            for (int handle = 1; handle <= 10; handle++) {
+                invocations.add(new ProcedureInvocation(handle, "i1", new Integer(handle)));
+                callbacks.add(new ProcedureCallback() {
+                    @Override
+                    public void clientCallback(ClientResponse clientResponse) {
+                        assertEquals(ClientResponse.SUCCESS, clientResponse.getStatus());
+                        responses.incrementAndGet();
+                    }
+                });
+            }
+            assertEquals(10, dist.queueBatch(invocations, callbacks, true, System.nanoTime(), 0));
+            dist.drain();
+
+            assertEquals(10, responses.get());
+            assertEquals(5, volt0.handler.roundTrips.get());
+            assertEquals(5, volt1.handler.roundTrips.get());
+        }
+        finally {
+            if (volt0 != null) {
+                volt0.shutdown();
+            }
+            if (volt1 != null) {
+                volt1.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testClientFutures() throws Exception {
+        if (ClientConfig.ENABLE_SSL_FOR_TEST) return;
+        // TODO: write a mock server that can grock ssl
+        MockVolt volt = null;
+
+        try {
+            volt = new MockVolt(21212);
+            volt.start();
+
+            Client clt = ClientFactory.createClient();
+            clt.createConnection("localhost");
+
+            ClientResponse response = clt.callProcedureAsync("Foo", new Integer(1)).get(10, TimeUnit.SECONDS);
+            assertEquals(ClientResponse.SUCCESS, response.getStatus());
+            assertEquals(1, response.getResults()[0].asScalarLong());
+
+            List<Invocation> invocations = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                invocations.add(new Invocation("Bar", new Integer(i)));
+            }
+            List<CompletableFuture<ClientResponse>> futures = clt.callProcedures(invocations);
+            assertEquals(20, futures.size());
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+            for (CompletableFuture<ClientResponse> future : futures) {
+                assertEquals(ClientResponse.SUCCESS, future.get().getStatus());
+            }
+            // 4 system procedure calls were made when connecting
+            assertEquals(25, volt.handler.roundTrips.get());
+
+            // Failed responses complete the future exceptionally
+            volt.handler.sendProcTimeout.set(true);
+            try {
+                clt.callProcedureAsync("Foo", new Integer(1)).get(10, TimeUnit.SECONDS);
+                fail();
+            }
+            catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ProcCallException);
+                assertEquals(ClientResponse.CONNECTION_TIMEOUT,
+                        ((ProcCallException) e.getCause()).getClientResponse().getStatus());
+            }
+            clt.close();
+
+            // So do invocations that can't be queued
+            try {
+                clt.callProcedureAsync("Foo", new Integer(1)).get(10, TimeUnit.SECONDS);
+                fail();
+            }
+            catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ProcCallException);
+            }
+        }
+        finally {
+            if (volt != null) {
+                volt.shutdown();
+            }
+        }
+    }
+
     @Test
     public void testClientBlockedOnMaxOutstanding() throws Exception {
         // TODO: write a mock server that can grock ssl
@@ -0,0 +1,187 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TestExportStrand {
+
+    @Test
+    public void testTasksRunInOrder() throws Exception {
+        final int strands = 32;
+        final int tasksPerStrand = 1000;
+        List<ExportStrand> list = new ArrayList<>();
+        final List<List<Integer>> results = new ArrayList<>();
+        final AtomicInteger running[] = new AtomicInteger[strands];
+        final AtomicInteger overlaps = new AtomicInteger(0);
+        for (int ii = 0; ii < strands; ii++) {
+            list.add(new ExportStrand("test strand " + ii));
+            results.add(new ArrayList<Integer>());
+            running[ii] = new AtomicInteger(0);
+        }
+        List<Future<?>> last = new ArrayList<>();
+        for (int jj = 0; jj < tasksPerStrand; jj++) {
+            for (int ii = 0; ii < strands; ii++) {
+                final int strand = ii;
+                final int value = jj;
+                Future<?> f = list.get(ii).submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (running[strand].incrementAndGet() != 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        results.get(strand).add(value);
+                        running[strand].decrementAndGet();
+                    }
+                });
+                if (jj == tasksPerStrand - 1) {
+                    last.add(f);
+                }
+            }
+        }
+        for (Future<?> f : last) {
+            f.get();
+        }
+        assertEquals(0, overlaps.get());
+        for (List<Integer> result : results) {
+            assertEquals(tasksPerStrand, result.size());
+            for (int jj = 0; jj < tasksPerStrand; jj++) {
+                assertEquals(jj, result.get(jj).intValue());
+            }
+        }
+        for (ExportStrand strand : list) {
+            strand.shutdown();
+            assertTrue(strand.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testBlockedStrandDoesNotBlockOthers() throws Exception {
+        ExportStrand blocked = new ExportStrand("blocked");
+        ExportStrand other = new ExportStrand("other");
+        final CountDownLatch release = new CountDownLatch(1);
+        Future<?> blocker = blocked.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                }
+            }
+        });
+        Future<?> queuedBehind = blocked.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        other.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertFalse(queuedBehind.isDone());
+        release.countDown();
+        blocker.get();
+        queuedBehind.get();
+
+        long wait[] = blocked.getQueueWaitMicros(false);
+        assertTrue(wait[1] > 0);
+        assertTrue(wait[1] >= wait[0]);
+        // a new interval starts empty
+        blocked.getQueueWaitMicros(true);
+        wait = blocked.getQueueWaitMicros(true);
+        assertEquals(0, wait[0]);
+        assertEquals(0, wait[1]);
+    }
+
+    @Test
+    public void testIdleWorkerIsReused() throws Exception {
+        final int before = ExportStrand.getWorkerThreadCount();
+        for (int ii = 0; ii < 100; ii++) {
+            ExportStrand strand = new ExportStrand("sequential " + ii);
+            strand.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get(10, TimeUnit.SECONDS);
+            strand.shutdown();
+            // give the worker a moment to go back to waiting for work
+            Thread.sleep(1);
+        }
+        // one task at a time never needs more than a couple of threads
+        assertTrue(ExportStrand.getWorkerThreadCount() <= Math.max(before, 2));
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        ExportStrand strand = new ExportStrand("shutdown");
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger ran = new AtomicInteger(0);
+        strand.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                }
+                ran.incrementAndGet();
+            }
+        });
+        strand.submit(new Runnable() {
+            @Override
+            public void run() {
+                ran.incrementAndGet();
+            }
+        });
+        strand.shutdown();
+        assertTrue(strand.isShutdown());
+        assertFalse(strand.isTerminated());
+        try {
+            strand.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail("Submit after shutdown should be rejected");
+        } catch (RejectedExecutionException expected) {
+        }
+        release.countDown();
+        // Tasks queued before shutdown still run
+        assertTrue(strand.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(2, ran.get());
+    }
+}
@@ -0,0 +1,88 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.importclient.socket;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestServerSocketLineReader extends TestCase {
+
+    // Returns at most a few bytes per read, like a socket might
+    private static class TrickleInputStream extends FilterInputStream {
+        TrickleInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 3));
+        }
+    }
+
+    private static List<String> readAll(InputStream in) throws IOException {
+        ServerSocketImporter.LineReader reader = new ServerSocketImporter.LineReader(in);
+        List<String> lines = new ArrayList<>();
+        ByteBuffer line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(StandardCharsets.UTF_8.decode(line).toString());
+        }
+        return lines;
+    }
+
+    @Test
+    public void testLineTerminators() throws Exception {
+        String data = "a,1\nb,2\r\nc,3\r\rd,4\n\nlast";
+        List<String> expected = Arrays.asList("a,1", "b,2", "c,3", "", "d,4", "", "last");
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected, readAll(new ByteArrayInputStream(bytes)));
+        assertEquals(expected, readAll(new TrickleInputStream(new ByteArrayInputStream(bytes))));
+        assertEquals(Arrays.asList("x"), readAll(new ByteArrayInputStream("x\r\n".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(Arrays.asList(), readAll(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    public void testLongLines() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            char[] line = new char[i * 500];
+            Arrays.fill(line, (char) ('a' + i % 26));
+            expected.add(new String(line));
+            sb.append(line).append('\n');
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected, readAll(new ByteArrayInputStream(bytes)));
+    }
+}
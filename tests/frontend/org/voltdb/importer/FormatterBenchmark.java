@@ -0,0 +1,145 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.importer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.voltdb.importer.formatter.Formatter;
+import org.voltdb.importer.formatter.builtin.VoltCSVFormatter;
+import org.voltdb.importer.formatter.builtin.VoltSuperCSVFormatter;
+
+import au.com.bytecode.opencsv_voltpatches.CSVParser;
+
+/**
+ * Formats records read from a memory-mapped file of CSV lines, standing in for a batch
+ * of Kafka messages, the way the importers used to (decode each record into a String and
+ * encode it again before parsing) and by handing the formatters slices of the batch.
+ * Prints records per second on one thread and the bytes allocated per record.
+ * Run it with main(); it is not a unit test.
+ */
+public class FormatterBenchmark {
+
+    static final int RECORDS = 200_000;
+    static final int ROUNDS = 5;
+
+    interface Workload {
+        void run(List<ByteBuffer> records) throws Exception;
+    }
+
+    static class StringWorkload implements Workload {
+        final CSVParser m_parser = new CSVParser();
+
+        @Override
+        public void run(List<ByteBuffer> records) throws Exception {
+            for (ByteBuffer record : records) {
+                String smsg = StandardCharsets.UTF_8.decode(record.slice()).toString();
+                ByteBuffer copy = ByteBuffer.wrap(smsg.getBytes());
+                m_parser.parseLine(new String(copy.array(), copy.arrayOffset(), copy.limit(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    static class SliceWorkload implements Workload {
+        final Formatter m_formatter;
+
+        SliceWorkload(Formatter formatter) {
+            m_formatter = formatter;
+        }
+
+        @Override
+        public void run(List<ByteBuffer> records) throws Exception {
+            for (ByteBuffer record : records) {
+                m_formatter.transform(record.slice());
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void run(String name, Workload workload, List<ByteBuffer> records) throws Exception {
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long startBytes = allocatedBytes();
+            final long start = System.nanoTime();
+            workload.run(records);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            bestBytes = Math.min(bestBytes, allocatedBytes() - startBytes);
+        }
+        System.out.printf("%-9s %10.0f records/s %7.1f bytes/record\n",
+                name, RECORDS * 1e9 / bestNanos, bestBytes / (double) RECORDS);
+    }
+
+    private static List<ByteBuffer> mapRecords(File file) throws Exception {
+        List<ByteBuffer> records = new ArrayList<>(RECORDS);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            MappedByteBuffer map = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            int start = 0;
+            for (int i = 0; i < map.limit(); i++) {
+                if (map.get(i) == '\n') {
+                    ByteBuffer record = map.duplicate();
+                    record.limit(i).position(start);
+                    records.add(record);
+                    start = i + 1;
+                }
+            }
+        }
+        return records;
+    }
+
+    public static void main(String[] args) throws Exception {
+        File file = File.createTempFile("formatter", ".csv");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < RECORDS; i++) {
+                sb.setLength(0);
+                sb.append(i).append(',').append(i % 1000).append(",name-").append(i)
+                  .append(',').append(i * 0.25).append(",2019-01-01 00:00:00.000\n");
+                out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        List<ByteBuffer> records = mapRecords(file);
+        if (records.size() != RECORDS) {
+            throw new AssertionError("Mapped " + records.size() + " records, expected " + RECORDS);
+        }
+
+        run("string", new StringWorkload(), records);
+        run("csv", new SliceWorkload(new VoltCSVFormatter("csv", new Properties())), records);
+        run("supercsv", new SliceWorkload(new VoltSuperCSVFormatter("csv", new Properties())), records);
+    }
+}
@@ -0,0 +1,133 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.importer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.Test;
+import org.voltdb.importer.formatter.Formatter;
+import org.voltdb.importer.formatter.builtin.VoltCSVFormatter;
+import org.voltdb.importer.formatter.builtin.VoltSuperCSVFormatter;
+
+import au.com.bytecode.opencsv_voltpatches.CSVParser;
+import junit.framework.TestCase;
+
+/**
+ * Formatters get records as slices of larger buffers, heap or direct, and split
+ * records without quotes or escapes straight from the bytes.
+ */
+public class TestFormatterSlices extends TestCase {
+
+    private static final String[] RECORDS = {
+            "1,abc,2.5",
+            "1,,3",
+            "",
+            "  ",
+            ",",
+            "x, y ,z ",
+            "NULL,\\N,\"\\N\"",
+            "é,日本語,ü",
+            "\"quoted, with separator\",2",
+            "esc\\,aped,1",
+    };
+
+    private static ByteBuffer heapSlice(String record) {
+        byte[] bytes = ("garbage\n" + record + "\ngarbage").getBytes(StandardCharsets.UTF_8);
+        int start = "garbage\n".length();
+        int length = record.getBytes(StandardCharsets.UTF_8).length;
+        return ByteBuffer.wrap(bytes, start, length).slice();
+    }
+
+    private static ByteBuffer heapRange(String record) {
+        byte[] bytes = ("garbage\n" + record + "\ngarbage").getBytes(StandardCharsets.UTF_8);
+        int start = "garbage\n".length();
+        int length = record.getBytes(StandardCharsets.UTF_8).length;
+        return ByteBuffer.wrap(bytes, start, length);
+    }
+
+    private static ByteBuffer direct(String record) {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length + 4);
+        buf.position(2);
+        buf.put(bytes);
+        buf.flip();
+        buf.position(2);
+        return buf;
+    }
+
+    private static void assertSameFields(String record, Formatter formatter) throws Exception {
+        Object[] expected = formatter.transform(ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8)));
+        for (ByteBuffer buf : new ByteBuffer[] { heapSlice(record), heapRange(record), direct(record) }) {
+            int position = buf.position();
+            int limit = buf.limit();
+            assertTrue(record, Arrays.equals(expected, formatter.transform(buf)));
+            assertEquals(position, buf.position());
+            assertEquals(limit, buf.limit());
+        }
+    }
+
+    @Test
+    public void testCSVFormatterMatchesParser() throws Exception {
+        VoltCSVFormatter formatter = new VoltCSVFormatter("csv", new Properties());
+        CSVParser parser = new CSVParser();
+        for (String record : RECORDS) {
+            Object[] expected = parser.parseLine(record);
+            for (int i = 0; i < expected.length; i++) {
+                if ("NULL".equals(expected[i]) || "\\N".equals(expected[i]) || "\"\\N\"".equals(expected[i])) {
+                    expected[i] = null;
+                }
+            }
+            assertTrue(record, Arrays.equals(expected, formatter.transform(heapSlice(record))));
+            assertSameFields(record, formatter);
+        }
+    }
+
+    @Test
+    public void testSuperCSVFormatter() throws Exception {
+        VoltSuperCSVFormatter formatter = new VoltSuperCSVFormatter("csv", new Properties());
+        assertTrue(Arrays.equals(new Object[] { "1", "abc", "2.5" }, formatter.transform(heapSlice("1,abc,2.5"))));
+        assertTrue(Arrays.equals(new Object[] { "1", null, "3" }, formatter.transform(heapSlice("1,,3"))));
+        assertTrue(Arrays.equals(new Object[] { null, null }, formatter.transform(heapSlice(","))));
+        assertTrue(Arrays.equals(new Object[] { "x", " y ", "z " }, formatter.transform(heapSlice("x, y ,z "))));
+        assertNull(formatter.transform(heapSlice("")));
+        assertNull(formatter.transform(heapSlice("  ")));
+        assertTrue(Arrays.equals(new Object[] { "quoted, with separator", "2" },
+                formatter.transform(heapSlice("\"quoted, with separator\",2"))));
+        for (String record : RECORDS) {
+            assertSameFields(record, formatter);
+        }
+
+        Properties props = new Properties();
+        props.setProperty("nullstring", "nil");
+        formatter = new VoltSuperCSVFormatter("csv", props);
+        assertTrue(Arrays.equals(new Object[] { null, "NULL", null }, formatter.transform(heapSlice("nil,NULL,"))));
+
+        formatter = new VoltSuperCSVFormatter("tsv", new Properties());
+        assertTrue(Arrays.equals(new Object[] { "a", "b,c" }, formatter.transform(direct("a\tb,c"))));
+        assertNull(formatter.transform(direct("\t \t")));
+    }
+}
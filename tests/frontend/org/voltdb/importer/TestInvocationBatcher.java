@@ -0,0 +1,271 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.importer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.voltcore.utils.CoreUtils;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.VoltTable;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+
+import junit.framework.TestCase;
+
+public class TestInvocationBatcher extends TestCase {
+
+    // Batches invocations of T.insert by the first parameter, executes everything else alone
+    static class MockAdapter implements ImporterServerAdapter {
+        final List<Object[]> m_calls = new ArrayList<>();
+        final List<List<Object[]>> m_batches = new ArrayList<>();
+        final List<ProcedureCallback> m_callbacks = new ArrayList<>();
+        boolean m_acceptBatches = true;
+        int m_queued;
+        int m_failed;
+
+        @Override
+        public synchronized boolean callProcedure(AbstractImporter importer, Function<Integer, Boolean> backPressurePredicate,
+                ProcedureCallback callback, String proc, Object... fieldList) {
+            m_calls.add(fieldList);
+            m_callbacks.add(callback);
+            return !"bad".equals(fieldList[fieldList.length - 1]);
+        }
+
+        @Override
+        public int getBatchPartition(String proc, Object[] fieldList) {
+            return "T.insert".equals(proc) ? ((Integer) fieldList[0]) : -1;
+        }
+
+        @Override
+        public synchronized boolean callProcedureBatch(AbstractImporter importer, Function<Integer, Boolean> backPressurePredicate,
+                ProcedureCallback callback, String proc, List<Object[]> rows) {
+            if (!m_acceptBatches) {
+                return false;
+            }
+            m_batches.add(new ArrayList<>(rows));
+            m_callbacks.add(callback);
+            notifyAll();
+            return true;
+        }
+
+        synchronized void awaitBatches(int count) throws InterruptedException {
+            while (m_batches.size() < count) {
+                wait();
+            }
+        }
+
+        @Override
+        public synchronized void reportFailure(String importerName, String procName, boolean decrementPending) {
+            m_failed++;
+        }
+
+        @Override
+        public synchronized void reportQueued(String importerName, String procName) {
+            m_queued++;
+        }
+
+        @Override
+        public void reportInitialized(String importerName, String procName) {
+        }
+    }
+
+    static class MockImporter extends AbstractImporter {
+        @Override
+        public String getName() {
+            return "MockImporter";
+        }
+
+        @Override
+        public URI getResourceID() {
+            return null;
+        }
+
+        @Override
+        protected void accept() {
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+
+    static class CountingCallback implements ProcedureCallback {
+        final AtomicInteger m_success = new AtomicInteger();
+        final AtomicInteger m_failure = new AtomicInteger();
+        final CountDownLatch m_done;
+
+        CountingCallback(int expected) {
+            m_done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void clientCallback(ClientResponse response) {
+            if (response.getStatus() == ClientResponse.SUCCESS) {
+                m_success.incrementAndGet();
+            } else {
+                m_failure.incrementAndGet();
+            }
+            m_done.countDown();
+        }
+    }
+
+    private static ClientResponse response(byte status) {
+        return new ClientResponseImpl(status, new VoltTable[0], null);
+    }
+
+    private MockAdapter m_adapter;
+    private MockImporter m_importer;
+    private ScheduledThreadPoolExecutor m_executor;
+
+    @Override
+    public void setUp() {
+        m_adapter = new MockAdapter();
+        m_importer = new MockImporter();
+        m_importer.setImportServerAdapter(m_adapter);
+        m_executor = CoreUtils.getScheduledThreadPoolExecutor("Importer batches", 1, CoreUtils.SMALL_STACK_SIZE);
+        m_importer.setBatching(3, 60_000, m_executor);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        m_executor.shutdownNow();
+        assertTrue(m_executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBatchesByPartition() throws Exception {
+        CountingCallback callback = new CountingCallback(6);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(m_importer.callProcedure(new Invocation("T.insert", new Object[] { i % 2, "row" + i }), callback));
+        }
+        assertEquals(6, m_adapter.m_queued);
+        assertEquals(2, m_adapter.m_batches.size());
+        assertEquals(Arrays.asList("row0", "row2", "row4"), Arrays.asList(
+                m_adapter.m_batches.get(0).get(0)[1], m_adapter.m_batches.get(0).get(1)[1], m_adapter.m_batches.get(0).get(2)[1]));
+
+        // Every invocation of a batch gets its response
+        m_adapter.m_callbacks.get(0).clientCallback(response(ClientResponse.SUCCESS));
+        assertEquals(3, callback.m_success.get());
+        m_adapter.m_callbacks.get(1).clientCallback(response(ClientResponse.SUCCESS));
+        assertEquals(6, callback.m_success.get());
+
+        // Other procedures are not batched
+        assertTrue(m_importer.callProcedure(new Invocation("Other", new Object[] { 0 }), callback));
+        assertEquals(1, m_adapter.m_calls.size());
+    }
+
+    @Test
+    public void testLingerAndFlush() throws Exception {
+        m_importer.setBatching(100, 10, m_executor);
+        CountingCallback callback = new CountingCallback(2);
+        m_importer.callProcedure(new Invocation("T.insert", new Object[] { 1, "a" }), callback);
+        m_importer.callProcedure(new Invocation("T.insert", new Object[] { 1, "b" }), callback);
+        m_adapter.awaitBatches(1);
+        assertEquals(2, m_adapter.m_batches.get(0).size());
+
+        m_importer.setBatching(100, 60_000, m_executor);
+        m_importer.callProcedure(new Invocation("T.insert", new Object[] { 1, "c" }), callback);
+        m_importer.callProcedure(new Invocation("T.insert", new Object[] { 2, "d" }), callback);
+        m_importer.callProcedure(new Invocation("T.insert", new Object[] { 2, "e" }), callback);
+        m_importer.stopImporter();
+        // A batch of one is executed as a plain invocation
+        assertEquals(2, m_adapter.m_batches.size());
+        assertEquals(1, m_adapter.m_calls.size());
+    }
+
+    @Test
+    public void testFailedBatchIsReplayed() throws Exception {
+        CountingCallback callback = new CountingCallback(3);
+        m_importer.callProcedure(new Invocation("T.insert", new Object[] { 1, "a" }), callback);
+        m_importer.callProcedure(new Invocation("T.insert", new Object[] { 1, "bad" }), callback);
+        m_importer.callProcedure(new Invocation("T.insert", new Object[] { 1, "c" }), callback);
+        assertEquals(1, m_adapter.m_batches.size());
+
+        // The response of the batch is not passed on, each row is executed again
+        m_adapter.m_callbacks.get(0).clientCallback(response(ClientResponse.GRACEFUL_FAILURE));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            synchronized (m_adapter) {
+                if (m_adapter.m_calls.size() == 3) {
+                    break;
+                }
+            }
+            Thread.sleep(1);
+        }
+        synchronized (m_adapter) {
+            assertEquals(3, m_adapter.m_calls.size());
+            // The row that could not be queued fails on its own
+            assertEquals(1, m_adapter.m_failed);
+        }
+        assertEquals(1, callback.m_failure.get());
+        assertEquals(0, callback.m_success.get());
+    }
+
+    @Test
+    public void testRejectedBatchIsReplayed() throws Exception {
+        m_adapter.m_acceptBatches = false;
+        CountingCallback callback = new CountingCallback(3);
+        for (int i = 0; i < 3; i++) {
+            m_importer.callProcedure(new Invocation("T.insert", new Object[] { 1, "row" + i }), callback);
+        }
+        assertEquals(0, m_adapter.m_batches.size());
+        assertEquals(3, m_adapter.m_calls.size());
+        assertEquals(0, m_adapter.m_failed);
+    }
+
+    @Test
+    public void testFailedBatchAfterShutdown() throws Exception {
+        CountingCallback callback = new CountingCallback(3);
+        for (int i = 0; i < 3; i++) {
+            m_importer.callProcedure(new Invocation("T.insert", new Object[] { 1, "row" + i }), callback);
+        }
+        m_importer.stopImporter();
+        m_executor.shutdown();
+
+        // Nothing is left to replay the batch, every invocation fails
+        m_adapter.m_callbacks.get(0).clientCallback(response(ClientResponse.GRACEFUL_FAILURE));
+        assertEquals(0, m_adapter.m_calls.size());
+        assertEquals(3, m_adapter.m_failed);
+        assertEquals(3, callback.m_failure.get());
+    }
+
+    @Test
+    public void testNoBatchingWithoutExecutor() throws Exception {
+        m_importer = new MockImporter();
+        m_importer.setImportServerAdapter(m_adapter);
+        m_importer.setBatching(3, 60_000, null);
+        m_importer.callProcedure(new Invocation("T.insert", new Object[] { 1, "a" }), null);
+        assertEquals(0, m_adapter.m_batches.size());
+        assertEquals(1, m_adapter.m_calls.size());
+    }
+}
@@ -0,0 +1,142 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.mockito.MockSettings;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Runs 2-partition transfer transactions through the MPI's MpTransactionTaskQueue,
+ * with the coordinator's fragment round trips replaced by a fixed delay on the Site
+ * that picked up the transaction, and prints the throughput with MP writes
+ * serialized and with disjoint N-partition writes admitted concurrently.
+ * Run it with main(); it is not a unit test.
+ */
+public class NPartWriteBenchmark {
+
+    static final int PARTITIONS = 16;
+    static final int TXNS = 2_000;
+    static final long ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    static final int ROUNDS = 3;
+
+    // Don't let invocation recording on the mocks dominate the measurement
+    static final MockSettings STUB_ONLY = withSettings().stubOnly();
+
+    private static MpProcedureTask makeTransfer(long txnId, int from, int to)
+    {
+        MpTransactionState state = mock(MpTransactionState.class, STUB_ONLY);
+        when(state.isReadOnly()).thenReturn(false);
+        when(state.getDisjointWritePartitions()).thenReturn(new HashSet<Integer>(Arrays.asList(from, to)));
+        MpProcedureTask task = mock(MpProcedureTask.class, STUB_ONLY);
+        when(task.getTransactionState()).thenReturn(state);
+        when(task.getTxnId()).thenReturn(txnId);
+        return task;
+    }
+
+    private static List<MpProcedureTask> makeTransfers()
+    {
+        Random random = new Random(0);
+        List<MpProcedureTask> transfers = new ArrayList<>(TXNS);
+        TxnEgo txnId = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        for (int i = 0; i < TXNS; i++) {
+            txnId = txnId.makeNext();
+            int from = random.nextInt(PARTITIONS);
+            int to = (from + 1 + random.nextInt(PARTITIONS - 1)) % PARTITIONS;
+            transfers.add(makeTransfer(txnId.getTxnId(), from, to));
+        }
+        return transfers;
+    }
+
+    private static void run(String name, int maxConcurrentWrites, List<MpProcedureTask> transfers) throws Exception
+    {
+        final ExecutorService sites = Executors.newFixedThreadPool(MpRoSitePool.DEFAULT_MAX_POOL_SIZE + 1);
+        try {
+            long bestNanos = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                final CountDownLatch done = new CountDownLatch(TXNS);
+                final MpTransactionTaskQueue[] queue = new MpTransactionTaskQueue[1];
+                // Both the MPI Site and the pool Sites run the transaction and flush it
+                final Answer<Boolean> runTxn = new Answer<Boolean>() {
+                    @Override
+                    public Boolean answer(InvocationOnMock invocation) {
+                        final TransactionTask task = (TransactionTask) invocation.getArguments()[invocation.getArguments().length - 1];
+                        sites.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                LockSupport.parkNanos(ROUND_TRIP_NANOS);
+                                queue[0].flush(task.getTxnId());
+                                done.countDown();
+                            }
+                        });
+                        return true;
+                    }
+                };
+                SiteTaskerQueue writeQueue = mock(SiteTaskerQueue.class, STUB_ONLY);
+                doAnswer(runTxn).when(writeQueue).offer(any(SiteTasker.class));
+                MpRoSitePool pool = mock(MpRoSitePool.class, STUB_ONLY);
+                when(pool.canAcceptWork()).thenReturn(true);
+                doAnswer(runTxn).when(pool).doWork(anyLong(), any(TransactionTask.class));
+                queue[0] = new MpTransactionTaskQueue(writeQueue, maxConcurrentWrites);
+                queue[0].setMpRoSitePool(pool);
+
+                final long start = System.nanoTime();
+                for (MpProcedureTask transfer : transfers) {
+                    queue[0].offer(transfer);
+                }
+                done.await();
+                bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            }
+            System.out.printf("%-10s %8.0f txns/s\n", name, TXNS / (bestNanos / 1e9));
+        }
+        finally {
+            sites.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        List<MpProcedureTask> transfers = makeTransfers();
+        run("serial", 1, transfers);
+        run("concurrent", 8, transfers);
+    }
+}
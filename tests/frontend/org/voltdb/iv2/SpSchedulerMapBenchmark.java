@@ -0,0 +1,160 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.voltcore.utils.LongObjectHashMap;
+
+/**
+ * Replays the map traffic SpScheduler generates for replicated SP write
+ * transactions (one outstanding txn entry and one duplicate counter per txn,
+ * one counter lookup per replica response) against the boxed HashMap/TreeMap
+ * bookkeeping and the primitive long keyed maps, and prints the time and
+ * bytes allocated per transaction at k=1 and k=2. Run it with main(); it is
+ * not a unit test.
+ */
+public class SpSchedulerMapBenchmark {
+
+    static final int IN_FLIGHT = 200;
+    static final int TXNS = 2_000_000;
+    static final int ROUNDS = 5;
+
+    // Same ordering as the TreeMap key SpScheduler used before
+    static class BoxedKey implements Comparable<BoxedKey> {
+        final long m_txnId;
+        final long m_spHandle;
+        BoxedKey(long txnId, long spHandle) {
+            m_txnId = txnId;
+            m_spHandle = spHandle;
+        }
+        @Override
+        public int compareTo(BoxedKey o) {
+            int cmp = Long.compare(m_txnId, o.m_txnId);
+            return cmp != 0 ? cmp : Long.compare(m_spHandle, o.m_spHandle);
+        }
+    }
+
+    interface Workload {
+        void initiate(long spHandle);
+        void respond(long spHandle);
+        void done(long spHandle);
+    }
+
+    static class BoxedWorkload implements Workload {
+        final Map<Long, Object> m_outstanding = new HashMap<>();
+        final TreeMap<BoxedKey, DuplicateCounter> m_counters = new TreeMap<>();
+        final DuplicateCounter m_counter;
+        BoxedWorkload(DuplicateCounter counter) {
+            m_counter = counter;
+        }
+        @Override
+        public void initiate(long spHandle) {
+            m_outstanding.put(spHandle, m_counter);
+            BoxedKey key = new BoxedKey(spHandle, spHandle);
+            if (m_counters.get(key) == null) {
+                m_counters.put(key, m_counter);
+            }
+        }
+        @Override
+        public void respond(long spHandle) {
+            m_counters.get(new BoxedKey(spHandle, spHandle));
+            m_outstanding.get(spHandle);
+        }
+        @Override
+        public void done(long spHandle) {
+            m_counters.remove(new BoxedKey(spHandle, spHandle));
+            m_outstanding.remove(spHandle);
+        }
+    }
+
+    static class PrimitiveWorkload implements Workload {
+        final LongObjectHashMap<Object> m_outstanding = new LongObjectHashMap<>(1024);
+        final DuplicateCounterMap m_counters = new DuplicateCounterMap();
+        final DuplicateCounter m_counter;
+        PrimitiveWorkload(DuplicateCounter counter) {
+            m_counter = counter;
+        }
+        @Override
+        public void initiate(long spHandle) {
+            m_outstanding.put(spHandle, m_counter);
+            m_counters.putIfAbsent(spHandle, spHandle, m_counter);
+        }
+        @Override
+        public void respond(long spHandle) {
+            m_counters.get(spHandle, spHandle);
+            m_outstanding.get(spHandle);
+        }
+        @Override
+        public void done(long spHandle) {
+            m_counters.remove(spHandle, spHandle);
+            m_outstanding.remove(spHandle);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void run(String name, Workload workload, int k) {
+        // spHandles as TxnEgo would generate them for one partition
+        final long base = TxnEgo.makeZero(0).getTxnId();
+        long next = base;
+        long oldest = base;
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long startBytes = allocatedBytes();
+            final long start = System.nanoTime();
+            for (int i = 0; i < TXNS; i++) {
+                workload.initiate(next);
+                next += 1 << 14;
+                if (next - oldest > IN_FLIGHT << 14) {
+                    for (int r = 0; r <= k; r++) {
+                        workload.respond(oldest);
+                    }
+                    workload.done(oldest);
+                    oldest += 1 << 14;
+                }
+            }
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            bestBytes = Math.min(bestBytes, allocatedBytes() - startBytes);
+        }
+        System.out.printf("%-10s k=%d: %6.1f ns/txn %6.1f bytes/txn\n",
+                name, k, bestNanos / (double) TXNS, bestBytes / (double) TXNS);
+    }
+
+    public static void main(String[] args) {
+        DuplicateCounter counter = new DuplicateCounter(0, 0, new ArrayList<Long>(), null);
+        for (int k = 1; k <= 2; k++) {
+            run("boxed", new BoxedWorkload(counter), k);
+            run("primitive", new PrimitiveWorkload(counter), k);
+        }
+    }
+}
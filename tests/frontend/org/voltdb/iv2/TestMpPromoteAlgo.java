@@ -25,6 +25,7 @@ package org.voltdb.iv2;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -121,9 +122,16 @@ public class TestMpPromoteAlgo
 
     Iv2RepairLogResponseMessage makeRealFragResponse(long requestId,
             long sourceHSId, int sequence, int ofTotal, long handle)
+    {
+        return makeRealFragResponse(requestId, sourceHSId, sequence, ofTotal, handle, 0L);
+    }
+
+    Iv2RepairLogResponseMessage makeRealFragResponse(long requestId,
+            long sourceHSId, int sequence, int ofTotal, long handle, long truncationHandle)
     {
         FragmentTaskMessage frag = mock(FragmentTaskMessage.class);
         when(frag.getInitiateTask()).thenReturn(mock(Iv2InitiateTaskMessage.class));
+        when(frag.getTruncationHandle()).thenReturn(truncationHandle);
         Iv2RepairLogResponseMessage m = new Iv2RepairLogResponseMessage(requestId, sequence,
             ofTotal, handle, handle, frag);
         m.m_sourceHSId = sourceHSId;
@@ -329,6 +337,57 @@ public class TestMpPromoteAlgo
         assertEquals(txnEgo(1000L), result.get().m_txnId);
     }
 
+    // Disjoint writes can be interrupted together, and a completed later write must not
+    // hide an earlier one that is still in flight
+    @Test
+    public void testRepairConcurrentWrites() throws InterruptedException, ExecutionException
+    {
+        System.out.println("Running testRepairConcurrentWrites");
+        InitiatorMailbox mailbox = mock(MpInitiatorMailbox.class);
+        doReturn(4L).when(mailbox).getHSId();
+        ArrayList<Long> masters = new ArrayList<Long>();
+        masters.add(1L);
+        masters.add(2L);
+        masters.add(3L);
+
+        MpPromoteAlgo algo = new MpPromoteAlgo(masters, 5, mailbox,
+                new MpRestartSequenceGenerator(0, false), "Test", false, 2);
+        long requestId = algo.getRequestId();
+        Future<RepairResult> result = algo.start();
+
+        // 999 finished everywhere, 1000 on partitions 1 and 2 is in flight
+        algo.deliver(makeRealAckResponse(requestId,      1L, 0, 3, txnEgo(1000L), m_hashinatorConfig));
+        algo.deliver(makeRealCompleteResponse(requestId, 1L, 1, 3, txnEgo(999L)));
+        Iv2RepairLogResponseMessage frag1000 = makeRealFragResponse(requestId, 1L, 2, 3, txnEgo(1000L), txnEgo(999L));
+        algo.deliver(frag1000);
+        algo.deliver(makeRealAckResponse(requestId,      2L, 0, 2, txnEgo(1000L), m_hashinatorConfig));
+        algo.deliver(makeRealFragResponse(requestId,     2L, 1, 2, txnEgo(1000L), txnEgo(999L)));
+
+        // 1001 on partition 3 completed while 1000 was running, then 1002 started there
+        algo.deliver(makeRealAckResponse(requestId,      3L, 0, 4, txnEgo(1002L), m_hashinatorConfig));
+        algo.deliver(makeRealFragResponse(requestId,     3L, 1, 4, txnEgo(1001L), txnEgo(999L)));
+        algo.deliver(makeRealCompleteResponse(requestId, 3L, 2, 4, txnEgo(1001L)));
+        Iv2RepairLogResponseMessage frag1002 = makeRealFragResponse(requestId, 3L, 3, 4, txnEgo(1002L), txnEgo(999L));
+        algo.deliver(frag1002);
+
+        algo.deliver(makeRealAckResponse(requestId, 4L, 0, 2, txnEgo(1001L), m_hashinatorConfig));
+        algo.deliver(makeRealCompleteResponse(requestId, 4L, 1, 2, txnEgo(1001L)));
+
+        // Only the completion of 1001 is repaired, 999 is below the truncation handle
+        List<Long> needsRepair = new ArrayList<Long>();
+        needsRepair.add(1L);
+        needsRepair.add(2L);
+        needsRepair.add(3L);
+        verify(mailbox, times(1)).repairReplicasWith(eq(needsRepair), any(CompleteTransactionMessage.class));
+        assertEquals(txnEgo(1002L), result.get().m_txnId);
+
+        // Both interrupted writes are restarted, in txnId order
+        List<Iv2InitiateTaskMessage> interrupted = algo.getInterruptedTxns();
+        assertEquals(2, interrupted.size());
+        assertSame(((FragmentTaskMessage)frag1000.getPayload()).getInitiateTask(), interrupted.get(0));
+        assertSame(((FragmentTaskMessage)frag1002.getPayload()).getInitiateTask(), interrupted.get(1));
+    }
+
     @Test
     public void testFuzz() throws Exception
     {
@@ -0,0 +1,109 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.iv2.MpRoSitePoolStats.StatName;
+
+import junit.framework.TestCase;
+
+public class TestMpRoSitePoolStats extends TestCase
+{
+    MpRoSitePoolStats m_stats;
+
+    @Override
+    public void setUp()
+    {
+        m_stats = new MpRoSitePoolStats(0L, 1, 20);
+    }
+
+    private VoltTable getRow(boolean interval)
+    {
+        Object[][] rows = m_stats.getStatsRows(interval, 0L);
+        assertEquals(1, rows.length);
+        VoltTable table = new VoltTable(m_stats.getColumnSchema().toArray(new ColumnInfo[0]));
+        table.addRow(rows[0]);
+        table.advanceRow();
+        return table;
+    }
+
+    private long get(VoltTable row, StatName column)
+    {
+        return row.getLong(column.name());
+    }
+
+    @Test
+    public void testSitesAndDepth()
+    {
+        m_stats.setSiteCounts(3, 2);
+        for (int i = 0; i < 5; i++) {
+            m_stats.readQueued();
+        }
+        m_stats.readStarted(0);
+        m_stats.siteRetired();
+        VoltTable row = getRow(false);
+        assertEquals(3L, get(row, StatName.ACTIVE_SITES));
+        assertEquals(2L, get(row, StatName.IDLE_SITES));
+        assertEquals(1L, get(row, StatName.MIN_SITES));
+        assertEquals(20L, get(row, StatName.MAX_SITES));
+        assertEquals(4L, get(row, StatName.CURRENT_DEPTH));
+        assertEquals(1L, get(row, StatName.ADMITTED));
+        assertEquals(1L, get(row, StatName.RETIRED));
+    }
+
+    @Test
+    public void testWaits()
+    {
+        for (int i = 1; i <= 100; i++) {
+            m_stats.readQueued();
+            m_stats.readStarted(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        VoltTable row = getRow(true);
+        assertEquals(100L, get(row, StatName.ADMITTED));
+        assertEquals(0L, get(row, StatName.CURRENT_DEPTH));
+        // Microseconds, within the histogram's precision
+        assertEquals(50_000.0, get(row, StatName.P50_WAIT), 500.0);
+        assertEquals(99_000.0, get(row, StatName.P99_WAIT), 1000.0);
+        assertEquals(100_000.0, get(row, StatName.MAX_WAIT), 1000.0);
+        assertTrue(row.getVarbinary(StatName.WAIT_HISTOGRAM.name()).length > 0);
+
+        // Nothing happened since the last interval
+        row = getRow(true);
+        assertEquals(0L, get(row, StatName.ADMITTED));
+        assertEquals(0L, get(row, StatName.MAX_WAIT));
+
+        m_stats.readQueued();
+        m_stats.readStarted(TimeUnit.SECONDS.toNanos(1));
+        row = getRow(true);
+        assertEquals(1L, get(row, StatName.ADMITTED));
+        // Totals keep everything
+        row = getRow(false);
+        assertEquals(101L, get(row, StatName.ADMITTED));
+        assertEquals(1_000_000.0, get(row, StatName.MAX_WAIT), 10_000.0);
+    }
+}
@@ -34,7 +34,9 @@ import static org.mockito.Mockito.when;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.Test;
@@ -47,12 +49,21 @@ public class TestMpTransactionTaskQueue extends TestCase
     {
         MpTransactionState state = mock(MpTransactionState.class);
         when(state.isReadOnly()).thenReturn(readOnly);
+        when(state.getDisjointWritePartitions()).thenReturn(null);
         MpProcedureTask task = mock(MpProcedureTask.class);
         when(task.getTransactionState()).thenReturn(state);
         when(task.getTxnId()).thenReturn(txnid);
         return task;
     }
 
+    MpProcedureTask makeNPartWriteTask(long txnid, Integer... partitions)
+    {
+        MpProcedureTask task = makeTransactionTask(txnid, false);
+        MpTransactionState state = (MpTransactionState)task.getTransactionState();
+        when(state.getDisjointWritePartitions()).thenReturn(new HashSet<Integer>(Arrays.asList(partitions)));
+        return task;
+    }
+
     SiteTaskerQueue m_writeQueue;
     MpRoSitePool m_MPpool;
     MpTransactionTaskQueue m_dut;
@@ -64,7 +75,14 @@ public class TestMpTransactionTaskQueue extends TestCase
         m_MPpool = mock(MpRoSitePool.class);
         // Accept work for a while
         when(m_MPpool.canAcceptWork()).thenReturn(true);
-        m_dut = new MpTransactionTaskQueue(m_writeQueue);
+        m_dut = new MpTransactionTaskQueue(m_writeQueue, 1);
+        m_dut.setMpRoSitePool(m_MPpool);
+    }
+
+    // Replace the queue with one that admits up to two disjoint writes at once
+    void allowConcurrentWrites()
+    {
+        m_dut = new MpTransactionTaskQueue(m_writeQueue, 2);
         m_dut.setMpRoSitePool(m_MPpool);
     }
 
@@ -106,6 +124,26 @@ public class TestMpTransactionTaskQueue extends TestCase
 
     }
 
+    // Reads report to the pool when they are queued and when they get a site
+    @Test
+    public void testReadWaitsReported()
+    {
+        when(m_MPpool.canAcceptWork()).thenReturn(false);
+        TxnEgo txnId = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        txnId = txnId.makeNext();
+        m_dut.offer(makeTransactionTask(txnId.getTxnId(), true));
+        verify(m_MPpool).readQueued();
+        verify(m_MPpool, never()).readStarted(anyLong());
+        txnId = txnId.makeNext();
+        m_dut.offer(makeTransactionTask(txnId.getTxnId(), false));
+        verify(m_MPpool, times(1)).readQueued();
+        when(m_MPpool.canAcceptWork()).thenReturn(true);
+        txnId = txnId.makeNext();
+        m_dut.offer(makeTransactionTask(txnId.getTxnId(), true));
+        verify(m_MPpool, times(2)).readQueued();
+        verify(m_MPpool, times(1)).readStarted(anyLong());
+    }
+
     // Single write completes before any more reads are executed but after pending reads finish
     @Test
     public void testReadWriteBlocking()
@@ -150,4 +188,89 @@ public class TestMpTransactionTaskQueue extends TestCase
         verify(m_MPpool).doWork(eq(readtxnid), any(TransactionTask.class));
         verify(m_MPpool).doWork(eq(readtxnid2), any(TransactionTask.class));
     }
+
+    // N-partition writes on disjoint partitions run together, in backlog order
+    @Test
+    public void testDisjointNPartWrites()
+    {
+        allowConcurrentWrites();
+        TxnEgo txnId = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        txnId = txnId.makeNext();
+        long writeA = txnId.getTxnId();
+        MpProcedureTask taskA = makeNPartWriteTask(writeA, 0, 1);
+        m_dut.offer(taskA);
+        verify(m_writeQueue).offer(taskA);
+        // Disjoint from A, runs on a pool site
+        txnId = txnId.makeNext();
+        long writeB = txnId.getTxnId();
+        m_dut.offer(makeNPartWriteTask(writeB, 2, 3));
+        verify(m_MPpool).doWork(eq(writeB), any(TransactionTask.class));
+        // Overlaps A, has to wait
+        txnId = txnId.makeNext();
+        long writeC = txnId.getTxnId();
+        MpProcedureTask taskC = makeNPartWriteTask(writeC, 1, 4);
+        m_dut.offer(taskC);
+        // Disjoint from everything but queued behind C
+        txnId = txnId.makeNext();
+        long writeD = txnId.getTxnId();
+        m_dut.offer(makeNPartWriteTask(writeD, 5));
+        // A read waits for all of the writes
+        txnId = txnId.makeNext();
+        long read = txnId.getTxnId();
+        m_dut.offer(makeTransactionTask(read, true));
+        verify(m_writeQueue, never()).offer(taskC);
+        verify(m_MPpool, never()).doWork(eq(writeD), any(TransactionTask.class));
+        assertEquals(writeA, m_dut.getOldestWriteInProgress());
+
+        // A restart only goes back to the site running that write
+        m_dut.restart(writeB);
+        verify(m_MPpool, times(2)).doWork(eq(writeB), any(TransactionTask.class));
+        verify(m_writeQueue, times(1)).offer(any(TransactionTask.class));
+
+        m_dut.flush(writeB);
+        verify(m_MPpool).completeWork(writeB);
+        verify(m_writeQueue, never()).offer(taskC);
+
+        // C takes over the MPI site and D gets a pool site
+        m_dut.flush(writeA);
+        verify(m_MPpool, never()).completeWork(writeA);
+        verify(m_writeQueue).offer(taskC);
+        verify(m_MPpool).doWork(eq(writeD), any(TransactionTask.class));
+        assertEquals(writeC, m_dut.getOldestWriteInProgress());
+
+        m_dut.flush(writeC);
+        verify(m_MPpool, never()).doWork(eq(read), any(TransactionTask.class));
+        m_dut.flush(writeD);
+        verify(m_MPpool).completeWork(writeD);
+        verify(m_MPpool).doWork(eq(read), any(TransactionTask.class));
+        assertEquals(Long.MAX_VALUE, m_dut.getOldestWriteInProgress());
+    }
+
+    // A write that is not N-partition runs alone
+    @Test
+    public void testNPartWriteWaitsForMpWrite()
+    {
+        allowConcurrentWrites();
+        TxnEgo txnId = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        txnId = txnId.makeNext();
+        long mpWrite = txnId.getTxnId();
+        m_dut.offer(makeTransactionTask(mpWrite, false));
+        txnId = txnId.makeNext();
+        long npWrite = txnId.getTxnId();
+        MpProcedureTask npTask = makeNPartWriteTask(npWrite, 0, 1);
+        m_dut.offer(npTask);
+        verify(m_writeQueue, times(1)).offer(any(TransactionTask.class));
+        verify(m_MPpool, never()).doWork(anyLong(), any(TransactionTask.class));
+        txnId = txnId.makeNext();
+        long mpWrite2 = txnId.getTxnId();
+        MpProcedureTask mpTask2 = makeTransactionTask(mpWrite2, false);
+        m_dut.offer(mpTask2);
+        m_dut.flush(mpWrite);
+        verify(m_writeQueue).offer(npTask);
+        // The next MP write waits for the N-partition write
+        verify(m_writeQueue, never()).offer(mpTask2);
+        m_dut.flush(npWrite);
+        verify(m_writeQueue).offer(mpTask2);
+        verify(m_MPpool, never()).doWork(anyLong(), any(TransactionTask.class));
+    }
 }
@@ -0,0 +1,182 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.voltdb.StarvationTracker;
+
+import junit.framework.TestCase;
+
+public class TestSiteTaskerQueue extends TestCase
+{
+    private static class OrderedTask extends SiteTasker.SiteTaskerRunnable {
+        final int m_producer;
+        final int m_seq;
+
+        OrderedTask(int producer, int seq) {
+            m_producer = producer;
+            m_seq = seq;
+        }
+
+        @Override
+        void run() {
+        }
+    }
+
+    private static SiteTaskerQueue getSiteTaskerQueue() {
+        SiteTaskerQueue queue = new SiteTaskerQueue(0);
+        queue.setStarvationTracker(new StarvationTracker(0));
+        queue.setupQueueDepthTracker(0);
+        return queue;
+    }
+
+    @Test
+    public void testTakeBatchPreservesOrder() throws Exception
+    {
+        SiteTaskerQueue queue = getSiteTaskerQueue();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(queue.offer(new OrderedTask(0, i)));
+        }
+        assertEquals(10, queue.size());
+
+        SiteTasker[] batch = new SiteTasker[4];
+        int seq = 0;
+        int total = 0;
+        while (total < 10) {
+            int count = queue.takeBatch(batch);
+            assertTrue(count > 0 && count <= batch.length);
+            for (int i = 0; i < count; i++) {
+                assertEquals(seq++, ((OrderedTask)batch[i]).m_seq);
+            }
+            total += count;
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() throws Exception
+    {
+        SiteTaskerQueue queue = getSiteTaskerQueue();
+        final int taskCount = SiteTaskerQueue.INITIAL_CAPACITY * 4 + 3;
+        for (int i = 0; i < taskCount; i++) {
+            assertTrue(queue.offer(new OrderedTask(0, i)));
+        }
+        assertEquals(taskCount, queue.size());
+        for (int i = 0; i < taskCount; i++) {
+            assertEquals(i, ((OrderedTask)queue.take()).m_seq);
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testBlockedTakeIsWokenByOffer() throws Exception
+    {
+        final SiteTaskerQueue queue = getSiteTaskerQueue();
+        final AtomicReference<SiteTasker> taken = new AtomicReference<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    SiteTasker[] batch = new SiteTasker[8];
+                    queue.takeBatch(batch);
+                    taken.set(batch[0]);
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        consumer.start();
+        started.await();
+        Thread.sleep(50);
+        OrderedTask task = new OrderedTask(0, 0);
+        queue.offer(task);
+        consumer.join(10000);
+        assertFalse(consumer.isAlive());
+        assertSame(task, taken.get());
+    }
+
+    @Test
+    public void testBlockedTakeIsInterruptible() throws Exception
+    {
+        final SiteTaskerQueue queue = getSiteTaskerQueue();
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    queue.take();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        };
+        consumer.start();
+        Thread.sleep(50);
+        consumer.interrupt();
+        consumer.join(10000);
+        assertEquals(0, interrupted.getCount());
+    }
+
+    @Test
+    public void testMultipleProducersPerProducerOrder() throws Exception
+    {
+        final SiteTaskerQueue queue = getSiteTaskerQueue();
+        final int producerCount = 4;
+        final int tasksPerProducer = 50000;
+        Thread[] producers = new Thread[producerCount];
+        for (int p = 0; p < producerCount; p++) {
+            final int producer = p;
+            producers[p] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < tasksPerProducer; i++) {
+                        queue.offer(new OrderedTask(producer, i));
+                    }
+                }
+            };
+            producers[p].start();
+        }
+
+        int[] nextSeq = new int[producerCount];
+        SiteTasker[] batch = new SiteTasker[SiteTaskerQueue.DRAIN_BATCH_SIZE];
+        int total = 0;
+        while (total < producerCount * tasksPerProducer) {
+            int count = queue.takeBatch(batch);
+            for (int i = 0; i < count; i++) {
+                OrderedTask task = (OrderedTask)batch[i];
+                assertEquals(nextSeq[task.m_producer]++, task.m_seq);
+            }
+            total += count;
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -30,6 +30,7 @@ import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Date;
@@ -41,6 +42,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.Properties;
 
 import org.voltdb.BackendTarget;
 import org.voltdb.ServerThread;
@@ -712,6 +714,174 @@ public class TestJDBCQueries {
 
     }
 
+    @Test
+    public void testQueryBatchFailure() throws Exception
+    {
+        // contestants has a primary key, the third row collides with the first
+        PreparedStatement pStmt = conn.prepareStatement("insert into contestants values(?, ?)");
+        int[] ids = new int[] {1, 2, 1, 3};
+        for (int id : ids) {
+            pStmt.setInt(1, id);
+            pStmt.setString(2, "contestant" + id);
+            pStmt.addBatch();
+        }
+        // Runs after the failed one are not executed
+        pStmt.addBatch("delete from contestants");
+        try {
+            pStmt.executeBatch();
+            fail("Expected a BatchUpdateException");
+        }
+        catch (BatchUpdateException e) {
+            int[] resultCodes = e.getUpdateCounts();
+            assertEquals(ids.length, resultCodes.length);
+            // The later of the colliding rows fails, as if the inserts ran one at a time
+            assertEquals(1, resultCodes[0]);
+            assertEquals(1, resultCodes[1]);
+            assertEquals(Statement.EXECUTE_FAILED, resultCodes[2]);
+            assertEquals(1, resultCodes[3]);
+        }
+        finally {
+            Statement count = conn.createStatement();
+            ResultSet rs = count.executeQuery("select count(*) from contestants");
+            assertTrue(rs.next());
+            assertEquals(3, rs.getInt(1));
+            count.execute("delete from contestants");
+        }
+    }
+
+    private static void insertContestantsWithDuplicate(Connection connection) throws SQLException
+    {
+        // The duplicate of row 10 comes in the middle of a run of 200 inserts, as a Long
+        final int rows = 200;
+        final int duplicate = 100;
+        PreparedStatement pStmt = connection.prepareStatement("insert into contestants values(?, ?)");
+        for (int i = 0; i < rows; i++) {
+            if (i == duplicate) {
+                pStmt.setLong(1, 10L);
+            } else {
+                pStmt.setInt(1, i);
+            }
+            pStmt.setString(2, "contestant" + i);
+            pStmt.addBatch();
+        }
+        try {
+            pStmt.executeBatch();
+            fail("Expected a BatchUpdateException");
+        }
+        catch (BatchUpdateException e) {
+            int[] resultCodes = e.getUpdateCounts();
+            assertEquals(rows, resultCodes.length);
+            for (int i = 0; i < rows; i++) {
+                assertEquals("entry " + i, i == duplicate ? Statement.EXECUTE_FAILED : 1, resultCodes[i]);
+            }
+            assertNull(e.getNextException());
+        }
+        finally {
+            Statement count = connection.createStatement();
+            ResultSet rs = count.executeQuery("select count(*) from contestants");
+            assertTrue(rs.next());
+            assertEquals(rows - 1, rs.getInt(1));
+            rs = count.executeQuery("select contestant_name from contestants where contestant_number = 10");
+            assertTrue(rs.next());
+            assertEquals("contestant10", rs.getString(1));
+            count.execute("delete from contestants");
+        }
+    }
+
+    @Test
+    public void testQueryBatchPartialFailure() throws Exception
+    {
+        insertContestantsWithDuplicate(conn);
+
+        Properties props = new Properties();
+        props.setProperty(JDBC4Connection.BATCH_BULK_LOAD, "true");
+        String url = "jdbc:voltdb://localhost:21212";
+        if (ClientConfig.ENABLE_SSL_FOR_TEST) {
+            url += "?" + JDBCTestCommons.SSL_URL_SUFFIX;
+        }
+        Connection bulkConn = DriverManager.getConnection(url, props);
+        try {
+            insertContestantsWithDuplicate(bulkConn);
+        }
+        finally {
+            bulkConn.close();
+        }
+
+        // Literal inserts into a table with a primary key run one at a time
+        Statement batch = conn.createStatement();
+        batch.addBatch("insert into contestants values(1, 'first')");
+        batch.addBatch("insert into contestants values(2, 'second')");
+        batch.addBatch("insert into contestants values(1, 'again')");
+        batch.addBatch("insert into contestants values(3, 'third')");
+        try {
+            batch.executeBatch();
+            fail("Expected a BatchUpdateException");
+        }
+        catch (BatchUpdateException e) {
+            int[] resultCodes = e.getUpdateCounts();
+            assertEquals(3, resultCodes.length);
+            assertEquals(1, resultCodes[0]);
+            assertEquals(1, resultCodes[1]);
+            assertEquals(Statement.EXECUTE_FAILED, resultCodes[2]);
+        }
+        finally {
+            Statement count = conn.createStatement();
+            ResultSet rs = count.executeQuery("select count(*) from contestants");
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt(1));
+            count.execute("delete from contestants");
+        }
+    }
+
+    private static long loadVotes(Connection connection, int rows) throws SQLException
+    {
+        PreparedStatement pStmt = connection.prepareStatement("insert into votes values(?, ?, ?)");
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            pStmt.setLong(1, 6170000000L + i);
+            pStmt.setString(2, "MA");
+            pStmt.setInt(3, i % 6);
+            pStmt.addBatch();
+        }
+        int[] resultCodes = pStmt.executeBatch();
+        long elapsed = System.nanoTime() - start;
+        assertEquals(rows, resultCodes.length);
+        for (int resultCode : resultCodes) {
+            assertEquals(1, resultCode);
+        }
+        assertEquals(rows, pStmt.getUpdateCount());
+
+        Statement stmt = connection.createStatement();
+        ResultSet rs = stmt.executeQuery("select count(*) from votes");
+        assertTrue(rs.next());
+        assertEquals(rows, rs.getInt(1));
+        stmt.execute("delete from votes");
+        return elapsed;
+    }
+
+    @Test
+    public void testQueryBatchThroughput() throws Exception
+    {
+        final int rows = 10000;
+        long pipelined = loadVotes(conn, rows);
+
+        Properties props = new Properties();
+        props.setProperty(JDBC4Connection.BATCH_BULK_LOAD, "true");
+        String url = "jdbc:voltdb://localhost:21212";
+        if (ClientConfig.ENABLE_SSL_FOR_TEST) {
+            url += "?" + JDBCTestCommons.SSL_URL_SUFFIX;
+        }
+        Connection bulkConn = DriverManager.getConnection(url, props);
+        try {
+            long bulk = loadVotes(bulkConn, rows);
+            System.out.printf("executeBatch of %d inserts: pipelined %.0f rows/s, bulk loaded %.0f rows/s\n",
+                    rows, rows / (pipelined / 1e9), rows / (bulk / 1e9));
+        }
+        finally {
+            bulkConn.close();
+        }
+    }
+
     @Test
     public void testParameterizedQueries() throws Exception
     {
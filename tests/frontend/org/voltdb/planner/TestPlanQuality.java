@@ -0,0 +1,139 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.planner;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.voltcore.messaging.HostMessenger;
+import org.voltdb.CatalogContext;
+import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
+import org.voltdb.catalog.Catalog;
+import org.voltdb.compiler.DatabaseEstimates;
+import org.voltdb.compiler.PlannerTool;
+import org.voltdb.settings.ClusterSettings;
+import org.voltdb.settings.DbSettings;
+import org.voltdb.settings.NodeSettings;
+import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.MiscUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Plans TPC-C join queries with the default table estimates and again with the
+ * statistics @Analyze would gather from a 10 warehouse database, then costs both
+ * plans with the statistics. A ratio above 1 means the statistics led to a plan
+ * that reads fewer tuples.
+ */
+public class TestPlanQuality extends TestCase {
+
+    static final int WAREHOUSES = 10;
+
+    static final String[] QUERIES = {
+            // stock level
+            "SELECT COUNT(DISTINCT S_I_ID) FROM ORDER_LINE, STOCK WHERE OL_W_ID = 1 AND OL_D_ID = 2 AND " +
+            "OL_O_ID < 3000 AND OL_O_ID >= 2980 AND S_W_ID = OL_W_ID AND S_I_ID = OL_I_ID AND S_QUANTITY < 15;",
+            // order status by customer last name
+            "SELECT C_ID, O_ID, O_ENTRY_D FROM CUSTOMER, ORDERS WHERE C_W_ID = 1 AND C_D_ID = 2 AND " +
+            "C_LAST = 'BARBARBAR' AND O_W_ID = C_W_ID AND O_D_ID = C_D_ID AND O_C_ID = C_ID;",
+            "SELECT W_TAX, D_TAX, C_DISCOUNT FROM WAREHOUSE, DISTRICT, CUSTOMER WHERE W_ID = D_W_ID AND " +
+            "D_W_ID = C_W_ID AND D_ID = C_D_ID AND C_ID = 7;",
+            "SELECT COUNT(*) FROM NEW_ORDER, ORDERS, ORDER_LINE WHERE NO_W_ID = O_W_ID AND NO_D_ID = O_D_ID AND " +
+            "NO_O_ID = O_ID AND OL_W_ID = O_W_ID AND OL_D_ID = O_D_ID AND OL_O_ID = O_ID AND O_W_ID = 1;",
+            "SELECT I_NAME, S_QUANTITY FROM ITEM, STOCK WHERE I_ID = S_I_ID AND S_W_ID = 1 AND S_QUANTITY < 10;",
+            "SELECT H_AMOUNT, C_LAST FROM HISTORY, CUSTOMER WHERE H_C_W_ID = C_W_ID AND H_C_D_ID = C_D_ID AND " +
+            "H_C_ID = C_ID AND C_W_ID = 1 AND C_D_ID = 3;"
+    };
+
+    private static DatabaseEstimates.TableEstimates table(long rowCount, Object... columnDistinctValues) {
+        Map<String, Long> distinctValues = new HashMap<>();
+        for (int i = 0; i < columnDistinctValues.length; i += 2) {
+            distinctValues.put((String) columnDistinctValues[i], ((Number) columnDistinctValues[i + 1]).longValue());
+        }
+        return DatabaseEstimates.analyzedTable(rowCount, distinctValues);
+    }
+
+    // Cardinalities of the TPC-C specification
+    private static Map<String, DatabaseEstimates.TableEstimates> tpccStatistics() {
+        final int w = WAREHOUSES;
+        Map<String, DatabaseEstimates.TableEstimates> stats = new HashMap<>();
+        stats.put("WAREHOUSE", table(w, "W_ID", w));
+        stats.put("DISTRICT", table(10 * w, "D_W_ID", w, "D_ID", 10));
+        stats.put("ITEM", table(100000, "I_ID", 100000));
+        stats.put("CUSTOMER", table(30000 * w, "C_W_ID", w, "C_D_ID", 10, "C_ID", 3000, "C_LAST", 1000));
+        stats.put("CUSTOMER_NAME", table(30000 * w, "C_W_ID", w, "C_D_ID", 10, "C_ID", 3000, "C_LAST", 1000));
+        stats.put("HISTORY", table(30000 * w, "H_C_W_ID", w, "H_C_D_ID", 10, "H_C_ID", 3000));
+        stats.put("STOCK", table(100000 * w, "S_W_ID", w, "S_I_ID", 100000, "S_QUANTITY", 91));
+        stats.put("ORDERS", table(30000 * w, "O_W_ID", w, "O_D_ID", 10, "O_ID", 3000, "O_C_ID", 3000));
+        stats.put("NEW_ORDER", table(9000 * w, "NO_W_ID", w, "NO_D_ID", 10, "NO_O_ID", 900));
+        stats.put("ORDER_LINE", table(300000 * w, "OL_W_ID", w, "OL_D_ID", 10, "OL_O_ID", 3000,
+                                      "OL_I_ID", 100000, "OL_NUMBER", 15));
+        return stats;
+    }
+
+    private static double cost(CompiledPlan plan, DatabaseEstimates estimates) {
+        PlanStatistics stats = new PlanStatistics();
+        plan.rootPlanGraph.computeEstimatesRecursively(stats, estimates, null);
+        return new TrivialCostModel().getPlanCost(stats);
+    }
+
+    public void testPlanQuality() throws Exception {
+        TPCCProjectBuilder builder = new TPCCProjectBuilder();
+        builder.addAllDefaults();
+        final File jar = new File("tpcc-planquality.jar");
+        jar.deleteOnExit();
+        assertTrue(builder.compile(jar.getName()));
+        byte[] bytes = MiscUtils.fileToBytes(jar);
+        String serializedCatalog = CatalogUtil.getSerializedCatalogStringFromJar(CatalogUtil.loadAndUpgradeCatalogFromJar(bytes, false).getFirst());
+        Catalog catalog = new Catalog();
+        catalog.execute(serializedCatalog);
+        DbSettings settings = new DbSettings(ClusterSettings.create().asSupplier(), NodeSettings.create());
+        CatalogContext context = new CatalogContext(catalog, settings, 0, 0, bytes, null, new byte[] {}, mock(HostMessenger.class));
+
+        PlannerTool defaultPlanner = new PlannerTool(context.database, context.getCatalogHash());
+        PlannerTool analyzedPlanner = new PlannerTool(context.database, context.getCatalogHash());
+        Map<String, DatabaseEstimates.TableEstimates> stats = tpccStatistics();
+        analyzedPlanner.updateAnalyzedTables(stats);
+
+        double totalDefaultCost = 0;
+        double totalAnalyzedCost = 0;
+        for (String sql : QUERIES) {
+            CompiledPlan defaultPlan = defaultPlanner.planSqlCore(sql, StatementPartitioning.forceSP());
+            CompiledPlan analyzedPlan = analyzedPlanner.planSqlCore(sql, StatementPartitioning.forceSP());
+            double defaultCost = cost(defaultPlan, new DatabaseEstimates(stats));
+            double analyzedCost = cost(analyzedPlan, new DatabaseEstimates(stats));
+            totalDefaultCost += defaultCost;
+            totalAnalyzedCost += analyzedCost;
+            System.out.printf("%-100.100s default plan %14.0f  analyzed plan %14.0f  ratio %6.2f\n",
+                    sql, defaultCost, analyzedCost, defaultCost / analyzedCost);
+            // The analyzed plan is the cheapest plan the planner found under the statistics
+            assertTrue(sql, analyzedCost <= defaultCost);
+        }
+        System.out.printf("Total estimated tuples read: default plans %.0f, analyzed plans %.0f, ratio %.2f\n",
+                totalDefaultCost, totalAnalyzedCost, totalDefaultCost / totalAnalyzedCost);
+    }
+}
@@ -27,14 +27,33 @@ import static org.mockito.Mockito.mock;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.json_voltpatches.JSONObject;
 import org.voltcore.messaging.HostMessenger;
 import org.voltdb.CatalogContext;
 import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
 import org.voltdb.catalog.Catalog;
+import org.voltdb.common.Constants;
 import org.voltdb.compiler.AdHocPlannedStatement;
+import org.voltdb.compiler.DatabaseEstimates;
 import org.voltdb.compiler.PlannerTool;
 import org.voltdb.compiler.VoltProjectBuilder;
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.AbstractScanPlanNode;
+import org.voltdb.plannodes.HashJoinPlanNode;
+import org.voltdb.plannodes.NestLoopIndexPlanNode;
+import org.voltdb.plannodes.PlanNodeTree;
+import org.voltdb.types.JoinType;
+import org.voltdb.types.PlanNodeType;
 import org.voltdb.settings.ClusterSettings;
 import org.voltdb.settings.DbSettings;
 import org.voltdb.settings.NodeSettings;
@@ -75,6 +94,10 @@ public class TestPlannerTool extends TestCase {
         result = m_pt.planSqlForTest("select * from warehouse;");
         System.out.println(result);
 
+        // @Analyze delimits the names in the aggregates it generates
+        result = m_pt.planSqlForTest("SELECT COUNT(*), COUNT(DISTINCT \"C_LAST\") FROM \"CUSTOMER\";");
+        assertNotNull(result);
+
         // try many tables joins
         try {
             result = m_pt.planSqlForTest("select * from WAREHOUSE, DISTRICT, CUSTOMER, CUSTOMER_NAME, HISTORY, STOCK, ORDERS, NEW_ORDER, ORDER_LINE where " +
@@ -139,6 +162,202 @@ public class TestPlannerTool extends TestCase {
         System.out.println(result);
     }
 
+    public void testConcurrentPlanning() throws Exception {
+        TPCCProjectBuilder builder = new TPCCProjectBuilder();
+        builder.addAllDefaults();
+        final File jar = new File("tpcc-oop.jar");
+        jar.deleteOnExit();
+        builder.compile("tpcc-oop.jar");
+
+        byte[] bytes = MiscUtils.fileToBytes(new File("tpcc-oop.jar"));
+        String serializedCatalog = CatalogUtil.getSerializedCatalogStringFromJar(CatalogUtil.loadAndUpgradeCatalogFromJar(bytes, false).getFirst());
+        Catalog catalog = new Catalog();
+        catalog.execute(serializedCatalog);
+        DbSettings settings = new DbSettings(ClusterSettings.create().asSupplier(),NodeSettings.create());
+        CatalogContext context = new CatalogContext(catalog, settings, 0, 0, bytes, null, new byte[] {}, mock(HostMessenger.class));
+
+        m_pt = new PlannerTool(context.database, context.getCatalogHash());
+
+        // Statements with subqueries, unions and constants exercise the statement,
+        // plan node and parameter counters which are kept per planning thread.
+        final String[] sqls = {
+                "select * from warehouse where w_id = 5;",
+                "select d_id, count(*) from district where d_w_id in (select w_id from warehouse where w_tax > 0.5) group by d_id;",
+                "select c_id from customer where c_w_id = 1 union select o_c_id from orders where o_w_id = 2;",
+                "select * from (select s_i_id, s_quantity from stock where s_w_id = 3) s, item where s.s_i_id = item.i_id order by s_quantity limit 10;",
+                "select ol_o_id from order_line where ol_w_id = 4 and ol_amount > (select avg(ol_amount) from order_line);"
+        };
+
+        // Plan each statement serially first, without the ad hoc cache.
+        final byte[][] expected = new byte[sqls.length][];
+        for (int i = 0; i < sqls.length; i++) {
+            expected[i] = m_pt.planSql(sqls[i], StatementPartitioning.forceSP(), false, null, false, false)
+                    .core.aggregatorFragment;
+        }
+
+        ExecutorService es = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int offset = t;
+                futures.add(es.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        int idx = (i + offset) % sqls.length;
+                        AdHocPlannedStatement result = m_pt.planSql(sqls[idx], StatementPartitioning.forceSP(),
+                                false, null, false, false);
+                        assertTrue(sqls[idx], Arrays.equals(expected[idx], result.core.aggregatorFragment));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }
+        finally {
+            es.shutdown();
+        }
+    }
+
+    private static String outerTableOfJoin(CompiledPlan plan) {
+        List<AbstractPlanNode> joins = plan.rootPlanGraph.findAllNodesOfType(PlanNodeType.NESTLOOPINDEX);
+        assertEquals(1, joins.size());
+        NestLoopIndexPlanNode join = (NestLoopIndexPlanNode) joins.get(0);
+        return ((AbstractScanPlanNode) join.getChild(0)).getTargetTableName();
+    }
+
+    private static DatabaseEstimates.TableEstimates analyzed(long rowCount, long distinctA) {
+        Map<String, Long> distinctValues = new HashMap<>();
+        distinctValues.put("ID", rowCount);
+        distinctValues.put("A", distinctA);
+        return DatabaseEstimates.analyzedTable(rowCount, distinctValues);
+    }
+
+    private static CatalogContext compileLiteralSchema(String ddl, String jarName) throws Exception {
+        VoltProjectBuilder builder = new VoltProjectBuilder();
+        builder.addLiteralSchema(ddl);
+        final File jar = new File(jarName);
+        jar.deleteOnExit();
+        assertTrue(builder.compile(jarName));
+        byte[] bytes = MiscUtils.fileToBytes(jar);
+        String serializedCatalog = CatalogUtil.getSerializedCatalogStringFromJar(CatalogUtil.loadAndUpgradeCatalogFromJar(bytes, false).getFirst());
+        Catalog c = new Catalog();
+        c.execute(serializedCatalog);
+        DbSettings settings = new DbSettings(ClusterSettings.create().asSupplier(), NodeSettings.create());
+        return new CatalogContext(c, settings, 0, 0, bytes, null, new byte[] {}, mock(HostMessenger.class));
+    }
+
+    public void testAnalyzedTablesChooseJoinOrder() throws Exception {
+        CatalogContext context = compileLiteralSchema(
+                "CREATE TABLE T1 (ID BIGINT NOT NULL PRIMARY KEY, A BIGINT NOT NULL);" +
+                "CREATE INDEX T1_A ON T1 (A);" +
+                "CREATE TABLE T2 (ID BIGINT NOT NULL PRIMARY KEY, A BIGINT NOT NULL);" +
+                "CREATE INDEX T2_A ON T2 (A);",
+                "testanalyze-oop.jar");
+
+        m_pt = new PlannerTool(context.database, context.getCatalogHash());
+        final String sql = "select * from T1, T2 where T1.A = T2.A;";
+
+        // The smaller table should drive the join, looking up the larger one through its index.
+        Map<String, DatabaseEstimates.TableEstimates> stats = new HashMap<>();
+        stats.put("T1", analyzed(10, 10));
+        stats.put("T2", analyzed(1000000, 1000));
+        m_pt.updateAnalyzedTables(stats);
+        assertEquals("T1", outerTableOfJoin(m_pt.planSqlCore(sql, StatementPartitioning.inferPartitioning())));
+
+        // Statistics survive a round trip to the other hosts.
+        Map<String, DatabaseEstimates.TableEstimates> swapped = DatabaseEstimates.analyzedTablesFromJSON(
+                DatabaseEstimates.analyzedTablesToJSON(stats).replace("\"T1\"", "\"TX\"")
+                                                             .replace("\"T2\"", "\"T1\"")
+                                                             .replace("\"TX\"", "\"T2\""));
+        assertEquals(1000000, swapped.get("T1").maxTuples);
+        assertEquals(1000, swapped.get("T1").getDistinctValues("A"));
+        m_pt.updateAnalyzedTables(swapped);
+        assertEquals("T2", outerTableOfJoin(m_pt.planSqlCore(sql, StatementPartitioning.inferPartitioning())));
+    }
+
+    public void testAnalyzedTablesChooseHashJoin() throws Exception {
+        CatalogContext context = compileLiteralSchema(
+                "CREATE TABLE T1 (ID BIGINT NOT NULL PRIMARY KEY, A BIGINT NOT NULL);" +
+                "CREATE TABLE T2 (ID BIGINT NOT NULL PRIMARY KEY, A INTEGER);" +
+                "CREATE TABLE T3 (ID BIGINT NOT NULL PRIMARY KEY, A BIGINT NOT NULL);" +
+                "CREATE INDEX T3_A ON T3 (A);",
+                "testhashjoin-oop.jar");
+
+        m_pt = new PlannerTool(context.database, context.getCatalogHash());
+        checkHashJoinPlans(context);
+
+        // The executor partitions the inputs of large queries, so they are hashed too.
+        final String innerSql = "select * from T1, T2 where T1.A = T2.A;";
+        AdHocPlannedStatement large = m_pt.planSql(innerSql, StatementPartitioning.inferPartitioning(),
+                false, null, false, true);
+        String largePlan = new String(large.core.aggregatorFragment, Constants.UTF8ENCODING);
+        assertTrue(largePlan, largePlan.contains("\"HASHJOIN\""));
+        assertTrue(largePlan, largePlan.contains("\"IS_LARGE_QUERY\":true"));
+
+        final boolean hashJoinEnabled = PlanAssembler.HASH_JOIN_ENABLED;
+        try {
+            // -DHASH_JOIN_ENABLED=false turns hash joins off, even with statistics.
+            PlanAssembler.HASH_JOIN_ENABLED = false;
+            m_pt = new PlannerTool(context.database, context.getCatalogHash());
+            m_pt.updateAnalyzedTables(Collections.singletonMap("T1", analyzed(100000, 50000)));
+            m_pt.updateAnalyzedTables(Collections.singletonMap("T2", analyzed(100000, 50000)));
+            CompiledPlan plan = m_pt.planSqlCore(innerSql, StatementPartitioning.inferPartitioning());
+            assertTrue(plan.rootPlanGraph.findAllNodesOfType(PlanNodeType.HASHJOIN).isEmpty());
+        }
+        finally {
+            PlanAssembler.HASH_JOIN_ENABLED = hashJoinEnabled;
+        }
+    }
+
+    private void checkHashJoinPlans(CatalogContext context) throws Exception {
+        final String innerSql = "select * from T1, T2 where T1.A = T2.A;";
+        final String leftSql = "select * from T1 left join T2 on T1.A = T2.A and T2.ID > 5;";
+        final String indexedSql = "select * from T1, T3 where T1.A = T3.A;";
+
+        // Without statistics nothing changes.
+        CompiledPlan plan = m_pt.planSqlCore(innerSql, StatementPartitioning.inferPartitioning());
+        assertTrue(plan.rootPlanGraph.findAllNodesOfType(PlanNodeType.HASHJOIN).isEmpty());
+        assertEquals(1, plan.rootPlanGraph.findAllNodesOfType(PlanNodeType.NESTLOOP).size());
+
+        // Two large tables with no index on the join column are hashed.
+        Map<String, DatabaseEstimates.TableEstimates> stats = new HashMap<>();
+        stats.put("T1", analyzed(100000, 50000));
+        stats.put("T2", analyzed(100000, 50000));
+        stats.put("T3", analyzed(100000, 50000));
+        m_pt.updateAnalyzedTables(stats);
+
+        plan = m_pt.planSqlCore(innerSql, StatementPartitioning.inferPartitioning());
+        HashJoinPlanNode join = hashJoinOf(plan);
+        assertEquals(JoinType.INNER, join.getJoinType());
+        assertEquals(1, join.getOuterHashExpressions().size());
+        assertEquals(1, join.getInnerHashExpressions().size());
+        String explained = plan.rootPlanGraph.toExplainPlanString();
+        assertTrue(explained, explained.contains("HASH INNER JOIN"));
+
+        // The hash expressions survive serialization to the EE.
+        String json = new PlanNodeTree(plan.rootPlanGraph).toJSONString();
+        PlanNodeTree loaded = new PlanNodeTree();
+        loaded.loadFromJSONPlan(new JSONObject(json), context.database);
+        assertEquals(json, loaded.toJSONString());
+
+        plan = m_pt.planSqlCore(leftSql, StatementPartitioning.inferPartitioning());
+        assertEquals(JoinType.LEFT, hashJoinOf(plan).getJoinType());
+
+        // A few index lookups from a small outer table beat hashing the indexed table.
+        stats.put("T1", analyzed(10, 10));
+        m_pt.updateAnalyzedTables(stats);
+        plan = m_pt.planSqlCore(indexedSql, StatementPartitioning.inferPartitioning());
+        assertTrue(plan.rootPlanGraph.findAllNodesOfType(PlanNodeType.HASHJOIN).isEmpty());
+        assertEquals(1, plan.rootPlanGraph.findAllNodesOfType(PlanNodeType.NESTLOOPINDEX).size());
+    }
+
+    private static HashJoinPlanNode hashJoinOf(CompiledPlan plan) {
+        List<AbstractPlanNode> joins = plan.rootPlanGraph.findAllNodesOfType(PlanNodeType.HASHJOIN);
+        assertEquals(1, joins.size());
+        return (HashJoinPlanNode) joins.get(0);
+    }
+
     public void testBadDDL() throws IOException
     {
         // semicolons in in-lined comments are bad
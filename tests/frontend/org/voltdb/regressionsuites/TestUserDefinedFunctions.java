@@ -818,6 +818,45 @@ public class TestUserDefinedFunctions extends RegressionSuite {
                     VoltType.GEOGRAPHY, UserDefinedTestException.class);
     }
 
+    /** Tests function calls over more rows than the EE passes to Java in one
+     *  batch, with NULL arguments and VARCHAR results. (The ORDER BY puts the
+     *  function calls in a projection of their own, which is the batched path.) */
+    public void testUDFBatchedProjection() throws IOException, ProcCallException {
+        final int rows = 2500;
+        Client client = getClient();
+        for (int i = 0; i < rows; i++) {
+            Integer intValue = (i % 5 == 0 ? null : i);
+            String inlineValue = (i % 7 == 0 ? null : "a" + i);
+            ClientResponse cr = client.callProcedure("R1.insert", i, null, null, intValue, null,
+                    null, null, inlineValue, "b" + i, null, null, null, null, null, null);
+            assertEquals(ClientResponse.SUCCESS, cr.getStatus());
+        }
+
+        VoltTable vt = client.callProcedure("@AdHoc",
+                "SELECT ID, add2Varchar(VCHAR_INLINE_MAX, VCHAR), add2IntegerBoxed(INT, INT) "
+                + "FROM R1 ORDER BY ID + 0;").getResults()[0];
+        assertEquals(rows, vt.getRowCount());
+        for (int i = 0; i < rows; i++) {
+            assertTrue(vt.advanceRow());
+            assertEquals(i, vt.getLong(0));
+            String label = vt.getString(1);
+            if (i % 7 == 0) {
+                assertTrue("Expected a null VARCHAR for ID " + i, vt.wasNull());
+            } else {
+                assertEquals("a" + i + "b" + i, label);
+            }
+            long sum = vt.getLong(2);
+            if (i % 5 == 0) {
+                assertTrue("Expected a null INTEGER for ID " + i, vt.wasNull());
+            } else {
+                assertEquals(2 * i, sum);
+            }
+        }
+
+        ClientResponse cr = client.callProcedure("@AdHoc", "TRUNCATE TABLE R1");
+        assertEquals(ClientResponse.SUCCESS, cr.getStatus());
+    }
+
 
     /** Simple constructor that passes parameter on to superclass.
      *  @param name The name of the method to run as a test. (JUnit magic) */
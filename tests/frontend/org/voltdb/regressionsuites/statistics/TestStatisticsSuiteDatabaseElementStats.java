@@ -312,7 +312,7 @@ public class TestStatisticsSuiteDatabaseElementStats extends StatisticsTestSuite
         // Validate the schema of PROCEDUREDETAIL
         results = client.callProcedure("@Statistics", "proceduredetail", 0).getResults();
         assertEquals(1, results.length);
-        expectedSchema = new ColumnInfo[20];
+        expectedSchema = new ColumnInfo[24];
         expectedSchema[0] = new ColumnInfo("TIMESTAMP", VoltType.BIGINT);
         expectedSchema[1] = new ColumnInfo("HOST_ID", VoltType.INTEGER);
         expectedSchema[2] = new ColumnInfo("HOSTNAME", VoltType.STRING);
@@ -325,17 +325,48 @@ public class TestStatisticsSuiteDatabaseElementStats extends StatisticsTestSuite
         expectedSchema[9] = new ColumnInfo("MIN_EXECUTION_TIME", VoltType.BIGINT);
         expectedSchema[10] = new ColumnInfo("MAX_EXECUTION_TIME", VoltType.BIGINT);
         expectedSchema[11] = new ColumnInfo("AVG_EXECUTION_TIME", VoltType.BIGINT);
-        expectedSchema[12] = new ColumnInfo("MIN_RESULT_SIZE", VoltType.INTEGER);
-        expectedSchema[13] = new ColumnInfo("MAX_RESULT_SIZE", VoltType.INTEGER);
-        expectedSchema[14] = new ColumnInfo("AVG_RESULT_SIZE", VoltType.INTEGER);
-        expectedSchema[15] = new ColumnInfo("MIN_PARAMETER_SET_SIZE", VoltType.INTEGER);
-        expectedSchema[16] = new ColumnInfo("MAX_PARAMETER_SET_SIZE", VoltType.INTEGER);
-        expectedSchema[17] = new ColumnInfo("AVG_PARAMETER_SET_SIZE", VoltType.INTEGER);
-        expectedSchema[18] = new ColumnInfo("ABORTS", VoltType.BIGINT);
-        expectedSchema[19] = new ColumnInfo("FAILURES", VoltType.BIGINT);
+        expectedSchema[12] = new ColumnInfo("P50_EXECUTION_TIME", VoltType.BIGINT);
+        expectedSchema[13] = new ColumnInfo("P95_EXECUTION_TIME", VoltType.BIGINT);
+        expectedSchema[14] = new ColumnInfo("P99_EXECUTION_TIME", VoltType.BIGINT);
+        expectedSchema[15] = new ColumnInfo("P99.9_EXECUTION_TIME", VoltType.BIGINT);
+        expectedSchema[16] = new ColumnInfo("MIN_RESULT_SIZE", VoltType.INTEGER);
+        expectedSchema[17] = new ColumnInfo("MAX_RESULT_SIZE", VoltType.INTEGER);
+        expectedSchema[18] = new ColumnInfo("AVG_RESULT_SIZE", VoltType.INTEGER);
+        expectedSchema[19] = new ColumnInfo("MIN_PARAMETER_SET_SIZE", VoltType.INTEGER);
+        expectedSchema[20] = new ColumnInfo("MAX_PARAMETER_SET_SIZE", VoltType.INTEGER);
+        expectedSchema[21] = new ColumnInfo("AVG_PARAMETER_SET_SIZE", VoltType.INTEGER);
+        expectedSchema[22] = new ColumnInfo("ABORTS", VoltType.BIGINT);
+        expectedSchema[23] = new ColumnInfo("FAILURES", VoltType.BIGINT);
         expectedTable = new VoltTable(expectedSchema);
         validateSchema(results[0], expectedTable);
 
+        // The percentiles of the sampled GoSleep calls, all of which slept 3 seconds
+        final String goSleep = "org.voltdb_testprocs.regressionsuites.malicious.GoSleep";
+        for (long percentile : procedureWidePercentiles(results[0], goSleep)) {
+            assertTrue("Failed percentile > 2,400,000,000ns, value was: " + percentile,
+                       percentile > 2400000000L);
+        }
+        // The interval started with the interval poll before the calls, so it holds the same samples
+        results = client.callProcedure("@Statistics", "proceduredetail", 1).getResults();
+        for (long percentile : procedureWidePercentiles(results[0], goSleep)) {
+            assertTrue("Failed interval percentile > 2,400,000,000ns, value was: " + percentile,
+                       percentile > 2400000000L);
+        }
+        // Every 20th invocation is timed, so these calls add at least one short sample.
+        // The next interval holds only those, the cumulative percentiles keep the long sleeps.
+        for (int ii = 0; ii < 40; ii++) {
+            client.callProcedure("GoSleep", 0, 0, null);
+        }
+        results = client.callProcedure("@Statistics", "proceduredetail", 1).getResults();
+        for (long percentile : procedureWidePercentiles(results[0], goSleep)) {
+            assertTrue("Failed 0 < interval percentile < 2,400,000,000ns, value was: " + percentile,
+                       percentile > 0 && percentile < 2400000000L);
+        }
+        results = client.callProcedure("@Statistics", "proceduredetail", 0).getResults();
+        long[] percentiles = procedureWidePercentiles(results[0], goSleep);
+        assertTrue("Failed P99.9_EXECUTION_TIME > 2,400,000,000ns, value was: " + percentiles[3],
+                   percentiles[3] > 2400000000L);
+
         // Validate the PROCEDUREPROFILE aggregation.
         results = client.callProcedure("@Statistics", "procedureprofile", 1).getResults();
         System.out.println("\n\n\n" + results[0].toString() + "\n\n\n");
@@ -354,6 +385,27 @@ public class TestStatisticsSuiteDatabaseElementStats extends StatisticsTestSuite
         }
     }
 
+    // P50, P95, P99 and P99.9 execution times of a procedure, the highest of its procedure wide
+    // rows. Multi-partition reads may run on any of the MPI's read sites, each with its own row.
+    private static long[] procedureWidePercentiles(VoltTable table, String procedure) {
+        final String[] columns = { "P50_EXECUTION_TIME", "P95_EXECUTION_TIME",
+                                   "P99_EXECUTION_TIME", "P99.9_EXECUTION_TIME" };
+        long[] percentiles = null;
+        table.resetRowPosition();
+        while (table.advanceRow()) {
+            if (procedure.equals(table.getString("PROCEDURE")) && "<ALL>".equals(table.getString("STATEMENT"))) {
+                if (percentiles == null) {
+                    percentiles = new long[columns.length];
+                }
+                for (int ii = 0; ii < columns.length; ii++) {
+                    percentiles[ii] = Math.max(percentiles[ii], table.getLong(columns[ii]));
+                }
+            }
+        }
+        assertNotNull("No procedure wide row for " + procedure + " in " + table, percentiles);
+        return percentiles;
+    }
+
     //
     // Build a list of the tests to be run. Use the regression suite
     // helpers to allow multiple backends.
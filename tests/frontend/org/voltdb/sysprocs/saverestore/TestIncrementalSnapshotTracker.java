@@ -0,0 +1,154 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.sysprocs.saverestore;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json_voltpatches.JSONObject;
+import org.voltdb.SnapshotFormat;
+import org.voltdb.catalog.Catalog;
+import org.voltdb.catalog.Database;
+import org.voltdb.catalog.Table;
+import org.voltdb.sysprocs.SnapshotRegistry;
+
+import com.google_voltpatches.common.collect.ImmutableMap;
+
+import junit.framework.TestCase;
+
+public class TestIncrementalSnapshotTracker extends TestCase
+{
+    private static final String PATH = "/tmp/snapshots";
+    private static final long CATALOG_CRC = 1234;
+    private static final int PARTITION_COUNT = 2;
+
+    private final Table[] m_tables = new Table[] { table("REPLICATED", 0, true), table("PARTITIONED", 1, false) };
+
+    private static Table table(String name, int relativeIndex, boolean replicated)
+    {
+        Table table = mock(Table.class);
+        doReturn(name).when(table).getTypeName();
+        doReturn(relativeIndex).when(table).getRelativeIndex();
+        doReturn(replicated).when(table).getIsreplicated();
+        return table;
+    }
+
+    @Override
+    public void setUp()
+    {
+        IncrementalSnapshotTracker.clear();
+        SnapshotRegistry.clear();
+    }
+
+    private IncrementalSnapshotTracker.Generation start(String nonce, long txnId, long catalogCRC,
+            Map<Integer, Long> partition0, Map<Integer, Long> partition1)
+    {
+        IncrementalSnapshotTracker.recordSiteChanges(0, partition0);
+        IncrementalSnapshotTracker.recordSiteChanges(1, partition1);
+        return IncrementalSnapshotTracker.startSnapshot(
+                PATH, nonce, txnId, 0, catalogCRC, PARTITION_COUNT, null, m_tables, true);
+    }
+
+    private void finish(String nonce, long txnId, boolean succeed)
+    {
+        SnapshotRegistry.Snapshot record =
+                SnapshotRegistry.startSnapshot(txnId, 0, PATH, nonce, SnapshotFormat.NATIVE, m_tables);
+        if (!succeed) {
+            record.updateTable("PARTITIONED",
+                    registryTable -> record.new Table(registryTable, 0, new Exception("failed")));
+        }
+        IncrementalSnapshotTracker.snapshotFinished(SnapshotRegistry.finishSnapshot(record));
+    }
+
+    public void testUnchangedTables()
+    {
+        assertNull(IncrementalSnapshotTracker.getBase(
+                start("first", 10, CATALOG_CRC, ImmutableMap.of(0, 1L, 1, 2L), ImmutableMap.of(0, 1L, 1, 3L))));
+        finish("first", 10, true);
+
+        // Only the partitioned table changed at one partition
+        IncrementalSnapshotTracker.Generation second =
+                start("second", 20, CATALOG_CRC, ImmutableMap.of(0, 1L, 1, 2L), ImmutableMap.of(0, 1L, 1, 15L));
+        IncrementalSnapshotTracker.Generation base = IncrementalSnapshotTracker.getBase(second);
+        assertNotNull(base);
+        assertEquals("first", base.m_nonce);
+        List<String> unchanged = base.unchangedTables(second);
+        assertEquals(1, unchanged.size());
+        assertEquals("REPLICATED", unchanged.get(0));
+        finish("second", 20, true);
+
+        // The second snapshot is the base of the third
+        IncrementalSnapshotTracker.Generation third =
+                start("third", 30, CATALOG_CRC, ImmutableMap.of(0, 1L, 1, 2L), ImmutableMap.of(0, 1L, 1, 15L));
+        base = IncrementalSnapshotTracker.getBase(third);
+        assertEquals("second", base.m_nonce);
+        assertEquals(2, base.unchangedTables(third).size());
+    }
+
+    public void testFailedSnapshotIsNotBase()
+    {
+        start("first", 10, CATALOG_CRC, ImmutableMap.of(0, 1L, 1, 2L), ImmutableMap.of(0, 1L, 1, 3L));
+        finish("first", 10, true);
+        start("second", 20, CATALOG_CRC, ImmutableMap.of(0, 1L, 1, 2L), ImmutableMap.of(0, 1L, 1, 3L));
+        finish("second", 20, false);
+        IncrementalSnapshotTracker.Generation third =
+                start("third", 30, CATALOG_CRC, ImmutableMap.of(0, 1L, 1, 2L), ImmutableMap.of(0, 1L, 1, 3L));
+        assertEquals("first", IncrementalSnapshotTracker.getBase(third).m_nonce);
+    }
+
+    public void testCatalogChangeResetsBase()
+    {
+        start("first", 10, CATALOG_CRC, ImmutableMap.of(0, 1L, 1, 2L), ImmutableMap.of(0, 1L, 1, 3L));
+        finish("first", 10, true);
+        IncrementalSnapshotTracker.Generation second =
+                start("second", 20, CATALOG_CRC + 1, ImmutableMap.of(0, 1L, 1, 2L), ImmutableMap.of(0, 1L, 1, 3L));
+        assertNull(IncrementalSnapshotTracker.getBase(second));
+    }
+
+    public void testMissingTableIsNeverUnchanged()
+    {
+        start("first", 10, CATALOG_CRC, ImmutableMap.of(0, 1L, 1, 2L), ImmutableMap.of(0, 1L, 1, 3L));
+        finish("first", 10, true);
+        Map<Integer, Long> partition1 = new HashMap<>();
+        partition1.put(0, 1L);
+        IncrementalSnapshotTracker.Generation second =
+                start("second", 20, CATALOG_CRC, ImmutableMap.of(0, 1L, 1, 2L), partition1);
+        List<String> unchanged = IncrementalSnapshotTracker.getBase(second).unchangedTables(second);
+        assertEquals(1, unchanged.size());
+        assertEquals("REPLICATED", unchanged.get(0));
+    }
+
+    public void testIncrementalRequest() throws Exception
+    {
+        Database database = new Catalog().getClusters().add("cluster").getDatabases().add("database");
+        JSONObject jsData = new JSONObject();
+        jsData.put(SnapshotUtil.JSON_INCREMENTAL, true);
+        assertTrue(new SnapshotRequestConfig(jsData, database).incremental);
+        assertFalse(new SnapshotRequestConfig(new JSONObject(), database).incremental);
+    }
+}
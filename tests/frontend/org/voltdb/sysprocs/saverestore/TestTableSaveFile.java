@@ -40,6 +40,7 @@ import org.voltdb.VoltTable;
 import org.voltdb.VoltTable.ColumnInfo;
 import org.voltdb.VoltType;
 import org.voltdb.messaging.FastSerializer;
+import org.voltdb.utils.CompressionCodec;
 
 import com.google_voltpatches.common.util.concurrent.Callables;
 
@@ -101,6 +102,11 @@ public class TestTableSaveFile extends TestCase {
 
     private Pair<VoltTable, File> generateTestTable(int numberOfItems)
             throws Exception {
+        return generateTestTable(numberOfItems, CompressionCodec.SNAPPY);
+    }
+
+    private Pair<VoltTable, File> generateTestTable(int numberOfItems, CompressionCodec codec)
+            throws Exception {
         VoltTable.ColumnInfo columnInfo[] = new VoltTable.ColumnInfo[] {
                 new ColumnInfo("RT_ID", VoltType.INTEGER),
                 new ColumnInfo("RT_NAME", VoltType.STRING),
@@ -118,7 +124,7 @@ public class TestTableSaveFile extends TestCase {
         DefaultSnapshotDataTarget dsdt = new DefaultSnapshotDataTarget(f,
                 HOST_ID, CLUSTER_NAME, DATABASE_NAME, TABLE_NAME,
                 TOTAL_PARTITIONS, false, partIds, table,
-                TXN_ID, TIMESTAMP, VERSION2);
+                TXN_ID, TIMESTAMP, VERSION2, codec);
 
         VoltTable currentChunkTable = new VoltTable(columnInfo,
                 columnInfo.length);
@@ -267,6 +273,29 @@ public class TestTableSaveFile extends TestCase {
         }
     }
 
+    public void testFullTableWithEachCodec() throws Exception {
+        System.out.println("Running testFullTableWithEachCodec");
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            Pair<VoltTable, File> generated = generateTestTable(1000, codec);
+            VoltTable table = generated.getFirst();
+            File f = generated.getSecond();
+
+            FileInputStream fis = new FileInputStream(f);
+            savefile = new TableSaveFile(fis, 3, null);
+            assertEquals(codec, savefile.getCompressionCodec());
+
+            BBContainer c = savefile.getNextChunk();
+            try {
+                VoltTable test_table = PrivateVoltTableFactory.createVoltTableFromBuffer(c.b(), false);
+                assertEquals(table, test_table);
+            } finally {
+                c.discard();
+            }
+            savefile.close();
+            savefile = null;
+        }
+    }
+
     public void testChunkTable() throws Exception {
         System.out.println("Running testChunkTable");
         Pair<VoltTable, File> generated = generateTestTable(100000);
@@ -305,4 +334,66 @@ public class TestTableSaveFile extends TestCase {
             savefile.close();
         }
     }
+
+    public void testRelevantPartitionChunks() throws Exception {
+        System.out.println("Running testRelevantPartitionChunks");
+        File f = generateTestTable(10000).getSecond();
+
+        savefile = new TableSaveFile(new FileInputStream(f), 3, new Integer[] { 2, 7 });
+        int expectedPartitionIds[] = { 2, 7 };
+        int chunks = 0;
+        while (savefile.hasMoreChunks()) {
+            final BBContainer c = savefile.getNextChunk();
+            if (c == null) {
+                break;
+            }
+            try {
+                assertEquals(expectedPartitionIds[chunks++], ((TableSaveFile.Container)c).partitionId);
+                assertEquals(1000, PrivateVoltTableFactory.createVoltTableFromBuffer(c.b(), false).getRowCount());
+            } finally {
+                c.discard();
+            }
+        }
+        assertEquals(2, chunks);
+    }
+
+    public void testChunkTableQueue() throws Exception {
+        System.out.println("Running testChunkTableQueue");
+        final int files = 5;
+        final int rowsPerFile = 20000;
+        for (int concurrency : new int[] { 1, 2, files }) {
+            TableSaveFileQueue queue = new TableSaveFileQueue(concurrency);
+            try {
+                for (int ii = 0; ii < files; ii++) {
+                    File f = generateTestTable(rowsPerFile).getSecond();
+                    queue.offer(new TableSaveFile(new FileInputStream(f), 2, null));
+                }
+                queue.startReading();
+
+                long rows = 0;
+                long idSum = 0;
+                while (queue.hasMoreChunks()) {
+                    final BBContainer c = queue.getNextChunk();
+                    if (c == null) {
+                        break;
+                    }
+                    try {
+                        VoltTable chunk = PrivateVoltTableFactory.createVoltTableFromBuffer(c.b(), false);
+                        while (chunk.advanceRow()) {
+                            rows++;
+                            idSum += chunk.getLong(0);
+                        }
+                    } finally {
+                        c.discard();
+                    }
+                }
+                assertEquals(files * rowsPerFile, rows);
+                assertEquals(files * ((long) rowsPerFile * (rowsPerFile - 1) / 2), idSum);
+                assertTrue(queue.isEmpty());
+                assertNull(queue.getNextChunk());
+            } finally {
+                queue.closeAll();
+            }
+        }
+    }
 }
@@ -0,0 +1,165 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.utils;
+
+import java.io.FileInputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.SnapshotSiteProcessor;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+import org.voltdb.messaging.FastSerializer;
+import org.voltdb.sysprocs.saverestore.TableSaveFile;
+import org.voltdb.types.TimestampType;
+
+/**
+ * Compares compression ratio and throughput of each {@link CompressionCodec} on
+ * snapshot sized blocks of tuple data. By default the blocks are TPC-C CUSTOMER
+ * rows serialized the way the EE hands them to snapshot targets. Set
+ * -Dsnapshot.file=/path/to/table.vpt to use the chunks of a real snapshot file.
+ * Run it with main(); it is not a unit test.
+ */
+public class CompressionCodecBenchmark {
+
+    static final int ITERATIONS = Integer.getInteger("iterations", 20);
+
+    private static List<ByteBuffer> syntheticBlocks() throws Exception {
+        final String words[] = { "BAR", "OUGHT", "ABLE", "PRI", "PRES", "ESE", "ANTI", "CALLY", "ATION", "EING" };
+        final Random r = new Random(0);
+        List<ByteBuffer> blocks = new ArrayList<>();
+        for (int block = 0; block < 4; block++) {
+            VoltTable t = new VoltTable(
+                    new ColumnInfo("C_ID", VoltType.INTEGER),
+                    new ColumnInfo("C_D_ID", VoltType.TINYINT),
+                    new ColumnInfo("C_W_ID", VoltType.SMALLINT),
+                    new ColumnInfo("C_FIRST", VoltType.STRING),
+                    new ColumnInfo("C_LAST", VoltType.STRING),
+                    new ColumnInfo("C_STREET", VoltType.STRING),
+                    new ColumnInfo("C_SINCE", VoltType.TIMESTAMP),
+                    new ColumnInfo("C_BALANCE", VoltType.DECIMAL),
+                    new ColumnInfo("C_DATA", VoltType.STRING));
+            int id = 0;
+            while (t.getSerializedSize() < SnapshotSiteProcessor.m_snapshotBufferLength - 4096) {
+                StringBuilder data = new StringBuilder();
+                while (data.length() < 300) {
+                    data.append(Long.toString(r.nextLong(), 36));
+                }
+                t.addRow(id++, (byte)r.nextInt(10), (short)block,
+                        Long.toString(r.nextLong() & 0xffffffL, 36),
+                        words[r.nextInt(10)] + words[r.nextInt(10)] + words[r.nextInt(10)],
+                        r.nextInt(1000) + " " + words[r.nextInt(10)] + " STREET",
+                        new TimestampType(1500000000000000L + r.nextInt(1000000)),
+                        new BigDecimal(r.nextInt(100000)).movePointLeft(2),
+                        data.toString());
+            }
+            FastSerializer fs = new FastSerializer();
+            fs.writeTable(t);
+            BBContainer c = fs.getBBContainer();
+            ByteBuffer b = c.b();
+            b.getInt();
+            int headerLength = b.getInt();
+            // Snapshot blocks are just the row count and the tuples
+            b.position(b.position() + headerLength);
+            ByteBuffer tuples = ByteBuffer.allocateDirect(b.remaining());
+            tuples.put(b).flip();
+            c.discard();
+            blocks.add(tuples);
+        }
+        return blocks;
+    }
+
+    private static List<ByteBuffer> snapshotFileBlocks(String path) throws Exception {
+        List<ByteBuffer> blocks = new ArrayList<>();
+        try (FileInputStream fis = new FileInputStream(path)) {
+            TableSaveFile saveFile = new TableSaveFile(fis, 1, null);
+            try {
+                while (saveFile.hasMoreChunks() && blocks.size() < 16) {
+                    BBContainer c = saveFile.getNextChunk();
+                    if (c == null) {
+                        break;
+                    }
+                    ByteBuffer block = ByteBuffer.allocateDirect(c.b().remaining());
+                    block.put(c.b()).flip();
+                    c.discard();
+                    blocks.add(block);
+                }
+            } finally {
+                saveFile.close();
+            }
+        }
+        return blocks;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final String file = System.getProperty("snapshot.file");
+        final List<ByteBuffer> blocks = file == null ? syntheticBlocks() : snapshotFileBlocks(file);
+        long rawBytes = 0;
+        int maxBlock = 0;
+        for (ByteBuffer block : blocks) {
+            rawBytes += block.remaining();
+            maxBlock = Math.max(maxBlock, block.remaining());
+        }
+        System.out.printf("%d blocks, %.1f MB, %d iterations%n", blocks.size(), rawBytes / (1024.0 * 1024.0), ITERATIONS);
+
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            ByteBuffer compressed = ByteBuffer.allocateDirect(codec.maxCompressedLength(maxBlock));
+            ByteBuffer uncompressed = ByteBuffer.allocateDirect(maxBlock);
+            long compressedBytes = 0;
+            long compressNanos = 0;
+            long uncompressNanos = 0;
+            // first pass warms up the codec and is not counted
+            for (int ii = 0; ii <= ITERATIONS; ii++) {
+                for (ByteBuffer block : blocks) {
+                    compressed.clear();
+                    long start = System.nanoTime();
+                    int length = codec.compress(block, compressed);
+                    long compressedAt = System.nanoTime();
+                    uncompressed.clear();
+                    codec.uncompress(compressed, uncompressed);
+                    long end = System.nanoTime();
+                    if (!block.equals(uncompressed)) {
+                        throw new AssertionError(codec + " did not restore the block");
+                    }
+                    if (ii > 0) {
+                        compressedBytes += length;
+                        compressNanos += compressedAt - start;
+                        uncompressNanos += end - compressedAt;
+                    }
+                }
+            }
+            final double megabytes = (rawBytes * (double)ITERATIONS) / (1024 * 1024);
+            System.out.printf("%-7s ratio %5.2f  compress %8.1f MB/s  decompress %8.1f MB/s%n",
+                    codec,
+                    (rawBytes * (double)ITERATIONS) / compressedBytes,
+                    megabytes / (compressNanos / 1000000000.0),
+                    megabytes / (uncompressNanos / 1000000000.0));
+        }
+    }
+}
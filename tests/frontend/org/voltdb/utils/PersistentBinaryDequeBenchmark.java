@@ -0,0 +1,122 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2019 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.DBBPool.BBContainer;
+
+/**
+ * One writer offers buffers to a PersistentBinaryDeque while 1, 2 and 4 cursors
+ * poll them concurrently, and prints the offer and poll throughput. Cursors
+ * reading sealed segments do not hold the deque monitor so poll throughput
+ * should scale with the number of cursors, and the writer does not hold it
+ * while writing an entry so offer throughput should not drop as cursors are
+ * added. Run it with main(); it is not a unit test.
+ */
+public class PersistentBinaryDequeBenchmark {
+
+    private static final VoltLogger LOG = new VoltLogger("HOST");
+
+    static final int ENTRY_SIZE = 64 * 1024;
+    // Enough entries to span several segments
+    static final int ENTRIES = 4096;
+    static final int ROUNDS = 3;
+
+    private static void run(int numCursors) throws Exception {
+        final ByteBuffer entry = ByteBuffer.allocateDirect(ENTRY_SIZE);
+        while (entry.hasRemaining()) {
+            entry.putLong(entry.position());
+        }
+        entry.clear();
+        long bestOfferNanos = Long.MAX_VALUE;
+        long bestPollNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            TestPersistentBinaryDeque.setupTestDir();
+            final PersistentBinaryDeque pbd = new PersistentBinaryDeque(TestPersistentBinaryDeque.TEST_NONCE, null,
+                    TestPersistentBinaryDeque.TEST_DIR, LOG);
+            final List<BinaryDequeReader> cursors = new ArrayList<>();
+            for (int i = 0; i < numCursors; i++) {
+                cursors.add(pbd.openForRead("cursor" + i));
+            }
+            final CyclicBarrier start = new CyclicBarrier(numCursors + 1);
+            ExecutorService es = Executors.newFixedThreadPool(numCursors + 1);
+            try {
+                Future<Long> offer = es.submit(() -> {
+                    start.await();
+                    final long begin = System.nanoTime();
+                    for (int i = 0; i < ENTRIES; i++) {
+                        // The deque discards what is offered so don't let it free the shared entry
+                        pbd.offer(new BBContainer(entry.duplicate()) {});
+                    }
+                    return System.nanoTime() - begin;
+                });
+                List<Future<Long>> polls = new ArrayList<>();
+                for (final BinaryDequeReader cursor : cursors) {
+                    polls.add(es.submit(() -> {
+                        start.await();
+                        final long begin = System.nanoTime();
+                        for (int read = 0; read < ENTRIES;) {
+                            BBContainer cont = cursor.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+                            if (cont == null) {
+                                Thread.yield();
+                                continue;
+                            }
+                            cont.discard();
+                            read++;
+                        }
+                        return System.nanoTime() - begin;
+                    }));
+                }
+                bestOfferNanos = Math.min(bestOfferNanos, offer.get());
+                long slowestPoll = 0;
+                for (Future<Long> poll : polls) {
+                    slowestPoll = Math.max(slowestPoll, poll.get());
+                }
+                bestPollNanos = Math.min(bestPollNanos, slowestPoll);
+            } finally {
+                es.shutdownNow();
+                pbd.closeAndDelete();
+                TestPersistentBinaryDeque.tearDownTestDir();
+            }
+        }
+        final double mb = (double) ENTRIES * ENTRY_SIZE / (1024 * 1024);
+        System.out.printf("cursors=%d: offer %8.1f MB/s, poll %8.1f MB/s per cursor, %8.1f MB/s total\n",
+                numCursors, mb / (bestOfferNanos / 1e9), mb / (bestPollNanos / 1e9),
+                numCursors * mb / (bestPollNanos / 1e9));
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int numCursors : new int[] { 1, 2, 4 }) {
+            run(numCursors);
+        }
+    }
+}
@@ -507,6 +507,40 @@ public class TestCatalogUtil extends TestCase {
         assertEquals(200, sysset.getQuerytimeout());
     }
 
+    public void testSystemSettingsSnapshotCompression() throws Exception
+    {
+        final String depOff =
+            "<?xml version='1.0' encoding='UTF-8' standalone='no'?>" +
+            "<deployment>" +
+            "   <cluster hostcount='3' kfactor='1' sitesperhost='2'/>" +
+            "   <paths><voltdbroot path=\"/tmp/" + System.getProperty("user.name") + "\" /></paths>" +
+            "</deployment>";
+
+        final String depOn =
+            "<?xml version='1.0' encoding='UTF-8' standalone='no'?>" +
+            "<deployment>" +
+            "   <cluster hostcount='3' kfactor='1' sitesperhost='2'/>" +
+            "   <paths><voltdbroot path=\"/tmp/" + System.getProperty("user.name") + "\" /></paths>" +
+            "   <systemsettings>" +
+            "      <snapshot priority=\"6\" compression=\"lz4\"/>" +
+            "   </systemsettings>" +
+            "</deployment>";
+
+        final File tmpDepOff = VoltProjectBuilder.writeStringToTempFile(depOff);
+        String msg = CatalogUtil.compileDeployment(catalog, tmpDepOff.getPath(), false);
+        assertTrue(msg == null);
+        Systemsettings sysset = catalog.getClusters().get("cluster").getDeployment().get("deployment").getSystemsettings().get("systemsettings");
+        assertEquals("snappy", sysset.getSnapshotcompression());
+
+        setUp();
+        final File tmpDepOn = VoltProjectBuilder.writeStringToTempFile(depOn);
+        msg = CatalogUtil.compileDeployment(catalog, tmpDepOn.getPath(), false);
+        assertTrue(msg == null);
+        sysset = catalog.getClusters().get("cluster").getDeployment().get("deployment").getSystemsettings().get("systemsettings");
+        assertEquals("lz4", sysset.getSnapshotcompression());
+        assertEquals(CompressionCodec.LZ4, CompressionCodec.fromName(sysset.getSnapshotcompression()));
+    }
+
 
     // XXX Need to add command log paths here when command logging
     // gets tweaked to create directories if they don't exist
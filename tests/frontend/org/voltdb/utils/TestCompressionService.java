@@ -24,6 +24,8 @@
 package org.voltdb.utils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
 
@@ -47,4 +49,55 @@ public class TestCompressionService extends TestCase {
 
         assertEquals(someText, result);
     }
+
+    public void testCodecRoundTrip() throws IOException {
+        byte someBytes[] = TPCCProjectBuilder.getTPCCSchemaCatalog().serialize().getBytes("UTF-8");
+        ByteBuffer input = ByteBuffer.allocateDirect(someBytes.length);
+        input.put(someBytes).flip();
+
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            ByteBuffer compressed = ByteBuffer.allocateDirect(codec.maxCompressedLength(someBytes.length) + 8);
+            // Leave room in front the way snapshot chunks do for their headers
+            compressed.position(8);
+            int compressedLength = codec.compress(input, compressed);
+            assertEquals(0, input.position());
+            assertEquals(8, compressed.position());
+            assertEquals(8 + compressedLength, compressed.limit());
+            if (codec != CompressionCodec.NONE) {
+                assertTrue(codec + " did not compress", compressedLength < someBytes.length);
+            }
+
+            assertEquals(someBytes.length, codec.uncompressedLength(compressed));
+            ByteBuffer output = ByteBuffer.allocateDirect(someBytes.length + 4);
+            output.position(4);
+            assertEquals(someBytes.length, codec.uncompress(compressed, output));
+            assertEquals(4, output.position());
+            assertEquals(4 + someBytes.length, output.limit());
+            byte result[] = new byte[someBytes.length];
+            output.get(result);
+            assertTrue(codec + " round trip", Arrays.equals(someBytes, result));
+        }
+    }
+
+    public void testCorruptLZ4Block() throws IOException {
+        byte someBytes[] = TPCCProjectBuilder.getTPCCSchemaCatalog().serialize().getBytes("UTF-8");
+        ByteBuffer input = ByteBuffer.allocateDirect(someBytes.length);
+        input.put(someBytes).flip();
+        ByteBuffer compressed = ByteBuffer.allocateDirect(CompressionCodec.LZ4.maxCompressedLength(someBytes.length));
+        CompressionCodec.LZ4.compress(input, compressed);
+        // Truncate the block, the decompressor must not read past it or return garbage
+        compressed.limit(compressed.limit() / 2);
+        try {
+            CompressionCodec.LZ4.uncompress(compressed, ByteBuffer.allocateDirect(someBytes.length));
+            fail("Expected a corrupt block");
+        } catch (IOException expected) {
+        }
+    }
+
+    public void testCodecFromName() {
+        assertEquals(CompressionCodec.SNAPPY, CompressionCodec.fromName(null));
+        assertEquals(CompressionCodec.SNAPPY, CompressionCodec.fromName(""));
+        assertEquals(CompressionCodec.LZ4HC, CompressionCodec.fromName("lz4hc"));
+        assertEquals(CompressionCodec.NONE, CompressionCodec.fromName("NONE"));
+    }
 }
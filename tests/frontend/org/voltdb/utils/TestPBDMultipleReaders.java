@@ -29,6 +29,12 @@ import static org.junit.Assert.assertTrue;
 import static org.voltdb.utils.TestPersistentBinaryDeque.SEGMENT_FILL_COUNT;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -190,6 +196,56 @@ public class TestPBDMultipleReaders {
         assertEquals(1, m_pbd.numberOfSegments());
     }
 
+    @Test
+    public void testConcurrentReadersAndWriter() throws Exception {
+        final int numBuffers = SEGMENT_FILL_COUNT * 2 + 10;
+        final int numReaders = 3;
+        final BinaryDequeReader[] readers = new BinaryDequeReader[numReaders];
+        for (int i=0; i<numReaders; i++) {
+            readers[i] = m_pbd.openForRead("reader" + i);
+        }
+
+        ExecutorService es = Executors.newFixedThreadPool(numReaders + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(es.submit(() -> {
+                for (int i=0; i<numBuffers; i++) {
+                    m_pbd.offer(DBBPool.wrapBB(TestPersistentBinaryDeque.getFilledBuffer(i)));
+                }
+                return null;
+            }));
+            for (final BinaryDequeReader reader : readers) {
+                futures.add(es.submit(() -> {
+                    // Every reader sees every buffer in order while segments are written and deleted
+                    for (int i=0; i<numBuffers;) {
+                        BBContainer bbC = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+                        if (bbC == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        try {
+                            assertEquals(i++, bbC.b().getLong(0));
+                        } finally {
+                            bbC.discard();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            es.shutdownNow();
+        }
+
+        for (BinaryDequeReader reader : readers) {
+            assertNull(reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY));
+            assertEquals(0, reader.getNumObjects());
+        }
+        assertEquals(1, m_pbd.numberOfSegments());
+    }
+
     @Before
     public void setUp() throws Exception {
         TestPersistentBinaryDeque.setupTestDir();
@@ -39,6 +39,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.After;
 import org.junit.Before;
@@ -55,6 +61,7 @@ import org.voltdb.VoltType;
 import org.voltdb.catalog.Table;
 import org.voltdb.export.ExportDataSource.StreamTableSchemaSerializer;
 import org.voltdb.utils.BinaryDeque.BinaryDequeTruncator;
+import org.voltdb.utils.BinaryDeque.OutputContainerFactory;
 import org.voltdb.utils.BinaryDeque.TruncatorResponse;
 
 import com.google_voltpatches.common.collect.Sets;
@@ -619,6 +626,42 @@ public class TestPersistentBinaryDeque {
         pollOnce(reader);
     }
 
+    @Test
+    public void testMappedReadsOfSealedSegments() throws Exception {
+        System.out.println("Running testMappedReadsOfSealedSegments");
+        final boolean mmapReads = PBDRegularSegment.MMAP_READS;
+        final int windowBytes = PBDRegularSegment.MMAP_WINDOW_BYTES;
+        PBDRegularSegment.MMAP_READS = true;
+        // Smaller than an entry so that every entry needs a window of its own
+        PBDRegularSegment.MMAP_WINDOW_BYTES = 1024 * 1024;
+        try {
+            // Compressed entries are decompressed from the mapped window
+            offerAndPollSegments(m_pbd);
+            m_pbd.close();
+            setupTestDir();
+
+            // Uncompressed entries are slices of the mapped window
+            m_pbd = new PersistentBinaryDeque(TEST_NONCE, m_ds, TEST_DIR, logger);
+            offerAndPollSegments(m_pbd);
+        } finally {
+            PBDRegularSegment.MMAP_READS = mmapReads;
+            PBDRegularSegment.MMAP_WINDOW_BYTES = windowBytes;
+        }
+    }
+
+    private static void offerAndPollSegments(PersistentBinaryDeque pbd) throws IOException {
+        BinaryDequeReader reader = pbd.openForRead(CURSOR_ID);
+        final int total = SEGMENT_FILL_COUNT * 2 + 5;
+        for (int i = 0; i < total; i++) {
+            pbd.offer(DBBPool.wrapBB(getFilledBuffer(i)));
+        }
+        for (int i = 0; i < total; i++) {
+            pollOnceAndVerify(reader, getFilledBuffer(i));
+        }
+        assertNull(reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY));
+        assertEquals(1, pbd.numberOfSegments());
+    }
+
     @Test
     public void testCloseOldSegments() throws Exception {
         System.out.println("Running testCloseOldSegments");
@@ -1246,6 +1289,129 @@ public class TestPersistentBinaryDeque {
         }
     }
 
+    @Test
+    public void testCloseDuringSealedSegmentRead() throws Exception {
+        System.out.println("Running testCloseDuringSealedSegmentRead");
+        closeDuringSealedSegmentRead(false);
+    }
+
+    @Test
+    public void testCloseCursorDuringSealedSegmentRead() throws Exception {
+        System.out.println("Running testCloseCursorDuringSealedSegmentRead");
+        closeDuringSealedSegmentRead(true);
+    }
+
+    /*
+     * Hold a cursor in the middle of reading a sealed segment, which happens outside of the deque monitor, and
+     * make sure that closing the cursor or the PBD waits for the read instead of closing the segment under it.
+     */
+    private void closeDuringSealedSegmentRead(boolean closeCursor) throws Exception {
+        // Uncompressed entries are read from the file after their container is allocated
+        m_pbd.close();
+        m_pbd = new PersistentBinaryDeque(TEST_NONCE, m_ds, TEST_DIR, logger);
+        BinaryDequeReader reader = m_pbd.openForRead(CURSOR_ID);
+        for (int i = 0; i <= SEGMENT_FILL_COUNT; i++) {
+            m_pbd.offer(DBBPool.wrapBB(getFilledBuffer(i)));
+        }
+        assertEquals(2, m_pbd.numberOfSegments());
+
+        BlockingContainerFactory factory = new BlockingContainerFactory();
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            Future<BBContainer> read = es.submit(() -> reader.poll(factory));
+            assertTrue(factory.m_reading.await(10, TimeUnit.SECONDS));
+
+            Future<?> close = es.submit(() -> {
+                if (closeCursor) {
+                    m_pbd.closeCursor(CURSOR_ID);
+                } else {
+                    m_pbd.close();
+                }
+                return null;
+            });
+            try {
+                close.get(200, TimeUnit.MILLISECONDS);
+                fail("Closed while a read was in progress");
+            } catch (TimeoutException expected) {}
+
+            factory.m_release.countDown();
+            BBContainer cont = read.get(10, TimeUnit.SECONDS);
+            try {
+                assertEquals(getFilledBuffer(0), cont.b());
+            } finally {
+                cont.discard();
+            }
+            close.get(10, TimeUnit.SECONDS);
+        } finally {
+            factory.m_release.countDown();
+            es.shutdownNow();
+        }
+
+        try {
+            reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+            fail("Polled a closed reader");
+        } catch (IOException expected) {}
+    }
+
+    /*
+     * Entries are written to the tail segment outside of the deque monitor while a cursor reads the tail under it.
+     * The cursor must only see whole entries, in order, across segment rollovers.
+     */
+    @Test
+    public void testPollTailDuringOffer() throws Exception {
+        System.out.println("Running testPollTailDuringOffer");
+        final int entries = SEGMENT_FILL_COUNT * 3;
+        BinaryDequeReader reader = m_pbd.openForRead(CURSOR_ID);
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> offer = es.submit(() -> {
+                for (int i = 0; i < entries; i++) {
+                    m_pbd.offer(DBBPool.wrapBB(getFilledBuffer(i)));
+                }
+                return null;
+            });
+            Future<?> poll = es.submit(() -> {
+                for (int read = 0; read < entries;) {
+                    BBContainer cont = reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY);
+                    if (cont == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    try {
+                        assertEquals(getFilledBuffer(read), cont.b());
+                    } finally {
+                        cont.discard();
+                    }
+                    read++;
+                }
+                return null;
+            });
+            offer.get(60, TimeUnit.SECONDS);
+            poll.get(60, TimeUnit.SECONDS);
+        } finally {
+            es.shutdownNow();
+        }
+        assertNull(reader.poll(PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY));
+        assertEquals(0, reader.getNumObjects());
+    }
+
+    // Hands out containers once it is released, keeping the read which asked for one in progress until then
+    private static class BlockingContainerFactory implements OutputContainerFactory {
+        final CountDownLatch m_reading = new CountDownLatch(1);
+        final CountDownLatch m_release = new CountDownLatch(1);
+
+        @Override
+        public BBContainer getContainer(int minimumSize) {
+            m_reading.countDown();
+            try {
+                m_release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return PersistentBinaryDeque.UNSAFE_CONTAINER_FACTORY.getContainer(minimumSize);
+        }
+    }
+
     static BBContainer pollOnceWithoutDiscard(BinaryDequeReader reader) throws IOException {
         BBContainer schema = null;
         try {